@@ -16,9 +16,12 @@ import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.err.InvalidLoggingLevelException;
 import com.pekinsoft.loadmaster.sys.AppProperties;
 import com.pekinsoft.loadmaster.sys.ArgumentParser;
+import com.pekinsoft.loadmaster.sys.HeadlessRunner;
 import com.pekinsoft.loadmaster.sys.Logger;
+import com.pekinsoft.loadmaster.sys.UnitOfWork;
 import com.pekinsoft.loadmaster.sys.VersionCalculator;
 import com.pekinsoft.loadmaster.view.LoadMaster;
+import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import javax.swing.JFrame;
@@ -69,6 +72,36 @@ public class Starter {
         params = new ArgumentParser(args);        
         version = new VersionCalculator();
         
+        // Finish any booking or other unit of work that was stopped part way
+        //+ through being saved, before a table is read.
+        try {
+            UnitOfWork.recover();
+        } catch ( IOException ex ) {
+            record.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "An unfinished commit could not be recovered.");
+            record.setThrown(ex);
+            logger.error(record);
+            record.setThrown(null);
+        }
+        
+        // Headless mode runs a single maintenance or reporting command and
+        //+ exits, without ever touching AWT, so it can be run from cron on a
+        //+ machine that has no display.
+        if ( params.isSwitchPresent(HeadlessRunner.SWITCH) ) {
+            System.setProperty("java.awt.headless", "true");
+            
+            if ( !params.isSwitchPresent("--debugging") 
+                    && !params.isSwitchPresent("-d") ) {
+                try {
+                    logger.setLevel(Logger.WARN);
+                } catch ( InvalidLoggingLevelException ex ) {
+                    System.err.println(ex.getMessage());
+                }
+            }
+            
+            exit(new HeadlessRunner(params).run());
+        }
+        
         setUI();
 
         // Let's show the only window in the application.
@@ -94,28 +127,32 @@ public class Starter {
         // Perform all cleanup here:\\
         ///////////////\\\\\\\\\\\\\\\
         // Store the number of records in each table to the settings file.
-        try {
-            BrokerCtl b = new BrokerCtl();
-            props.setProperty("table.brokers.records", 
-                    String.valueOf(b.getRecordCount()));
-            b = null;
+        //+ Headless commands keep these counts up to date themselves and must
+        //+ not have to load every table just to exit.
+        if ( params == null || !params.isSwitchPresent(HeadlessRunner.SWITCH) ) {
+            try {
+                BrokerCtl b = new BrokerCtl();
+                props.setProperty("table.brokers.records", 
+                        String.valueOf(b.getRecordCount()));
+                b = null;
             
-            CustomerCtl c = new CustomerCtl();
-            props.setProperty("table.customers.records", 
-                    String.valueOf(c.getRecordCount()));
-            c = null;
+                CustomerCtl c = new CustomerCtl();
+                props.setProperty("table.customers.records", 
+                        String.valueOf(c.getRecordCount()));
+                c = null;
             
-            LoadCtl l = new LoadCtl();
-            props.setProperty("table.loads.records", 
-                    String.valueOf(l.getRecordCount()));
-            l = null;
+                LoadCtl l = new LoadCtl();
+                props.setProperty("table.loads.records", 
+                        String.valueOf(l.getRecordCount()));
+                l = null;
             
-            StopCtl s = new StopCtl();
-            props.setProperty("table.stops.records", 
-                    String.valueOf(s.getRecordCount()));
-            s = null;
-        } catch ( DataStoreException ex ) {
+                StopCtl s = new StopCtl();
+                props.setProperty("table.stops.records", 
+                        String.valueOf(s.getRecordCount()));
+                s = null;
+            } catch ( DataStoreException ex ) {
             
+            }
         }
         
         // Last thing prior to exiting is to save the application settings and
@@ -0,0 +1,437 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   AgingEngine.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 7:48:05 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Keeps the open receivables indexed by date, overall and by broker, so
+ *      that the aging of the Accounts Receivable is available at any time.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.acct;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.model.ReceivablesModel;
+import com.pekinsoft.loadmaster.sys.LoadArchive;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.sys.TableWatcher;
+import com.pekinsoft.loadmaster.utils.Money;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * The aging of the open (unsettled) receivables in the Accounts Receivable
+ * journal, `50500.jrnl`.
+ * <p>
+ * The amount still owed is kept in cents by the day the receivable was
+ * booked, once for all brokers together and once for each broker. An aging
+ * bucket, such as 31 to 60 days, is then the total of a range of days in the
+ * index, so the aging as of any date is read without going back to the
+ * journal. The journal is read once, when the engine is first asked for, and
+ * from then on `ReceivablesCtl` keeps the index current as receivables are
+ * booked and settled.</p>
+ * <p>
+ * A receivable names its trip, not its broker, so the broker is looked up
+ * from the loads. A receivable that is booked before its load has been saved
+ * is held aside and given its broker the next time the brokers are asked
+ * for.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class AgingEngine {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The labels of the aging buckets, in the order they are returned. */
+    public static final String[] BUCKETS = {"0-30", "31-60", "61-90",
+        "Over 90"};
+    /** The broker number used for receivables whose load cannot be found. */
+    public static final long UNKNOWN_BROKER = 0L;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static AgingEngine instance;
+
+    // Another copy of the program sharing the data folder may book or
+    //+ settle receivables; the aging is read again when it does.
+    static {
+        TableWatcher.addListener(table -> {
+            synchronized ( AgingEngine.class ) {
+                instance = null;
+            }
+        }, DataTables.LOADS, DataTables.RECEIVABLES);
+    }
+
+    private final String folder;
+    private final TreeMap<Long, Long> byDay;
+    private final HashMap<Long, TreeMap<Long, Long>> byBroker;
+    private final HashMap<String, Long> brokerOfTrip;
+    private final ArrayList<Pending> pending;
+    private final LogRecord entry;
+    private long open;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private AgingEngine (String folder) {
+        this.folder = folder;
+        byDay = new TreeMap<>();
+        byBroker = new HashMap<>();
+        brokerOfTrip = new HashMap<>();
+        pending = new ArrayList<>();
+        open = 0;
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the aging for the current data folder, reading the journal
+     * the first time.
+     *
+     * @return the aging engine
+     * @throws DataStoreException in the event the journal or the loads cannot
+     *         be read
+     */
+    public static synchronized AgingEngine getInstance()
+            throws DataStoreException {
+        String folder = Starter.props.getDataFolder();
+
+        if ( instance == null || !instance.folder.equals(folder) ) {
+            AgingEngine engine = new AgingEngine(folder);
+            engine.load();
+            instance = engine;
+        }
+
+        return instance;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds a receivable to the aging, if it is not yet settled.
+     *
+     * @param model the receivable being booked
+     */
+    public synchronized void post(ReceivablesModel model) {
+        if ( !model.isSettled() )
+            apply(model.getTripNumber(), dayOf(model.getDate()),
+                    model.getAmountInCents(), 1);
+    }
+
+    /**
+     * Takes a receivable back out of the aging, such as when it is settled
+     * or before it is replaced with a corrected receivable.
+     *
+     * @param model the receivable as it was posted
+     */
+    public synchronized void reverse(ReceivablesModel model) {
+        if ( !model.isSettled() )
+            apply(model.getTripNumber(), dayOf(model.getDate()),
+                    -model.getAmountInCents(), -1);
+    }
+
+    /**
+     * Retrieves the number of open receivables.
+     *
+     * @return the open receivables
+     */
+    public synchronized long getOpenCount() {
+        return open;
+    }
+
+    /**
+     * Retrieves the total of all open receivables.
+     *
+     * @return the amount outstanding in cents
+     */
+    public synchronized long getOutstanding() {
+        return sum(byDay, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves the total of the open receivables of one broker.
+     *
+     * @param broker the broker's ID number
+     * @return the amount outstanding in cents
+     */
+    public synchronized long getOutstanding(long broker) {
+        resolvePending();
+        TreeMap<Long, Long> days = byBroker.get(broker);
+
+        return days == null ? 0L : sum(days, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves the open receivables in each aging bucket as of a date.
+     * Receivables dated after that date are not included.
+     *
+     * @param asOf the date to age the receivables to
+     * @return the amounts in cents, in the order of {@link #BUCKETS}
+     */
+    public synchronized long[] getBuckets(Date asOf) {
+        return buckets(byDay, dayOf(asOf));
+    }
+
+    /**
+     * Retrieves the open receivables of one broker in each aging bucket as of
+     * a date.
+     *
+     * @param broker the broker's ID number
+     * @param asOf   the date to age the receivables to
+     * @return the amounts in cents, in the order of {@link #BUCKETS}
+     */
+    public synchronized long[] getBuckets(long broker, Date asOf) {
+        resolvePending();
+        TreeMap<Long, Long> days = byBroker.get(broker);
+
+        return days == null ? new long[BUCKETS.length]
+                : buckets(days, dayOf(asOf));
+    }
+
+    /**
+     * Retrieves the brokers that have open receivables, in order of their ID
+     * numbers. Receivables whose load could not be found are listed under
+     * {@link #UNKNOWN_BROKER}.
+     *
+     * @return the brokers' ID numbers
+     */
+    public synchronized long[] getBrokers() {
+        resolvePending();
+
+        return byBroker.entrySet().stream()
+                .filter(e -> !e.getValue().isEmpty())
+                .mapToLong(Map.Entry::getKey).sorted().toArray();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void apply(String trip, long day, long cents, int count) {
+        add(byDay, day, cents);
+        open += count;
+
+        Long broker = brokerOfTrip.get(trip);
+
+        if ( broker != null ) {
+            add(byBroker.computeIfAbsent(broker, b -> new TreeMap<>()), day,
+                    cents);
+        } else if ( count < 0 && pending.remove(new Pending(trip, day, -cents)) ) {
+            // It was still waiting for its broker.
+        } else {
+            pending.add(new Pending(trip, day, cents));
+        }
+    }
+
+    private void load() throws DataStoreException {
+        entry.setMessage("Aging the receivables...");
+        entry.setSourceMethodName("load");
+        entry.setParameters(new Object[]{folder});
+        Starter.logger.enter(entry);
+
+        long oldest = Long.MAX_VALUE;
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.RECEIVABLES) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( Boolean.parseBoolean(f[5]) )
+                    continue;
+
+                long day = dayOf(f[1]);
+                oldest = Math.min(oldest, day);
+                add(byDay, day, Money.parse(f[4], Money.CENTS));
+                pending.add(new Pending(f[2], day, Money.parse(f[4],
+                        Money.CENTS)));
+                open++;
+            }
+
+            // Only the loads as old as the oldest open receivable are needed
+            //+ to find their brokers, which spares most of the archive.
+            if ( !pending.isEmpty() )
+                readBrokers(LoadArchive.records(DataTables.LOADS,
+                        Date.from(LocalDate.ofEpochDay(oldest).minusYears(1)
+                                .atStartOfDay(ZoneId.systemDefault())
+                                .toInstant()), null));
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        assignPending();
+
+        entry.setMessage("Receivables aged.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, open);
+    }
+
+    /** Gives the receivables that are waiting their brokers from the loads. */
+    private void resolvePending() {
+        if ( pending.isEmpty() )
+            return;
+
+        try {
+            readBrokers(TableMaintenance.records(DataTables.LOADS));
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage());
+            entry.setThrown(ex);
+            entry.setSourceMethodName("resolvePending");
+            Starter.logger.error(entry);
+        }
+
+        assignPending();
+    }
+
+    private void readBrokers(Stream<String[]> loads) {
+        try ( loads ) {
+            Iterator<String[]> it = loads.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                brokerOfTrip.put(f[1], Long.valueOf(f[18]));
+            }
+        }
+    }
+
+    /**
+     * Moves the waiting receivables into their brokers' indexes, filing those
+     * whose load still cannot be found under the unknown broker.
+     */
+    private void assignPending() {
+        Iterator<Pending> it = pending.iterator();
+
+        while ( it.hasNext() ) {
+            Pending p = it.next();
+            Long broker = brokerOfTrip.get(p.trip);
+
+            if ( broker == null ) {
+                broker = UNKNOWN_BROKER;
+                brokerOfTrip.put(p.trip, broker);
+            }
+
+            add(byBroker.computeIfAbsent(broker, b -> new TreeMap<>()), p.day,
+                    p.cents);
+            it.remove();
+        }
+    }
+
+    private static long[] buckets(TreeMap<Long, Long> days, long today) {
+        return new long[]{
+            sum(days, today - 30, today),
+            sum(days, today - 60, today - 31),
+            sum(days, today - 90, today - 61),
+            sum(days, Long.MIN_VALUE, today - 91)
+        };
+    }
+
+    private static long sum(TreeMap<Long, Long> days, long from, long to) {
+        long total = 0;
+
+        for ( long cents : days.subMap(from, true, to, true).values() )
+            total += cents;
+
+        return total;
+    }
+
+    private static void add(TreeMap<Long, Long> days, long day, long cents) {
+        // Days that net to nothing are dropped, so the index only holds the
+        //+ days that still have money owing.
+        days.merge(day, cents, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static long dayOf(Date date) {
+        Calendar cal = Calendar.getInstance();
+
+        if ( date != null )
+            cal.setTime(date);
+
+        return LocalDate.of(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1,
+                cal.get(Calendar.DAY_OF_MONTH)).toEpochDay();
+    }
+
+    /** Converts an MM/dd/yyyy date, as validated by the table, to a day. */
+    private static long dayOf(String date) {
+        String[] f = date.split("/");
+
+        return LocalDate.of(Integer.parseInt(f[2]), Integer.parseInt(f[0]),
+                Integer.parseInt(f[1])).toEpochDay();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Pending {
+        private final String trip;
+        private final long day;
+        private final long cents;
+
+        private Pending(String trip, long day, long cents) {
+            this.trip = trip;
+            this.day = day;
+            this.cents = cents;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if ( !(obj instanceof Pending) )
+                return false;
+
+            Pending p = (Pending) obj;
+            return trip.equals(p.trip) && day == p.day && cents == p.cents;
+        }
+
+        @Override
+        public int hashCode() {
+            return trip.hashCode() * 31 + Long.hashCode(day ^ cents);
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,537 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   BalanceEngine.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 5:20:47 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Keeps running balances of every account in the General Ledger, so
+ *      that a trial balance does not require reading the whole ledger.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ *  Oct 19, 2026  Sean Carrick        Added the period rollups.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.acct;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.model.EntryModel;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.sys.TableWatcher;
+import com.pekinsoft.loadmaster.utils.IntLongHashMap;
+import com.pekinsoft.loadmaster.utils.Money;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Calendar;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.zip.CRC32;
+
+/**
+ * Running balances of the General Ledger accounts, kept by account number
+ * (see {@link com.pekinsoft.loadmaster.model.ChartModel#getNumber()
+ * ChartModel.getNumber}).
+ * <p>
+ * Every entry moves its amount out of its "from" account and into its "to"
+ * account. For each account the engine keeps the total moved in (debits), the
+ * total moved out (credits) and the number of entries that touched it, in
+ * whole cents in primitive maps. `EntryCtl` posts each entry to the engine as
+ * it is added or changed, so a trial balance, or the totals of any one
+ * account, is read straight from the maps without going back to the ledger.
+ * </p><p>
+ * Whenever `EntryCtl` saves the ledger, the balances are written out as a
+ * checkpoint along with the length of the ledger and a checksum of its last
+ * few kilobytes. At the next start the checkpoint is used as is if the ledger
+ * has not changed since. If lines have only been added to the end of the
+ * ledger (e.g., by a headless import), just those lines are read. Otherwise,
+ * the balances are rebuilt from the whole ledger, once, and a new checkpoint
+ * is written.</p>
+ * <p>
+ * The engine also keeps the {@link PeriodRollups}, the same totals by month,
+ * fiscal quarter and fiscal year, which are checkpointed beside the balances.
+ * </p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class BalanceEngine {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the checkpoint file in the data folder. */
+    public static final String CHECKPOINT = "balances.chk";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final int TAIL = 4096;
+    private static BalanceEngine instance;
+
+    // Entries posted by another copy of the program are in the journal, not
+    //+ in these balances, so they are read again after such a change.
+    static {
+        TableWatcher.addListener(table -> invalidate(), DataTables.LEDGER);
+    }
+
+    private final String folder;
+    private final IntLongHashMap debits;
+    private final IntLongHashMap credits;
+    private final IntLongHashMap counts;
+    private final PeriodRollups rollups;
+    private final LogRecord entry;
+    private long entries;
+    private volatile boolean stale;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private BalanceEngine (String folder) {
+        this.folder = folder;
+        debits = new IntLongHashMap();
+        credits = new IntLongHashMap();
+        counts = new IntLongHashMap();
+        rollups = new PeriodRollups();
+        entries = 0;
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the balances for the current data folder, loading them from
+     * the checkpoint (and the ledger, where needed) the first time.
+     *
+     * @return the balance engine
+     * @throws DataStoreException in the event the checkpoint or the ledger
+     *         cannot be read
+     */
+    public static synchronized BalanceEngine getInstance()
+            throws DataStoreException {
+        String folder = Starter.props.getDataFolder();
+
+        if ( instance == null || !instance.folder.equals(folder) ) {
+            BalanceEngine engine = new BalanceEngine(folder);
+            engine.load();
+            instance = engine;
+        }
+
+        return instance;
+    }
+
+    /**
+     * Throws the balances away, so that the next {@link #getInstance()
+     * getInstance} reads them again from the checkpoint and the ledger. The
+     * balances thrown away are {@link #isStale() stale} and can no longer be
+     * checkpointed.
+     */
+    public static synchronized void invalidate() {
+        if ( instance != null )
+            instance.stale = true;
+
+        instance = null;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds an entry to the balances.
+     *
+     * @param model the entry being posted
+     */
+    public synchronized void post(EntryModel model) {
+        apply(monthOf(model), model.isDeductible(), model.getFromAccount(),
+                model.getToAccount(), model.getAmountInCents(), 1);
+    }
+
+    /**
+     * Takes an entry back out of the balances, such as before it is replaced
+     * with a corrected entry.
+     *
+     * @param model the entry as it was posted
+     */
+    public synchronized void reverse(EntryModel model) {
+        apply(monthOf(model), model.isDeductible(), model.getFromAccount(),
+                model.getToAccount(), -model.getAmountInCents(), -1);
+    }
+
+    /**
+     * Retrieves the balance of an account: all that has been moved into it,
+     * less all that has been moved out.
+     *
+     * @param account the account number
+     * @return the balance in cents
+     */
+    public synchronized long getBalance(int account) {
+        return debits.get(account) - credits.get(account);
+    }
+
+    /**
+     * Retrieves the total of the entries that moved money into an account.
+     *
+     * @param account the account number
+     * @return the total in cents
+     */
+    public synchronized long getDebits(int account) {
+        return debits.get(account);
+    }
+
+    /**
+     * Retrieves the total of the entries that moved money out of an account.
+     *
+     * @param account the account number
+     * @return the total in cents
+     */
+    public synchronized long getCredits(int account) {
+        return credits.get(account);
+    }
+
+    /**
+     * Retrieves the number of entries that touched an account.
+     *
+     * @param account the account number
+     * @return the number of entries
+     */
+    public synchronized long getEntryCount(int account) {
+        return counts.get(account);
+    }
+
+    /**
+     * Retrieves the number of entries in the balances.
+     *
+     * @return the number of entries posted
+     */
+    public synchronized long getEntryCount() {
+        return entries;
+    }
+
+    /**
+     * Retrieves every account that has had an entry posted to it, in order.
+     *
+     * @return the account numbers
+     */
+    public synchronized int[] getAccounts() {
+        return counts.keys();
+    }
+
+    /**
+     * Tells whether these balances have been {@link #invalidate()
+     * invalidated}, such as when another copy of the program posted entries
+     * to the ledger that they do not hold.
+     *
+     * @return `true` if the balances are stale
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Retrieves the totals of the accounts by month, fiscal quarter and fiscal
+     * year.
+     *
+     * @return the period rollups
+     */
+    public PeriodRollups getRollups() {
+        return rollups;
+    }
+
+    /**
+     * Writes the balances out as a checkpoint of the ledger as it now stands
+     * on disk. `EntryCtl` calls this after it saves the ledger.
+     * <p>
+     * Balances that another copy's entries have made stale since they were
+     * read are missing those entries, so they are not written; the next
+     * {@link #getInstance() getInstance} reads the ledger again instead.</p>
+     *
+     * @throws DataStoreException in the event the checkpoint cannot be written
+     */
+    public synchronized void checkpoint() throws DataStoreException {
+        if ( stale ) {
+            entry.setMessage("The ledger was changed by another copy of the "
+                    + "program; the checkpoint is left as it was.");
+            entry.setSourceMethodName("checkpoint");
+            entry.setParameters(null);
+            entry.setThrown(null);
+            Starter.logger.info(entry);
+            return;
+        }
+
+        File ledger = DataTables.LEDGER.getFile();
+        File chk = new File(folder + CHECKPOINT);
+        File tmp = new File(chk.getPath() + ".tmp");
+        File cube = new File(folder + PeriodRollups.CHECKPOINT);
+        File cubeTmp = new File(cube.getPath() + ".tmp");
+
+        try {
+            long length = ledger.exists() ? ledger.length() : 0;
+            String header = "ledger~" + length + "~" + tailCrc(ledger, length)
+                    + "~" + entries + "\n";
+
+            try ( BufferedWriter out = new BufferedWriter(
+                    new FileWriter(tmp)) ) {
+                out.write(header);
+
+                for ( int account : counts.keys() )
+                    out.write(account + "~" + debits.get(account) + "~"
+                            + credits.get(account) + "~" + counts.get(account)
+                            + "\n");
+            }
+
+            try ( BufferedWriter out = new BufferedWriter(
+                    new FileWriter(cubeTmp)) ) {
+                out.write(header);
+                rollups.write(out);
+            }
+
+            // The rollups go first: should the balances fail to move, their
+            //+ old header no longer matches, and both are rebuilt.
+            replace(cubeTmp, cube);
+            replace(tmp, chk);
+        } catch ( IOException ex ) {
+            tmp.delete();
+            cubeTmp.delete();
+
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            entry.setSourceMethodName("checkpoint");
+            entry.setParameters(null);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Throws the balances away and reads the whole ledger again. This is
+     * only needed if the ledger was changed by hand.
+     *
+     * @throws DataStoreException in the event the ledger cannot be read or the
+     *         checkpoint cannot be written
+     */
+    public synchronized void rebuild() throws DataStoreException {
+        debits.clear();
+        credits.clear();
+        counts.clear();
+        rollups.clear();
+        entries = 0;
+
+        try {
+            replay(DataTables.LEDGER.getFile(), 0);
+            stale = false;
+        } catch ( IOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            entry.setSourceMethodName("rebuild");
+            entry.setParameters(null);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        checkpoint();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void apply(int month, boolean deductible, int from, int to,
+            long cents, int count) {
+        rollups.apply(month, deductible, from, to, cents, count);
+        credits.add(from, cents);
+        debits.add(to, cents);
+        counts.add(from, count);
+        if ( to != from )
+            counts.add(to, count);
+        entries += count;
+    }
+
+    private void load() throws DataStoreException {
+        entry.setMessage("Loading account balances...");
+        entry.setSourceMethodName("load");
+        entry.setParameters(new Object[]{folder});
+        Starter.logger.enter(entry);
+
+        File ledger = DataTables.LEDGER.getFile();
+        File chk = new File(folder + CHECKPOINT);
+        File cube = new File(folder + PeriodRollups.CHECKPOINT);
+        long length = ledger.exists() ? ledger.length() : 0;
+        long offset = -1;
+
+        try {
+            if ( chk.exists() && cube.exists() ) {
+                try ( BufferedReader in = new BufferedReader(
+                        new FileReader(chk));
+                        BufferedReader cin = new BufferedReader(
+                        new FileReader(cube)) ) {
+                    String header = in.readLine();
+                    String[] head = header.split("~");
+                    long at = Long.parseLong(head[1]);
+
+                    // The rollups must have been written with the balances.
+                    if ( at <= length && header.equals(cin.readLine())
+                            && Long.parseLong(head[2]) == tailCrc(ledger, at) ) {
+                        entries = Long.parseLong(head[3]);
+                        String line;
+
+                        while ( (line = in.readLine()) != null ) {
+                            String[] f = line.split("~");
+                            int account = Integer.parseInt(f[0]);
+                            debits.put(account, Long.parseLong(f[1]));
+                            credits.put(account, Long.parseLong(f[2]));
+                            counts.put(account, Long.parseLong(f[3]));
+                        }
+
+                        rollups.read(cin);
+                        offset = at;
+                    }
+                } catch ( NullPointerException | NumberFormatException
+                        | ArrayIndexOutOfBoundsException ex ) {
+                    // A damaged checkpoint is simply rebuilt.
+                    offset = -1;
+                }
+            }
+
+            if ( offset < 0 ) {
+                debits.clear();
+                credits.clear();
+                counts.clear();
+                rollups.clear();
+                entries = 0;
+                replay(ledger, 0);
+            } else if ( offset < length ) {
+                replay(ledger, offset);
+            }
+        } catch ( IOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        if ( offset != length )
+            checkpoint();
+
+        entry.setMessage("Account balances loaded.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, entries);
+    }
+
+    /**
+     * Posts every entry of the ledger from the given offset onward. An entry
+     * is taken here just as {@link #post(EntryModel) post} takes it: any line
+     * with a date, both accounts, an amount and the deductible flag counts,
+     * whatever its code or description, so that the balances rebuilt from
+     * the ledger are the balances that were posted.
+     */
+    private void replay(File ledger, long offset) throws IOException {
+        if ( !ledger.exists() )
+            return;
+
+        try ( FileInputStream fis = new FileInputStream(ledger) ) {
+            fis.getChannel().position(offset);
+            BufferedReader in = new BufferedReader(new InputStreamReader(fis,
+                    Charset.defaultCharset()));
+            String line;
+
+            while ( (line = in.readLine()) != null ) {
+                String[] f = TableMaintenance.split(DataTables.LEDGER, line);
+
+                if ( line.isBlank()
+                        || f.length != DataTables.LEDGER.getFieldCount() )
+                    continue;
+
+                try {
+                    // The date is M/d/yyyy.
+                    int month = Integer.parseInt(f[0].substring(
+                            f[0].lastIndexOf('/') + 1)) * 100
+                            + Integer.parseInt(f[0].substring(0,
+                                    f[0].indexOf('/')));
+
+                    apply(month, Boolean.parseBoolean(f[6]),
+                            Integer.parseInt(f[3]), Integer.parseInt(f[4]),
+                            Money.parse(f[5], Money.CENTS), 1);
+                } catch ( NumberFormatException
+                        | StringIndexOutOfBoundsException ex ) {
+                    // Not an entry; the verify command reports it.
+                }
+            }
+        }
+    }
+
+    private static int monthOf(EntryModel model) {
+        Calendar cal = Calendar.getInstance();
+
+        if ( model.getDate() != null )
+            cal.setTime(model.getDate());
+
+        return cal.get(Calendar.YEAR) * 100 + cal.get(Calendar.MONTH) + 1;
+    }
+
+    private static void replace(File tmp, File target) throws IOException {
+        try {
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch ( AtomicMoveNotSupportedException ex ) {
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Checksums the last few kilobytes of the first `length` bytes. */
+    private static long tailCrc(File ledger, long length) throws IOException {
+        CRC32 crc = new CRC32();
+
+        if ( length > 0 ) {
+            try ( RandomAccessFile raf = new RandomAccessFile(ledger, "r") ) {
+                long start = Math.max(0, length - TAIL);
+                byte[] buf = new byte[(int) (length - start)];
+                raf.seek(start);
+                raf.readFully(buf);
+                crc.update(buf);
+            }
+        }
+
+        return crc.getValue();
+    }
+    //</editor-fold>
+
+}
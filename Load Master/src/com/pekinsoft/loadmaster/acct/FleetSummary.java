@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   FleetSummary.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 7:20:44 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Totals the loads and fuel purchases of each truck of the fleet, and of
+ *      the fleet as a whole.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.acct;
+
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.sys.Fleet;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.utils.Money;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The totals of the loads and fuel purchases on hand for each truck of the
+ * fleet, and for the fleet as a whole. Archived loads are not counted.
+ * <p>
+ * The partition of each truck is read on a thread of its own and totaled
+ * apart from the others; the fleet totals are then the sums of the trucks'.
+ * Amounts are kept in whole cents and gallons in thousandths, so the sums are
+ * exact.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class FleetSummary {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Map<String, Totals> trucks;
+    private final Totals fleet;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private FleetSummary (Map<String, Totals> trucks) {
+        this.trucks = trucks;
+        fleet = new Totals();
+
+        for ( Totals t : trucks.values() )
+            fleet.add(t);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Totals the partitions of every truck of the fleet.
+     *
+     * @return the totals
+     * @throws DataStoreException in the event the loads or fuel purchases of
+     *         a truck cannot be read
+     */
+    public static FleetSummary compute() throws DataStoreException {
+        return new FleetSummary(Fleet.map(FleetSummary::total));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Retrieves the trucks, with the totals of each, by truck number.
+     *
+     * @return the totals of the trucks
+     */
+    public Map<String, Totals> getTrucks() {
+        return trucks;
+    }
+
+    /**
+     * Retrieves the totals of the whole fleet.
+     *
+     * @return the fleet totals
+     */
+    public Totals getFleet() {
+        return fleet;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static Totals total(String truck) throws IOException {
+        Totals t = new Totals();
+
+        try ( Stream<String[]> s = TableMaintenance.records(DataTables.LOADS,
+                DataTables.LOADS.getFile(truck)) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( Boolean.parseBoolean(f[21]) ) {
+                    t.cancelled++;
+                    continue;
+                }
+
+                t.loads++;
+                t.gross += Money.parse(f[5], Money.CENTS);
+                t.miles += Integer.parseInt(f[6]);
+
+                if ( Boolean.parseBoolean(f[20]) ) {
+                    t.completed++;
+                    t.driven += Integer.parseInt(f[3]) - Integer.parseInt(f[2]);
+                }
+            }
+        }
+
+        try ( Stream<String[]> s = TableMaintenance.records(DataTables.FUEL,
+                DataTables.FUEL.getFile(truck)) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                long gallons = Money.parse(f[4], Money.MILLS);
+
+                t.fuelUps++;
+                t.diesel += gallons;
+                t.fuelCost += Money.multiply(Money.parse(f[5], Money.MILLS),
+                        Money.MILLS, gallons / 1000.0);
+
+                if ( Boolean.parseBoolean(f[6]) )
+                    t.fuelCost += Money.multiply(Money.parse(f[8],
+                            Money.MILLS), Money.MILLS,
+                            Money.parse(f[7], Money.MILLS) / 1000.0);
+            }
+        }
+
+        return t;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * The totals of one truck, or of the fleet. Cancelled loads are counted,
+     * but not in the loads, miles or revenue.
+     */
+    public static class Totals {
+        private long loads;
+        private long completed;
+        private long cancelled;
+        private long miles;
+        private long driven;
+        private long gross;
+        private long fuelUps;
+        private long diesel;
+        private long fuelCost;
+
+        private void add(Totals t) {
+            loads += t.loads;
+            completed += t.completed;
+            cancelled += t.cancelled;
+            miles += t.miles;
+            driven += t.driven;
+            gross += t.gross;
+            fuelUps += t.fuelUps;
+            diesel += t.diesel;
+            fuelCost += t.fuelCost;
+        }
+
+        public long getLoads() {
+            return loads;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Retrieves the dispatched miles of the loads.
+         *
+         * @return the miles
+         */
+        public long getMiles() {
+            return miles;
+        }
+
+        /**
+         * Retrieves the miles driven on the completed loads, by the odometer.
+         *
+         * @return the miles driven
+         */
+        public long getDriven() {
+            return driven;
+        }
+
+        /**
+         * Retrieves the revenue of the loads, in cents.
+         *
+         * @return the revenue
+         */
+        public long getGrossInCents() {
+            return gross;
+        }
+
+        public long getFuelUps() {
+            return fuelUps;
+        }
+
+        /**
+         * Retrieves the gallons of diesel bought, in thousandths.
+         *
+         * @return the gallons
+         */
+        public long getDieselInMills() {
+            return diesel;
+        }
+
+        /**
+         * Retrieves the cost of the diesel and DEF bought, in cents.
+         *
+         * @return the fuel cost
+         */
+        public long getFuelCostInCents() {
+            return fuelCost;
+        }
+
+        /**
+         * Retrieves the revenue per dispatched mile, in mills.
+         *
+         * @return the revenue per mile, or zero if there are no miles
+         */
+        public long getRatePerMileInMills() {
+            return miles == 0 ? 0 : Math.round(gross * 10.0 / miles);
+        }
+
+        /**
+         * Retrieves the miles driven per gallon of diesel bought.
+         *
+         * @return the miles per gallon, or zero if no diesel was bought
+         */
+        public double getMilesPerGallon() {
+            return diesel == 0 ? 0 : driven / (diesel / 1000.0);
+        }
+    }
+    //</editor-fold>
+
+}
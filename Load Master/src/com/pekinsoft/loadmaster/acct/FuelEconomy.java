@@ -0,0 +1,527 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   FuelEconomy.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 9:12:40 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Rolling fuel mileage, DEF usage and fuel cost per mile, over the last
+ *      so many days or over a trip, from the Fuel Purchases journal.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.acct;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.model.FuelPurchaseModel;
+import com.pekinsoft.loadmaster.sys.LoadArchive;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.sys.TableWatcher;
+import com.pekinsoft.loadmaster.utils.Money;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * The fuel mileage, DEF usage and fuel cost per mile of the truck, taken from
+ * the Fuel Purchases journal, `10040.jrnl`.
+ * <p>
+ * Each fuel-up is kept in primitive arrays in date and odometer order, with
+ * running totals of the gallons of diesel, the gallons of DEF and the cost.
+ * The totals of any run of fuel-ups are then the difference of two running
+ * totals, and the fuel-ups of a window, such as the last 30 days or a trip,
+ * are found by a binary search, so no window is ever added up by going back
+ * over the fuel-ups. A fuel-up is normally later than all those before it
+ * and is simply added to the end; only a corrected or back-dated fuel-up
+ * causes the totals after it to be carried forward again.</p>
+ * <p>
+ * The mileage is figured from fill-up to fill-up: the miles of a window run
+ * from the last fuel-up before it to its last fuel-up, and the fuel burned
+ * over those miles is what was bought at the fuel-ups in the window. The
+ * cost includes the DEF, as both are paid for at the pump.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class FuelEconomy {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The length of the weekly window, in days. */
+    public static final int WEEK = 7;
+    /** The length of the monthly window, in days. */
+    public static final int MONTH = 30;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static FuelEconomy instance;
+
+    // Read the figures again once another copy of the program changes the
+    //+ fuel purchases or loads.
+    static {
+        TableWatcher.addListener(table -> {
+            synchronized ( FuelEconomy.class ) {
+                instance = null;
+            }
+        }, DataTables.FUEL, DataTables.LOADS);
+    }
+
+    private final String folder;
+    private final HashMap<String, int[]> tripOdometers;
+    private final LogRecord entry;
+
+    private int count;
+    private long[] ids;
+    private int[] days;
+    private int[] odometers;
+    // Running totals: element x is the total of the first x fuel-ups, so
+    //+ these are one longer than the fuel-ups. Gallons are in thousandths.
+    private long[] diesel;
+    private long[] def;
+    private long[] cost;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private FuelEconomy (String folder) {
+        this.folder = folder;
+        tripOdometers = new HashMap<>();
+
+        ids = new long[64];
+        days = new int[64];
+        odometers = new int[64];
+        diesel = new long[65];
+        def = new long[65];
+        cost = new long[65];
+        count = 0;
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the fuel economy for the current data folder, or the current
+     * truck in fleet mode, reading the journal the first time.
+     *
+     * @return the fuel economy
+     * @throws DataStoreException in the event the journal cannot be read
+     */
+    public static synchronized FuelEconomy getInstance()
+            throws DataStoreException {
+        String folder = Starter.props.getPartitionFolder();
+
+        if ( instance == null || !instance.folder.equals(folder) ) {
+            FuelEconomy economy = new FuelEconomy(folder);
+            economy.load();
+            instance = economy;
+        }
+
+        return instance;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds a fuel-up to the figures.
+     *
+     * @param model the fuel purchase being recorded
+     */
+    public synchronized void post(FuelPurchaseModel model) {
+        insert(model.getId(), dayOf(model.getDate()), model.getOdometer(),
+                Math.round(model.getGallonsOfDiesel() * 1000),
+                Math.round(model.getGallonsOfDef() * 1000),
+                model.getDieselCostInCents() + model.getDefCostInCents());
+    }
+
+    /**
+     * Takes a fuel-up back out of the figures, such as before it is replaced
+     * with a corrected fuel-up.
+     *
+     * @param model the fuel purchase as it was posted
+     */
+    public synchronized void reverse(FuelPurchaseModel model) {
+        for ( int x = count - 1; x >= 0; x-- )
+            if ( ids[x] == model.getId() ) {
+                remove(x);
+                return;
+            }
+    }
+
+    /**
+     * Retrieves the number of fuel-ups.
+     *
+     * @return the fuel-ups
+     */
+    public synchronized int getFuelUpCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the figures for the days up to and including a date, such as
+     * the last {@link #WEEK week} or {@link #MONTH month}.
+     *
+     * @param length the number of days in the window
+     * @param asOf   the last day of the window
+     * @return the figures for the window
+     */
+    public synchronized Window getDays(int length, Date asOf) {
+        int last = dayOf(asOf);
+        int from = lowerBound(days, last - length + 1);
+        int to = lowerBound(days, last + 1) - 1;
+
+        return window(from, to);
+    }
+
+    /**
+     * Retrieves the figures for a trip, from the fuel-ups between the trip's
+     * starting and ending odometer readings. A trip that is still under way
+     * runs to the latest fuel-up.
+     *
+     * @param trip the trip number
+     * @return the figures for the trip, or `null` if the trip cannot be
+     *         found in the loads
+     */
+    public synchronized Window getTrip(String trip) {
+        int[] odo = findTrip(trip);
+
+        if ( odo == null )
+            return null;
+
+        // The odometer only runs forward, so it is in the same order as the
+        //+ dates of the fuel-ups.
+        int from = lowerBound(odometers, odo[0] + 1);
+        int to = lowerBound(odometers, odo[1] > odo[0] ? odo[1] + 1
+                : Integer.MAX_VALUE) - 1;
+
+        return window(from, to);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void load() throws DataStoreException {
+        entry.setMessage("Reading the fuel purchases...");
+        entry.setSourceMethodName("load");
+        entry.setParameters(new Object[]{folder});
+        Starter.logger.enter(entry);
+
+        try ( Stream<String[]> s = TableMaintenance.records(DataTables.FUEL) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                double dieselGallons = Money.parse(f[4], Money.MILLS) / 1000.0;
+                long fuelCost = Money.multiply(Money.parse(f[5], Money.MILLS),
+                        Money.MILLS, dieselGallons);
+                long defGallons = 0;
+
+                if ( Boolean.parseBoolean(f[6]) ) {
+                    defGallons = Money.parse(f[7], Money.MILLS);
+                    fuelCost += Money.multiply(Money.parse(f[8], Money.MILLS),
+                            Money.MILLS, defGallons / 1000.0);
+                }
+
+                insert(Long.parseLong(f[0]), dayOf(f[1]),
+                        Integer.parseInt(f[2]), Money.parse(f[4], Money.MILLS),
+                        defGallons, fuelCost);
+            }
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        entry.setMessage("Fuel purchases read.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, count);
+    }
+
+    /**
+     * The figures of the fuel-ups `from` through `to`, measured from the
+     * fuel-up before `from`, or from `from` itself when it is the first.
+     */
+    private Window window(int from, int to) {
+        int base = from > 0 ? from - 1 : from;
+
+        if ( to <= base )
+            return new Window(Math.max(0, to - from + 1), 0, 0, 0, 0);
+
+        return new Window(to - from + 1, odometers[to] - odometers[base],
+                diesel[to + 1] - diesel[base + 1],
+                def[to + 1] - def[base + 1],
+                cost[to + 1] - cost[base + 1]);
+    }
+
+    private void insert(long id, int day, int odometer, long dieselGallons,
+            long defGallons, long fuelCost) {
+        if ( count == ids.length ) {
+            int capacity = count * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            days = Arrays.copyOf(days, capacity);
+            odometers = Arrays.copyOf(odometers, capacity);
+            diesel = Arrays.copyOf(diesel, capacity + 1);
+            def = Arrays.copyOf(def, capacity + 1);
+            cost = Arrays.copyOf(cost, capacity + 1);
+        }
+
+        // After the last fuel-up on the same day with a lower odometer.
+        int x = count;
+        while ( x > 0 && (days[x - 1] > day || days[x - 1] == day
+                && odometers[x - 1] > odometer) )
+            x--;
+
+        System.arraycopy(ids, x, ids, x + 1, count - x);
+        System.arraycopy(days, x, days, x + 1, count - x);
+        System.arraycopy(odometers, x, odometers, x + 1, count - x);
+        ids[x] = id;
+        days[x] = day;
+        odometers[x] = odometer;
+        count++;
+
+        if ( x == count - 1 ) {
+            diesel[count] = diesel[x] + dieselGallons;
+            def[count] = def[x] + defGallons;
+            cost[count] = cost[x] + fuelCost;
+        } else {
+            carry(x, dieselGallons, defGallons, fuelCost);
+        }
+    }
+
+    private void remove(int x) {
+        long dieselGallons = diesel[x + 1] - diesel[x];
+        long defGallons = def[x + 1] - def[x];
+        long fuelCost = cost[x + 1] - cost[x];
+
+        System.arraycopy(ids, x + 1, ids, x, count - x - 1);
+        System.arraycopy(days, x + 1, days, x, count - x - 1);
+        System.arraycopy(odometers, x + 1, odometers, x, count - x - 1);
+        System.arraycopy(diesel, x + 2, diesel, x + 1, count - x - 1);
+        System.arraycopy(def, x + 2, def, x + 1, count - x - 1);
+        System.arraycopy(cost, x + 2, cost, x + 1, count - x - 1);
+        count--;
+
+        for ( int y = x + 1; y <= count; y++ ) {
+            diesel[y] -= dieselGallons;
+            def[y] -= defGallons;
+            cost[y] -= fuelCost;
+        }
+    }
+
+    /** Opens a running total at `x` and carries the amounts forward. */
+    private void carry(int x, long dieselGallons, long defGallons,
+            long fuelCost) {
+        for ( int y = count; y > x; y-- ) {
+            diesel[y] = diesel[y - 1] + dieselGallons;
+            def[y] = def[y - 1] + defGallons;
+            cost[y] = cost[y - 1] + fuelCost;
+        }
+    }
+
+    private int lowerBound(int[] values, int key) {
+        int lo = 0;
+        int hi = count;
+
+        while ( lo < hi ) {
+            int mid = (lo + hi) >>> 1;
+
+            if ( values[mid] < key )
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+
+        return lo;
+    }
+
+    /** The starting and ending odometer readings of a trip. */
+    private int[] findTrip(String trip) {
+        int[] odo = tripOdometers.get(trip);
+
+        // The current loads are read again each time a trip is missing, as
+        //+ its ending odometer is only filled in when it is completed. The
+        //+ archive is read only when the loads do not have it.
+        if ( odo == null || odo[1] <= odo[0] ) {
+            try {
+                readTrips(TableMaintenance.records(DataTables.LOADS));
+
+                if ( !tripOdometers.containsKey(trip) )
+                    readTrips(LoadArchive.records(DataTables.LOADS, null,
+                            null));
+            } catch ( IOException | UncheckedIOException ex ) {
+                entry.setMessage(ex.getMessage());
+                entry.setThrown(ex);
+                entry.setSourceMethodName("findTrip");
+                Starter.logger.error(entry);
+            }
+
+            odo = tripOdometers.get(trip);
+        }
+
+        return odo;
+    }
+
+    private void readTrips(Stream<String[]> loads) {
+        try ( loads ) {
+            Iterator<String[]> it = loads.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                tripOdometers.put(f[1], new int[]{Integer.parseInt(f[2]),
+                    Integer.parseInt(f[3])});
+            }
+        }
+    }
+
+    private static int dayOf(Date date) {
+        Calendar cal = Calendar.getInstance();
+
+        if ( date != null )
+            cal.setTime(date);
+
+        return (int) LocalDate.of(cal.get(Calendar.YEAR),
+                cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH))
+                .toEpochDay();
+    }
+
+    /** Converts an MM/dd/yyyy date, as validated by the table, to a day. */
+    private static int dayOf(String date) {
+        String[] f = date.split("/");
+
+        return (int) LocalDate.of(Integer.parseInt(f[2]),
+                Integer.parseInt(f[0]), Integer.parseInt(f[1])).toEpochDay();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * The fuel figures of a window of fuel-ups.
+     */
+    public static class Window {
+        private final int fuelUps;
+        private final int miles;
+        private final long diesel;
+        private final long def;
+        private final long cost;
+
+        private Window(int fuelUps, int miles, long diesel, long def,
+                long cost) {
+            this.fuelUps = fuelUps;
+            this.miles = miles;
+            this.diesel = diesel;
+            this.def = def;
+            this.cost = cost;
+        }
+
+        /**
+         * Retrieves the number of fuel-ups in the window.
+         *
+         * @return the fuel-ups
+         */
+        public int getFuelUps() {
+            return fuelUps;
+        }
+
+        /**
+         * Retrieves the miles driven on the fuel bought in the window.
+         *
+         * @return the miles
+         */
+        public int getMiles() {
+            return miles;
+        }
+
+        /**
+         * Retrieves the gallons of diesel burned over the miles.
+         *
+         * @return the gallons of diesel
+         */
+        public double getDieselGallons() {
+            return diesel / 1000.0;
+        }
+
+        /**
+         * Retrieves the gallons of DEF used over the miles.
+         *
+         * @return the gallons of DEF
+         */
+        public double getDefGallons() {
+            return def / 1000.0;
+        }
+
+        /**
+         * Retrieves the cost of the diesel and DEF burned over the miles.
+         *
+         * @return the cost in cents
+         */
+        public long getCostInCents() {
+            return cost;
+        }
+
+        /**
+         * Retrieves the miles driven per gallon of diesel.
+         *
+         * @return the miles per gallon, or zero if no fuel was burned
+         */
+        public double getMilesPerGallon() {
+            return diesel == 0 ? 0.0 : miles * 1000.0 / diesel;
+        }
+
+        /**
+         * Retrieves the DEF used as a percentage of the diesel burned. Most
+         * engines use between two and three percent.
+         *
+         * @return the DEF percentage, or zero if no fuel was burned
+         */
+        public double getDefRatio() {
+            return diesel == 0 ? 0.0 : def * 100.0 / diesel;
+        }
+
+        /**
+         * Retrieves the fuel cost of each mile driven.
+         *
+         * @return the cost per mile in mills, or zero if no miles were driven
+         */
+        public long getCostPerMileInMills() {
+            return miles == 0 ? 0L : Math.round(cost * 10.0 / miles);
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   IftaQuarter.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 8:31:52 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Totals the miles traveled and the fuel bought in each state during a
+ *      calendar quarter, for the International Fuel Tax Agreement (IFTA)
+ *      return.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.acct;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.sys.LoadArchive;
+import com.pekinsoft.loadmaster.sys.MileageEngine;
+import com.pekinsoft.loadmaster.sys.PostalDatabase;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.utils.Money;
+import com.pekinsoft.loadmaster.verifiers.StateAbbrVerifier;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * The miles and gallons of one calendar quarter, by state, as an IFTA return
+ * needs them.
+ * <p>
+ * The quarter is worked out in one pass over each of the customers, the loads
+ * dispatched in the quarter, their stops and the fuel purchases:</p>
+ * <ul>
+ * <li>Each load that was not cancelled contributes the miles driven, from its
+ * odometer readings, or its dispatched miles if it has not been closed. The
+ * stops give the states the load passed through, from the customers' addresses.
+ * As the stops carry no odometer readings, the miles are shared among the legs
+ * from one stop to the next in proportion to each leg's miles as estimated by
+ * the {@link MileageEngine} from the customers' Zip Codes, or evenly when any
+ * leg cannot be estimated. Each leg's miles are split evenly between the state
+ * it starts in and the state it ends in.</li>
+ * <li>The miles between one load's ending odometer and the next load's starting
+ * odometer are deadhead, and are split the same way between the state of the
+ * last stop of the one and the first stop of the other.</li>
+ * <li>The gallons of each fuel purchase go to the state at the end of its
+ * location, such as "Flying J, Effingham, IL".</li>
+ * </ul>
+ * <p>
+ * Miles and gallons that cannot be placed in a state are reported under
+ * {@link #UNKNOWN}. The taxable gallons of each state are its miles divided
+ * by the fleet's miles per gallon for the quarter.</p>
+ * <p>
+ * The result is cached in the `ifta` folder of the data folder, along with
+ * the sizes and times of the files it was worked out from, so asking for the
+ * same quarter again is answered from the cache until one of those files
+ * changes.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class IftaQuarter {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the folder of cached quarters in the data folder. */
+    public static final String FOLDER = "ifta";
+    /** The state that miles or gallons are reported under when unknown. */
+    public static final String UNKNOWN = "??";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final LogRecord entry = new LogRecord(Level.FINEST, "");
+
+    private final int year;
+    private final int quarter;
+    private final TreeMap<String, double[]> states;
+    private double miles;
+    private double gallons;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Static Initializer">
+    static {
+        entry.setSourceClassName(IftaQuarter.class.getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private IftaQuarter (int year, int quarter) {
+        this.year = year;
+        this.quarter = quarter;
+        states = new TreeMap<>();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the miles and gallons of a quarter, from the cache if the
+     * data has not changed since it was last worked out.
+     *
+     * @param year    the year
+     * @param quarter the calendar quarter, from 1 to 4
+     * @return the quarter's totals
+     * @throws DataStoreException in the event the data cannot be read
+     */
+    public static IftaQuarter get(int year, int quarter)
+            throws DataStoreException {
+        if ( quarter < 1 || quarter > 4 )
+            throw new IllegalArgumentException("quarter must be 1 to 4");
+
+        IftaQuarter q = new IftaQuarter(year, quarter);
+        File cache = q.getCacheFile();
+        String signature = q.signature();
+
+        try {
+            if ( !q.readCache(cache, signature) ) {
+                q.compute(MileageEngine.getInstance());
+                q.writeCache(cache, signature);
+            }
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            entry.setSourceMethodName("get");
+            entry.setParameters(new Object[]{year, quarter});
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        return q;
+    }
+
+    /**
+     * Picks the state out of a fuel stop's location: the last word of two
+     * letters that is a state abbreviation.
+     *
+     * @param location the location, such as "Flying J, Effingham, IL"
+     * @return the state, or {@link #UNKNOWN}
+     */
+    public static String stateOf(String location) {
+        String[] words = location.toUpperCase().split("[^A-Z]+");
+
+        for ( int x = words.length - 1; x >= 0; x-- ) {
+            if ( words[x].length() == 2
+                    && StateAbbrVerifier.isValidState(words[x]) )
+                return words[x];
+        }
+
+        return UNKNOWN;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    public int getYear() {
+        return year;
+    }
+
+    public int getQuarter() {
+        return quarter;
+    }
+
+    /**
+     * Retrieves the states with miles or gallons in the quarter, in order.
+     *
+     * @return the state abbreviations
+     */
+    public String[] getStates() {
+        return states.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Retrieves the miles traveled in a state, to the nearest mile.
+     *
+     * @param state the state abbreviation
+     * @return the miles
+     */
+    public long getMiles(String state) {
+        double[] t = states.get(state);
+        return t == null ? 0 : Math.round(t[0]);
+    }
+
+    /**
+     * Retrieves the gallons bought in a state (tax-paid gallons).
+     *
+     * @param state the state abbreviation
+     * @return the gallons
+     */
+    public double getGallons(String state) {
+        double[] t = states.get(state);
+        return t == null ? 0.0 : t[1];
+    }
+
+    /**
+     * Retrieves the gallons burned in a state (taxable gallons): its miles at
+     * the fleet's miles per gallon.
+     *
+     * @param state the state abbreviation
+     * @return the taxable gallons, or zero (0) if no fuel was bought
+     */
+    public double getTaxableGallons(String state) {
+        double mpg = getMilesPerGallon();
+        return mpg == 0.0 ? 0.0 : getMiles(state) / mpg;
+    }
+
+    public long getTotalMiles() {
+        return Math.round(miles);
+    }
+
+    public double getTotalGallons() {
+        return gallons;
+    }
+
+    /**
+     * Retrieves the fleet's average miles per gallon for the quarter.
+     *
+     * @return the miles per gallon, or zero (0) if no fuel was bought
+     */
+    public double getMilesPerGallon() {
+        return gallons == 0.0 ? 0.0 : miles / gallons;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void compute(MileageEngine mileage) throws IOException {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, (quarter - 1) * 3, 1);
+        Date from = cal.getTime();
+        cal.add(Calendar.MONTH, 3);
+        cal.add(Calendar.DAY_OF_MONTH, -1);
+        Date to = cal.getTime();
+
+        // The state and Zip Code of each customer.
+        HashMap<Long, String[]> places = new HashMap<>();
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.CUSTOMERS) ) {
+            s.forEach(f -> places.put(Long.valueOf(f[0]), new String[]{
+                    f[5].isBlank() ? UNKNOWN : f[5].trim().toUpperCase(),
+                    f[6].trim()}));
+        }
+        String[] nowhere = {UNKNOWN, ""};
+
+        // The loads of the quarter, by starting odometer, with the miles
+        //+ driven on each.
+        TreeMap<Integer, String> tripByOdo = new TreeMap<>();
+        HashMap<String, int[]> odometers = new HashMap<>();
+
+        try ( Stream<String[]> s = LoadArchive.records(DataTables.LOADS,
+                from, to) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( Boolean.parseBoolean(f[21]) || !inQuarter(f[4]) )
+                    continue;
+
+                int start = Integer.parseInt(f[2]);
+                int end = Integer.parseInt(f[3]);
+                int driven = end > start ? end - start : Integer.parseInt(f[6]);
+
+                tripByOdo.put(start, f[1]);
+                odometers.put(f[1], new int[]{start, end > start ? end
+                        : start + driven, driven});
+            }
+        }
+
+        HashMap<String, TreeMap<Integer, String[]>> route = new HashMap<>();
+        try ( Stream<String[]> s = LoadArchive.records(DataTables.STOPS,
+                from, to) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( odometers.containsKey(f[0]) )
+                    route.computeIfAbsent(f[0], t -> new TreeMap<>())
+                            .put(Integer.valueOf(f[1]), places
+                                    .getOrDefault(Long.valueOf(f[2]), nowhere));
+            }
+        }
+
+        String lastState = null;
+        int lastEnd = -1;
+
+        for ( String trip : tripByOdo.values() ) {
+            int[] odo = odometers.get(trip);
+            ArrayList<String> stops = new ArrayList<>();
+            ArrayList<String> zips = new ArrayList<>();
+
+            for ( String[] place : route.getOrDefault(trip, new TreeMap<>())
+                    .values() ) {
+                stops.add(place[0]);
+                zips.add(place[1]);
+            }
+
+            if ( stops.isEmpty() )
+                stops.add(UNKNOWN);
+
+            if ( lastState != null && odo[0] > lastEnd )
+                addLeg(lastState, stops.get(0), odo[0] - lastEnd);
+
+            if ( stops.size() == 1 ) {
+                addLeg(stops.get(0), stops.get(0), odo[2]);
+            } else {
+                double[] legs = shareMiles(mileage, zips, odo[2]);
+
+                for ( int x = 1; x < stops.size(); x++ )
+                    addLeg(stops.get(x - 1), stops.get(x), legs[x - 1]);
+            }
+
+            lastState = stops.get(stops.size() - 1);
+            lastEnd = odo[1];
+        }
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.FUEL) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( !inQuarter(f[1]) )
+                    continue;
+
+                // Only the diesel counts; DEF is not taxed as motor fuel.
+                double g = Money.parse(f[4], Money.MILLS) / 1000.0;
+                states.computeIfAbsent(stateOf(f[3]), k -> new double[2])[1]
+                        += g;
+                gallons += g;
+            }
+        }
+    }
+
+    private void addLeg(String origin, String destination, double legMiles) {
+        states.computeIfAbsent(origin, k -> new double[2])[0] += legMiles / 2;
+        states.computeIfAbsent(destination, k -> new double[2])[0]
+                += legMiles / 2;
+        miles += legMiles;
+    }
+
+    /**
+     * Shares the miles of a load among the legs between its stops, by the
+     * estimated miles of each leg when all of them can be estimated, or
+     * evenly.
+     */
+    private static double[] shareMiles(MileageEngine mileage,
+            List<String> zips, int driven) {
+        double[] legs = new double[zips.size() - 1];
+        int total = 0;
+
+        for ( int x = 0; x < legs.length; x++ ) {
+            int leg = mileage.getMiles(zips.get(x), zips.get(x + 1));
+
+            if ( leg == MileageEngine.UNKNOWN ) {
+                total = 0;
+                break;
+            }
+
+            legs[x] = leg;
+            total += leg;
+        }
+
+        for ( int x = 0; x < legs.length; x++ )
+            legs[x] = total == 0 ? (double) driven / legs.length
+                    : driven * legs[x] / total;
+
+        return legs;
+    }
+
+    private boolean inQuarter(String date) {
+        // The date is MM/dd/yyyy, as validated by the table.
+        String[] f = date.split("/");
+
+        return Integer.parseInt(f[2]) == year
+                && (Integer.parseInt(f[0]) + 2) / 3 == quarter;
+    }
+
+    private File getCacheFile() {
+        return new File(Starter.props.getPartitionFolder() + FOLDER
+                + File.separator + year + "Q" + quarter + ".chk");
+    }
+
+    /** Describes the files the quarter is worked out from, as they stand. */
+    private String signature() {
+        StringBuilder sb = new StringBuilder();
+        File[] sources = {
+            DataTables.CUSTOMERS.getFile(),
+            DataTables.LOADS.getFile(),
+            DataTables.STOPS.getFile(),
+            DataTables.FUEL.getFile(),
+            new File(Starter.props.getDataFolder() + PostalDatabase.FILE_NAME),
+            LoadArchive.getSegment(DataTables.LOADS, year),
+            LoadArchive.getSegment(DataTables.STOPS, year),
+            LoadArchive.getSegment(DataTables.STOPS, year - 1)
+        };
+
+        for ( File f : sources )
+            sb.append(f.getName()).append(':').append(f.length()).append(':')
+                    .append(f.lastModified()).append(';');
+
+        return sb.toString();
+    }
+
+    private boolean readCache(File cache, String signature) throws IOException {
+        if ( !cache.exists() )
+            return false;
+
+        try ( BufferedReader in = new BufferedReader(new FileReader(cache)) ) {
+            if ( !signature.equals(in.readLine()) )
+                return false;
+
+            String line;
+            while ( (line = in.readLine()) != null ) {
+                String[] f = line.split("~");
+                double[] t = {Double.parseDouble(f[1]),
+                    Double.parseDouble(f[2])};
+
+                states.put(f[0], t);
+                miles += t[0];
+                gallons += t[1];
+            }
+        } catch ( NumberFormatException | ArrayIndexOutOfBoundsException ex ) {
+            // A damaged cache is simply worked out again.
+            states.clear();
+            miles = 0.0;
+            gallons = 0.0;
+            return false;
+        }
+
+        return true;
+    }
+
+    private void writeCache(File cache, String signature) throws IOException {
+        cache.getParentFile().mkdirs();
+
+        try ( BufferedWriter out = new BufferedWriter(new FileWriter(cache)) ) {
+            out.write(signature + "\n");
+
+            for ( Map.Entry<String, double[]> e : states.entrySet() )
+                out.write(e.getKey() + "~" + e.getValue()[0] + "~"
+                        + e.getValue()[1] + "\n");
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,523 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   LaneAnalytics.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 10:05:51 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Rate, miles and revenue per mile of the loads, by broker and by lane,
+ *      kept up to date as loads are booked and completed.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.acct;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.model.LoadModel;
+import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.sys.LoadArchive;
+import com.pekinsoft.loadmaster.sys.MileageEngine;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.sys.TableWatcher;
+import com.pekinsoft.loadmaster.utils.Money;
+import com.pekinsoft.loadmaster.utils.QuantileSketch;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * The rate, miles and revenue per mile (RPM) of every load that was not
+ * cancelled, including the archived loads, grouped by broker and by lane. A
+ * lane runs from the city and state of a load's first stop to those of its
+ * last stop.
+ * <p>
+ * Each group keeps its number of loads, its totals and a
+ * {@link QuantileSketch sketch} of each figure, so the median and other
+ * percentiles are read without going back to the loads. The loads are read
+ * once, when the engine is first asked for, and from then on `LoadCtl` keeps
+ * the groups current. A load that is saved again, such as when it is
+ * completed, takes the place of what was posted for its trip.</p>
+ * <p>
+ * The miles of a completed load are those of its odometer, as for
+ * {@link LoadModel#getAvgRPM() getAvgRPM}; until then they are the booked
+ * miles. A load booked without miles is given the miles the
+ * {@link MileageEngine} estimates from the Zip Codes of its first and last
+ * stops, so that it does not count as a load paid for no miles.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class LaneAnalytics {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The lane given to loads whose stops cannot be found. */
+    public static final String UNKNOWN_LANE = "(Stops not found)";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static LaneAnalytics instance;
+
+    // The lanes are built from three tables; a change to any of them by
+    //+ another copy of the program means building them again.
+    static {
+        TableWatcher.addListener(table -> {
+            synchronized ( LaneAnalytics.class ) {
+                instance = null;
+            }
+        }, DataTables.CUSTOMERS, DataTables.LOADS,
+                DataTables.STOPS);
+    }
+
+    private final String folder;
+    private final HashMap<Long, Stats<Long>> byBroker;
+    private final HashMap<String, Stats<String>> byLane;
+    private final HashMap<String, Posted> posted;
+    // The first and last stops of each trip: {stop, customer, stop, customer}.
+    private final HashMap<String, long[]> endsOfTrip;
+    private final HashMap<Long, String> places;
+    private final HashMap<Long, String> zips;
+    private final LogRecord entry;
+    private MileageEngine mileage;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private LaneAnalytics (String folder) {
+        this.folder = folder;
+        byBroker = new HashMap<>();
+        byLane = new HashMap<>();
+        posted = new HashMap<>();
+        endsOfTrip = new HashMap<>();
+        places = new HashMap<>();
+        zips = new HashMap<>();
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the lane analytics for the current data folder, or the current
+     * truck in fleet mode, reading the loads the first time.
+     *
+     * @return the lane analytics
+     * @throws DataStoreException in the event the loads, stops or customers
+     *         cannot be read
+     */
+    public static synchronized LaneAnalytics getInstance()
+            throws DataStoreException {
+        String folder = Starter.props.getPartitionFolder();
+
+        if ( instance == null || !instance.folder.equals(folder) ) {
+            LaneAnalytics lanes = new LaneAnalytics(folder);
+            lanes.load();
+            instance = lanes;
+        }
+
+        return instance;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Posts a load, in place of whatever was posted before for its trip. A
+     * cancelled load is taken out.
+     *
+     * @param model the load being saved
+     */
+    public synchronized void post(LoadModel model) {
+        if ( !model.getStops().isEmpty() ) {
+            long[] ends = null;
+
+            for ( StopModel stop : model.getStops() )
+                ends = addStop(ends, stop.getStopNumber(),
+                        stop.getCustomer());
+
+            endsOfTrip.put(model.getTrip(), ends);
+        }
+
+        int miles = model.isCompleted() && model.getEndOdo()
+                > model.getStartOdo() ? model.getEndOdo() - model.getStartOdo()
+                : milesOf(model.getTrip(), model.getMiles());
+
+        apply(model.getTrip(), model.isCancelled() ? null : new Posted(
+                model.getBroker(), laneOf(model.getTrip()),
+                model.getRateInCents(), miles));
+    }
+
+    /**
+     * Retrieves the brokers that have at least a number of loads, best
+     * paying first.
+     *
+     * @param minLoads the fewest loads a broker must have had
+     * @return the brokers' figures, by revenue per mile from highest to
+     *         lowest; the key of each is the broker's ID number
+     */
+    public synchronized List<Stats<Long>> getBrokers(int minLoads) {
+        return leaders(byBroker, minLoads);
+    }
+
+    /**
+     * Retrieves the lanes that have had at least a number of loads, best
+     * paying first.
+     *
+     * @param minLoads the fewest loads a lane must have had
+     * @return the lanes' figures, by revenue per mile from highest to lowest;
+     *         the key of each is the lane, such as "Peoria, IL &gt; Pekin, IL"
+     */
+    public synchronized List<Stats<String>> getLanes(int minLoads) {
+        resolveLanes();
+
+        return leaders(byLane, minLoads);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void load() throws DataStoreException {
+        entry.setMessage("Grouping the loads by broker and lane...");
+        entry.setSourceMethodName("load");
+        entry.setParameters(new Object[]{folder});
+        Starter.logger.enter(entry);
+
+        mileage = MileageEngine.getInstance();
+
+        try {
+            readPlaces();
+            readStops(LoadArchive.records(DataTables.STOPS, null, null));
+
+            try ( Stream<String[]> s = LoadArchive.records(DataTables.LOADS,
+                    null, null) ) {
+                Iterator<String[]> it = s.iterator();
+
+                while ( it.hasNext() ) {
+                    String[] f = it.next();
+                    int start = Integer.parseInt(f[2]);
+                    int end = Integer.parseInt(f[3]);
+                    int miles = Boolean.parseBoolean(f[20]) && end > start
+                            ? end - start
+                            : milesOf(f[1], Integer.parseInt(f[6]));
+
+                    apply(f[1], Boolean.parseBoolean(f[21]) ? null
+                            : new Posted(Long.parseLong(f[18]), laneOf(f[1]),
+                                    Money.parse(f[5], Money.CENTS), miles));
+                }
+            }
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        entry.setMessage("Loads grouped.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, posted.size());
+    }
+
+    private void apply(String trip, Posted load) {
+        Posted old = load == null ? posted.remove(trip)
+                : posted.put(trip, load);
+
+        if ( old != null ) {
+            byBroker.get(old.broker).remove(old);
+            byLane.get(old.lane).remove(old);
+        }
+
+        if ( load != null ) {
+            byBroker.computeIfAbsent(load.broker, Stats::new).add(load);
+            byLane.computeIfAbsent(load.lane, Stats::new).add(load);
+        }
+    }
+
+    /**
+     * Moves the loads that were posted before their stops were saved to
+     * their lanes, once the stops can be found.
+     */
+    private void resolveLanes() {
+        Stats<String> unknown = byLane.get(UNKNOWN_LANE);
+
+        if ( unknown == null || unknown.loads == 0 )
+            return;
+
+        try {
+            readPlaces();
+            readStops(TableMaintenance.records(DataTables.STOPS));
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage());
+            entry.setThrown(ex);
+            entry.setSourceMethodName("resolveLanes");
+            Starter.logger.error(entry);
+            return;
+        }
+
+        for ( String trip : new ArrayList<>(posted.keySet()) ) {
+            Posted old = posted.get(trip);
+
+            if ( old.lane.equals(UNKNOWN_LANE) && endsOfTrip.containsKey(trip) )
+                apply(trip, new Posted(old.broker, laneOf(trip), old.rate,
+                        old.miles));
+        }
+    }
+
+    private void readPlaces() throws IOException {
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.CUSTOMERS) ) {
+            s.forEach(f -> {
+                places.put(Long.valueOf(f[0]), f[4].trim() + ", "
+                        + f[5].trim());
+                zips.put(Long.valueOf(f[0]), f[6].trim());
+            });
+        }
+    }
+
+    private void readStops(Stream<String[]> stops) {
+        try ( stops ) {
+            Iterator<String[]> it = stops.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                endsOfTrip.put(f[0], addStop(endsOfTrip.get(f[0]),
+                        Integer.parseInt(f[1]), Long.parseLong(f[2])));
+            }
+        }
+    }
+
+    /**
+     * Gives the booked miles of a load, or, when none were booked, the miles
+     * estimated from its first stop to its last.
+     */
+    private int milesOf(String trip, int booked) {
+        long[] ends = endsOfTrip.get(trip);
+
+        if ( booked > 0 || ends == null || mileage == null )
+            return booked;
+
+        int miles = mileage.getMiles(zips.get(ends[1]), zips.get(ends[3]));
+
+        return miles > 0 ? miles : booked;
+    }
+
+    private String laneOf(String trip) {
+        long[] ends = endsOfTrip.get(trip);
+
+        if ( ends == null )
+            return UNKNOWN_LANE;
+
+        return places.getOrDefault(ends[1], "?") + " > "
+                + places.getOrDefault(ends[3], "?");
+    }
+
+    private static long[] addStop(long[] ends, int stop, long customer) {
+        if ( ends == null )
+            return new long[]{stop, customer, stop, customer};
+
+        if ( stop < ends[0] ) {
+            ends[0] = stop;
+            ends[1] = customer;
+        }
+        if ( stop > ends[2] ) {
+            ends[2] = stop;
+            ends[3] = customer;
+        }
+
+        return ends;
+    }
+
+    private static <K> List<Stats<K>> leaders(HashMap<K, Stats<K>> groups,
+            int minLoads) {
+        List<Stats<K>> list = new ArrayList<>();
+
+        for ( Stats<K> stats : groups.values() )
+            if ( stats.loads > 0 && stats.loads >= minLoads )
+                list.add(stats);
+
+        list.sort(Comparator.comparingLong(
+                Stats<K>::getRatePerMileInMills).reversed());
+
+        return list;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * The figures of the loads of one broker or one lane.
+     *
+     * @param <K> the type of the key: the broker's ID number or the lane
+     */
+    public static class Stats<K> {
+        private final K key;
+        private final QuantileSketch rates;
+        private final QuantileSketch miles;
+        private final QuantileSketch ratesPerMile;
+        private int loads;
+        private long totalRate;
+        private long totalMiles;
+
+        private Stats(K key) {
+            this.key = key;
+            rates = new QuantileSketch();
+            miles = new QuantileSketch();
+            ratesPerMile = new QuantileSketch();
+        }
+
+        /**
+         * Retrieves the broker's ID number or the lane.
+         *
+         * @return the key
+         */
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * Retrieves the number of loads.
+         *
+         * @return the loads
+         */
+        public int getLoads() {
+            return loads;
+        }
+
+        /**
+         * Retrieves the total of the rates of the loads.
+         *
+         * @return the total rate in cents
+         */
+        public long getRateInCents() {
+            return totalRate;
+        }
+
+        /**
+         * Retrieves the total miles of the loads.
+         *
+         * @return the miles
+         */
+        public long getMiles() {
+            return totalMiles;
+        }
+
+        /**
+         * Retrieves the revenue per mile over all of the loads: the total
+         * rate over the total miles.
+         *
+         * @return the revenue per mile in mills, or zero if there were no
+         *         miles
+         */
+        public long getRatePerMileInMills() {
+            return totalMiles == 0 ? 0L : Math.round(totalRate * 10.0
+                    / totalMiles);
+        }
+
+        /**
+         * Retrieves a percentile of the rates of the loads.
+         *
+         * @param fraction the percentile as a fraction, such as 0.5 for the
+         *                 median
+         * @return the approximate rate in cents
+         */
+        public long getRatePercentile(double fraction) {
+            return rates.getPercentile(fraction);
+        }
+
+        /**
+         * Retrieves a percentile of the miles of the loads.
+         *
+         * @param fraction the percentile as a fraction
+         * @return the approximate miles
+         */
+        public long getMilesPercentile(double fraction) {
+            return miles.getPercentile(fraction);
+        }
+
+        /**
+         * Retrieves a percentile of the revenue per mile of the loads, each
+         * load counting once whatever its length. Loads without miles are
+         * left out.
+         *
+         * @param fraction the percentile as a fraction
+         * @return the approximate revenue per mile in mills
+         */
+        public long getRatePerMilePercentile(double fraction) {
+            return ratesPerMile.getPercentile(fraction);
+        }
+
+        private void add(Posted load) {
+            loads++;
+            totalRate += load.rate;
+            totalMiles += load.miles;
+            rates.add(load.rate);
+            miles.add(load.miles);
+            if ( load.miles > 0 )
+                ratesPerMile.add(load.ratePerMile());
+        }
+
+        private void remove(Posted load) {
+            loads--;
+            totalRate -= load.rate;
+            totalMiles -= load.miles;
+            rates.remove(load.rate);
+            miles.remove(load.miles);
+            if ( load.miles > 0 )
+                ratesPerMile.remove(load.ratePerMile());
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    /** What was posted for a trip, so that it can be taken back out. */
+    private static class Posted {
+        private final long broker;
+        private final String lane;
+        private final long rate;
+        private final int miles;
+
+        private Posted(long broker, String lane, long rate, int miles) {
+            this.broker = broker;
+            this.lane = lane;
+            this.rate = rate;
+            this.miles = miles;
+        }
+
+        private long ratePerMile() {
+            return Math.round(rate * 10.0 / miles);
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   PeriodRollups.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 6:12:30 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Keeps the General Ledger totals of every account by month, fiscal
+ *      quarter and fiscal year, split between deductible and non-deductible
+ *      entries, for the profit and loss and tax summaries.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.acct;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.utils.IntLongHashMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-period totals of the General Ledger accounts. These are kept by the
+ * {@link BalanceEngine}, which posts every entry to them as it posts the entry
+ * to the balances, so a report over any number of years reads a handful of
+ * totals instead of the whole ledger.
+ * <p>
+ * The totals are kept for each calendar month. Fiscal quarters and fiscal
+ * years are rolled up from the months, starting with the month of the
+ * `acct.fiscal.start` setting. Fiscal periods always begin on the first of a
+ * month, and a fiscal year is named for the calendar year in which it begins.
+ * When the fiscal start is changed in the settings, the quarters and years are
+ * simply rolled up again from the months the next time they are asked for;
+ * the ledger is not read again.</p>
+ * <p>
+ * Periods are identified by number: `yyyymm` for a month, `yyyyq` for a
+ * fiscal quarter (e.g., 20263 for the third quarter of fiscal 2026), and
+ * `yyyy` for a fiscal year. Every total may be asked for deductible entries
+ * only, non-deductible entries only, or both.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class PeriodRollups {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the rollups file in the data folder. */
+    public static final String CHECKPOINT = "rollups.chk";
+    /** The account into which truck pay is booked at dispatch. */
+    public static final int ACCOUNTS_RECEIVABLE = 50500;
+    /** The lowest account number of the expense accounts. */
+    public static final int FIRST_EXPENSE = 10000;
+    /** The highest account number of the expense accounts. */
+    public static final int LAST_EXPENSE = 49999;
+
+    /** The lengths of period that totals are kept for. */
+    public enum Grain {
+        MONTH, QUARTER, YEAR
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final TreeMap<Integer, Cell> months;
+    private final TreeMap<Integer, Cell> quarters;
+    private final TreeMap<Integer, Cell> years;
+    private int fiscalMonth;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    PeriodRollups () {
+        months = new TreeMap<>();
+        quarters = new TreeMap<>();
+        years = new TreeMap<>();
+        fiscalMonth = getFiscalStartMonth();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the month in which the fiscal year begins, from the
+     * `acct.fiscal.start` setting.
+     *
+     * @return the month, from 1 (January) to 12 (December)
+     */
+    public static int getFiscalStartMonth() {
+        String start = Starter.props.getProperty("acct.fiscal.start",
+                "01/01/2020");
+
+        try {
+            int month = Integer.parseInt(start.substring(0, start.indexOf('/')));
+            return month >= 1 && month <= 12 ? month : 1;
+        } catch ( NumberFormatException | StringIndexOutOfBoundsException ex ) {
+            return 1;
+        }
+    }
+
+    /**
+     * Retrieves the number of the period that a date falls in.
+     *
+     * @param grain the length of the period
+     * @param date  the date
+     * @return the period number
+     */
+    public static int periodOf(Grain grain, Date date) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+
+        return rollUp(grain, cal.get(Calendar.YEAR) * 100
+                + cal.get(Calendar.MONTH) + 1, getFiscalStartMonth());
+    }
+
+    /**
+     * Retrieves the fiscal year that a period belongs to.
+     *
+     * @param grain  the length of the period
+     * @param period the period number
+     * @return the fiscal year
+     */
+    public static int fiscalYearOf(Grain grain, int period) {
+        switch ( grain ) {
+            case MONTH:
+                return rollUp(Grain.YEAR, period, getFiscalStartMonth());
+            case QUARTER:
+                return period / 10;
+            default:
+                return period;
+        }
+    }
+
+    /**
+     * Formats a period number for display, such as "10/2026", "FY2026 Q3" or
+     * "FY2026".
+     *
+     * @param grain  the length of the period
+     * @param period the period number
+     * @return the period label
+     */
+    public static String getLabel(Grain grain, int period) {
+        switch ( grain ) {
+            case MONTH:
+                return String.format("%02d/%d", period % 100, period / 100);
+            case QUARTER:
+                return "FY" + (period / 10) + " Q" + (period % 10);
+            default:
+                return "FY" + period;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Retrieves the periods that have entries posted in them, in order.
+     *
+     * @param grain the length of the periods
+     * @return the period numbers
+     */
+    public synchronized int[] getPeriods(Grain grain) {
+        return cells(grain).keySet().stream().mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Retrieves the accounts that have entries posted to them in a period, in
+     * order.
+     *
+     * @param grain  the length of the period
+     * @param period the period number
+     * @return the account numbers
+     */
+    public synchronized int[] getAccounts(Grain grain, int period) {
+        Cell cell = cells(grain).get(period);
+
+        if ( cell == null )
+            return new int[0];
+
+        int[] keys = cell.counts.keys();
+        int[] accounts = new int[keys.length];
+        int size = 0;
+
+        // The keys come sorted, with both halves of an account side by side.
+        for ( int key : keys ) {
+            if ( size == 0 || accounts[size - 1] != key >> 1 )
+                accounts[size++] = key >> 1;
+        }
+
+        return Arrays.copyOf(accounts, size);
+    }
+
+    /**
+     * Retrieves the total moved into an account during a period.
+     *
+     * @param grain      the length of the period
+     * @param period     the period number
+     * @param account    the account number
+     * @param deductible `true` for deductible entries only, `false` for
+     *                   non-deductible entries only, or `null` for all entries
+     * @return the total in cents
+     */
+    public synchronized long getDebits(Grain grain, int period, int account,
+            Boolean deductible) {
+        Cell cell = cells(grain).get(period);
+        return cell == null ? 0L : sum(cell.debits, account, deductible);
+    }
+
+    /**
+     * Retrieves the total moved out of an account during a period.
+     *
+     * @param grain      the length of the period
+     * @param period     the period number
+     * @param account    the account number
+     * @param deductible `true` for deductible entries only, `false` for
+     *                   non-deductible entries only, or `null` for all entries
+     * @return the total in cents
+     */
+    public synchronized long getCredits(Grain grain, int period, int account,
+            Boolean deductible) {
+        Cell cell = cells(grain).get(period);
+        return cell == null ? 0L : sum(cell.credits, account, deductible);
+    }
+
+    /**
+     * Retrieves the change in an account's balance during a period.
+     *
+     * @param grain      the length of the period
+     * @param period     the period number
+     * @param account    the account number
+     * @param deductible `true` for deductible entries only, `false` for
+     *                   non-deductible entries only, or `null` for all entries
+     * @return the net change in cents
+     */
+    public synchronized long getNet(Grain grain, int period, int account,
+            Boolean deductible) {
+        return getDebits(grain, period, account, deductible)
+                - getCredits(grain, period, account, deductible);
+    }
+
+    /**
+     * Retrieves the income for a period, being the truck pay booked into
+     * Accounts Receivable.
+     *
+     * @param grain  the length of the period
+     * @param period the period number
+     * @return the income in cents
+     */
+    public synchronized long getIncome(Grain grain, int period) {
+        return getDebits(grain, period, ACCOUNTS_RECEIVABLE, null);
+    }
+
+    /**
+     * Retrieves the net of all expense accounts for a period.
+     *
+     * @param grain      the length of the period
+     * @param period     the period number
+     * @param deductible `true` for deductible entries only, `false` for
+     *                   non-deductible entries only, or `null` for all entries
+     * @return the expenses in cents
+     */
+    public synchronized long getExpenses(Grain grain, int period,
+            Boolean deductible) {
+        long total = 0;
+
+        for ( int account : getAccounts(grain, period) ) {
+            if ( account >= FIRST_EXPENSE && account <= LAST_EXPENSE )
+                total += getNet(grain, period, account, deductible);
+        }
+
+        return total;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package-Private Methods">
+    /**
+     * Posts an amount to the totals of the month it falls in, and to that
+     * month's fiscal quarter and year.
+     *
+     * @param month      the month, as `yyyymm`
+     * @param deductible whether the entry is deductible
+     * @param from       the account the amount moved out of
+     * @param to         the account the amount moved into
+     * @param cents      the amount, negative to take an entry back out
+     * @param count      one (1) to post an entry, or minus one (-1) to reverse
+     */
+    synchronized void apply(int month, boolean deductible, int from, int to,
+            long cents, int count) {
+        checkFiscalStart();
+
+        int half = deductible ? 1 : 0;
+        cell(months, month).apply(from, to, half, cents, count);
+        cell(quarters, rollUp(Grain.QUARTER, month, fiscalMonth))
+                .apply(from, to, half, cents, count);
+        cell(years, rollUp(Grain.YEAR, month, fiscalMonth))
+                .apply(from, to, half, cents, count);
+    }
+
+    synchronized void clear() {
+        months.clear();
+        quarters.clear();
+        years.clear();
+    }
+
+    /**
+     * Writes the monthly totals, one line per month, account and half.
+     */
+    synchronized void write(Writer out) throws IOException {
+        for ( Map.Entry<Integer, Cell> m : months.entrySet() ) {
+            Cell cell = m.getValue();
+
+            for ( int key : cell.counts.keys() )
+                out.write(m.getKey() + "~" + (key >> 1) + "~"
+                        + ((key & 1) == 1) + "~" + cell.debits.get(key) + "~"
+                        + cell.credits.get(key) + "~" + cell.counts.get(key)
+                        + "\n");
+        }
+    }
+
+    /**
+     * Reads the monthly totals written by {@link #write(Writer) write} and
+     * rolls them up into quarters and years.
+     *
+     * @throws NumberFormatException          if a line is damaged
+     * @throws ArrayIndexOutOfBoundsException if a line is damaged
+     */
+    synchronized void read(BufferedReader in) throws IOException {
+        String line;
+
+        while ( (line = in.readLine()) != null ) {
+            String[] f = line.split("~");
+            Cell cell = cell(months, Integer.parseInt(f[0]));
+            int key = Integer.parseInt(f[1]) << 1
+                    | (Boolean.parseBoolean(f[2]) ? 1 : 0);
+
+            cell.debits.put(key, Long.parseLong(f[3]));
+            cell.credits.put(key, Long.parseLong(f[4]));
+            cell.counts.put(key, Long.parseLong(f[5]));
+        }
+
+        regroup();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private TreeMap<Integer, Cell> cells(Grain grain) {
+        checkFiscalStart();
+
+        switch ( grain ) {
+            case MONTH:
+                return months;
+            case QUARTER:
+                return quarters;
+            default:
+                return years;
+        }
+    }
+
+    /** Rolls the quarters and years up again if the fiscal start moved. */
+    private void checkFiscalStart() {
+        int month = getFiscalStartMonth();
+
+        if ( month != fiscalMonth ) {
+            fiscalMonth = month;
+            regroup();
+        }
+    }
+
+    private void regroup() {
+        quarters.clear();
+        years.clear();
+
+        for ( Map.Entry<Integer, Cell> m : months.entrySet() ) {
+            Cell cell = m.getValue();
+            cell(quarters, rollUp(Grain.QUARTER, m.getKey(), fiscalMonth))
+                    .add(cell);
+            cell(years, rollUp(Grain.YEAR, m.getKey(), fiscalMonth)).add(cell);
+        }
+    }
+
+    private static Cell cell(TreeMap<Integer, Cell> cells, int period) {
+        return cells.computeIfAbsent(period, p -> new Cell());
+    }
+
+    private static long sum(IntLongHashMap map, int account, Boolean deductible) {
+        if ( deductible == null )
+            return map.get(account << 1) + map.get(account << 1 | 1);
+
+        return map.get(account << 1 | (deductible ? 1 : 0));
+    }
+
+    /** Converts a `yyyymm` month to the period of the given length. */
+    private static int rollUp(Grain grain, int month, int fiscalMonth) {
+        if ( grain == Grain.MONTH )
+            return month;
+
+        int year = month / 100;
+        int into = month % 100 - fiscalMonth;
+
+        if ( into < 0 ) {
+            year--;
+            into += 12;
+        }
+
+        return grain == Grain.QUARTER ? year * 10 + into / 3 + 1 : year;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    /**
+     * The totals of one period. Each account is kept in two halves, keyed by
+     * the account number shifted left one bit, with the low bit set for the
+     * deductible half.
+     */
+    private static class Cell {
+        private final IntLongHashMap debits = new IntLongHashMap(16);
+        private final IntLongHashMap credits = new IntLongHashMap(16);
+        private final IntLongHashMap counts = new IntLongHashMap(16);
+
+        private void apply(int from, int to, int half, long cents, int count) {
+            credits.add(from << 1 | half, cents);
+            debits.add(to << 1 | half, cents);
+            counts.add(from << 1 | half, count);
+            if ( to != from )
+                counts.add(to << 1 | half, count);
+        }
+
+        private void add(Cell other) {
+            for ( int key : other.counts.keys() ) {
+                debits.add(key, other.debits.get(key));
+                credits.add(key, other.credits.get(key));
+                counts.add(key, other.counts.get(key));
+            }
+        }
+    }
+    //</editor-fold>
+
+}
@@ -27,20 +27,29 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Sep 19, 2020  Sean Carrick        Initial Creation.
+ *   Oct 19, 2026  Sean Carrick        The table is read and written through a
+ *                                     SharedTable.
+ *   Oct 19, 2026  Sean Carrick        Saved changes are published on the
+ *                                     ChangeBus.
+ *   Oct 19, 2026  Sean Carrick        New customers are given their ID numbers
+ *                                     from a Sequence when they are added.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.controller;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.CustomerModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.ChangeEvent;
+import com.pekinsoft.loadmaster.sys.Sequence;
+import com.pekinsoft.loadmaster.sys.SharedTable;
 import com.pekinsoft.loadmaster.view.LoadMaster;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.logging.Level;
@@ -61,10 +70,14 @@ public class CustomerCtl {
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
     // Table Data:
     private final File TABLE;
+    private final SharedTable shared;
+    // Held only so the bus keeps us posted; it holds subscriptions weakly.
+    private final ChangeBus.Subscription peers;
     
     // Table Information:
     private CustomerModel customer;
     private final ArrayList<CustomerModel> records;
+    private final ArrayList<ChangeEvent<CustomerModel>> changes;
     private int row;
     
     // System:
@@ -83,6 +96,7 @@ public class CustomerCtl {
     //<editor-fold defaultstate="collapsed" desc="Intstance Initializer">
     {
         records = new ArrayList<>();
+        changes = new ArrayList<>();
         row = 0;
         entry = new LogRecord(Level.FINEST, "");
         entry.setSourceClassName(this.getClass().getCanonicalName());
@@ -93,6 +107,9 @@ public class CustomerCtl {
     public CustomerCtl () throws DataStoreException {
         customer = new CustomerModel();
         TABLE = new File(Starter.DB_URL + "customers.tbl");
+        shared = new SharedTable(DataTables.CUSTOMERS, TABLE);
+        peers = ChangeBus.subscribe(DataTables.CUSTOMERS, CustomerModel.class,
+                this::apply);
         
         // Check to see if the table file exists:
         if ( !TABLE.exists() ) {
@@ -124,7 +141,19 @@ public class CustomerCtl {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
-    
+    /**
+     * Builds the line that is stored in the table for the given customer.
+     * 
+     * @param model the customer to store
+     * @return the table line, without the line terminator
+     */
+    public static String buildRecordLine(CustomerModel model) {
+        return model.getId() + "~" + model.getCompany() + "~"
+                + model.getStreet() + "~" + model.getSuite() + "~"
+                + model.getCity() + "~" + model.getState() + "~"
+                + model.getZip() + "~" + model.getContact() + "~"
+                + model.getPhone() + "~" + model.getComments();
+    }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
@@ -543,15 +572,25 @@ public class CustomerCtl {
             customer = cust;
             
             records.set(row, customer);
+            changes.add(new ChangeEvent<>(this, DataTables.CUSTOMERS,
+                    ChangeEvent.Type.UPDATE, customer,
+                    buildRecordLine(customer)));
     }
     
     /**
      * Allows for the addition of new customers into the table.
      * 
      * @param cust The new customer record to add to the table
+     * @throws DataStoreException in the event no ID number can be drawn for
+     *                            a new customer
      */
-    public void addNew(CustomerModel cust) {
+    public void addNew(CustomerModel cust) throws DataStoreException {
+        if ( cust.getId() == 0 )
+            cust.setId(Sequence.nextId(DataTables.CUSTOMERS));
+        
         records.add(cust);
+        changes.add(new ChangeEvent<>(this, DataTables.CUSTOMERS,
+                ChangeEvent.Type.INSERT, cust, buildRecordLine(cust)));
         row = getRecordCount() - 1;
         
         Starter.props.setPropertyAsInt("table.customers.records",
@@ -567,37 +606,29 @@ public class CustomerCtl {
     public void storeData() throws DataStoreException {
         BufferedWriter out;
         
-        LoadMaster.loadProgress.setMaximum(
-                Starter.props.getPropertyAsInt("table.customers.records", "0"));
-        LoadMaster.loadProgress.setValue(
-                Starter.props.getPropertyAsInt("table.customers.records", "0"));
-        
-        if ( TABLE.exists() ) {
-            TABLE.delete();
-            try {
-                TABLE.createNewFile();
-            } catch ( IOException ex ) {
-                entry.setMessage("Something went wrong deleting and recreating the data table.");
-                entry.setThrown(ex);
-                entry.setSourceMethodName("storeData");
-                entry.setParameters(null);
-                Starter.logger.error(entry);
-                
-                throw new DataStoreException(ex.getMessage(), ex);
-            }
+        if ( LoadMaster.loadProgress != null ) {
+            LoadMaster.loadProgress.setMaximum(
+                    Starter.props.getPropertyAsInt("table.customers.records", "0"));
+            LoadMaster.loadProgress.setValue(
+                    Starter.props.getPropertyAsInt("table.customers.records", "0"));
         }
         
         try {
-            out = new BufferedWriter(new FileWriter(TABLE));
+            out = shared.writer();
             
             for ( int x = 0; x < records.size(); x++ ) {
                 out.write(buildRecordLine(records.get(x)) + "\n");
                 
-                LoadMaster.fileProgress.setValue(
-                        LoadMaster.fileProgress.getValue() - 1);
+                if ( LoadMaster.fileProgress != null ) {
+                    LoadMaster.fileProgress.setValue(
+                            LoadMaster.fileProgress.getValue() - 1);
+                }
             }
             
             out.close();
+            
+            ChangeBus.publish(changes);
+            changes.clear();
         } catch ( IOException ex ) {
             entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
                     + "Throwing DataStoreException to calling method...");
@@ -613,6 +644,37 @@ public class CustomerCtl {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Keeps the records in step with the customers saved by the other
+     * controllers, so that one added elsewhere is found here without reading
+     * the table again.
+     */
+    private void apply(ChangeEvent<CustomerModel> event) {
+        if ( event.getSource() == this )
+            return;
+        
+        int idx = -1;
+        for ( int x = 0; x < records.size() && idx < 0; x++ )
+            if ( records.get(x).getId() == event.getRecord().getId() )
+                idx = x;
+        
+        switch ( event.getType() ) {
+            case DELETE:
+                if ( idx >= 0 ) {
+                    records.remove(idx);
+                    
+                    if ( row > idx || row == records.size() )
+                        row = Math.max(0, row - 1);
+                }
+                break;
+            default:
+                if ( idx < 0 )
+                    records.add(event.getRecord());
+                else
+                    records.set(idx, event.getRecord());
+        }
+    }
+    
     private void connect() throws DataStoreException {
         BufferedReader in;
         if ( LoadMaster.fileProgress != null ) {
@@ -623,7 +685,7 @@ public class CustomerCtl {
         }
         
         try {
-            in = new BufferedReader(new FileReader(TABLE));
+            in = shared.open();
             
             String line = in.readLine();
             
@@ -675,14 +737,6 @@ public class CustomerCtl {
         
         records.add(customer);
     }
-    
-    private String buildRecordLine(CustomerModel model) {
-        return model.getId() + "~" + model.getCompany() + "~"
-                + model.getStreet() + "~" + model.getSuite() + "~"
-                + model.getCity() + "~" + model.getState() + "~"
-                + model.getZip() + "~" + model.getContact() + "~"
-                + model.getPhone() + "~" + model.getComments();
-    }
     //</editor-fold>
 
 
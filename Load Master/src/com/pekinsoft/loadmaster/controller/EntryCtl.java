@@ -27,21 +27,37 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Oct 19, 2020  Sean Carrick        Initial Creation.
+ *   Oct 19, 2026  Sean Carrick        Entries are posted to the BalanceEngine
+ *                                     as they are added or updated, and the
+ *                                     balances are checkpointed on save.
+ *   Oct 19, 2026  Sean Carrick        Entries are posted to the SearchIndex.
+ *   Oct 19, 2026  Sean Carrick        The table is read and written through a
+ *                                     SharedTable.
+ *   Oct 19, 2026  Sean Carrick        Saved changes are published on the
+ *                                     ChangeBus.
+ *   Oct 19, 2026  Sean Carrick        Entries are posted to the balances and
+ *                                     the index only once the ledger is saved.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.controller;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.acct.BalanceEngine;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.EntryModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.ChangeEvent;
+import com.pekinsoft.loadmaster.sys.SearchIndex;
+import com.pekinsoft.loadmaster.sys.SharedTable;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
 import com.pekinsoft.loadmaster.utils.MessageBox;
+import com.pekinsoft.loadmaster.utils.Money;
 import com.pekinsoft.loadmaster.view.LoadMaster;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -66,9 +82,14 @@ public class EntryCtl {
 
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
     private final ArrayList<EntryModel> records;
+    private final ArrayList<ChangeEvent<EntryModel>> changes;
+    private final ArrayList<Runnable> posts;
     private final File TABLE;
+    private final SharedTable shared;
     
     private final LogRecord entry;
+    private final SearchIndex search;
+    private BalanceEngine balances;
     
     private EntryModel record;
     private int row;
@@ -99,10 +120,18 @@ public class EntryCtl {
         fileJustCreated = false;
         
         records = new ArrayList<>();
+        changes = new ArrayList<>();
+        posts = new ArrayList<>();
         record = new EntryModel();
         row = 0;
         
         TABLE = new File(Starter.props.getDataFolder() + "0.ldgr");
+        shared = new SharedTable(DataTables.LEDGER, TABLE);
+        
+        // Load the balances before anything can be posted, so that they match
+        //+ the ledger as it stands on disk.
+        balances = BalanceEngine.getInstance();
+        search = SearchIndex.getInstance();
 
         // Check to see if the table file exists:
         if ( !TABLE.exists() ) {
@@ -143,7 +172,14 @@ public class EntryCtl {
     //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
     public void addNew(EntryModel model) {
         records.add(model);
+        changes.add(new ChangeEvent<>(this, DataTables.LEDGER,
+                ChangeEvent.Type.INSERT, model, buildRecordLine(model)));
         row = getRecordCount() - 1;
+        posts.add(() -> {
+            balances.post(model);
+            search.post(DataTables.LEDGER, TableMaintenance.split(
+                    DataTables.LEDGER, buildRecordLine(model)));
+        });
         
         Starter.props.setPropertyAsInt("journal.gl.records", getRecordCount());
     }
@@ -294,9 +330,23 @@ public class EntryCtl {
     }
     
     public void update(EntryModel model) {
+        EntryModel old = records.get(row);
+        String[] oldFields = TableMaintenance.split(DataTables.LEDGER,
+                buildRecordLine(old));
+        posts.add(() -> {
+            balances.reverse(old);
+            balances.post(model);
+            // The ledger has no key, so the old entry is known by its text.
+            search.remove(DataTables.LEDGER, oldFields);
+            search.post(DataTables.LEDGER, TableMaintenance.split(
+                    DataTables.LEDGER, buildRecordLine(model)));
+        });
+        
         record = model;
         
         records.set(row, model);
+        changes.add(new ChangeEvent<>(this, DataTables.LEDGER,
+                ChangeEvent.Type.UPDATE, model, buildRecordLine(model)));
     }
     //</editor-fold>
 
@@ -322,7 +372,7 @@ public class EntryCtl {
         }
         
         try {
-            in = new BufferedReader(new FileReader(TABLE));
+            in = shared.open();
             
             String line = in.readLine();
             
@@ -362,37 +412,30 @@ public class EntryCtl {
     private void save() throws DataStoreException {
         BufferedWriter out;
         
-        LoadMaster.loadProgress.setMaximum(
-                Starter.props.getPropertyAsInt("table.stops.records", "0"));
-        LoadMaster.loadProgress.setValue(
-                Starter.props.getPropertyAsInt("table.stops.records", "0"));
-        
-        if ( TABLE.exists() ) {
-            TABLE.delete();
-            try {
-                TABLE.createNewFile();
-            } catch ( IOException ex ) {
-                entry.setMessage("Something went wrong deleting and recreating the data table.");
-                entry.setThrown(ex);
-                entry.setSourceMethodName("storeData");
-                entry.setParameters(null);
-                Starter.logger.error(entry);
-                
-                throw new DataStoreException(ex.getMessage(), ex);
-            }
+        if ( LoadMaster.loadProgress != null ) {
+            LoadMaster.loadProgress.setMaximum(
+                    Starter.props.getPropertyAsInt("table.stops.records", "0"));
+            LoadMaster.loadProgress.setValue(
+                    Starter.props.getPropertyAsInt("table.stops.records", "0"));
         }
         
         try {
-            out = new BufferedWriter(new FileWriter(TABLE));
+            out = shared.writer();
             
             for ( int x = 0; x < records.size(); x++ ) {
                 out.write(buildRecordLine(records.get(x)) + "\n");
                 
-                LoadMaster.fileProgress.setValue(
-                        LoadMaster.fileProgress.getValue() - 1);
+                if ( LoadMaster.fileProgress != null ) {
+                    LoadMaster.fileProgress.setValue(
+                            LoadMaster.fileProgress.getValue() - 1);
+                }
             }
             
             out.close();
+            
+            ChangeBus.publish(changes);
+            changes.clear();
+            post();
         } catch ( IOException ex ) {
             entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
                     + "Throwing DataStoreException to calling method...");
@@ -403,13 +446,33 @@ public class EntryCtl {
             
             throw new DataStoreException(ex.getMessage(), ex);
         }
+        
+        // Balances made stale by another copy's entries, such as those merged
+        //+ in by this save, are missing them, and any read again since may be
+        //+ missing this save; so they are read again from the ledger as it
+        //+ now stands.
+        if ( balances.isStale() )
+            BalanceEngine.invalidate();
+        
+        balances = BalanceEngine.getInstance();
+        balances.checkpoint();
+    }
+    
+    // The balances and the index are told of an entry only once it has been
+    //+ written, so that a failed save leaves them matching the ledger.
+    private void post() {
+        for ( Runnable p : posts )
+            p.run();
+        
+        posts.clear();
     }
     
     private String buildRecordLine(EntryModel model) {
-        return record.getDateAsString() + "~" + record.getCode() + "~"
-                + record.getDescription() + "~" + record.getFromAccount()
-                + "~" + record.getToAccount() + "~" + record.getAmount()
-                + "~" + record.isDeductible() + "~" + record.isBalanced();
+        return model.getDateAsString() + "~" + model.getCode() + "~"
+                + model.getDescription() + "~" + model.getFromAccount()
+                + "~" + model.getToAccount() + "~"
+                + Money.format(model.getAmountInCents(), Money.CENTS)
+                + "~" + model.isDeductible() + "~" + model.isBalanced();
     }
     
     private void createAndAddRecord(String[] line) {
@@ -440,14 +503,16 @@ public class EntryCtl {
         record.setDescription(line[2]);
         record.setFromAccount(Integer.parseInt(line[3]));
         record.setToAccount(Integer.parseInt(line[4]));
-        record.setAmount(Double.parseDouble(line[5]));
+        record.setAmountInCents(Money.parse(line[5], Money.CENTS));
         record.setDeductible(Boolean.parseBoolean(line[6]));
         record.setBalanced(Boolean.parseBoolean(line[7]));
         
         records.add(record);
         
-        LoadMaster.fileProgress.setValue(
-                LoadMaster.fileProgress.getValue() + 1);
+        if ( LoadMaster.fileProgress != null ) {
+            LoadMaster.fileProgress.setValue(
+                    LoadMaster.fileProgress.getValue() + 1);
+        }
     }
     //</editor-fold>
 
@@ -27,21 +27,37 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Oct 21, 2020    Sean Carrick Initial Creation.
+ *   Oct 19, 2026    Sean Carrick Fuel-ups are posted to the FuelEconomy.
+ *   Oct 19, 2026    Sean Carrick Fuel-ups are posted to the SearchIndex.
+ *   Oct 19, 2026    Sean Carrick The journal is that of the current truck
+ *                                in fleet mode.
+ *   Oct 19, 2026    Sean Carrick The table is read and written through a
+ *                                SharedTable.
+ *   Oct 19, 2026    Sean Carrick Saved changes are published on the
+ *                                ChangeBus.
+ *   Oct 19, 2026    Sean Carrick New purchases are given their ID numbers
+ *                                from a Sequence when they are added.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.controller;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.acct.FuelEconomy;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.FuelPurchaseModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.ChangeEvent;
+import com.pekinsoft.loadmaster.sys.SearchIndex;
+import com.pekinsoft.loadmaster.sys.Sequence;
+import com.pekinsoft.loadmaster.sys.SharedTable;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import com.pekinsoft.loadmaster.view.LoadMaster;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -63,7 +79,11 @@ public class FuelPurchaseCtl {
 
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
     private final ArrayList<FuelPurchaseModel> records;
+    private final ArrayList<ChangeEvent<FuelPurchaseModel>> changes;
     private final File TABLE;
+    private final SharedTable shared;
+    private final FuelEconomy economy;
+    private final SearchIndex search;
     
     private final LogRecord entry;
     
@@ -97,13 +117,17 @@ public class FuelPurchaseCtl {
         fileJustCreated = false;
         
         records = new ArrayList<>();
+        changes = new ArrayList<>();
         row = 0;
         
-        TABLE = new File(Starter.props.getDataFolder() + "10040.jrnl");
+        TABLE = DataTables.FUEL.getFile();
+        shared = new SharedTable(DataTables.FUEL, TABLE);
 
         // Check to see if the table file exists:
         if ( !TABLE.exists() ) {
             try {
+                // A truck new to the fleet has no partition folder yet.
+                TABLE.getParentFile().mkdirs();
                 TABLE.createNewFile();
                 
                 // Set our flag:
@@ -122,6 +146,11 @@ public class FuelPurchaseCtl {
         
         if ( !fileJustCreated )
             connect();
+        
+        // The fuel economy reads the journal itself the first time it is
+        //+ needed, so this must come after the journal is known to exist.
+        economy = FuelEconomy.getInstance();
+        search = SearchIndex.getInstance();
 //        else
 //            MessageBox.showInfo("Data file was just now created.\n"
 //                    + "Add records to it, then save, in order\n"
@@ -138,8 +167,16 @@ public class FuelPurchaseCtl {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
-    public void addNew(FuelPurchaseModel model) {
+    public void addNew(FuelPurchaseModel model) throws DataStoreException {
+        if ( model.getId() == 0 )
+            model.setId(Sequence.nextId(DataTables.FUEL));
+        
         records.add(model);
+        changes.add(new ChangeEvent<>(this, DataTables.FUEL,
+                ChangeEvent.Type.INSERT, model, buildRecordLine(model)));
+        economy.post(model);
+        search.post(DataTables.FUEL, TableMaintenance.split(DataTables.FUEL,
+                buildRecordLine(model)));
         row = getRecordCount() - 1;
         
         Starter.props.setPropertyAsInt("journal.fuel.records", getRecordCount());
@@ -298,10 +335,23 @@ public class FuelPurchaseCtl {
         return records.size();
     }
     
+    /**
+     * Replaces the current fuel purchase with a corrected one. The purchase
+     * being replaced must not have been changed in place, so that the fuel
+     * economy can take the old values out.
+     * 
+     * @param model the corrected fuel purchase
+     */
     public void update(FuelPurchaseModel model) {
+        economy.reverse(records.get(row));
+        economy.post(model);
+        search.post(DataTables.FUEL, TableMaintenance.split(DataTables.FUEL,
+                buildRecordLine(model)));
         record = model;
         
         records.set(row, model);
+        changes.add(new ChangeEvent<>(this, DataTables.FUEL,
+                ChangeEvent.Type.UPDATE, model, buildRecordLine(model)));
     }
     //</editor-fold>
 
@@ -327,7 +377,7 @@ public class FuelPurchaseCtl {
         }
         
         try {
-            in = new BufferedReader(new FileReader(TABLE));
+            in = shared.open();
             
             String line = in.readLine();
             
@@ -370,38 +420,29 @@ public class FuelPurchaseCtl {
     private void save() throws DataStoreException {
         BufferedWriter out;
         
-        LoadMaster.fileProgress.setMaximum(
-                Starter.props.getPropertyAsInt("journal.fuel.records", "0"));
-        LoadMaster.fileProgress.setValue(
-                Starter.props.getPropertyAsInt("journal.fuel.records", "0"));
-        
-        if ( TABLE.exists() ) {
-            TABLE.delete();
-            try {
-                TABLE.createNewFile();
-            } catch ( IOException ex ) {
-                entry.setMessage("Something went wrong deleting and recreating "
-                        + "the data table.");
-                entry.setThrown(ex);
-                entry.setSourceMethodName("save");
-                entry.setParameters(null);
-                Starter.logger.error(entry);
-                
-                throw new DataStoreException(ex.getMessage(), ex);
-            }
+        if ( LoadMaster.fileProgress != null ) {
+            LoadMaster.fileProgress.setMaximum(
+                    Starter.props.getPropertyAsInt("journal.fuel.records", "0"));
+            LoadMaster.fileProgress.setValue(
+                    Starter.props.getPropertyAsInt("journal.fuel.records", "0"));
         }
         
         try {
-            out = new BufferedWriter(new FileWriter(TABLE));
+            out = shared.writer();
             
             for ( int x = 0; x < records.size(); x++ ) {
                 out.write(buildRecordLine(records.get(x)) + "\n");
                 
-                LoadMaster.fileProgress.setValue(
-                        LoadMaster.fileProgress.getValue() - 1);
+                if ( LoadMaster.fileProgress != null ) {
+                    LoadMaster.fileProgress.setValue(
+                            LoadMaster.fileProgress.getValue() - 1);
+                }
             }
             
             out.close();
+            
+            ChangeBus.publish(changes);
+            changes.clear();
         } catch ( IOException ex ) {
             entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
                     + "Throwing DataStoreException to calling method...");
@@ -418,9 +459,9 @@ public class FuelPurchaseCtl {
         return model.getIdAsString() + "~" + model.getDateAsString() + "~"
                 + model.getOdometer() + "~" + model.getLocation()+ "~"
                 + model.getGallonsOfDieselAsString()+ "~" 
-                + String.valueOf(model.getPricePerGallonDiesel()) + "~" 
+                + model.getPricePerGallonDieselAsString() + "~" 
                 + model.isDefPurchased() + "~" + model.getGallonsOfDefAsString()
-                + "~" + String.valueOf(model.getPricePerGallonDef()) + "~"
+                + "~" + model.getPricePerGallonDefAsString() + "~"
                 + model.getNotes();
     }
     
@@ -432,8 +473,7 @@ public class FuelPurchaseCtl {
         
         SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
         
-//        record = new ReceivablesModel();
-        
+        record = new FuelPurchaseModel();
         
         try {
             record.setDate(sdf.parse(line[1]));
@@ -460,8 +500,10 @@ public class FuelPurchaseCtl {
         
         records.add(record);
         
-        LoadMaster.fileProgress.setValue(
-                LoadMaster.fileProgress.getValue() + 1);
+        if ( LoadMaster.fileProgress != null ) {
+            LoadMaster.fileProgress.setValue(
+                    LoadMaster.fileProgress.getValue() + 1);
+        }
     }
     //</editor-fold>
 
@@ -27,26 +27,49 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Sep 06, 2020  Sean Carrick        Initial Creation.
+ *   Oct 19, 2026  Sean Carrick        Loads are posted to the LaneAnalytics.
+ *   Oct 19, 2026  Sean Carrick        Loads are posted to the AppointmentIndex.
+ *   Oct 19, 2026  Sean Carrick        Loads are posted to the SearchIndex.
+ *   Oct 19, 2026  Sean Carrick        The loads are those of the current
+ *                                     truck in fleet mode.
+ *   Oct 19, 2026  Sean Carrick        The table is read and written through a
+ *                                     SharedTable.
+ *   Oct 19, 2026  Sean Carrick        Saved changes are published on the
+ *                                     ChangeBus.
+ *   Oct 19, 2026  Sean Carrick        Loads may be saved in a UnitOfWork.
+ *   Oct 19, 2026  Sean Carrick        Loads are posted to the indexes only
+ *                                     once they have been saved.
+ *   Oct 19, 2026  Sean Carrick        The indexes are not read until a load is
+ *                                     posted to them.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.controller;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.acct.LaneAnalytics;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.LoadModel;
 import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.sys.AppointmentIndex;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.ChangeEvent;
+import com.pekinsoft.loadmaster.sys.SearchIndex;
+import com.pekinsoft.loadmaster.sys.SharedTable;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.sys.UnitOfWork;
 import com.pekinsoft.loadmaster.utils.MessageBox;
+import com.pekinsoft.loadmaster.utils.Money;
 import com.pekinsoft.loadmaster.view.LoadMaster;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
@@ -65,12 +88,18 @@ public class LoadCtl {
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
     // Table Data:
     private final File TABLE;
+    private final SharedTable shared;
     
     // Table Information:
     private LoadModel load;
     private final ArrayList<LoadModel> records;
+    private final ArrayList<ChangeEvent<LoadModel>> changes;
+    private final ArrayList<LoadModel> posts;
     private int row;
     
+    // Stops for the loads being read, grouped by trip number:
+    private HashMap<String, ArrayList<StopModel>> stopsByTrip;
+    
     // System:
     private LogRecord entry;
     
@@ -87,6 +116,8 @@ public class LoadCtl {
     //<editor-fold defaultstate="collapsed" desc="Intstance Initializer">
     {
         records = new ArrayList<>();
+        changes = new ArrayList<>();
+        posts = new ArrayList<>();
         row = 0;
         entry = new LogRecord(Level.FINEST, "");
         entry.setSourceClassName(this.getClass().getCanonicalName());
@@ -96,11 +127,14 @@ public class LoadCtl {
     //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
     public LoadCtl () throws DataStoreException {
         load = new LoadModel();
-        TABLE = new File(Starter.DB_URL + "loads.tbl");
+        TABLE = DataTables.LOADS.getFile();
+        shared = new SharedTable(DataTables.LOADS, TABLE);
         
         // Check to see if the table file exists:
         if ( !TABLE.exists() ) {
             try {
+                // A truck new to the fleet has no partition folder yet.
+                TABLE.getParentFile().mkdirs();
                 TABLE.createNewFile();
                 
                 // Set our flag:
@@ -119,6 +153,7 @@ public class LoadCtl {
         
         if ( !fileJustCreated )
             connect();
+        
 //        else
 //            MessageBox.showInfo("Data file was just now created.\n"
 //                    + "Add records to it, then save, in order\n"
@@ -128,7 +163,28 @@ public class LoadCtl {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
-    
+    /**
+     * Builds the line that is stored in the table for the given load.
+     * 
+     * @param model the load to store
+     * @return the table line, without the line terminator
+     */
+    public static String buildRecordLine(LoadModel model) {
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        
+        return model.getOrder() + "~" + model.getTrip() + "~" 
+                + model.getStartOdo() + "~" + model.getEndOdo() + "~" 
+                + sdf.format(model.getDispatch()) + "~" 
+                + Money.format(model.getRateInCents(), Money.CENTS)
+                + "~" + model.getMiles() + "~" + model.getWeight() + "~" 
+                + model.getPieces() + "~" + model.getCommodity() + "~" 
+                + model.isHazMat() + "~" + model.isTarped()+ "~" 
+                + model.isTeam() + "~" + model.isTwic() + "~" 
+                + model.isTopCust() + "~" + model.isLtl()+ "~" + model.isCbd()
+                + "~" + model.isRamps() + "~" + model.getBroker() + "~" 
+                + model.getBol() + "~" + model.isCompleted() + "~" 
+                + model.isCancelled();
+    }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
@@ -275,9 +331,12 @@ public class LoadCtl {
      * @param cust The new data model to use to update the record.
      */
     public void update(LoadModel cust) {
+            posts.add(cust);
             load = cust;
             
             records.set(row, load);
+            changes.add(new ChangeEvent<>(this, DataTables.LOADS,
+                    ChangeEvent.Type.UPDATE, load, buildRecordLine(load)));
     }
     
     /**
@@ -287,6 +346,9 @@ public class LoadCtl {
      */
     public void addNew(LoadModel cust) {
         records.add(cust);
+        changes.add(new ChangeEvent<>(this, DataTables.LOADS,
+                ChangeEvent.Type.INSERT, cust, buildRecordLine(cust)));
+        posts.add(cust);
         row = getRecordCount() - 1;
         
         Starter.props.setPropertyAsInt("table.loads.records", getRecordCount());
@@ -301,37 +363,30 @@ public class LoadCtl {
     public void close() throws DataStoreException {
         BufferedWriter out;
         
-        LoadMaster.loadProgress.setMaximum(
-                Starter.props.getPropertyAsInt("table.stops.records", "0"));
-        LoadMaster.loadProgress.setValue(
-                Starter.props.getPropertyAsInt("table.stops.records", "0"));
-        
-        if ( TABLE.exists() ) {
-            TABLE.delete();
-            try {
-                TABLE.createNewFile();
-            } catch ( IOException ex ) {
-                entry.setMessage("Something went wrong deleting and recreating the data table.");
-                entry.setThrown(ex);
-                entry.setSourceMethodName("storeData");
-                entry.setParameters(null);
-                Starter.logger.error(entry);
-                
-                throw new DataStoreException(ex.getMessage(), ex);
-            }
+        if ( LoadMaster.loadProgress != null ) {
+            LoadMaster.loadProgress.setMaximum(
+                    Starter.props.getPropertyAsInt("table.stops.records", "0"));
+            LoadMaster.loadProgress.setValue(
+                    Starter.props.getPropertyAsInt("table.stops.records", "0"));
         }
         
         try {
-            out = new BufferedWriter(new FileWriter(TABLE));
+            out = shared.writer();
             
             for ( int x = 0; x < records.size(); x++ ) {
                 out.write(buildRecordLine(records.get(x)) + "\n");
                 
-                LoadMaster.fileProgress.setValue(
-                        LoadMaster.fileProgress.getValue() - 1);
+                if ( LoadMaster.fileProgress != null ) {
+                    LoadMaster.fileProgress.setValue(
+                            LoadMaster.fileProgress.getValue() - 1);
+                }
             }
             
             out.close();
+            
+            ChangeBus.publish(changes);
+            changes.clear();
+            post();
         } catch ( IOException ex ) {
             entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
                     + "Throwing DataStoreException to calling method...");
@@ -345,9 +400,60 @@ public class LoadCtl {
 
         saveStops();
     }
+    
+    /**
+     * Adds the loads to a unit of work, to be written with the tables of the
+     * other controllers added to it, in place of {@link #close()}. The stops
+     * of the loads are not written with them, as `close` writes them; the
+     * stops are added to the unit of work by their own controller.
+     *
+     * @param work the unit of work
+     */
+    public void stage(UnitOfWork work) {
+        ArrayList<String> lines = new ArrayList<>();
+
+        for ( LoadModel model : records )
+            lines.add(buildRecordLine(model));
+
+        work.add(shared, lines, changes);
+        work.afterCommit(this::post);
+    }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    // The indexes are told of a change only once it has been written, so
+    //+ that a failed save leaves them matching the table. They are not read
+    //+ until then, as the lane analytics read every archived year; one read
+    //+ after the save already holds the loads, and posting them again does
+    //+ no harm.
+    private void post() {
+        if ( posts.isEmpty() )
+            return;
+
+        try {
+            LaneAnalytics lanes = LaneAnalytics.getInstance();
+            AppointmentIndex appointments = AppointmentIndex.getInstance();
+            SearchIndex search = SearchIndex.getInstance();
+
+            for ( LoadModel model : posts ) {
+                lanes.post(model);
+                appointments.post(model);
+                search.post(DataTables.LOADS, TableMaintenance.split(
+                        DataTables.LOADS, buildRecordLine(model)));
+            }
+        } catch ( DataStoreException ex ) {
+            // The loads are saved; an index that cannot be read now is read
+            //+ from the table the next time it is needed.
+            entry.setMessage(ex.getMessage());
+            entry.setSourceMethodName("post");
+            entry.setParameters(null);
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+        }
+
+        posts.clear();
+    }
+    
     private void connect() throws DataStoreException {
         entry.setMessage("Enter...");
         entry.setSourceMethodName("connect");
@@ -368,8 +474,26 @@ public class LoadCtl {
             LoadMaster.fileProgress.setVisible(true);
         }
         
+        // Read the stops table once and group its stops by trip, instead of
+        //+ reading the whole stops table again for every load.
+        stopsByTrip = new HashMap<>();
+        
+        try {
+            for ( StopModel stop : new StopCtl().getList() ) {
+                stopsByTrip.computeIfAbsent(stop.getTripNumber(), 
+                        k -> new ArrayList<>()).add(stop);
+            }
+        } catch ( DataStoreException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "The stops could not be read; loads will have no stops.");
+            entry.setThrown(ex);
+            entry.setSourceMethodName("connect");
+            entry.setParameters(null);
+            Starter.logger.error(entry);
+        }
+        
         try {
-            in = new BufferedReader(new FileReader(TABLE));
+            in = shared.open();
             
             String line = in.readLine();
             
@@ -399,6 +523,8 @@ public class LoadCtl {
             
             throw new DataStoreException(ex.getMessage(), ex);
         } finally {
+            stopsByTrip = null;
+            
             if ( LoadMaster.fileProgress != null ) {
                 LoadMaster.fileProgress.setValue(0);
                 LoadMaster.fileProgress.setVisible(false);
@@ -434,7 +560,7 @@ public class LoadCtl {
             MessageBox.showError(ex, "Parsing Error");
         }
         
-        load.setRate(Double.valueOf(record[5]));
+        load.setRateInCents(Money.parse(record[5], Money.CENTS));
         load.setMiles(Integer.valueOf(record[6]));
         load.setWeight(Integer.valueOf(record[7]));
         load.setPieces(Integer.valueOf(record[8]));
@@ -449,51 +575,25 @@ public class LoadCtl {
         load.setRamps(Boolean.parseBoolean(record[17]));
         load.setBroker(Long.valueOf(record[18]));
         load.setBol(record[19]);
-        load.setCompleted(Boolean.parseBoolean(record[20]));
-        load.setCancelled(Boolean.parseBoolean(record[21]));
         
-        records.add(load);
+        // Records written before the layout was corrected carry an empty
+        //+ field ahead of the completed flag.
+        int flags = record.length > 22 && record[20].isBlank() ? 21 : 20;
+        load.setCompleted(Boolean.parseBoolean(record[flags]));
+        load.setCancelled(record.length > flags + 1 
+                && Boolean.parseBoolean(record[flags + 1]));
         
-        StopCtl stops = null;
+        records.add(load);
         
-        try {
-            stops = new StopCtl();
-        } catch ( DataStoreException ex ) {
-            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
-                    + "Throwing DataStoreException to calling method...");
-            entry.setThrown(ex);
-            entry.setSourceMethodName("connect");
-            entry.setParameters(null);
-            Starter.logger.error(entry);
-        }
+        ArrayList<StopModel> stops = stopsByTrip.get(load.getTrip());
         
         if ( stops != null ) {
-            for ( StopModel stop : stops.getList() ) {
-                if ( stop.getTripNumber().equals(load.getTrip()) ) {
-                    load.addStop(stop);
-                }
-//                LoadMaster.fileProgress.setValue(
-//                        LoadMaster.fileProgress.getValue() + 1);
+            for ( StopModel stop : stops ) {
+                load.addStop(stop);
             }
         }
     }
     
-    private String buildRecordLine(LoadModel model) {
-        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
-        
-        return model.getOrder() + "~" + model.getTrip() + "~" 
-                + model.getStartOdo() + "~" + model.getEndOdo() + "~" 
-                + sdf.format(model.getDispatch()) + "~" + model.getRate()
-                + "~" + model.getMiles() + "~" + model.getWeight() + "~" 
-                + model.getPieces() + "~" + model.getCommodity() + "~" 
-                + model.isHazMat() + "~" + model.isTarped()+ "~" 
-                + model.isTeam() + "~" + model.isTwic() + "~" 
-                + model.isTopCust() + "~" + model.isLtl()+ "~" + model.isCbd()
-                + "~" + model.isRamps() + "~" + model.getBroker() + "~" 
-                + model.getBol() + "~" + "~" + model.isCompleted() + "~" 
-                + model.isCancelled();
-    }
-    
     private void saveStops() {
         StopCtl stops = null;
         
@@ -27,21 +27,39 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Oct 19, 2020    Sean Carrick Initial Creation.
+ *   Oct 19, 2026    Sean Carrick Receivables are posted to the AgingEngine.
+ *   Oct 19, 2026    Sean Carrick The table is read and written through a
+ *                                SharedTable.
+ *   Oct 19, 2026    Sean Carrick Saved changes are published on the
+ *                                ChangeBus.
+ *   Oct 19, 2026    Sean Carrick Receivables may be saved in a
+ *                                UnitOfWork.
+ *   Oct 19, 2026    Sean Carrick Receivables are posted to the
+ *                                AgingEngine only once they have been
+ *                                saved.
+ *   Oct 19, 2026    Sean Carrick New receivables are given their ID
+ *                                numbers from a Sequence when they are
+ *                                added.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.controller;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.acct.AgingEngine;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.ReceivablesModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.ChangeEvent;
+import com.pekinsoft.loadmaster.sys.Sequence;
+import com.pekinsoft.loadmaster.sys.SharedTable;
+import com.pekinsoft.loadmaster.sys.UnitOfWork;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import com.pekinsoft.loadmaster.view.LoadMaster;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -63,7 +81,11 @@ public class ReceivablesCtl {
 
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
     private final ArrayList<ReceivablesModel> records;
+    private final ArrayList<ChangeEvent<ReceivablesModel>> changes;
+    private final ArrayList<Runnable> posts;
     private final File TABLE;
+    private final SharedTable shared;
+    private final AgingEngine aging;
     
     private final LogRecord entry;
     
@@ -97,9 +119,12 @@ public class ReceivablesCtl {
         fileJustCreated = false;
         
         records = new ArrayList<>();
+        changes = new ArrayList<>();
+        posts = new ArrayList<>();
         row = 0;
         
         TABLE = new File(Starter.props.getDataFolder() + "50500.jrnl");
+        shared = new SharedTable(DataTables.RECEIVABLES, TABLE);
 
         // Check to see if the table file exists:
         if ( !TABLE.exists() ) {
@@ -122,6 +147,10 @@ public class ReceivablesCtl {
         
         if ( !fileJustCreated )
             connect();
+        
+        // The aging reads the journal itself the first time it is needed, so
+        //+ this must come after the journal is known to exist.
+        aging = AgingEngine.getInstance();
 //        else
 //            MessageBox.showInfo("Data file was just now created.\n"
 //                    + "Add records to it, then save, in order\n"
@@ -138,8 +167,14 @@ public class ReceivablesCtl {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
-    public void addNew(ReceivablesModel model) {
+    public void addNew(ReceivablesModel model) throws DataStoreException {
+        if ( model.getId() == 0 )
+            model.setId(Sequence.nextId(DataTables.RECEIVABLES));
+        
         records.add(model);
+        changes.add(new ChangeEvent<>(this, DataTables.RECEIVABLES,
+                ChangeEvent.Type.INSERT, model, buildRecordLine(model)));
+        posts.add(() -> aging.post(model));
         row = getRecordCount() - 1;
         
         Starter.props.setPropertyAsInt("journal.ar.records", getRecordCount());
@@ -149,6 +184,22 @@ public class ReceivablesCtl {
         save();
     }
     
+    /**
+     * Adds the receivables to a unit of work, to be written with the tables
+     * of the other controllers added to it, in place of {@link #close()}.
+     *
+     * @param work the unit of work
+     */
+    public void stage(UnitOfWork work) {
+        ArrayList<String> lines = new ArrayList<>();
+
+        for ( ReceivablesModel model : records )
+            lines.add(buildRecordLine(model));
+
+        work.add(shared, lines, changes);
+        work.afterCommit(this::post);
+    }
+    
     /**
      * Moves the record pointer to the first transaction in this journal.
      * 
@@ -290,14 +341,58 @@ public class ReceivablesCtl {
         return records.size();
     }
     
+    /**
+     * Replaces the current receivable with the given one. The given model must
+     * be a new object, not the current record changed in place, so that the
+     * aging can take the old values out; to settle the current receivable,
+     * use {@link #settle() settle}.
+     * 
+     * @param model the corrected receivable
+     */
     public void update(ReceivablesModel model) {
+        ReceivablesModel old = records.get(row);
+        posts.add(() -> {
+            aging.reverse(old);
+            aging.post(model);
+        });
         record = model;
         
         records.set(row, model);
+        changes.add(new ChangeEvent<>(this, DataTables.RECEIVABLES,
+                ChangeEvent.Type.UPDATE, model, buildRecordLine(model)));
+    }
+    
+    /**
+     * Marks the current receivable as settled (paid), which takes it out of
+     * the aging.
+     */
+    public void settle() {
+        ReceivablesModel current = records.get(row);
+        
+        if ( !current.isSettled() ) {
+            // Reversed as it was posted, before it was settled.
+            ReceivablesModel posted = new ReceivablesModel(current.getDate(),
+                    current.getTripNumber(), current.getOrderNumber(), 0.00);
+            posted.setAmountInCents(current.getAmountInCents());
+            posts.add(() -> aging.reverse(posted));
+            current.setSettled(true);
+            changes.add(new ChangeEvent<>(this, DataTables.RECEIVABLES,
+                    ChangeEvent.Type.UPDATE, current,
+                    buildRecordLine(current)));
+        }
     }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    // The indexes are told of a change only once it has been written, so
+    //+ that a failed save leaves them matching the table.
+    private void post() {
+        for ( Runnable p : posts )
+            p.run();
+
+        posts.clear();
+    }
+    
     private void connect() throws DataStoreException {
         entry.setMessage("Enter...");
         entry.setSourceMethodName("connect");
@@ -319,7 +414,7 @@ public class ReceivablesCtl {
         }
         
         try {
-            in = new BufferedReader(new FileReader(TABLE));
+            in = shared.open();
             
             String line = in.readLine();
             
@@ -362,38 +457,30 @@ public class ReceivablesCtl {
     private void save() throws DataStoreException {
         BufferedWriter out;
         
-        LoadMaster.fileProgress.setMaximum(
-                Starter.props.getPropertyAsInt("journal.ar.records", "0"));
-        LoadMaster.fileProgress.setValue(
-                Starter.props.getPropertyAsInt("journal.ar.records", "0"));
-        
-        if ( TABLE.exists() ) {
-            TABLE.delete();
-            try {
-                TABLE.createNewFile();
-            } catch ( IOException ex ) {
-                entry.setMessage("Something went wrong deleting and recreating "
-                        + "the data table.");
-                entry.setThrown(ex);
-                entry.setSourceMethodName("save");
-                entry.setParameters(null);
-                Starter.logger.error(entry);
-                
-                throw new DataStoreException(ex.getMessage(), ex);
-            }
+        if ( LoadMaster.fileProgress != null ) {
+            LoadMaster.fileProgress.setMaximum(
+                    Starter.props.getPropertyAsInt("journal.ar.records", "0"));
+            LoadMaster.fileProgress.setValue(
+                    Starter.props.getPropertyAsInt("journal.ar.records", "0"));
         }
         
         try {
-            out = new BufferedWriter(new FileWriter(TABLE));
+            out = shared.writer();
             
             for ( int x = 0; x < records.size(); x++ ) {
                 out.write(buildRecordLine(records.get(x)) + "\n");
                 
-                LoadMaster.fileProgress.setValue(
-                        LoadMaster.fileProgress.getValue() - 1);
+                if ( LoadMaster.fileProgress != null ) {
+                    LoadMaster.fileProgress.setValue(
+                            LoadMaster.fileProgress.getValue() - 1);
+                }
             }
             
             out.close();
+            
+            ChangeBus.publish(changes);
+            changes.clear();
+            post();
         } catch ( IOException ex ) {
             entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
                     + "Throwing DataStoreException to calling method...");
@@ -420,8 +507,7 @@ public class ReceivablesCtl {
         
         SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
         
-//        record = new ReceivablesModel();
-        
+        record = new ReceivablesModel(null, "", "", 0.00);
         
         try {
             record.setDate(sdf.parse(line[1]));
@@ -444,8 +530,10 @@ public class ReceivablesCtl {
         
         records.add(record);
         
-        LoadMaster.fileProgress.setValue(
-                LoadMaster.fileProgress.getValue() + 1);
+        if ( LoadMaster.fileProgress != null ) {
+            LoadMaster.fileProgress.setValue(
+                    LoadMaster.fileProgress.getValue() + 1);
+        }
     }
     //</editor-fold>
 
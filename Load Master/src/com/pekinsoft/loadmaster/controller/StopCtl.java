@@ -27,26 +27,47 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Sep 06, 2020  Sean Carrick        Initial Creation.
+ *   Oct 19, 2026  Sean Carrick        Stops are posted to the SearchIndex.
+ *   Oct 19, 2026  Sean Carrick        The stops are those of the current
+ *                                     truck in fleet mode.
+ *   Oct 19, 2026  Sean Carrick        The table is read and written through a
+ *                                     SharedTable.
+ *   Oct 19, 2026  Sean Carrick        Saved changes are published on the
+ *                                     ChangeBus.
+ *   Oct 19, 2026  Sean Carrick        Arrivals, departures and signatures are
+ *                                     read from the StopLog and written back
+ *                                     with the stops, which dropped them, and
+ *                                     blank dates no longer fail the write.
+ *   Oct 19, 2026  Sean Carrick        Stops may be saved in a UnitOfWork.
+ *   Oct 19, 2026  Sean Carrick        Stops are posted to the SearchIndex only
+ *                                     once they have been saved.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.controller;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.err.InvalidTimeException;
 import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.ChangeEvent;
+import com.pekinsoft.loadmaster.sys.SearchIndex;
+import com.pekinsoft.loadmaster.sys.SharedTable;
+import com.pekinsoft.loadmaster.sys.StopLog;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.sys.UnitOfWork;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import com.pekinsoft.loadmaster.view.LoadMaster;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
@@ -65,11 +86,15 @@ public class StopCtl {
     //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
     // Table Data:
     private final File TABLE;
+    private final SharedTable shared;
     
     // Table Information:
     private StopModel stop;
     private final ArrayList<StopModel> records;
+    private final ArrayList<ChangeEvent<StopModel>> changes;
+    private final ArrayList<Runnable> posts;
     private int row;
+    private final SearchIndex search;
     
     // System:
     private LogRecord entry;
@@ -87,6 +112,8 @@ public class StopCtl {
     //<editor-fold defaultstate="collapsed" desc="Intstance Initializer">
     {
         records = new ArrayList<>();
+        changes = new ArrayList<>();
+        posts = new ArrayList<>();
         row = 0;
         entry = new LogRecord(Level.FINEST, "");
         entry.setSourceClassName(this.getClass().getCanonicalName());
@@ -96,11 +123,14 @@ public class StopCtl {
     //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
     public StopCtl () throws DataStoreException {
         stop = new StopModel();
-        TABLE = new File(Starter.DB_URL + "stops.tbl");
+        TABLE = DataTables.STOPS.getFile();
+        shared = new SharedTable(DataTables.STOPS, TABLE);
         
         // Check to see if the table file exists:
         if ( !TABLE.exists() ) {
             try {
+                // A truck new to the fleet has no partition folder yet.
+                TABLE.getParentFile().mkdirs();
                 TABLE.createNewFile();
                 
                 // Set our flag:
@@ -119,6 +149,8 @@ public class StopCtl {
         
         if ( !fileJustCreated )
             connect();
+        
+        search = SearchIndex.getInstance();
 //        else
 //            MessageBox.showInfo("Data file was just now created.\n"
 //                    + "Add records to it, then save, in order\n"
@@ -282,9 +314,14 @@ public class StopCtl {
      * @param cust The new data model to use to update the record.
      */
     public void update(StopModel cust) {
+            String[] fields = TableMaintenance.split(DataTables.STOPS,
+                    buildRecordLine(cust));
+            posts.add(() -> search.post(DataTables.STOPS, fields));
             stop = cust;
             
             records.set(row, stop);
+            changes.add(new ChangeEvent<>(this, DataTables.STOPS,
+                    ChangeEvent.Type.UPDATE, stop, buildRecordLine(stop)));
     }
     
     /**
@@ -294,6 +331,11 @@ public class StopCtl {
      */
     public void addNew(StopModel cust) {
         records.add(cust);
+        changes.add(new ChangeEvent<>(this, DataTables.STOPS,
+                ChangeEvent.Type.INSERT, cust, buildRecordLine(cust)));
+        String[] fields = TableMaintenance.split(DataTables.STOPS,
+                buildRecordLine(cust));
+        posts.add(() -> search.post(DataTables.STOPS, fields));
         row = getRecordCount() - 1;
         
         Starter.props.setPropertyAsInt("table.stops.records", getRecordCount());
@@ -308,38 +350,30 @@ public class StopCtl {
     public void close() throws DataStoreException {
         BufferedWriter out = null;
         
-        LoadMaster.loadProgress.setMaximum(
-                Starter.props.getPropertyAsInt("table.stops.records", "0"));
-        LoadMaster.loadProgress.setValue(
-                Starter.props.getPropertyAsInt("table.stops.records", "0"));
-        
-        if ( TABLE.exists() ) {
-            TABLE.delete();
-            try {
-                TABLE.createNewFile();
-            } catch ( IOException ex ) {
-                entry.setMessage("Something went wrong deleting and recreating "
-                        + "the data table.");
-                entry.setThrown(ex);
-                entry.setSourceMethodName("close");
-                entry.setParameters(null);
-                Starter.logger.error(entry);
-                
-                throw new DataStoreException(ex.getMessage(), ex);
-            }
+        if ( LoadMaster.loadProgress != null ) {
+            LoadMaster.loadProgress.setMaximum(
+                    Starter.props.getPropertyAsInt("table.stops.records", "0"));
+            LoadMaster.loadProgress.setValue(
+                    Starter.props.getPropertyAsInt("table.stops.records", "0"));
         }
         
         try {
-            out = new BufferedWriter(new FileWriter(TABLE));
+            out = shared.writer();
             
             for ( int x = 0; x < records.size(); x++ ) {
                 out.write(buildRecordLine(records.get(x)) + "\n");
                 
-                LoadMaster.fileProgress.setValue(
-                        LoadMaster.fileProgress.getValue() - 1);
+                if ( LoadMaster.fileProgress != null ) {
+                    LoadMaster.fileProgress.setValue(
+                            LoadMaster.fileProgress.getValue() - 1);
+                }
             }
             
             out.close();
+            
+            ChangeBus.publish(changes);
+            changes.clear();
+            post();
         } catch ( IOException ex ) {
             entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
                     + "Throwing DataStoreException to calling method...");
@@ -353,6 +387,22 @@ public class StopCtl {
 
     }
     
+    /**
+     * Adds the stops to a unit of work, to be written with the tables of the
+     * other controllers added to it, in place of {@link #close()}.
+     *
+     * @param work the unit of work
+     */
+    public void stage(UnitOfWork work) {
+        ArrayList<String> lines = new ArrayList<>();
+
+        for ( StopModel model : records )
+            lines.add(buildRecordLine(model));
+
+        work.add(shared, lines, changes);
+        work.afterCommit(this::post);
+    }
+    
     
     public ArrayList<StopModel> getList() {
         return records;
@@ -360,16 +410,27 @@ public class StopCtl {
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    // The indexes are told of a change only once it has been written, so
+    //+ that a failed save leaves them matching the table.
+    private void post() {
+        for ( Runnable p : posts )
+            p.run();
+
+        posts.clear();
+    }
+    
     private void connect() throws DataStoreException {
         BufferedReader in;
         
         try {
-            in = new BufferedReader(new FileReader(TABLE));
+            in = shared.open();
             
+            // What has happened at the stops is in the logs of their trips.
+            StopLog.Replay replay = StopLog.replay(TABLE);
             String line = in.readLine();
             
             while ( line != null ) {
-                String[] record = line.split("~");
+                String[] record = replay.fold(line.split("~"));
                 
                 createAndAddRecord(record);
                 
@@ -515,7 +576,8 @@ public class StopCtl {
             MessageBox.showError(ex, "Data Retrieval Error");            
         }
         
-//        stop.setSignedBy(record[11]);
+        if ( record.length > 11 && !record[11].isBlank() )
+            stop.setSignedBy(record[11]);
         
         records.add(stop);
     }
@@ -524,10 +586,23 @@ public class StopCtl {
         SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
         
         return model.getTripNumber() + "~" + model.getStopNumber() + "~"
-                + model.getCustomer() + "~" + sdf.format(model.getEarlyDate())
-                 + "~" + model.getEarlyTime() + "~" 
-                + sdf.format(model.getLateDate()) + "~" + model.getLateTime()
-                + "~ ~ ~ ~ ~ ";
+                + model.getCustomer() + "~" + orBlank(sdf, model.getEarlyDate())
+                + "~" + orBlank(model.getEarlyTime()) + "~"
+                + orBlank(sdf, model.getLateDate()) + "~"
+                + orBlank(model.getLateTime()) + "~"
+                + orBlank(sdf, model.getArrDate()) + "~"
+                + orBlank(model.getArrTime()) + "~"
+                + orBlank(sdf, model.getDepDate()) + "~"
+                + orBlank(model.getDepTime()) + "~"
+                + orBlank(model.getSignedBy());
+    }
+    
+    private static String orBlank(SimpleDateFormat sdf, Date date) {
+        return date == null ? " " : sdf.format(date);
+    }
+    
+    private static String orBlank(String field) {
+        return field == null || field.isBlank() ? " " : field;
     }
     //</editor-fold>
 
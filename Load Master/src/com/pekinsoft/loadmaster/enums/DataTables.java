@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   DataTables.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 9:12:40 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Describes the physical layout of each of the flat-file data tables so
+ *      that maintenance tasks can work on the raw lines without needing to
+ *      load the whole table through its controller.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.enums;
+
+import com.pekinsoft.loadmaster.Starter;
+import java.io.File;
+
+/**
+ * The data tables of the Load Master database. Each table knows the name of
+ * its file in the data folder, the layout and names of its fields and which
+ * fields make up the unique key of a record.
+ * <p>
+ * The layout is given as one character per field, in the order that the
+ * controllers write them:</p>
+ * <ul>
+ *  <li>`S`: free text</li>
+ *  <li>`I`: integer</li>
+ *  <li>`L`: long integer</li>
+ *  <li>`D`: decimal number</li>
+ *  <li>`B`: `true` or `false`</li>
+ *  <li>`T`: date in the format MM/dd/yyyy</li>
+ *  <li>`t`: optional date in the format MM/dd/yyyy</li>
+ *  <li>`h`: optional time in the format HH:mm</li>
+ * </ul>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public enum DataTables {
+    BROKERS("brokers", "brokers.tbl", "table.brokers.records", 
+            "LSSSSSSSSSS", "id,company,street,suite,city,state,zip,contact,"
+            + "phone,fax,email", 0),
+    CUSTOMERS("customers", "customers.tbl", "table.customers.records", 
+            "LSSSSSSSSS", "id,company,street,suite,city,state,zip,contact,"
+            + "phone,comments", 0),
+    LOADS("loads", "loads.tbl", true, "table.loads.records", 
+            "SSIITDIIISBBBBBBBBLSBB", "order,trip,start_odometer,"
+            + "end_odometer,dispatch,rate,miles,weight,pieces,commodity,"
+            + "hazmat,tarped,team,twic,top_customer,ltl,cbd,ramps,broker,bol,"
+            + "completed,cancelled", 0, 1),
+    STOPS("stops", "stops.tbl", true, "table.stops.records", 
+            "SILththththS", "trip,stop,customer,early_date,early_time,"
+            + "late_date,late_time,arrival_date,arrival_time,departure_date,"
+            + "departure_time,signed_by", 0, 1),
+    LEDGER("ledger", "0.ldgr", "journal.gl.records", 
+            "TSSIIDBB", "date,code,description,from_account,to_account,"
+            + "amount,deductible,balanced"),
+    RECEIVABLES("receivables", "50500.jrnl", "journal.ar.records", 
+            "LTSSDB", "id,date,trip,order,amount,settled", 0),
+    FUEL("fuel", "10040.jrnl", true, "journal.fuel.records", 
+            "LTISDDBDDS", "id,date,odometer,location,diesel_gallons,"
+            + "diesel_price,def_purchased,def_gallons,def_price,notes", 0);
+
+    private final String name;
+    private final String fileName;
+    private final boolean partitioned;
+    private final String countProperty;
+    private final String layout;
+    private final String[] fieldNames;
+    private final int[] keyFields;
+
+    DataTables(String name, String fileName, String countProperty, 
+            String layout, String fieldNames, int... keyFields) {
+        this(name, fileName, false, countProperty, layout, fieldNames, 
+                keyFields);
+    }
+
+    DataTables(String name, String fileName, boolean partitioned, 
+            String countProperty, String layout, String fieldNames, 
+            int... keyFields) {
+        this.name = name;
+        this.fileName = fileName;
+        this.partitioned = partitioned;
+        this.countProperty = countProperty;
+        this.layout = layout;
+        this.fieldNames = fieldNames.split(",");
+        this.keyFields = keyFields;
+    }
+
+    /**
+     * Retrieves the table that goes by the given name, as used on the command
+     * line.
+     *
+     * @param name the name of the table, such as "loads" or "ledger"
+     * @return the matching table, or `null` if there is no such table
+     */
+    public static DataTables fromName(String name) {
+        for ( DataTables t : values() ) {
+            if ( t.name.equalsIgnoreCase(name) )
+                return t;
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves the data file for this table in the current data folder. In
+     * fleet mode, the file of a {@link #isPartitioned() partitioned} table is
+     * that of the current truck.
+     *
+     * @return the table's data file
+     */
+    public File getFile() {
+        return new File((partitioned ? Starter.props.getPartitionFolder()
+                : Starter.props.getDataFolder()) + fileName);
+    }
+
+    /**
+     * Retrieves the data file for this table of a truck in fleet mode. The
+     * file of a table that is not partitioned is shared by every truck.
+     *
+     * @param truck the number of the truck
+     * @return the table's data file for the truck
+     */
+    public File getFile(String truck) {
+        return new File((partitioned ? Starter.props.getPartitionFolder(truck)
+                : Starter.props.getDataFolder()) + fileName);
+    }
+
+    /**
+     * Tells whether each truck keeps its own file of this table in fleet
+     * mode, as it does its loads, stops and fuel purchases.
+     *
+     * @return `true` if the table is partitioned by truck
+     */
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Retrieves the name of the application property that holds the number
+     * of records in this table.
+     *
+     * @return the record count property name
+     */
+    public String getCountProperty() {
+        return countProperty;
+    }
+
+    /**
+     * Retrieves the number of fields in a record of this table.
+     *
+     * @return the field count
+     */
+    public int getFieldCount() {
+        return layout.length();
+    }
+
+    /**
+     * Retrieves the layout code for the field at the given index.
+     *
+     * @param idx the field index
+     * @return the layout code of the field
+     */
+    public char getFieldType(int idx) {
+        return layout.charAt(idx);
+    }
+
+    /**
+     * Retrieves the name of the field at the given index, as used for column
+     * headings when records are imported or exported.
+     *
+     * @param idx the field index
+     * @return the name of the field
+     */
+    public String getFieldName(int idx) {
+        return fieldNames[idx];
+    }
+
+    /**
+     * Retrieves the index of the field with the given name.
+     *
+     * @param fieldName the name of the field
+     * @return the index of the field, or -1 if the table has no such field
+     */
+    public int indexOf(String fieldName) {
+        for ( int x = 0; x < fieldNames.length; x++ ) {
+            if ( fieldNames[x].equalsIgnoreCase(fieldName) )
+                return x;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Retrieves the index of the date that places a record in time, such as
+     * the dispatch date of a load or the date of a ledger entry. This is the
+     * first required date in the layout or, failing that, the first optional
+     * date.
+     *
+     * @return the index of the date field, or -1 if the table has no dates
+     */
+    public int getDateField() {
+        int idx = layout.indexOf('T');
+
+        return idx < 0 ? layout.indexOf('t') : idx;
+    }
+
+    /**
+     * Retrieves the indices of the fields that make up the unique key of a
+     * record in this table. Tables that are journals of transactions have no
+     * key, in which case an array of length zero (0) is returned.
+     *
+     * @return the key field indices
+     */
+    public int[] getKeyFields() {
+        return keyFields;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,507 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   CsvExporter.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 3:18:09 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Exports the data tables, and views that join them, to CSV files.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.io;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.sys.LoadArchive;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * Exports a data table, or a view that joins tables together, to CSV.
+ * <p>
+ * Every table may be exported by its name. Two views are also available:</p>
+ * <dl>
+ *  <dt>`load_brokers`</dt>
+ *  <dd>One row per load, with the name of the broker who booked it.</dd>
+ *  <dt>`load_stops`</dt>
+ *  <dd>One row per stop, with the load it belongs to and the names of the
+ *      broker and customer. Loads that have no stops get one row with the
+ *      stop columns left empty.</dd>
+ * </dl>
+ * <p>
+ * Records are read from the table files as they are written out, so a year
+ * of loads or ledger entries never has to be in memory at once, and the
+ * reading can never get ahead of the writing: a slow destination simply
+ * slows the export down. The only things held in memory are the names of the
+ * brokers and customers and, for `load_stops`, the position of each load in
+ * the loads table so that it can be read back when its stops come along.
+ * Archived loads (see {@link LoadArchive}) are included when the period
+ * reaches into an archived year; for `load_stops`, the loads of one archived
+ * year at a time are held while that year's stops are read.</p>
+ * <p>
+ * When a period is set, only records dated within it are exported. For the
+ * views, the dispatch date of the load decides. Brokers and customers have no
+ * dates and are always exported in full.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class CsvExporter {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The view of loads with the names of their brokers. */
+    public static final String LOAD_BROKERS = "load_brokers";
+    /** The view of stops with their loads and broker and customer names. */
+    public static final String LOAD_STOPS = "load_stops";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private final String name;
+    private final DataTables table;
+    private final SimpleDateFormat sdf;
+    private final LogRecord entry;
+
+    private Date from;
+    private Date to;
+    private LongConsumer progress;
+    private long written;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates an exporter for the named table or view.
+     *
+     * @param name the name of a table or of one of the views
+     * @throws IllegalArgumentException if there is no such table or view
+     */
+    public CsvExporter (String name) {
+        this.name = name.toLowerCase();
+        this.table = DataTables.fromName(name);
+
+        if ( table == null && !this.name.equals(LOAD_BROKERS)
+                && !this.name.equals(LOAD_STOPS) )
+            throw new IllegalArgumentException("There is no table or view "
+                    + "named " + name + ".");
+
+        sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the names of everything that can be exported: each table,
+     * followed by the views.
+     *
+     * @return the names of the tables and views
+     */
+    public static String[] getExportNames() {
+        ArrayList<String> names = new ArrayList<>();
+
+        for ( DataTables t : DataTables.values() )
+            names.add(t.toString());
+
+        names.add(LOAD_BROKERS);
+        names.add(LOAD_STOPS);
+
+        return names.toArray(new String[names.size()]);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Limits the export to records dated within the given period. Either end
+     * may be `null` to leave that end open.
+     *
+     * @param from the first day of the period
+     * @param to   the last day of the period
+     */
+    public void setPeriod(Date from, Date to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Writes the export, starting with a header row of column names.
+     *
+     * @param out      where to write the CSV; it is flushed but not closed
+     * @param progress told the number of rows written every so often, or
+     *                 `null`
+     * @return the number of rows written, not counting the header
+     * @throws DataStoreException in the event a table cannot be read or the
+     *         output cannot be written
+     */
+    public long export(Writer out, LongConsumer progress)
+            throws DataStoreException {
+        entry.setMessage("Exporting " + name);
+        entry.setSourceMethodName("export");
+        entry.setParameters(new Object[]{name, from, to});
+        Starter.logger.enter(entry);
+
+        this.progress = progress;
+        written = 0;
+        CsvWriter csv = new CsvWriter(out);
+
+        try {
+            if ( table != null )
+                exportTable(csv);
+            else if ( name.equals(LOAD_BROKERS) )
+                exportLoadBrokers(csv);
+            else
+                exportLoadStops(csv);
+
+            csv.flush();
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        if ( progress != null )
+            progress.accept(written);
+
+        entry.setMessage("Export finished.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, written);
+
+        return written;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void exportTable(CsvWriter csv) throws IOException {
+        csv.writeRecord(header(table));
+        int dateField = table.getDateField();
+
+        try ( Stream<String[]> s = LoadArchive.records(table, from, to) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( dateField < 0 || inPeriod(f[dateField]) )
+                    write(csv, f);
+            }
+        }
+    }
+
+    private void exportLoadBrokers(CsvWriter csv) throws IOException {
+        HashMap<String, String> brokers = names(DataTables.BROKERS);
+        csv.writeRecord(concat(header(DataTables.LOADS), "broker_name"));
+
+        try ( Stream<String[]> s = LoadArchive.records(DataTables.LOADS,
+                from, to) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( inPeriod(f[4]) )
+                    write(csv, concat(f, brokers.getOrDefault(f[18], "")));
+            }
+        }
+    }
+
+    private void exportLoadStops(CsvWriter csv) throws IOException {
+        HashMap<String, String> brokers = names(DataTables.BROKERS);
+        HashMap<String, String> customers = names(DataTables.CUSTOMERS);
+
+        // The stop columns, less the trip, with the customer name after the
+        //+ customer ID.
+        DataTables stops = DataTables.STOPS;
+        String[] stopHeader = new String[stops.getFieldCount()];
+        for ( int x = 1, y = 0; x < stops.getFieldCount(); x++ ) {
+            stopHeader[y++] = stops.getFieldName(x);
+            if ( x == 2 )
+                stopHeader[y++] = "customer_name";
+        }
+
+        csv.writeRecord(concat(concat(header(DataTables.LOADS), "broker_name"),
+                stopHeader));
+
+        // Archived loads cannot be read back by position, but a segment only
+        //+ holds one year, so the loads of that year are held while its stops
+        //+ are read.
+        for ( int year : LoadArchive.getYears(from, to) ) {
+            LinkedHashMap<String, String[]> archived = new LinkedHashMap<>();
+
+            try ( Stream<String[]> s = LoadArchive.records(DataTables.LOADS,
+                    year) ) {
+                Iterator<String[]> it = s.iterator();
+
+                while ( it.hasNext() ) {
+                    String[] f = it.next();
+
+                    if ( inPeriod(f[4]) )
+                        archived.put(f[1], f);
+                }
+            }
+
+            HashSet<String> joined = new HashSet<>();
+
+            try ( Stream<String[]> s = LoadArchive.records(stops, year) ) {
+                Iterator<String[]> it = s.iterator();
+
+                while ( it.hasNext() ) {
+                    String[] f = it.next();
+                    String[] load = archived.get(f[0]);
+
+                    if ( load != null ) {
+                        writeStop(csv, load, f, brokers, customers);
+                        joined.add(f[0]);
+                    }
+                }
+            }
+
+            for ( String[] load : archived.values() ) {
+                if ( !joined.contains(load[1]) )
+                    writeStop(csv, load, null, brokers, customers);
+            }
+        }
+
+        LinkedHashMap<String, Long> loads = loadPositions();
+        HashSet<String> joined = new HashSet<>();
+        File file = DataTables.LOADS.getFile();
+
+        if ( loads.isEmpty() )
+            return;
+
+        try ( RandomAccessFile raf = new RandomAccessFile(file, "r") ) {
+            String lastTrip = null;
+            String[] load = null;
+
+            try ( Stream<String[]> s = TableMaintenance.records(stops) ) {
+                Iterator<String[]> it = s.iterator();
+
+                while ( it.hasNext() ) {
+                    String[] f = it.next();
+                    Long pos = loads.get(f[0]);
+
+                    if ( pos == null )
+                        continue;
+
+                    // The stops of a load are written together, so the load
+                    //+ is usually the one that was just read.
+                    if ( !f[0].equals(lastTrip) ) {
+                        load = readLoad(raf, pos);
+                        lastTrip = f[0];
+                    }
+
+                    writeStop(csv, load, f, brokers, customers);
+                    joined.add(f[0]);
+                }
+            }
+
+            for ( Map.Entry<String, Long> e : loads.entrySet() ) {
+                if ( !joined.contains(e.getKey()) )
+                    writeStop(csv, readLoad(raf, e.getValue()), null, brokers,
+                            customers);
+            }
+        }
+    }
+
+    /**
+     * Writes one row of the `load_stops` view. A load with no stops is
+     * written with the stop columns left empty.
+     */
+    private void writeStop(CsvWriter csv, String[] load, String[] stop,
+            HashMap<String, String> brokers, HashMap<String, String> customers)
+            throws IOException {
+        String[] cols = new String[DataTables.STOPS.getFieldCount()];
+
+        if ( stop != null ) {
+            for ( int x = 1, y = 0; x < stop.length; x++ ) {
+                cols[y++] = stop[x];
+                if ( x == 2 )
+                    cols[y++] = customers.getOrDefault(stop[2], "");
+            }
+        }
+
+        write(csv, concat(concat(load, brokers.getOrDefault(load[18], "")),
+                cols));
+    }
+
+    /**
+     * Finds where each load dated within the period starts in the loads
+     * table, keyed by trip number, in the order the loads appear.
+     */
+    private LinkedHashMap<String, Long> loadPositions() throws IOException {
+        LinkedHashMap<String, Long> positions = new LinkedHashMap<>();
+        File file = DataTables.LOADS.getFile();
+
+        if ( !file.exists() )
+            return positions;
+
+        try ( BufferedInputStream in = new BufferedInputStream(
+                new FileInputStream(file), 65536) ) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(512);
+            long pos = 0;
+            long start = 0;
+            int c;
+
+            while ( (c = in.read()) != -1 || buf.size() > 0 ) {
+                if ( c != -1 )
+                    pos++;
+
+                if ( c != '\n' && c != -1 ) {
+                    buf.write(c);
+                    continue;
+                }
+
+                String line = buf.toString(Charset.defaultCharset().name())
+                        .replace("\r", "");
+                buf.reset();
+                String[] f = TableMaintenance.split(DataTables.LOADS, line);
+
+                if ( !line.isBlank()
+                        && TableMaintenance.validate(DataTables.LOADS, f) == null
+                        && inPeriod(f[4]) )
+                    positions.put(f[1], start);
+
+                start = pos;
+
+                if ( c == -1 )
+                    break;
+            }
+        }
+
+        return positions;
+    }
+
+    private String[] readLoad(RandomAccessFile raf, long pos)
+            throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(512);
+        byte[] chunk = new byte[512];
+        raf.seek(pos);
+
+        int n;
+        read:
+        while ( (n = raf.read(chunk)) > 0 ) {
+            for ( int x = 0; x < n; x++ ) {
+                if ( chunk[x] == '\n' ) {
+                    buf.write(chunk, 0, x);
+                    break read;
+                }
+            }
+
+            buf.write(chunk, 0, n);
+        }
+
+        String line = buf.toString(Charset.defaultCharset().name())
+                .replace("\r", "");
+
+        return TableMaintenance.split(DataTables.LOADS, line);
+    }
+
+    private HashMap<String, String> names(DataTables t) throws IOException {
+        HashMap<String, String> names = new HashMap<>();
+
+        try ( Stream<String[]> s = TableMaintenance.records(t) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                names.put(f[0], f[1]);
+            }
+        }
+
+        return names;
+    }
+
+    private void write(CsvWriter csv, String[] fields) throws IOException {
+        csv.writeRecord(fields);
+        written++;
+
+        if ( progress != null && written % PROGRESS_INTERVAL == 0 )
+            progress.accept(written);
+    }
+
+    private boolean inPeriod(String date) {
+        if ( from == null && to == null )
+            return true;
+
+        try {
+            Date d = sdf.parse(date);
+
+            return (from == null || !d.before(from))
+                    && (to == null || !d.after(to));
+        } catch ( ParseException ex ) {
+            return false;
+        }
+    }
+
+    private static String[] header(DataTables t) {
+        String[] names = new String[t.getFieldCount()];
+
+        for ( int x = 0; x < names.length; x++ )
+            names[x] = t.getFieldName(x);
+
+        return names;
+    }
+
+    private static String[] concat(String[] a, String... b) {
+        String[] all = new String[a.length + b.length];
+        System.arraycopy(a, 0, all, 0, a.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+
+        return all;
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   CsvReader.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 1:15:22 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Reads comma-separated values one record at a time.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * A streaming reader for comma-separated values (CSV) as they are written by
+ * spreadsheets and load board exports. Fields may be quoted with double
+ * quotes, in which case they may contain commas, line breaks and doubled
+ * quotes (`""`) that stand for a single quote. Only one record is held in
+ * memory at a time, so files of any size can be read.
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class CsvReader implements Closeable {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final BufferedReader in;
+    private final ArrayList<String> fields;
+    private final StringBuilder field;
+    private long lineNumber;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    public CsvReader (Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in
+                : new BufferedReader(in, 65536);
+        fields = new ArrayList<>();
+        field = new StringBuilder();
+        lineNumber = 0;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or `null` at the end of the input
+     * @throws IOException in the event the input cannot be read
+     */
+    public String[] readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+
+        int c = in.read();
+
+        if ( c == -1 )
+            return null;
+
+        lineNumber++;
+        boolean quoted = false;
+
+        while ( c != -1 ) {
+            if ( quoted ) {
+                if ( c == '"' ) {
+                    in.mark(1);
+                    int next = in.read();
+
+                    if ( next == '"' ) {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    if ( c == '\n' )
+                        lineNumber++;
+
+                    field.append((char) c);
+                }
+            } else if ( c == '"' && field.length() == 0 ) {
+                quoted = true;
+            } else if ( c == ',' ) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if ( c == '\r' || c == '\n' ) {
+                if ( c == '\r' ) {
+                    in.mark(1);
+                    if ( in.read() != '\n' )
+                        in.reset();
+                }
+
+                break;
+            } else {
+                field.append((char) c);
+            }
+
+            c = in.read();
+        }
+
+        fields.add(field.toString());
+
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    /**
+     * Retrieves the number of the line on which the last record read ended.
+     *
+     * @return the current line number
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+    //</editor-fold>
+
+}
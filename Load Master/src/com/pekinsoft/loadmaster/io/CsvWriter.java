@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   CsvWriter.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 3:05:41 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Writes comma-separated values one record at a time.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes records as comma-separated values (CSV) that spreadsheets and
+ * accounting packages can open. A field is quoted only when it has to be:
+ * when it holds a comma, a double quote, a line break, or leading or trailing
+ * spaces. Lines end with CR LF, as RFC 4180 calls for.
+ * <p>
+ * The single space that the data tables store for an empty text field is
+ * written as an empty field.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class CsvWriter implements Closeable, Flushable {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Writer out;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    public CsvWriter (Writer out) {
+        this.out = out instanceof BufferedWriter ? out
+                : new BufferedWriter(out, 65536);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Writes one record.
+     *
+     * @param fields the fields of the record
+     * @throws IOException in the event the record cannot be written
+     */
+    public void writeRecord(String... fields) throws IOException {
+        for ( int x = 0; x < fields.length; x++ ) {
+            if ( x > 0 )
+                out.write(',');
+
+            writeField(fields[x]);
+        }
+
+        out.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void writeField(String field) throws IOException {
+        if ( field == null || field.isBlank() )
+            return;
+
+        boolean quote = Character.isWhitespace(field.charAt(0))
+                || Character.isWhitespace(field.charAt(field.length() - 1));
+
+        for ( int x = 0; !quote && x < field.length(); x++ ) {
+            char c = field.charAt(x);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+
+        if ( quote ) {
+            out.write('"');
+            out.write(field.replace("\"", "\"\""));
+            out.write('"');
+        } else {
+            out.write(field);
+        }
+    }
+    //</editor-fold>
+
+}
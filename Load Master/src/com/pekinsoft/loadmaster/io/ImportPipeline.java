@@ -0,0 +1,784 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   ImportPipeline.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 1:42:55 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Imports brokers, customers and loads in bulk from CSV files, such as
+ *      those exported by load boards and factoring companies, and the records
+ *      of any table from files in the table's own format.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.io;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.controller.BrokerCtl;
+import com.pekinsoft.loadmaster.controller.CustomerCtl;
+import com.pekinsoft.loadmaster.controller.LoadCtl;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.model.BrokerModel;
+import com.pekinsoft.loadmaster.model.CustomerModel;
+import com.pekinsoft.loadmaster.model.LoadModel;
+import com.pekinsoft.loadmaster.sys.Sequence;
+import com.pekinsoft.loadmaster.sys.SharedTable;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.utils.Money;
+import com.pekinsoft.loadmaster.verifiers.PostalCodeVerifier;
+import com.pekinsoft.loadmaster.verifiers.StateAbbrVerifier;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Imports records into the brokers, customers or loads table from a CSV file,
+ * or into any table from a file of lines in the table's own format.
+ * <p>
+ * The first line of the file must be a header naming the columns. Columns are
+ * matched to the fields of the table by the field names in {@link DataTables}
+ * (case, spaces and dashes do not matter, so "Zip Code" matches `zip_code`),
+ * along with a few common aliases such as "Name" for the company and
+ * "Address" for the street. Columns that do not match a field are ignored.
+ * A file in the table's own format has no header; each line is a record, as
+ * the table itself holds it, and is checked by
+ * {@link TableMaintenance#validate(DataTables, String[]) validate}.
+ * </p><p>
+ * The file is read one record at a time and handed off in batches to a pool
+ * of worker threads, one per processor, which convert each row through the
+ * model classes and check the state and Zip Code with the same rules as the
+ * data entry dialogs. The converted batches are written out in file order.
+ * Only a few batches are ever in flight, so the reader waits on the writer
+ * and the memory used does not depend upon the size of the file.</p>
+ * <p>
+ * Duplicates are found by a 64-bit hash of the record's identity: the order
+ * and trip numbers for loads, or the company name and address for brokers and
+ * customers, ignoring case and spacing, and the key fields for the other
+ * tables. A record that matches one already in the table, or earlier in the
+ * file, is skipped; the records of a table without a key are never skipped.
+ * Records of a table numbered by ID that do not come with one, or whose ID is
+ * already taken, are given the next number of their {@link Sequence}, which
+ * is then moved past the highest ID in the table.</p>
+ * <p>
+ * All accepted records are written to a copy of the table, which then
+ * replaces the table in a single move. If anything goes wrong, the table is
+ * left exactly as it was.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class ImportPipeline {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The number of rows handed to a worker thread at one time. */
+    public static final int BATCH_SIZE = 1000;
+    /** The most problems that are kept for the import summary. */
+    public static final int MAX_PROBLEMS = 500;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final HashMap<String, String> ALIASES;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final DataTables table;
+    private final File source;
+    private final boolean csv;
+    private final boolean numbered;
+    private final int[] identityFields;
+    private final ArrayList<String> problems;
+    private final LogRecord entry;
+
+    private int[] columns;
+    private Set<Long> brokerIds;
+    private long read;
+    private long added;
+    private long duplicates;
+    private long rejected;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Static Initializer">
+    static {
+        ALIASES = new HashMap<>();
+        ALIASES.put("name", "company");
+        ALIASES.put("company_name", "company");
+        ALIASES.put("address", "street");
+        ALIASES.put("address1", "street");
+        ALIASES.put("address2", "suite");
+        ALIASES.put("st", "state");
+        ALIASES.put("zip_code", "zip");
+        ALIASES.put("postal_code", "zip");
+        ALIASES.put("telephone", "phone");
+        ALIASES.put("e_mail", "email");
+        ALIASES.put("notes", "comments");
+        ALIASES.put("order_number", "order");
+        ALIASES.put("trip_number", "trip");
+        ALIASES.put("dispatched", "dispatch");
+        ALIASES.put("broker_id", "broker");
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates an import of the given CSV file into the given table.
+     *
+     * @param table  the table to import into: brokers, customers or loads
+     * @param source the CSV file to import
+     * @throws IllegalArgumentException if the table cannot be imported from
+     *         CSV
+     */
+    public ImportPipeline (DataTables table, File source) {
+        this(table, source, true);
+    }
+
+    /**
+     * Creates an import of the given file into the given table.
+     *
+     * @param table  the table to import into; only brokers, customers or
+     *               loads from CSV
+     * @param source the file to import
+     * @param csv    `true` if the file is CSV with a header row, `false` if it
+     *               is in the table's own format
+     * @throws IllegalArgumentException if the table cannot be imported from
+     *         CSV
+     */
+    public ImportPipeline (DataTables table, File source, boolean csv) {
+        if ( csv && table != DataTables.BROKERS
+                && table != DataTables.CUSTOMERS && table != DataTables.LOADS )
+            throw new IllegalArgumentException("CSV import is not available "
+                    + "for the " + table + " table.");
+
+        this.table = table;
+        this.source = source;
+        this.csv = csv;
+        numbered = table.indexOf("id") == 0;
+        problems = new ArrayList<>();
+
+        switch ( table ) {
+            case BROKERS:
+            case CUSTOMERS:
+                identityFields = new int[]{1, 2, 4, 5, 6};
+                break;
+            default:
+                identityFields = table.getKeyFields();
+        }
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Runs the import.
+     *
+     * @param progress told the number of rows read after each batch is
+     *                 written, or `null`
+     * @throws DataStoreException in the event the file cannot be read, has no
+     *         usable header, or the table cannot be written
+     */
+    @SuppressWarnings("try")
+    public void run(LongConsumer progress) throws DataStoreException {
+        entry.setMessage("Importing " + source + " into " + table);
+        entry.setSourceMethodName("run");
+        entry.setParameters(new Object[]{table, source});
+        Starter.logger.enter(entry);
+
+        File file = table.getFile();
+        File tmp = new File(file.getPath() + ".tmp");
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+
+        try ( SharedTable.TableLock lock = SharedTable.lock(file, false);
+                BufferedReader lineIn = new BufferedReader(
+                        new FileReader(source), 65536);
+                CsvReader in = new CsvReader(lineIn) ) {
+            if ( csv ) {
+                String[] header = in.readRecord();
+
+                if ( header == null )
+                    throw new IOException(source.getName() + " is empty.");
+
+                mapColumns(header);
+            }
+
+            HashSet<Long> keys = new HashSet<>();
+            HashSet<Long> ids = new HashSet<>();
+            long nextId = seed(file, keys, ids) + 1;
+
+            if ( file.exists() )
+                Files.copy(file.toPath(), tmp.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+
+            ArrayDeque<Future<Row[]>> pending = new ArrayDeque<>();
+            int inFlight = Runtime.getRuntime().availableProcessors() * 2;
+
+            try ( BufferedWriter out = new BufferedWriter(
+                    new FileWriter(tmp, true)) ) {
+                String[] rec;
+                ArrayList<String[]> batch = new ArrayList<>(BATCH_SIZE);
+                long[] lines = new long[BATCH_SIZE];
+                long lineNo = 0;
+
+                while ( (rec = csv ? in.readRecord() : readLine(lineIn))
+                        != null ) {
+                    lineNo = csv ? in.getLineNumber() : lineNo + 1;
+
+                    if ( rec.length == 1 && rec[0].isBlank() )
+                        continue;
+
+                    lines[batch.size()] = lineNo;
+                    batch.add(rec);
+
+                    if ( batch.size() == BATCH_SIZE ) {
+                        pending.add(submit(pool, batch, lines));
+                        batch = new ArrayList<>(BATCH_SIZE);
+                        lines = new long[BATCH_SIZE];
+
+                        // Wait on the oldest batch before reading further.
+                        if ( pending.size() >= inFlight )
+                            nextId = write(pending.poll().get(), out, keys,
+                                    ids, nextId, progress);
+                    }
+                }
+
+                if ( !batch.isEmpty() )
+                    pending.add(submit(pool, batch, lines));
+
+                while ( !pending.isEmpty() )
+                    nextId = write(pending.poll().get(), out, keys, ids,
+                            nextId, progress);
+            }
+
+            if ( added > 0 ) {
+                // No number the file brought with it may be handed out again.
+                if ( numbered )
+                    Sequence.of(table).skipTo(nextId);
+
+                SharedTable.replace(tmp, file);
+
+                Starter.props.setPropertyAsLong(table.getCountProperty(),
+                        Starter.props.getPropertyAsLong(
+                                table.getCountProperty(), "0") + added);
+            } else {
+                tmp.delete();
+            }
+        } catch ( IOException | ExecutionException ex ) {
+            tmp.delete();
+            Throwable cause = ex instanceof ExecutionException
+                    ? ex.getCause() : ex;
+
+            entry.setMessage(cause.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(cause);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(cause.getMessage(), cause);
+        } catch ( InterruptedException ex ) {
+            tmp.delete();
+            Thread.currentThread().interrupt();
+
+            entry.setMessage("Import interrupted; the table was not changed.");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(entry.getMessage(), ex);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        entry.setMessage("Import finished.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, new long[]{read, added, duplicates,
+            rejected});
+    }
+
+    public DataTables getTable() {
+        return table;
+    }
+
+    /**
+     * Retrieves the number of data rows read from the file.
+     *
+     * @return rows read
+     */
+    public long getRead() {
+        return read;
+    }
+
+    /**
+     * Retrieves the number of records added to the table.
+     *
+     * @return records added
+     */
+    public long getAdded() {
+        return added;
+    }
+
+    /**
+     * Retrieves the number of rows skipped because the record was already in
+     * the table or appeared earlier in the file.
+     *
+     * @return duplicate rows
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Retrieves the number of rows that could not be imported.
+     *
+     * @return rejected rows
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Retrieves the reasons rows were rejected, each prefixed with the line
+     * number of the row. At most {@link #MAX_PROBLEMS} are kept.
+     *
+     * @return the problems found
+     */
+    public List<String> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void mapColumns(String[] header) throws IOException {
+        columns = new int[table.getFieldCount()];
+        Arrays.fill(columns, -1);
+
+        for ( int x = 0; x < header.length; x++ ) {
+            String name = header[x].trim().toLowerCase()
+                    .replaceAll("[\\s\\-]+", "_");
+            name = ALIASES.getOrDefault(name, name);
+            int field = table.indexOf(name);
+
+            if ( field >= 0 && columns[field] < 0 )
+                columns[field] = x;
+        }
+
+        String[] required = table == DataTables.LOADS
+                ? new String[]{"order", "trip", "dispatch", "broker"}
+                : new String[]{"company"};
+
+        for ( String name : required ) {
+            if ( columns[table.indexOf(name)] < 0 )
+                throw new IOException(source.getName() + " has no \"" + name
+                        + "\" column.");
+        }
+    }
+
+    /**
+     * Loads the identity hashes of the records already in the table. For
+     * loads, the IDs of the known brokers are collected as well, so that loads
+     * booked by an unknown broker can be turned away.
+     *
+     * @return the highest record ID in the table, or zero (0)
+     */
+    private long seed(File file, Set<Long> keys, Set<Long> ids)
+            throws IOException {
+        long maxId = 0;
+
+        if ( file.exists() ) {
+            try ( BufferedReader in = new BufferedReader(new FileReader(file)) ) {
+                String line;
+
+                while ( (line = in.readLine()) != null ) {
+                    if ( line.isBlank() )
+                        continue;
+
+                    String[] fields = TableMaintenance.split(table, line);
+
+                    // Every record already there counts, whether or not it
+                    //+ would pass validation, so that none is added again
+                    //+ and no ID in use is handed out.
+                    if ( identityFields.length > 0 && fields.length
+                            > identityFields[identityFields.length - 1] )
+                        keys.add(identity(fields));
+
+                    if ( numbered ) {
+                        try {
+                            long id = Long.parseLong(fields[0].trim());
+                            ids.add(id);
+                            maxId = Math.max(maxId, id);
+                        } catch ( NumberFormatException ex ) {
+                            // Damaged lines are for the verify command.
+                        }
+                    }
+                }
+            }
+        }
+
+        if ( table == DataTables.LOADS ) {
+            HashSet<Long> known = new HashSet<>();
+            File brokers = DataTables.BROKERS.getFile();
+
+            if ( brokers.exists() ) {
+                try ( BufferedReader in = new BufferedReader(
+                        new FileReader(brokers)) ) {
+                    String line;
+
+                    while ( (line = in.readLine()) != null ) {
+                        String[] fields = line.split("~");
+
+                        try {
+                            known.add(Long.parseLong(fields[0]));
+                        } catch ( NumberFormatException ex ) {
+                            // Damaged lines are for the verify command.
+                        }
+                    }
+                }
+            }
+
+            brokerIds = Collections.unmodifiableSet(known);
+        }
+
+        return maxId;
+    }
+
+    private Future<Row[]> submit(ExecutorService pool,
+            ArrayList<String[]> batch, long[] lines) {
+        return pool.submit(() -> {
+            Row[] rows = new Row[batch.size()];
+
+            for ( int x = 0; x < rows.length; x++ )
+                rows[x] = convert(batch.get(x), lines[x]);
+
+            return rows;
+        });
+    }
+
+    private long write(Row[] rows, BufferedWriter out, Set<Long> keys,
+            Set<Long> ids, long nextId, LongConsumer progress)
+            throws IOException {
+        for ( Row row : rows ) {
+            read++;
+
+            if ( row.problem != null ) {
+                reject(row.line, row.problem);
+                continue;
+            }
+
+            if ( identityFields.length > 0 && !keys.add(row.key) ) {
+                duplicates++;
+                continue;
+            }
+
+            if ( numbered ) {
+                long id = Long.parseLong(row.fields[0]);
+
+                if ( id <= 0 || !ids.add(id) ) {
+                    do
+                        id = Sequence.of(table).next();
+                    while ( !ids.add(id) );
+
+                    row.fields[0] = String.valueOf(id);
+                }
+
+                nextId = Math.max(nextId, id + 1);
+            }
+
+            out.write(String.join("~", row.fields));
+            out.write("\n");
+            added++;
+        }
+
+        if ( progress != null )
+            progress.accept(read);
+
+        return nextId;
+    }
+
+    private void reject(long line, String problem) {
+        rejected++;
+
+        if ( problems.size() < MAX_PROBLEMS )
+            problems.add(source.getName() + ":" + line + ": " + problem);
+    }
+
+    /**
+     * Converts one row of the file into the fields of a table record. This
+     * runs on the worker threads, so it touches nothing but its arguments and
+     * state that is not changed while the workers run.
+     */
+    private Row convert(String[] rec, long line) {
+        Row row = new Row(line);
+
+        try {
+            // A line in the table's own format is the record already.
+            String record = csv ? toRecord(rec) : rec[0];
+
+            row.fields = TableMaintenance.split(table, record);
+            row.problem = TableMaintenance.validate(table, row.fields);
+
+            if ( row.problem == null )
+                row.key = identity(row.fields);
+        } catch ( NumberFormatException | ParseException ex ) {
+            row.problem = "not a valid number or date: " + ex.getMessage();
+        } catch ( IllegalArgumentException ex ) {
+            row.problem = ex.getMessage();
+        }
+
+        return row;
+    }
+
+    private String toRecord(String[] rec) throws ParseException {
+        switch ( table ) {
+            case BROKERS:
+                return BrokerCtl.buildRecordLine(toBroker(rec));
+            case CUSTOMERS:
+                return CustomerCtl.buildRecordLine(toCustomer(rec));
+            default:
+                return LoadCtl.buildRecordLine(toLoad(rec));
+        }
+    }
+
+    private BrokerModel toBroker(String[] rec) {
+        BrokerModel model = new BrokerModel();
+
+        model.setId(toLong(value(rec, "id")));
+        model.setCompany(required(rec, "company"));
+        model.setStreet(text(rec, "street"));
+        model.setSuite(text(rec, "suite"));
+        model.setCity(text(rec, "city"));
+        model.setState(state(rec));
+        model.setZip(zip(rec));
+        model.setContact(text(rec, "contact"));
+        model.setPhone(text(rec, "phone"));
+        model.setFax(text(rec, "fax"));
+        model.setEmail(text(rec, "email"));
+
+        return model;
+    }
+
+    private CustomerModel toCustomer(String[] rec) {
+        CustomerModel model = new CustomerModel();
+
+        model.setId(toLong(value(rec, "id")));
+        model.setCompany(required(rec, "company"));
+        model.setStreet(text(rec, "street"));
+        model.setSuite(text(rec, "suite"));
+        model.setCity(text(rec, "city"));
+        model.setState(state(rec));
+        model.setZip(zip(rec));
+        model.setContact(text(rec, "contact"));
+        model.setPhone(text(rec, "phone"));
+        model.setComments(text(rec, "comments"));
+
+        return model;
+    }
+
+    private LoadModel toLoad(String[] rec) throws ParseException {
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+        LoadModel model = new LoadModel();
+
+        model.setOrder(required(rec, "order"));
+        model.setTrip(required(rec, "trip"));
+        model.setStartOdo((int) toLong(value(rec, "start_odometer")));
+        model.setEndOdo((int) toLong(value(rec, "end_odometer")));
+        model.setDispatch(sdf.parse(required(rec, "dispatch")));
+        model.setRateInCents(toCents(value(rec, "rate")));
+        model.setMiles((int) toLong(value(rec, "miles")));
+        model.setWeight((int) toLong(value(rec, "weight")));
+        model.setPieces((int) toLong(value(rec, "pieces")));
+        model.setCommodity(text(rec, "commodity"));
+        model.setHazMat(toBoolean(value(rec, "hazmat")));
+        model.setTarped(toBoolean(value(rec, "tarped")));
+        model.setTeam(toBoolean(value(rec, "team")));
+        model.setTwic(toBoolean(value(rec, "twic")));
+        model.setTopCust(toBoolean(value(rec, "top_customer")));
+        model.setLtl(toBoolean(value(rec, "ltl")));
+        model.setCbd(toBoolean(value(rec, "cbd")));
+        model.setRamps(toBoolean(value(rec, "ramps")));
+        model.setBroker(toLong(required(rec, "broker")));
+        model.setBol(text(rec, "bol"));
+        model.setCompleted(toBoolean(value(rec, "completed")));
+        model.setCancelled(toBoolean(value(rec, "cancelled")));
+
+        if ( !brokerIds.contains(model.getBroker()) )
+            throw new IllegalArgumentException("no such broker "
+                    + model.getBroker());
+
+        return model;
+    }
+
+    /**
+     * Retrieves the trimmed value of the named field from a row. A tilde
+     * would split the record when it is read back, so it is replaced, as are
+     * line breaks inside quoted values.
+     */
+    private String value(String[] rec, String field) {
+        int col = columns[table.indexOf(field)];
+
+        if ( col < 0 || col >= rec.length )
+            return "";
+
+        return rec[col].replace('~', '-').replace('\r', ' ').replace('\n', ' ')
+                .trim();
+    }
+
+    private String text(String[] rec, String field) {
+        String value = value(rec, field);
+
+        return value.isEmpty() ? " " : value;
+    }
+
+    private String required(String[] rec, String field) {
+        String value = value(rec, field);
+
+        if ( value.isEmpty() )
+            throw new IllegalArgumentException(field + " is required");
+
+        return value;
+    }
+
+    private String state(String[] rec) {
+        String state = value(rec, "state").toUpperCase();
+
+        if ( !StateAbbrVerifier.isValidState(state) )
+            throw new IllegalArgumentException("not a valid state: \"" + state
+                    + "\"");
+
+        return state;
+    }
+
+    private String zip(String[] rec) {
+        String zip = value(rec, "zip").toUpperCase();
+
+        if ( zip.isEmpty() )
+            return " ";
+
+        if ( !zip.equalsIgnoreCase("unavailable")
+                && !PostalCodeVerifier.isValidPostalCode(zip) )
+            throw new IllegalArgumentException("not a valid Zip Code: \"" + zip
+                    + "\"");
+
+        return zip;
+    }
+
+    private static String[] readLine(BufferedReader in) throws IOException {
+        String line = in.readLine();
+
+        return line == null ? null : new String[]{line};
+    }
+
+    private static long toLong(String value) {
+        return value.isEmpty() ? 0 : Long.parseLong(value.replace(",", ""));
+    }
+
+    private static long toCents(String value) {
+        return value.isEmpty() ? 0 : Money.parse(value, Money.CENTS);
+    }
+
+    private static boolean toBoolean(String value) {
+        switch ( value.toLowerCase() ) {
+            case "true":
+            case "yes":
+            case "y":
+            case "x":
+            case "1":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Hashes the identity of a record with 64-bit FNV-1a. For brokers and
+     * customers this is the company and address, and for the other tables
+     * their key fields, such as the order and trip numbers of a load, all
+     * compared without regard to case or spacing.
+     */
+    private long identity(String[] fields) {
+        long hash = FNV_OFFSET;
+
+        for ( int part : identityFields ) {
+            boolean space = false;
+
+            for ( char c : fields[part].trim().toLowerCase().toCharArray() ) {
+                if ( Character.isWhitespace(c) ) {
+                    space = true;
+                    continue;
+                }
+
+                if ( space ) {
+                    hash = (hash ^ ' ') * FNV_PRIME;
+                    space = false;
+                }
+
+                hash = (hash ^ c) * FNV_PRIME;
+            }
+
+            hash = (hash ^ '|') * FNV_PRIME;
+        }
+
+        return hash;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Classes">
+    private static class Row {
+        private final long line;
+        private String[] fields;
+        private String problem;
+        private long key;
+
+        private Row(long line) {
+            this.line = line;
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,528 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   InvoiceGenerator.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 10:58:12 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Writes the invoices for one load, or for every completed load that
+ *      has not yet been invoiced, as text or PDF files.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.io;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.sys.LoadArchive;
+import com.pekinsoft.loadmaster.sys.Sequence;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.utils.Money;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes invoices from the loads, one file to each invoice, named by the
+ * invoice number.
+ * <p>
+ * The loads to invoice, their stops and the brokers and customers they name
+ * are each read once and indexed by order, trip and ID number, so a week's
+ * worth of invoices costs no more reading than a single one. The invoices
+ * are then numbered in order of their loads' dispatch dates, and rendered
+ * from the {@link InvoiceTemplate template} and written out in parallel.</p>
+ * <p>
+ * Invoice numbers are made from the prefix chosen in the settings
+ * (`invoice.prefix`: the long or short year, or `invoice.prefix.value`) and
+ * a {@link Sequence} that runs from `invoice.min` to `invoice.max`, from
+ * which each batch reserves the numbers it needs at once. The number of
+ * each invoice written is recorded, with its order, in `invoices.idx` in the
+ * data folder, so that a batch only picks up the loads that have not been
+ * invoiced, and an invoice that is written again keeps its number.</p>
+ * <p>
+ * The template is `invoice.tpl` in the data folder, if there is one, or
+ * else {@link InvoiceTemplate#DEFAULT}.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class InvoiceGenerator {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the record of invoice numbers, in the data folder. */
+    public static final String INDEX = "invoices.idx";
+    /** The name of the invoice template, in the data folder. */
+    public static final String TEMPLATE = "invoice.tpl";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    // A US Letter page in Courier, a half inch and more from the edges.
+    private static final int PAGE_WIDTH = 612;
+    private static final int PAGE_HEIGHT = 792;
+    private static final int MARGIN = 54;
+    private static final int FONT_SIZE = 9;
+    private static final int LEADING = 11;
+    private static final int LINES_PER_PAGE = (PAGE_HEIGHT - 2 * MARGIN)
+            / LEADING;
+
+    private final File folder;
+    private final boolean pdf;
+    private final LogRecord entry;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a generator that writes its invoices into a folder.
+     *
+     * @param folder the folder to write the invoices into; it is created if
+     *               need be
+     * @param pdf    `true` to write PDF files, `false` for plain text
+     */
+    public InvoiceGenerator (File folder, boolean pdf) {
+        this.folder = folder;
+        this.pdf = pdf;
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the folder that invoices are written into unless another is
+     * given: `invoice.folder` from the settings, or `invoices` in the data
+     * folder.
+     *
+     * @return the invoice folder
+     */
+    public static File getDefaultFolder() {
+        return new File(Starter.props.getProperty("invoice.folder",
+                Starter.props.getDataFolder() + "invoices"));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Writes the invoices for some loads.
+     *
+     * @param orders the order numbers of the loads to invoice, or none to
+     *               invoice every completed load that has not been invoiced
+     * @return the files written, in order of invoice number
+     * @throws DataStoreException in the event the tables cannot be read, the
+     *         template is not valid, the invoice numbers are used up, or an
+     *         invoice cannot be written
+     */
+    public List<File> generate(Collection<String> orders)
+            throws DataStoreException {
+        entry.setMessage("Generating invoices...");
+        entry.setSourceMethodName("generate");
+        entry.setParameters(new Object[]{orders, folder, pdf});
+        Starter.logger.enter(entry);
+
+        List<File> written;
+
+        try {
+            written = run(new HashSet<>(orders));
+        } catch ( IOException | UncheckedIOException
+                | IllegalArgumentException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        entry.setMessage("Invoices generated.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, written.size());
+
+        return written;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private List<File> run(HashSet<String> orders) throws IOException,
+            DataStoreException {
+        File tpl = new File(Starter.props.getDataFolder() + TEMPLATE);
+        InvoiceTemplate template = new InvoiceTemplate(tpl.exists()
+                ? Files.readString(tpl.toPath()) : InvoiceTemplate.DEFAULT);
+
+        File index = new File(Starter.props.getDataFolder() + INDEX);
+        HashMap<String, String> invoiced = readIndex(index);
+
+        // Gather the loads first, so only their stops need to be kept.
+        LinkedHashMap<String, String[]> loads = new LinkedHashMap<>();
+        try ( Stream<String[]> s = LoadArchive.records(DataTables.LOADS, null,
+                null) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+
+                if ( orders.isEmpty() ? Boolean.parseBoolean(f[20])
+                        && !Boolean.parseBoolean(f[21])
+                        && !invoiced.containsKey(f[0])
+                        : orders.contains(f[0]) )
+                    loads.put(f[0], f);
+            }
+        }
+
+        if ( loads.isEmpty() )
+            return new ArrayList<>();
+
+        HashSet<String> trips = new HashSet<>();
+        for ( String[] load : loads.values() )
+            trips.add(load[1]);
+
+        HashMap<String, List<String[]>> stopsByTrip = new HashMap<>();
+        try ( Stream<String[]> s = LoadArchive.records(DataTables.STOPS, null,
+                null) ) {
+            s.filter(f -> trips.contains(f[0])).forEach(f -> stopsByTrip
+                    .computeIfAbsent(f[0], t -> new ArrayList<>()).add(f));
+        }
+        for ( List<String[]> stops : stopsByTrip.values() )
+            stops.sort(Comparator.comparingInt(f -> Integer.parseInt(f[1])));
+
+        HashMap<String, String[]> brokers = readById(DataTables.BROKERS);
+        HashMap<String, String[]> customers = readById(DataTables.CUSTOMERS);
+
+        // Number the invoices in order of dispatch, before any is written, so
+        //+ the numbers do not depend on which thread finishes first.
+        List<String[]> queue = new ArrayList<>(loads.values());
+        queue.sort(Comparator.comparingLong(f -> dayOf(f[4])));
+
+        Date today = new Date();
+        String prefix = getPrefix(today);
+        long min = getLimit("invoice.min", 1L);
+        long max = getLimit("invoice.max", 999999L);
+        int digits = String.valueOf(max).length();
+
+        int needed = 0;
+        for ( String[] load : queue )
+            if ( !invoiced.containsKey(load[0]) )
+                needed++;
+
+        // The numbers of the batch are reserved together, so that a batch
+        //+ run by another copy of the program at the same time gets others.
+        //+ The sequence starts where `invoice.next` left off.
+        Sequence numbers = Sequence.get(Sequence.INVOICE, () -> Math.max(min,
+                Starter.props.getPropertyAsLong("invoice.next",
+                        String.valueOf(min))));
+        long first = needed > 0 ? numbers.reserve(needed, min) : min;
+
+        if ( first + needed - 1 > max ) {
+            numbers.release(first, needed);
+            throw new DataStoreException("The invoice numbers from " + min
+                    + " to " + max + " have all been used.");
+        }
+
+        long next = first;
+        List<Job> jobs = new ArrayList<>();
+        for ( String[] load : queue ) {
+            String number = invoiced.get(load[0]);
+
+            if ( number == null )
+                number = prefix + String.format("%0" + digits + "d", next++);
+
+            jobs.add(new Job(number, load));
+        }
+
+        String date = new SimpleDateFormat("MM/dd/yyyy").format(today);
+        List<File> written;
+
+        try {
+            written = jobs.parallelStream().map(job -> write(template, job,
+                    date, brokers, customers, stopsByTrip.getOrDefault(
+                            job.load[1], List.of())))
+                    .collect(Collectors.toList());
+
+            // Only now that every invoice is out are their numbers recorded.
+            try ( Writer out = new FileWriter(index, true) ) {
+                for ( Job job : jobs )
+                    if ( !invoiced.containsKey(job.load[0]) )
+                        out.write(job.number + "~" + job.load[0] + "~"
+                                + job.load[1] + "~" + date + "~"
+                                + job.load[5] + "\n");
+            }
+        } catch ( IOException | RuntimeException ex ) {
+            // Give the numbers back, so that the next batch does not skip
+            //+ them, unless another batch has taken numbers since.
+            if ( needed > 0 )
+                numbers.release(first, needed);
+
+            throw ex;
+        }
+
+        return written;
+    }
+
+    private File write(InvoiceTemplate template, Job job, String date,
+            HashMap<String, String[]> brokers,
+            HashMap<String, String[]> customers, List<String[]> stops) {
+        String[] load = job.load;
+        String[] broker = brokers.getOrDefault(load[18], new String[11]);
+        long rate = Money.parse(load[5], Money.CENTS);
+        int miles = Integer.parseInt(load[6]);
+
+        String[] values = {job.number, date,
+            Starter.props.getProperty("company.name", ""),
+            Starter.props.getProperty("company.street", ""),
+            Starter.props.getProperty("company.suite", ""),
+            Starter.props.getProperty("company.city", ""),
+            Starter.props.getProperty("company.state", ""),
+            Starter.props.getProperty("company.zip", ""),
+            Starter.props.getProperty("company.phone", ""),
+            Starter.props.getProperty("company.email", ""),
+            broker[1], broker[2], broker[3], broker[4], broker[5], broker[6],
+            broker[7], broker[8],
+            load[0], load[1], load[19], load[4], load[9], load[7], load[8],
+            load[6], "$" + String.format("%,.2f", rate / 100.0),
+            miles == 0 ? "" : "$" + Money.format(Math.round(rate * 10.0
+                    / miles), Money.MILLS)};
+        trim(values);
+
+        List<String[]> stopValues = new ArrayList<>(stops.size());
+        for ( String[] stop : stops ) {
+            String[] customer = customers.getOrDefault(stop[2],
+                    new String[10]);
+            String[] v = {stop[1], customer[1], customer[2], customer[4],
+                customer[5], customer[6], stop[3],
+                (stop[7] + " " + stop[8]).trim(),
+                (stop[9] + " " + stop[10]).trim(), stop[11]};
+            trim(v);
+            stopValues.add(v);
+        }
+
+        String text = template.render(values, stopValues);
+        File file = new File(folder, job.number + (pdf ? ".pdf" : ".txt"));
+
+        try {
+            if ( pdf )
+                writePdf(text, file);
+            else
+                Files.writeString(file.toPath(), text);
+        } catch ( IOException ex ) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return file;
+    }
+
+    private HashMap<String, String> readIndex(File index) throws IOException {
+        HashMap<String, String> invoiced = new HashMap<>();
+
+        if ( !index.exists() ) {
+            folder.mkdirs();
+            return invoiced;
+        }
+
+        try ( BufferedReader in = new BufferedReader(new FileReader(index)) ) {
+            String line;
+
+            while ( (line = in.readLine()) != null ) {
+                String[] f = line.split("~");
+
+                if ( f.length >= 2 )
+                    invoiced.put(f[1], f[0]);
+            }
+        }
+
+        folder.mkdirs();
+        return invoiced;
+    }
+
+    private String getPrefix(Date date) {
+        String prefix = Starter.props.getProperty("invoice.prefix", "");
+
+        if ( prefix.equalsIgnoreCase("Long Year") )
+            return new SimpleDateFormat("yyyy").format(date);
+        if ( prefix.equalsIgnoreCase("Short Year") )
+            return new SimpleDateFormat("yy").format(date);
+        if ( prefix.equalsIgnoreCase("Other...") )
+            return Starter.props.getProperty("invoice.prefix.value", "")
+                    .trim();
+
+        return "";
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static HashMap<String, String[]> readById(DataTables table)
+            throws IOException {
+        HashMap<String, String[]> byId = new HashMap<>();
+
+        try ( Stream<String[]> s = TableMaintenance.records(table) ) {
+            s.forEach(f -> byId.put(f[0], f));
+        }
+
+        return byId;
+    }
+
+    private static long getLimit(String key, long fallback) {
+        try {
+            return Long.parseLong(Starter.props.getProperty(key, "").trim());
+        } catch ( NumberFormatException ex ) {
+            return fallback;
+        }
+    }
+
+    private static long dayOf(String date) {
+        String[] f = date.split("/");
+
+        return Long.parseLong(f[2]) * 10000 + Long.parseLong(f[0]) * 100
+                + Long.parseLong(f[1]);
+    }
+
+    private static void trim(String[] values) {
+        for ( int x = 0; x < values.length; x++ )
+            values[x] = values[x] == null ? "" : values[x].trim();
+    }
+
+    /**
+     * Writes text to a PDF file, a page to every so many lines, in the
+     * Courier font that every PDF reader has. Only the characters of
+     * ISO-8859-1 are kept.
+     */
+    private static void writePdf(String text, File file) throws IOException {
+        String[] lines = text.split("\r?\n", -1);
+        int pages = Math.max(1, (lines.length + LINES_PER_PAGE - 1)
+                / LINES_PER_PAGE);
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream(4096
+                + text.length());
+        long[] offsets = new long[3 + 2 * pages + 1];
+
+        write(pdf, "%PDF-1.4\n");
+        offsets[1] = pdf.size();
+        write(pdf, "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+
+        StringBuilder kids = new StringBuilder();
+        for ( int p = 0; p < pages; p++ )
+            kids.append(4 + 2 * p).append(" 0 R ");
+        offsets[2] = pdf.size();
+        write(pdf, "2 0 obj\n<< /Type /Pages /Kids [" + kids + "] /Count "
+                + pages + " >>\nendobj\n");
+
+        offsets[3] = pdf.size();
+        write(pdf, "3 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont "
+                + "/Courier /Encoding /WinAnsiEncoding >>\nendobj\n");
+
+        for ( int p = 0; p < pages; p++ ) {
+            int page = 4 + 2 * p;
+
+            StringBuilder content = new StringBuilder();
+            content.append("BT\n/F1 ").append(FONT_SIZE).append(" Tf\n")
+                    .append(LEADING).append(" TL\n").append(MARGIN).append(' ')
+                    .append(PAGE_HEIGHT - MARGIN).append(" Td\n");
+
+            int last = Math.min(lines.length, (p + 1) * LINES_PER_PAGE);
+            for ( int x = p * LINES_PER_PAGE; x < last; x++ ) {
+                content.append('(');
+                for ( char c : lines[x].toCharArray() ) {
+                    if ( c == '(' || c == ')' || c == '\\' )
+                        content.append('\\');
+                    content.append(c < 256 ? c : '?');
+                }
+                content.append(") '\n");
+            }
+            content.append("ET\n");
+
+            byte[] stream = content.toString().getBytes(
+                    StandardCharsets.ISO_8859_1);
+
+            offsets[page] = pdf.size();
+            write(pdf, page + " 0 obj\n<< /Type /Page /Parent 2 0 R "
+                    + "/MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT
+                    + "] /Resources << /Font << /F1 3 0 R >> >> /Contents "
+                    + (page + 1) + " 0 R >>\nendobj\n");
+            offsets[page + 1] = pdf.size();
+            write(pdf, (page + 1) + " 0 obj\n<< /Length " + stream.length
+                    + " >>\nstream\n");
+            pdf.write(stream);
+            write(pdf, "endstream\nendobj\n");
+        }
+
+        long xref = pdf.size();
+        StringBuilder table = new StringBuilder();
+        table.append("xref\n0 ").append(offsets.length).append('\n')
+                .append("0000000000 65535 f \n");
+        for ( int x = 1; x < offsets.length; x++ )
+            table.append(String.format("%010d 00000 n \n", offsets[x]));
+        table.append("trailer\n<< /Size ").append(offsets.length)
+                .append(" /Root 1 0 R >>\nstartxref\n").append(xref)
+                .append("\n%%EOF\n");
+        write(pdf, table.toString());
+
+        try ( OutputStream out = new FileOutputStream(file) ) {
+            pdf.writeTo(out);
+        }
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Job {
+        private final String number;
+        private final String[] load;
+
+        private Job(String number, String[] load) {
+            this.number = number;
+            this.load = load;
+        }
+    }
+    //</editor-fold>
+
+}
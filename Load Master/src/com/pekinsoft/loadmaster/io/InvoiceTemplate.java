@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   InvoiceTemplate.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 10:41:27 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      The layout of an invoice, compiled once from its text so that each
+ *      invoice is rendered without parsing the template again.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The layout of an invoice. A template is plain text in which fields are
+ * written as `${name}`. A field may be given a width, as `${name:20}` to pad
+ * or cut it to twenty characters, or as `${name:&gt;12}` to right-align it
+ * in twelve. The lines between `${stops}` and `${end}` are repeated for each
+ * stop of the load, and may use the stop fields.
+ * <p>
+ * The template is compiled into parallel arrays of literal text and field
+ * numbers when it is created, so rendering an invoice only copies text into
+ * a buffer. The fields are those named in {@link #FIELDS} and
+ * {@link #STOP_FIELDS}, and their values are given to
+ * {@link #render(String[], List) render} in that order.</p>
+ * <p>
+ * A template is immutable and may render invoices on several threads at
+ * once.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class InvoiceTemplate {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The fields of an invoice, in the order their values are given. */
+    public static final List<String> FIELDS = List.of("invoice.number",
+            "invoice.date", "company.name", "company.street", "company.suite",
+            "company.city", "company.state", "company.zip", "company.phone",
+            "company.email", "broker.company", "broker.street",
+            "broker.suite", "broker.city", "broker.state", "broker.zip",
+            "broker.contact", "broker.phone", "load.order", "load.trip",
+            "load.bol", "load.dispatch", "load.commodity", "load.weight",
+            "load.pieces", "load.miles", "load.rate", "load.rpm");
+    /** The fields of each stop, in the order their values are given. */
+    public static final List<String> STOP_FIELDS = List.of("stop.number",
+            "stop.customer", "stop.street", "stop.city", "stop.state",
+            "stop.zip", "stop.date", "stop.arrived", "stop.departed",
+            "stop.signed");
+
+    /** The template used when the data folder does not have its own. */
+    public static final String DEFAULT = ""
+            + "${company.name}\n"
+            + "${company.street} ${company.suite}\n"
+            + "${company.city}, ${company.state} ${company.zip}\n"
+            + "Phone: ${company.phone}    Email: ${company.email}\n"
+            + "\n"
+            + "INVOICE ${invoice.number:20}                 "
+            + "Date: ${invoice.date}\n"
+            + "\n"
+            + "Bill To:\n"
+            + "${broker.company}\n"
+            + "Attn: ${broker.contact}\n"
+            + "${broker.street} ${broker.suite}\n"
+            + "${broker.city}, ${broker.state} ${broker.zip}\n"
+            + "\n"
+            + "Order: ${load.order:16} Trip: ${load.trip:12} "
+            + "BOL: ${load.bol}\n"
+            + "Dispatched: ${load.dispatch:11} "
+            + "Commodity: ${load.commodity:20}\n"
+            + "Weight: ${load.weight} lbs    Pieces: ${load.pieces}\n"
+            + "\n"
+            + "Stop Customer                 City, State      "
+            + "Arrived          Signed By\n"
+            + "---- ------------------------ ---------------- "
+            + "---------------- ------------\n"
+            + "${stops}"
+            + "${stop.number:>4} ${stop.customer:24} ${stop.city:12} "
+            + "${stop.state:3} ${stop.arrived:16} ${stop.signed:12}\n"
+            + "${end}"
+            + "\n"
+            + "Line haul: ${load.miles:>6} miles at ${load.rpm:>7} per mile"
+            + "                 ${load.rate:>12}\n"
+            + "                                                "
+            + "            ------------\n"
+            + "                                                "
+            + "Amount Due:  ${load.rate:>12}\n"
+            + "\n"
+            + "Please remit to ${company.name}. Thank you for your business.\n";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final String BLOCK = "stops";
+    private static final String END = "end";
+
+    // Part x is the literal text[x], or else the field field[x], padded to
+    //+ width[x] (negative to right-align), or else the stop block.
+    private final String[] text;
+    private final int[] field;
+    private final int[] width;
+    private final InvoiceTemplate block;
+    private final int sizeHint;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Compiles a template.
+     *
+     * @param template the text of the template
+     * @throws IllegalArgumentException if the template names a field that
+     *         does not exist, or its stop block is not closed
+     */
+    public InvoiceTemplate (String template) {
+        this(template, FIELDS, true);
+    }
+
+    private InvoiceTemplate (String template, List<String> names,
+            boolean allowBlock) {
+        ArrayList<String> texts = new ArrayList<>();
+        ArrayList<int[]> fields = new ArrayList<>();
+        InvoiceTemplate inner = null;
+        int at = 0;
+
+        while ( at < template.length() ) {
+            int open = template.indexOf("${", at);
+
+            if ( open < 0 ) {
+                texts.add(template.substring(at));
+                fields.add(null);
+                break;
+            }
+
+            int close = template.indexOf('}', open);
+            if ( close < 0 )
+                throw new IllegalArgumentException("The field at character "
+                        + open + " of the invoice template is not closed.");
+
+            if ( open > at ) {
+                texts.add(template.substring(at, open));
+                fields.add(null);
+            }
+
+            String spec = template.substring(open + 2, close).trim();
+            at = close + 1;
+
+            if ( spec.equals(BLOCK) && allowBlock && inner == null ) {
+                int end = template.indexOf("${" + END + "}", at);
+                if ( end < 0 )
+                    throw new IllegalArgumentException("The ${" + BLOCK
+                            + "} block of the invoice template has no ${"
+                            + END + "}.");
+
+                inner = new InvoiceTemplate(template.substring(
+                        skipNewLine(template, at), end), STOP_FIELDS, false);
+                at = skipNewLine(template, end + END.length() + 3);
+                texts.add(null);
+                fields.add(null);
+                continue;
+            }
+
+            texts.add(null);
+            fields.add(compileField(spec, names));
+        }
+
+        int parts = texts.size();
+        text = texts.toArray(new String[parts]);
+        field = new int[parts];
+        width = new int[parts];
+        block = inner;
+
+        int hint = 0;
+        for ( int x = 0; x < parts; x++ ) {
+            int[] f = fields.get(x);
+            field[x] = f == null ? -1 : f[0];
+            width[x] = f == null ? 0 : f[1];
+            hint += text[x] != null ? text[x].length()
+                    : Math.max(16, Math.abs(width[x]));
+        }
+        sizeHint = hint;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Renders an invoice.
+     *
+     * @param values the values of the invoice fields, in the order of
+     *               {@link #FIELDS}
+     * @param stops  the values of the stop fields of each stop, in the order
+     *               of {@link #STOP_FIELDS}
+     * @return the text of the invoice
+     */
+    public String render(String[] values, List<String[]> stops) {
+        StringBuilder sb = new StringBuilder(sizeHint
+                + (block == null ? 0 : block.sizeHint * stops.size()));
+        render(sb, values, stops);
+
+        return sb.toString();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void render(StringBuilder sb, String[] values,
+            List<String[]> stops) {
+        for ( int x = 0; x < text.length; x++ ) {
+            if ( text[x] != null ) {
+                sb.append(text[x]);
+            } else if ( field[x] >= 0 ) {
+                append(sb, values[field[x]], width[x]);
+            } else {
+                for ( String[] stop : stops )
+                    block.render(sb, stop, null);
+            }
+        }
+    }
+
+    private static void append(StringBuilder sb, String value, int width) {
+        if ( value == null )
+            value = "";
+
+        int size = Math.abs(width);
+
+        if ( width == 0 || value.length() == size ) {
+            sb.append(value);
+        } else if ( value.length() > size ) {
+            sb.append(value, 0, size);
+        } else {
+            char[] pad = new char[size - value.length()];
+            Arrays.fill(pad, ' ');
+
+            if ( width < 0 )
+                sb.append(pad).append(value);
+            else
+                sb.append(value).append(pad);
+        }
+    }
+
+    private static int[] compileField(String spec, List<String> names) {
+        String name = spec;
+        int width = 0;
+        int colon = spec.indexOf(':');
+
+        if ( colon >= 0 ) {
+            name = spec.substring(0, colon).trim();
+            String w = spec.substring(colon + 1).trim();
+            boolean right = w.startsWith(">");
+
+            try {
+                width = Integer.parseInt(right ? w.substring(1) : w);
+            } catch ( NumberFormatException ex ) {
+                throw new IllegalArgumentException("The width of ${" + spec
+                        + "} in the invoice template is not a number.");
+            }
+
+            if ( right )
+                width = -width;
+        }
+
+        int index = names.indexOf(name);
+        if ( index < 0 )
+            throw new IllegalArgumentException("The invoice template has no "
+                    + "field named ${" + name + "} here.");
+
+        return new int[]{index, width};
+    }
+
+    /** Skips the line break after a block marker that ends its line. */
+    private static int skipNewLine(String template, int at) {
+        if ( template.startsWith("\r\n", at) )
+            return at + 2;
+        if ( template.startsWith("\n", at) )
+            return at + 1;
+
+        return at;
+    }
+    //</editor-fold>
+
+}
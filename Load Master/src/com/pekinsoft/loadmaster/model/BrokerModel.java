@@ -46,7 +46,6 @@ public class BrokerModel {
 
     //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
     public BrokerModel () {
-        id = System.currentTimeMillis();
         company = "";
         street = "";
         suite = "";
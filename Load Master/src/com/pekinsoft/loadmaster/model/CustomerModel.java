@@ -33,6 +33,8 @@
  *                                    array as an argument to create a new
  *                                    CustomerModel object from the provided
  *                                    data.
+ *  Oct 19, 2026  Sean Carrick        New customers are given their ID numbers
+ *                                    when they are added, not when created.
  * *****************************************************************************
  */
 
@@ -77,7 +79,6 @@ public class CustomerModel {
 
     //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
     public CustomerModel () {
-        id = System.currentTimeMillis();
         company = "";
         street = "";
         suite = "";
@@ -29,10 +29,12 @@
  *  WHEN          BY                  REASON
  *  ------------  ------------------- ------------------------------------------
  *  Oct 19, 2020  Sean Carrick        Initial creation.
+ *  Oct 19, 2026  Sean Carrick        Amount is now held in whole cents.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.model;
 
+import com.pekinsoft.loadmaster.utils.Money;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -66,8 +68,8 @@ public class EntryModel {
     private int fromAccount;
     /** Account to which money will be deposited. */
     private int toAccount;
-    /** Transaction amount. */
-    private double amount;
+    /** Transaction amount, in cents. */
+    private long amount;
     /** Whether transaction is tax deductible. */
     private boolean deductible;
     /** Whether transaction has been balanced with bank statement. */
@@ -102,7 +104,7 @@ public class EntryModel {
         this.description = description;
         this.fromAccount = from;
         this.toAccount = to;
-        this.amount = amount;
+        this.amount = Money.of(amount, Money.CENTS);
         this.deductible = deductible;
         this.balanced = balanced;
     }
@@ -255,6 +257,16 @@ public class EntryModel {
      * @return Transaction amount.
      */
     public double getAmount() {
+        return Money.toDouble(amount, Money.CENTS);
+    }
+
+    /**
+     * Retrieves the amount of the transaction in whole cents, which is how it
+     * is held and totaled.
+     * 
+     * @return Transaction amount in cents.
+     */
+    public long getAmountInCents() {
         return amount;
     }
 
@@ -264,6 +276,15 @@ public class EntryModel {
      * @param amount Transaction amount.
      */
     public void setAmount(double amount) {
+        this.amount = Money.of(amount, Money.CENTS);
+    }
+
+    /**
+     * Sets the amount of the transaction in whole cents.
+     * 
+     * @param amount Transaction amount in cents.
+     */
+    public void setAmountInCents(long amount) {
         this.amount = amount;
     }
 
@@ -27,11 +27,15 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Oct 19, 2020    Sean Carrick Initial Creation.
+ *   Oct 19, 2026    Sean Carrick Prices are now held in whole mills.
+ *   Oct 19, 2026    Sean Carrick New purchases are given their ID numbers
+ *                                when they are added, not when created.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.model;
 
+import com.pekinsoft.loadmaster.utils.Money;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
@@ -65,10 +69,10 @@ public class FuelPurchaseModel {
     private int odometer;
     private String location;
     private double gallonsOfDiesel;
-    private double pricePerGallonDiesel;
+    private long pricePerGallonDiesel;  // In mills.
     private boolean defPurchased;
     private double gallonsOfDef;
-    private double pricePerGallonDef;
+    private long pricePerGallonDef;     // In mills.
     private String notes;
     //</editor-fold>
 
@@ -86,15 +90,14 @@ public class FuelPurchaseModel {
 
     //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
     public FuelPurchaseModel () {
-        this.id = System.currentTimeMillis();
         this.date = new Date();
         this.odometer = 0;
         this.location = "[No Location Provided]";
         this.gallonsOfDef = 0.0;
         this.gallonsOfDiesel = 0.0;
         this.notes = "";
-        this.pricePerGallonDef = 0.0;
-        this.pricePerGallonDiesel = 0.0;
+        this.pricePerGallonDef = 0;
+        this.pricePerGallonDiesel = 0;
     }
     //</editor-fold>
 
@@ -312,6 +315,16 @@ public class FuelPurchaseModel {
      * @return price per gallon at time of purchase.
      */
     public double getPricePerGallonDiesel() {
+        return Money.toDouble(pricePerGallonDiesel, Money.MILLS);
+    }
+
+    /**
+     * Retrieves the price per gallon of diesel fuel in whole mills (tenths of
+     * a cent), which is how it is held.
+     * 
+     * @return price per gallon in mills.
+     */
+    public long getPricePerGallonDieselInMills() {
         return pricePerGallonDiesel;
     }
     
@@ -322,7 +335,7 @@ public class FuelPurchaseModel {
      * @return price per gallon.
      */
     public String getPricePerGallonDieselAsString() {
-        return String.valueOf(gallonsOfDiesel);
+        return Money.format(pricePerGallonDiesel, Money.MILLS);
     }
     
     /**
@@ -335,9 +348,9 @@ public class FuelPurchaseModel {
      */
     public double getPricePerGallonDieselAsString(String format) 
             throws ParseException {
-        NumberFormat nf = new DecimalFormat("#,##0.00");
-        Number gallons = nf.parse(getGallonsOfDieselAsString());
-        return gallons.doubleValue();
+        NumberFormat nf = new DecimalFormat("#,##0.000");
+        Number price = nf.parse(getPricePerGallonDieselAsString());
+        return price.doubleValue();
     }
 
     /**
@@ -346,6 +359,15 @@ public class FuelPurchaseModel {
      * @param pricePerGallonDiesel price per gallon at time of purchase.
      */
     public void setPricePerGallonDiesel(double pricePerGallonDiesel) {
+        this.pricePerGallonDiesel = Money.of(pricePerGallonDiesel, Money.MILLS);
+    }
+
+    /**
+     * Sets the price per gallon of diesel fuel in whole mills.
+     * 
+     * @param pricePerGallonDiesel price per gallon in mills.
+     */
+    public void setPricePerGallonDieselInMills(long pricePerGallonDiesel) {
         this.pricePerGallonDiesel = pricePerGallonDiesel;
     }
     
@@ -356,7 +378,7 @@ public class FuelPurchaseModel {
      * @param pricePerGallon price per gallon at time of purchase.
      */
     public void setPricePerGallonOfDiesel(String pricePerGallon) {
-        this.pricePerGallonDiesel = Double.valueOf(pricePerGallon);
+        this.pricePerGallonDiesel = Money.parse(pricePerGallon, Money.MILLS);
     }
 
     /**
@@ -437,6 +459,16 @@ public class FuelPurchaseModel {
      * @return price per gallon of DEF at time of purchase.
      */
     public double getPricePerGallonDef() {
+        return Money.toDouble(pricePerGallonDef, Money.MILLS);
+    }
+
+    /**
+     * Retrieves the price per gallon of DEF in whole mills (tenths of a cent),
+     * which is how it is held.
+     * 
+     * @return price per gallon of DEF in mills.
+     */
+    public long getPricePerGallonDefInMills() {
         return pricePerGallonDef;
     }
     
@@ -447,7 +479,7 @@ public class FuelPurchaseModel {
      * @return price per gallon.
      */
     public String getPricePerGallonDefAsString() {
-        return String.valueOf(gallonsOfDef);
+        return Money.format(pricePerGallonDef, Money.MILLS);
     }
     
     /**
@@ -460,9 +492,9 @@ public class FuelPurchaseModel {
      */
     public double getPricePerGallonDefAsString(String format) 
             throws ParseException {
-        NumberFormat nf = new DecimalFormat("#,##0.00");
-        Number gallons = nf.parse(getGallonsOfDefAsString());
-        return gallons.doubleValue();
+        NumberFormat nf = new DecimalFormat("#,##0.000");
+        Number price = nf.parse(getPricePerGallonDefAsString());
+        return price.doubleValue();
     }
 
     /**
@@ -471,6 +503,15 @@ public class FuelPurchaseModel {
      * @param pricePerGallonDef price per gallon of DEF at the time of purchase.
      */
     public void setPricePerGallonDef(double pricePerGallonDef) {
+        this.pricePerGallonDef = Money.of(pricePerGallonDef, Money.MILLS);
+    }
+
+    /**
+     * Sets the price per gallon of DEF in whole mills.
+     * 
+     * @param pricePerGallonDef price per gallon of DEF in mills.
+     */
+    public void setPricePerGallonDefInMills(long pricePerGallonDef) {
         this.pricePerGallonDef = pricePerGallonDef;
     }
     
@@ -481,7 +522,26 @@ public class FuelPurchaseModel {
      * @param pricePerGallon price per gallon of DEF at the time of purchase.
      */
     public void setPricePerGallonDef(String pricePerGallon) {
-        this.pricePerGallonDef = Double.parseDouble(pricePerGallon);
+        this.pricePerGallonDef = Money.parse(pricePerGallon, Money.MILLS);
+    }
+
+    /**
+     * Retrieves the cost of the diesel fuel purchased, to the nearest cent.
+     * 
+     * @return cost of the diesel in cents.
+     */
+    public long getDieselCostInCents() {
+        return Money.multiply(pricePerGallonDiesel, Money.MILLS, 
+                gallonsOfDiesel);
+    }
+
+    /**
+     * Retrieves the cost of the DEF purchased, to the nearest cent.
+     * 
+     * @return cost of the DEF in cents.
+     */
+    public long getDefCostInCents() {
+        return Money.multiply(pricePerGallonDef, Money.MILLS, gallonsOfDef);
     }
 
     /**
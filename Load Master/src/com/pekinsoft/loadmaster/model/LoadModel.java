@@ -37,11 +37,13 @@
  *                                    of miles actually driven and the gross pay
  *                                    for the load. Added JavaDoc documentation
  *                                    to the public methods.
+ *  Oct 19, 2026  Sean Carrick        Rate is now held in whole cents.
  * *****************************************************************************
  */
 
 package com.pekinsoft.loadmaster.model;
 
+import com.pekinsoft.loadmaster.utils.Money;
 import java.util.ArrayList;
 import java.util.Date;
 
@@ -63,7 +65,7 @@ public class LoadModel {
     private int startOdo;
     private int endOdo;
     private Date dispatch;
-    private double rate;
+    private long rate;  // In cents.
     private int miles;
     private int weight;
     private int pieces;
@@ -239,6 +241,15 @@ public class LoadModel {
      * @return 
      */
     public double getRate() {
+        return Money.toDouble(rate, Money.CENTS);
+    }
+
+    /**
+     * Retrieves the gross pay for the load in whole cents.
+     * 
+     * @return 
+     */
+    public long getRateInCents() {
         return rate;
     }
 
@@ -248,6 +259,15 @@ public class LoadModel {
      * @param rate 
      */
     public void setRate(double rate) {
+        this.rate = Money.of(rate, Money.CENTS);
+    }
+
+    /**
+     * Sets the gross pay for the load in whole cents.
+     * 
+     * @param rate 
+     */
+    public void setRateInCents(long rate) {
         this.rate = rate;
     }
 
@@ -517,7 +537,7 @@ public class LoadModel {
      * @return 
      */
     public double getAvgRPM() {
-        return rate / (endOdo - startOdo);
+        return getRate() / (endOdo - startOdo);
     }
     
     /**
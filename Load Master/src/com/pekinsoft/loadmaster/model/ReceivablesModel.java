@@ -27,11 +27,16 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Oct 19, 2020  Sean Carrick        Initial Creation.
+ *   Oct 19, 2026  Sean Carrick        Amount is now held in whole cents.
+ *   Oct 19, 2026  Sean Carrick        New receivables are given their ID
+ *                                     numbers when they are added, not when
+ *                                     created.
  *  ******************************************************************************
  */
 
 package com.pekinsoft.loadmaster.model;
 
+import com.pekinsoft.loadmaster.utils.Money;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -71,7 +76,8 @@ public class ReceivablesModel {
     private String tripNumber;
     private String orderNumber;
     private Date date;
-    private double amount;
+    /** The amount, in cents. */
+    private long amount;
     private boolean settled;
     //</editor-fold>
 
@@ -94,11 +100,10 @@ public class ReceivablesModel {
     
     public ReceivablesModel(Date date, String tripNumber, String orderNumber,
             double amount) {
-        this.id = System.currentTimeMillis();
         this.date = date;
         this.tripNumber = tripNumber;
         this.orderNumber = orderNumber;
-        this.amount = amount;
+        this.amount = Money.of(amount, Money.CENTS);
         this.settled = false;
     }
     //</editor-fold>
@@ -217,6 +222,15 @@ public class ReceivablesModel {
      * @return receivable amount/value.
      */
     public double getAmount() {
+        return Money.toDouble(amount, Money.CENTS);
+    }
+
+    /**
+     * Retrieves the amount of this receivable in whole cents.
+     * 
+     * @return receivable amount/value in cents.
+     */
+    public long getAmountInCents() {
         return amount;
     }
     
@@ -226,7 +240,7 @@ public class ReceivablesModel {
      * @return receivable amount/value.
      */
     public String getAmountAsString() {
-        return String.valueOf(this.amount);
+        return Money.format(amount, Money.CENTS);
     }
 
     /**
@@ -235,6 +249,15 @@ public class ReceivablesModel {
      * @param amount the total value of this receivable.
      */
     public void setAmount(double amount) {
+        this.amount = Money.of(amount, Money.CENTS);
+    }
+
+    /**
+     * Sets the amount of this receivable in whole cents.
+     * 
+     * @param amount the total value of this receivable, in cents.
+     */
+    public void setAmountInCents(long amount) {
         this.amount = amount;
     }
     
@@ -244,7 +267,7 @@ public class ReceivablesModel {
      * @param amount the total value of this receivable.
      */
     public void setAmount(String amount) {
-        this.amount = Double.parseDouble(amount);
+        this.amount = Money.parse(amount, Money.CENTS);
     }
 
     /**
@@ -35,6 +35,10 @@
  *                  `                 Systems. Also added the copyright notice
  *                                    to the description and the application
  *                                    title to the About box titlebar.
+ *  Oct 19, 2026  Sean Carrick        Added the fleet mode and the partition
+ *                                    folder of the current truck.
+ *  Oct 19, 2026  Sean Carrick        No two truck numbers share a partition
+ *                                    folder.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.sys;
@@ -47,6 +51,7 @@ import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import com.pekinsoft.loadmaster.enums.SysExits;
+import com.pekinsoft.loadmaster.utils.FileUtils;
 
 /**
  *
@@ -168,6 +173,43 @@ public class AppProperties {
         setProperty("app.data.folder", value);
     }
     
+    /**
+     * Tells whether the loads, stops and fuel purchases of each truck are kept
+     * in a partition of their own, as set by the `fleet.mode` property.
+     * 
+     * @return `true` if the application is in fleet mode
+     */
+    public boolean isFleetMode() {
+        return getPropertyAsBoolean("fleet.mode", "false");
+    }
+    
+    /**
+     * Convenience method for getting the folder that holds the loads, stops
+     * and fuel purchases of the current truck. Outside of fleet mode, this is
+     * the data folder itself.
+     * 
+     * @return the partition folder, ending with the file separator
+     */
+    public String getPartitionFolder() {
+        return isFleetMode() ? getPartitionFolder(getProperty("truck.number",
+                "")) : getDataFolder();
+    }
+    
+    /**
+     * Convenience method for getting the folder that holds the loads, stops
+     * and fuel purchases of a truck in fleet mode. The truck number is
+     * written in the name of the folder by
+     * {@link FileUtils#toFileName(String) toFileName}, so that no two trucks
+     * share a folder.
+     * 
+     * @param truck the number of the truck
+     * @return the partition folder, ending with the file separator
+     */
+    public String getPartitionFolder(String truck) {
+        return getDataFolder() + "trucks" + File.separator 
+                + FileUtils.toFileName(truck) + File.separator;
+    }
+    
     /**
      * Convenience method for getting the database name
      * 
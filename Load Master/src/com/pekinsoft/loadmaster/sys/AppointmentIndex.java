@@ -0,0 +1,483 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   AppointmentIndex.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 4:40:12 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Indexes the appointment windows of the stops of the open loads, so
+ *      that the stops of a load being booked can be checked against them.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.model.CustomerModel;
+import com.pekinsoft.loadmaster.model.LoadModel;
+import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.utils.IntervalTree;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * The appointment windows of the stops that the truck has yet to make: those
+ * of the loads that are neither completed nor cancelled, and that have not
+ * been arrived at. Each window runs from a stop's early date and time to its
+ * late date and time, and the windows are kept in an {@link IntervalTree}, so
+ * that the stops of a load being booked are checked against every open
+ * appointment in time logarithmic in their number.
+ * <p>
+ * A stop being booked is in conflict when:</p>
+ * <ul>
+ * <li>its window overlaps that of an open stop of another load, since the
+ * truck would have to be at both at once; or</li>
+ * <li>the truck cannot get to it by the end of its window from the open stop
+ * just before it, or cannot get from it to the open stop just after it in
+ * time, driving from the start of one window at the `mileage.average.speed`
+ * property, 50 miles per hour if it is not set, over the miles estimated by
+ * the {@link MileageEngine}; or</li>
+ * <li>the truck cannot get to it in time from the load's own stop before it,
+ * which makes the load's appointments impossible as booked.</li>
+ * </ul>
+ * <p>
+ * The windows are read the first time the index is needed, and from then on
+ * `LoadCtl` keeps them current by posting each load it saves. A blank early
+ * time is taken as the start of the day, a blank late date as the early date
+ * and a blank late time as the end of the day.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class AppointmentIndex {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final String DATE_FORMAT = "MM/dd/yyyy";
+    private static final int END_OF_DAY = 23 * 60 + 59;
+
+    private static AppointmentIndex instance;
+
+    // Stops booked by another copy of the program are not in the tree until
+    //+ it is built again.
+    static {
+        TableWatcher.addListener(table -> {
+            synchronized ( AppointmentIndex.class ) {
+                instance = null;
+            }
+        }, DataTables.CUSTOMERS, DataTables.LOADS,
+                DataTables.STOPS);
+    }
+
+    private final String folder;
+    private final IntervalTree<Appointment> windows;
+    private final HashMap<String, List<IntervalTree.Interval<Appointment>>>
+            byTrip;
+    private final HashMap<Long, String> zips;
+    private final double speed;
+    private final LogRecord entry;
+    private MileageEngine mileage;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private AppointmentIndex (String folder) {
+        this.folder = folder;
+        windows = new IntervalTree<>();
+        byTrip = new HashMap<>();
+        zips = new HashMap<>();
+        speed = Math.max(1.0, Starter.props.getPropertyAsDouble(
+                "mileage.average.speed", "50"));
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the appointment index of the current data folder, or the
+     * current truck in fleet mode, reading the open stops the first time.
+     *
+     * @return the appointment index
+     * @throws DataStoreException in the event the loads, stops or customers
+     *         cannot be read
+     */
+    public static synchronized AppointmentIndex getInstance()
+            throws DataStoreException {
+        String folder = Starter.props.getPartitionFolder();
+
+        if ( instance == null || !instance.folder.equals(folder) ) {
+            AppointmentIndex index = new AppointmentIndex(folder);
+            index.load();
+            instance = index;
+        }
+
+        return instance;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Posts a load, in place of whatever was posted before for its trip. The
+     * stops of a completed or cancelled load, and the stops that have been
+     * arrived at, are taken out.
+     *
+     * @param model the load being saved
+     */
+    public synchronized void post(LoadModel model) {
+        removeTrip(model.getTrip());
+
+        if ( model.isCompleted() || model.isCancelled() )
+            return;
+
+        for ( StopModel stop : model.getStops() )
+            if ( stop.getArrDate() == null && startOf(stop) >= 0 )
+                addWindow(model.getTrip(), stop.getStopNumber(),
+                        stop.getCustomer(), startOf(stop), endOf(stop));
+    }
+
+    /**
+     * Checks the stops of a load being booked against one another and
+     * against the open stops of the other loads.
+     *
+     * @param trip      the trip number of the load, whose own open stops, if
+     *                  it has been posted before, are not checked against
+     * @param stops     the stops, in the order they are to be made
+     * @param customers the customers of the stops, by ID number, for their
+     *                  Zip Codes
+     * @return the conflicts, in order of stop; empty if there are none
+     */
+    public synchronized List<Conflict> check(String trip,
+            List<StopModel> stops, Map<Long, CustomerModel> customers) {
+        ArrayList<Conflict> conflicts = new ArrayList<>();
+        long lastStart = 0;
+        String lastZip = null;
+
+        for ( int x = 0; x < stops.size(); x++ ) {
+            StopModel stop = stops.get(x);
+            CustomerModel cust = customers.get(stop.getCustomer());
+            String zip = cust == null ? null : cust.getZip();
+            long start = startOf(stop);
+            long end = endOf(stop);
+
+            if ( start < 0 )
+                continue;
+
+            if ( end < start ) {
+                conflicts.add(new Conflict(stop.getStopNumber(), true, "Stop "
+                        + stop.getStopNumber() + " ends before it starts."));
+                end = start;
+            }
+
+            if ( x > 0 && lastStart + driveMinutes(lastZip, zip) > end )
+                conflicts.add(new Conflict(stop.getStopNumber(), true, "Stop "
+                        + stop.getStopNumber() + " cannot be reached in time "
+                        + "from stop " + stops.get(x - 1).getStopNumber()
+                        + "."));
+
+            checkOpenStops(trip, stop.getStopNumber(), zip, start, end,
+                    conflicts);
+
+            lastStart = start;
+            lastZip = zip;
+        }
+
+        return conflicts;
+    }
+
+    /**
+     * Retrieves the number of open stops in the index.
+     *
+     * @return the number of open stops
+     */
+    public synchronized int size() {
+        return windows.size();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void load() throws DataStoreException {
+        entry.setMessage("Indexing the appointments of the open stops...");
+        entry.setSourceMethodName("load");
+        entry.setParameters(new Object[]{folder});
+        Starter.logger.enter(entry);
+
+        mileage = MileageEngine.getInstance();
+
+        try {
+            readZips();
+
+            HashSet<String> open = new HashSet<>();
+            try ( Stream<String[]> s = TableMaintenance.records(
+                    DataTables.LOADS) ) {
+                s.filter(f -> !Boolean.parseBoolean(f[20])
+                        && !Boolean.parseBoolean(f[21]))
+                        .forEach(f -> open.add(f[1]));
+            }
+
+            try ( Stream<String[]> s = TableMaintenance.records(
+                    DataTables.STOPS) ) {
+                Iterator<String[]> it = s.iterator();
+
+                while ( it.hasNext() ) {
+                    String[] f = it.next();
+
+                    if ( !open.contains(f[0]) || !f[7].isBlank() )
+                        continue;
+
+                    long start = minutesOf(f[3], f[4], 0);
+                    long end = minutesOf(f[5].isBlank() ? f[3] : f[5], f[6],
+                            END_OF_DAY);
+
+                    if ( start >= 0 )
+                        addWindow(f[0], Integer.parseInt(f[1]),
+                                Long.parseLong(f[2]), start, end);
+                }
+            }
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        entry.setMessage("Appointments indexed.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, windows.size());
+    }
+
+    private void readZips() throws IOException {
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.CUSTOMERS) ) {
+            s.forEach(f -> zips.put(Long.valueOf(f[0]), f[6].trim()));
+        }
+    }
+
+    private void checkOpenStops(String trip, int stop, String zip, long start,
+            long end, List<Conflict> conflicts) {
+        for ( IntervalTree.Interval<Appointment> other
+                : windows.overlapping(start, end) )
+            if ( !other.getValue().trip.equals(trip) )
+                conflicts.add(new Conflict(stop, false, "Stop " + stop
+                        + " overlaps " + other.getValue() + ", "
+                        + windowOf(other) + "."));
+
+        // The open stops just before and just after, if they do not overlap,
+        //+ must leave time to drive between them.
+        IntervalTree.Interval<Appointment> before = windows.lower(start);
+        if ( before != null && before.getEnd() < start
+                && !before.getValue().trip.equals(trip)
+                && before.getStart() + driveMinutes(zipOf(before), zip) > end )
+            conflicts.add(new Conflict(stop, false, "Stop " + stop + " cannot "
+                    + "be reached in time from " + before.getValue() + ", "
+                    + windowOf(before) + "."));
+
+        IntervalTree.Interval<Appointment> after = windows.higher(start);
+        if ( after != null && after.getStart() > end
+                && !after.getValue().trip.equals(trip)
+                && start + driveMinutes(zip, zipOf(after)) > after.getEnd() )
+            conflicts.add(new Conflict(stop, false, "Stop " + stop + " leaves "
+                    + "too little time to reach " + after.getValue() + ", "
+                    + windowOf(after) + "."));
+    }
+
+    private void addWindow(String trip, int stop, long customer, long start,
+            long end) {
+        byTrip.computeIfAbsent(trip, t -> new ArrayList<>()).add(windows.add(
+                start, Math.max(start, end), new Appointment(trip, stop,
+                        customer)));
+    }
+
+    private void removeTrip(String trip) {
+        List<IntervalTree.Interval<Appointment>> old = byTrip.remove(trip);
+
+        if ( old != null )
+            for ( IntervalTree.Interval<Appointment> window : old )
+                windows.remove(window);
+    }
+
+    private String zipOf(IntervalTree.Interval<Appointment> window) {
+        long customer = window.getValue().customer;
+
+        // A customer added since the index was read is looked up again.
+        if ( !zips.containsKey(customer) ) {
+            try {
+                readZips();
+            } catch ( IOException | UncheckedIOException ex ) {
+                entry.setMessage(ex.getMessage());
+                entry.setThrown(ex);
+                entry.setSourceMethodName("zipOf");
+                Starter.logger.error(entry);
+            }
+
+            // Nor is a customer that cannot be found read for again.
+            zips.putIfAbsent(customer, null);
+        }
+
+        return zips.get(customer);
+    }
+
+    /**
+     * Estimates the minutes to drive between two Zip Codes, or zero if the
+     * miles cannot be estimated.
+     */
+    private long driveMinutes(String from, String to) {
+        int miles = from == null || to == null || mileage == null
+                ? MileageEngine.UNKNOWN : mileage.getMiles(from, to);
+
+        return miles <= 0 ? 0L : Math.round(miles / speed * 60);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static long startOf(StopModel stop) {
+        return minutesOf(stop.getEarlyDate(), stop.getEarlyTime(), 0);
+    }
+
+    private static long endOf(StopModel stop) {
+        return minutesOf(stop.getLateDate() == null ? stop.getEarlyDate()
+                : stop.getLateDate(), stop.getLateTime(), END_OF_DAY);
+    }
+
+    /** Turns a date and a time of "HH:mm" into minutes since the epoch. */
+    private static long minutesOf(Date date, String time, int blank) {
+        if ( date == null )
+            return -1;
+
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+
+        int minutes = blank;
+        if ( time != null && time.trim().matches("\\d{1,2}:\\d{2}") ) {
+            String[] hm = time.trim().split(":");
+            minutes = Integer.parseInt(hm[0]) * 60 + Integer.parseInt(hm[1]);
+        }
+
+        return cal.getTimeInMillis() / 60000 + minutes;
+    }
+
+    private static long minutesOf(String date, String time, int blank) {
+        if ( date == null || date.isBlank() )
+            return -1;
+
+        try {
+            return minutesOf(new SimpleDateFormat(DATE_FORMAT).parse(
+                    date.trim()), time, blank);
+        } catch ( ParseException ex ) {
+            return -1;
+        }
+    }
+
+    private static String windowOf(IntervalTree.Interval<?> window) {
+        SimpleDateFormat fmt = new SimpleDateFormat(DATE_FORMAT + " HH:mm");
+
+        return fmt.format(new Date(window.getStart() * 60000)) + " to "
+                + fmt.format(new Date(window.getEnd() * 60000));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * A problem with the appointment of a stop being booked.
+     */
+    public static class Conflict {
+        private final int stop;
+        private final boolean infeasible;
+        private final String message;
+
+        private Conflict (int stop, boolean infeasible, String message) {
+            this.stop = stop;
+            this.infeasible = infeasible;
+            this.message = message;
+        }
+
+        public int getStop() {
+            return stop;
+        }
+
+        /**
+         * Tells whether the load's own stops cannot all be made as booked,
+         * rather than clashing with another load.
+         *
+         * @return `true` if the load's own appointments are impossible
+         */
+        public boolean isInfeasible() {
+            return infeasible;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Appointment {
+        private final String trip;
+        private final int stop;
+        private final long customer;
+
+        private Appointment (String trip, int stop, long customer) {
+            this.trip = trip;
+            this.stop = stop;
+            this.customer = customer;
+        }
+
+        @Override
+        public String toString() {
+            return "trip " + trip + " stop " + stop;
+        }
+    }
+    //</editor-fold>
+
+}
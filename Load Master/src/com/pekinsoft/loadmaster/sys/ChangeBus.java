@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   ChangeBus.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 9:20:03 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Carries the changes saved by the controllers to the windows, and to
+ *      the other controllers, that show the same tables.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import javax.swing.SwingUtilities;
+
+/**
+ * The bus on which the controllers publish the records they have saved, and
+ * to which the windows subscribe to keep what they show up to date. A
+ * subscriber names the table it shows and the model class of its records,
+ * and is handed each change as a {@link ChangeEvent} of that class, so that
+ * it can add, replace or remove the one row.
+ * <p>
+ * The bus holds its subscriptions weakly: a subscriber keeps the
+ * {@link Subscription} it is given for as long as it wants to hear of
+ * changes, and a controller or window that is thrown away without
+ * {@link Subscription#cancel() cancelling} it is simply dropped. This keeps
+ * the many short-lived controllers from piling up on the bus.</p>
+ * <p>
+ * Changes made by another copy of the program sharing the data folder are not
+ * published here, as they come with no records; those are the business of
+ * the {@link TableWatcher}.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class ChangeBus {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final CopyOnWriteArrayList<WeakReference<Subscription>>
+            subscriptions = new CopyOnWriteArrayList<>();
+    private static final LogRecord entry = new LogRecord(Level.FINEST, "");
+
+    static {
+        entry.setSourceClassName(ChangeBus.class.getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private ChangeBus () {
+        // Only static methods.
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Subscribes to the changes of a table. The listener is called on the
+     * thread that publishes the change, before the publisher goes on, which
+     * suits a controller keeping its records in step with another's.
+     *
+     * @param <T>      the model class of the records
+     * @param table    the table
+     * @param type     the model class of the records
+     * @param listener the listener
+     * @return the subscription, which must be kept for as long as the
+     *         listener is to be called
+     */
+    public static <T> Subscription subscribe(DataTables table, Class<T> type,
+            ChangeListener<T> listener) {
+        return add(new Subscription(table, type, listener, false));
+    }
+
+    /**
+     * Subscribes a window to the changes of a table. The listener is always
+     * called on the event dispatch thread, so that it may update the models
+     * of its components.
+     *
+     * @param <T>      the model class of the records
+     * @param table    the table
+     * @param type     the model class of the records
+     * @param listener the listener
+     * @return the subscription, which must be kept for as long as the
+     *         listener is to be called
+     */
+    public static <T> Subscription subscribeOnEdt(DataTables table,
+            Class<T> type, ChangeListener<T> listener) {
+        return add(new Subscription(table, type, listener, true));
+    }
+
+    /**
+     * Publishes a change to the subscribers of its table.
+     *
+     * @param event the change
+     */
+    public static void publish(ChangeEvent<?> event) {
+        subscriptions.removeIf(r -> r.get() == null);
+
+        for ( WeakReference<Subscription> ref : subscriptions ) {
+            Subscription s = ref.get();
+
+            if ( s != null && s.accepts(event) )
+                s.deliver(event);
+        }
+    }
+
+    /**
+     * Publishes changes in the order they were made, such as all of those
+     * saved by one call to a controller's `close`.
+     *
+     * @param events the changes
+     */
+    public static void publish(Collection<? extends ChangeEvent<?>> events) {
+        for ( ChangeEvent<?> event : events )
+            publish(event);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static Subscription add(Subscription s) {
+        subscriptions.add(new WeakReference<>(s));
+        return s;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Interfaces">
+    /**
+     * Told of each change to the records of one table.
+     *
+     * @param <T> the model class of the records
+     */
+    @FunctionalInterface
+    public interface ChangeListener<T> {
+        /**
+         * Called when a record has been saved or deleted.
+         *
+         * @param event the change
+         */
+        void changed(ChangeEvent<T> event);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * A listener's place on the bus.
+     */
+    public static class Subscription {
+        private final DataTables table;
+        private final Class<?> type;
+        private final ChangeListener<?> listener;
+        private final boolean onEdt;
+        private volatile boolean cancelled;
+
+        private Subscription (DataTables table, Class<?> type,
+                ChangeListener<?> listener, boolean onEdt) {
+            this.table = table;
+            this.type = type;
+            this.listener = listener;
+            this.onEdt = onEdt;
+        }
+
+        /**
+         * Takes the listener off the bus. It is not called again, even for a
+         * change already on its way to the event dispatch thread.
+         */
+        public void cancel() {
+            cancelled = true;
+            subscriptions.removeIf(r -> r.get() == this);
+        }
+
+        private boolean accepts(ChangeEvent<?> event) {
+            return !cancelled && event.getTable() == table
+                    && type.isInstance(event.getRecord());
+        }
+
+        private void deliver(ChangeEvent<?> event) {
+            if ( onEdt && !SwingUtilities.isEventDispatchThread() )
+                SwingUtilities.invokeLater(() -> call(event));
+            else
+                call(event);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void call(ChangeEvent<?> event) {
+            if ( cancelled )
+                return;
+
+            try {
+                // The record was checked against the type in accepts.
+                ((ChangeListener<Object>) listener).changed(
+                        (ChangeEvent<Object>) event);
+            } catch ( RuntimeException ex ) {
+                entry.setMessage("A subscriber failed on " + event + ": "
+                        + ex.getMessage());
+                entry.setSourceMethodName("publish");
+                entry.setParameters(new Object[]{event});
+                entry.setThrown(ex);
+                Starter.logger.error(entry);
+            }
+        }
+    }
+    //</editor-fold>
+
+}
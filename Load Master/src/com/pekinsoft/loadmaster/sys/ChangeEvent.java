@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   ChangeEvent.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 9:12:40 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      One record inserted into, updated in or deleted from a table, as it is
+ *      published on the ChangeBus.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.enums.DataTables;
+
+/**
+ * A change to one record of a table, published on the {@link ChangeBus} by the
+ * controller that saved it. The event carries the record itself, as the model
+ * object the controller holds, and its key, so that a view showing the table
+ * can update the one row rather than read the table again.
+ * <p>
+ * The key is made from the record's line as {@link TableMaintenance#keyOf(
+ * DataTables, String[]) keyOf} makes it, and so is `null` for the ledger,
+ * whose entries have no key.</p>
+ *
+ * @param <T> the model class of the record
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class ChangeEvent<T> {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Enums">
+    /** What was done to the record. */
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Object source;
+    private final DataTables table;
+    private final Type type;
+    private final T record;
+    private final String line;
+    private final String key;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates an event for a record.
+     *
+     * @param source the controller that made the change
+     * @param table  the table of the record
+     * @param type   what was done to the record
+     * @param record the record, as it is after an insert or update, or as it
+     *               was before a delete
+     * @param line   the record as it is written to the table
+     */
+    public ChangeEvent (Object source, DataTables table, Type type, T record,
+            String line) {
+        this.source = source;
+        this.table = table;
+        this.type = type;
+        this.record = record;
+        this.line = line;
+        key = TableMaintenance.keyOf(table, TableMaintenance.split(table,
+                line));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Retrieves the controller that made the change, so that a subscriber
+     * can pass over its own changes.
+     *
+     * @return the source of the change
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    public DataTables getTable() {
+        return table;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public T getRecord() {
+        return record;
+    }
+
+    /**
+     * Retrieves the record as it is written to the table, without the line
+     * terminator.
+     *
+     * @return the table line
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * Retrieves the key of the record.
+     *
+     * @return the key, or `null` if the table has no key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + table + (key == null ? "" : " " + key);
+    }
+    //</editor-fold>
+
+}
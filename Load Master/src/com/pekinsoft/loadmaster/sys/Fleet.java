@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   Fleet.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 6:47:05 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Keeps the loads, stops and fuel purchases of each truck of a fleet in
+ *      a partition of their own, and runs work over every partition at once.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.utils.FileUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The trucks of a fleet. In fleet mode, the loads, stops and fuel purchases
+ * of each truck, along with its archive and stop logs, are kept in a
+ * partition of the data folder of their own, `trucks/<truck number>`, while
+ * the brokers, customers, ledger and receivables are shared by the fleet.
+ * The truck number is written in the name of the partition by
+ * {@link FileUtils#toFileName(String) toFileName}.
+ * The current truck is the one set by the `truck.number` property, and only
+ * its partition is read when the tables are opened.
+ * <p>
+ * Work that covers the whole fleet is {@link #map(Task) mapped} over the
+ * partitions, each on a thread of its own, so that a fleet report takes about
+ * as long as the largest truck does.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class Fleet {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the folder of partitions in the data folder. */
+    public static final String FOLDER = "trucks";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final LogRecord entry = new LogRecord(Level.FINEST, "");
+
+    static {
+        entry.setSourceClassName(Fleet.class.getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private Fleet () {
+        // Only static methods.
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the folder that holds the partitions of the trucks.
+     *
+     * @return the folder, which may not exist yet
+     */
+    public static File getFolder() {
+        return new File(Starter.props.getDataFolder() + FOLDER);
+    }
+
+    /**
+     * Retrieves the numbers of the trucks that have a partition, in order.
+     * The number of the current truck is among them in fleet mode, even if it
+     * has nothing in its partition yet.
+     *
+     * @return the truck numbers
+     */
+    public static List<String> getTrucks() {
+        ArrayList<String> trucks = new ArrayList<>();
+        File[] dirs = getFolder().listFiles(File::isDirectory);
+
+        if ( dirs != null )
+            for ( File dir : dirs )
+                trucks.add(FileUtils.fromFileName(dir.getName()));
+
+        String current = getCurrentTruck();
+
+        if ( Starter.props.isFleetMode() && !trucks.contains(current) )
+            trucks.add(current);
+
+        trucks.sort(null);
+
+        return trucks;
+    }
+
+    /**
+     * Retrieves the number of the current truck, as it is read back from the
+     * name of its partition.
+     *
+     * @return the truck number
+     */
+    public static String getCurrentTruck() {
+        return FileUtils.fromFileName(new File(Starter.props.getPartitionFolder(
+                Starter.props.getProperty("truck.number", ""))).getName());
+    }
+
+    /**
+     * Makes a truck the current truck, whose loads, stops and fuel purchases
+     * are read from then on.
+     *
+     * @param truck the number of the truck
+     */
+    public static void select(String truck) {
+        Starter.props.setProperty("truck.number", truck);
+    }
+
+    /**
+     * Turns on fleet mode, with the given truck as the current truck. If the
+     * truck has no partition yet, the loads, stops, fuel purchases, archive
+     * and stop logs kept in the data folder are moved into its partition, as
+     * they are the records of the one truck run until now.
+     *
+     * @param truck the number of the current truck
+     * @return the number of files moved into the truck's partition
+     * @throws DataStoreException in the event the partition cannot be made or
+     *         a file cannot be moved into it
+     */
+    public static int enable(String truck) throws DataStoreException {
+        entry.setMessage("Turning on fleet mode...");
+        entry.setSourceMethodName("enable");
+        entry.setParameters(new Object[]{truck});
+        entry.setThrown(null);
+        Starter.logger.enter(entry);
+
+        File partition = new File(Starter.props.getPartitionFolder(truck));
+        int moved = 0;
+
+        try {
+            if ( !partition.exists() ) {
+                Files.createDirectories(partition.toPath());
+
+                ArrayList<String> names = new ArrayList<>();
+
+                for ( DataTables table : DataTables.values() )
+                    if ( table.isPartitioned() )
+                        names.add(table.getFile(truck).getName());
+
+                names.add(LoadArchive.FOLDER);
+                names.add(StopLog.FOLDER);
+
+                for ( String name : names ) {
+                    File from = new File(Starter.props.getDataFolder() + name);
+
+                    if ( from.exists() ) {
+                        Files.move(from.toPath(), new File(partition, name)
+                                .toPath());
+                        moved++;
+                    }
+                }
+            }
+        } catch ( IOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        select(truck);
+        Starter.props.setPropertyAsBoolean("fleet.mode", true);
+
+        Starter.logger.exit(entry, moved);
+
+        return moved;
+    }
+
+    /**
+     * Runs a task over the partition of every truck, each on a thread of its
+     * own, and waits for them all.
+     *
+     * @param <T>  the type of the result of the task
+     * @param task the task, which must read only the files of the truck it is
+     *             given, as by {@link DataTables#getFile(String) getFile}
+     * @return the result of each truck, by truck number in order
+     * @throws DataStoreException in the event the task fails for any truck
+     */
+    public static <T> Map<String, T> map(Task<T> task)
+            throws DataStoreException {
+        List<String> trucks = getTrucks();
+        LinkedHashMap<String, T> results = new LinkedHashMap<>();
+
+        if ( trucks.isEmpty() )
+            return results;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(
+                trucks.size(), Runtime.getRuntime().availableProcessors()));
+
+        try {
+            LinkedHashMap<String, Future<T>> pending = new LinkedHashMap<>();
+
+            for ( String truck : trucks )
+                pending.put(truck, pool.submit(() -> task.run(truck)));
+
+            for ( Map.Entry<String, Future<T>> e : pending.entrySet() )
+                results.put(e.getKey(), e.getValue().get());
+        } catch ( ExecutionException | InterruptedException ex ) {
+            Throwable cause = ex instanceof ExecutionException
+                    ? ex.getCause() : ex;
+
+            if ( ex instanceof InterruptedException )
+                Thread.currentThread().interrupt();
+
+            entry.setMessage(cause.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setSourceMethodName("map");
+            entry.setParameters(trucks.toArray());
+            entry.setThrown(cause);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return results;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Interfaces">
+    /**
+     * Work done over the partition of one truck.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        /**
+         * Does the work for one truck.
+         *
+         * @param truck the number of the truck
+         * @return the result for the truck
+         * @throws IOException in the event the truck's files cannot be read
+         */
+        T run(String truck) throws IOException, UncheckedIOException;
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,1253 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   HeadlessRunner.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 10:02:18 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Runs Load Master storage and accounting operations from the command
+ *      line without creating any windows, so that they can be scheduled
+ *      (e.g., from cron) against a data folder on a machine with no display.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.acct.AgingEngine;
+import com.pekinsoft.loadmaster.acct.BalanceEngine;
+import com.pekinsoft.loadmaster.acct.FleetSummary;
+import com.pekinsoft.loadmaster.acct.FuelEconomy;
+import com.pekinsoft.loadmaster.acct.IftaQuarter;
+import com.pekinsoft.loadmaster.acct.LaneAnalytics;
+import com.pekinsoft.loadmaster.acct.PeriodRollups;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.enums.SysExits;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.io.CsvExporter;
+import com.pekinsoft.loadmaster.io.CsvReader;
+import com.pekinsoft.loadmaster.io.ImportPipeline;
+import com.pekinsoft.loadmaster.io.InvoiceGenerator;
+import com.pekinsoft.loadmaster.utils.IntLongHashMap;
+import com.pekinsoft.loadmaster.utils.Money;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * Command processor for the headless mode of Load Master. Headless mode is
+ * entered by passing the `--headless` switch followed by a command and its
+ * arguments:
+ * <pre>
+ *   --headless verify
+ *   --headless compact [table...]
+ *   --headless report [--from MM/dd/yyyy] [--to MM/dd/yyyy] [--out file]
+ *   --headless export &lt;table|view&gt; [--csv] [--from MM/dd/yyyy]
+ *                     [--to MM/dd/yyyy] [--out file]
+ *   --headless import &lt;table&gt; &lt;file&gt;
+ *   --headless balances [--rebuild] [--out file]
+ *   --headless pnl [--by month|quarter|year] [--year yyyy] [--out file]
+ *   --headless aging [--as-of MM/dd/yyyy] [--out file]
+ *   --headless ifta [--year yyyy] [--quarter 1-4] [--out file]
+ *   --headless fuel [--as-of MM/dd/yyyy] [--trip trip...] [--out file]
+ *   --headless rpm [--by broker|lane] [--min loads] [--out file]
+ *   --headless invoice [order...] [--text] [--folder folder]
+ *   --headless postal import &lt;file&gt; [--code col] [--city col]
+ *                            [--state col] [--lat col --lon col]
+ *   --headless postal &lt;code...&gt;
+ *   --headless miles &lt;code&gt; &lt;code...&gt;
+ *   --headless search &lt;word...&gt; [--limit count]
+ *   --headless fleet [--out file]
+ *   --headless fleet enable|use &lt;truck&gt;
+ *   --headless archive [--before MM/dd/yyyy]
+ * </pre>
+ * <p>
+ * No AWT or Swing component is created while a command runs. Problems are
+ * reported on standard error and the result of the command is returned as
+ * one of the {@link SysExits} codes, so that a calling script can test it.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class HeadlessRunner {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    public static final String SWITCH = "--headless";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final ArgumentParser params;
+    private final String[] command;
+    private final LogRecord entry;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a runner for the command given after the `--headless` switch.
+     *
+     * @param params the parsed command line
+     */
+    public HeadlessRunner (ArgumentParser params) {
+        this.params = params;
+        this.command = params.getSwitchValues(SWITCH);
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Runs the command and reports how it went.
+     *
+     * @return the exit status for the application
+     */
+    public SysExits run() {
+        entry.setMessage("Running headless command...");
+        entry.setSourceMethodName("run");
+        entry.setParameters(command);
+        Starter.logger.enter(entry);
+
+        if ( command.length == 0 )
+            return usage("No command given.");
+
+        SysExits status;
+
+        try {
+            switch ( command[0].toLowerCase() ) {
+                case "verify":
+                    status = verify();
+                    break;
+                case "compact":
+                    status = compact();
+                    break;
+                case "report":
+                    status = report();
+                    break;
+                case "export":
+                    status = export();
+                    break;
+                case "import":
+                    status = importLines();
+                    break;
+                case "archive":
+                    status = archive();
+                    break;
+                case "balances":
+                    status = balances();
+                    break;
+                case "pnl":
+                    status = profitAndLoss();
+                    break;
+                case "aging":
+                    status = aging();
+                    break;
+                case "ifta":
+                    status = ifta();
+                    break;
+                case "fuel":
+                    status = fuel();
+                    break;
+                case "rpm":
+                    status = revenuePerMile();
+                    break;
+                case "invoice":
+                    status = invoice();
+                    break;
+                case "postal":
+                    status = postal();
+                    break;
+                case "miles":
+                    status = miles();
+                    break;
+                case "search":
+                    status = search();
+                    break;
+                case "fleet":
+                    status = fleet();
+                    break;
+                default:
+                    return usage("Unknown command: " + command[0]);
+            }
+        } catch ( DataStoreException | IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Headless command " + command[0] + " failed.");
+            entry.setThrown(ex);
+            entry.setParameters(null);
+            Starter.logger.error(entry);
+
+            System.err.println(command[0] + ": " + ex.getMessage());
+            status = SysExits.EX_IOERR;
+        }
+
+        entry.setMessage("Headless command finished.");
+        Starter.logger.exit(entry, status);
+
+        return status;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private SysExits usage(String problem) {
+        System.err.println(problem);
+        System.err.println();
+        System.err.println("Usage: LoadMaster " + SWITCH + " <command> [args]");
+        System.err.println();
+        System.err.println("Commands:");
+        System.err.println("  verify                     check every table "
+                + "for damaged lines and dangling references");
+        System.err.println("  compact [table...]         rewrite tables, "
+                + "dropping blank, duplicate and damaged lines");
+        System.err.println("  report [--from MM/dd/yyyy] [--to MM/dd/yyyy]");
+        System.err.println("         [--out file]        period summary of "
+                + "loads, ledger, receivables and fuel");
+        System.err.println("  export <table|view> [--csv] [--from MM/dd/yyyy]");
+        System.err.println("         [--to MM/dd/yyyy] [--out file]");
+        System.err.println("                             write records out; "
+                + "CSV is written for views,");
+        System.err.println("                             with --csv or when "
+                + "the file ends in .csv");
+        System.err.println("  import <table> <file>      add records from a "
+                + "file to a table; a .csv file");
+        System.err.println("                             with a header row "
+                + "may be imported into brokers,");
+        System.err.println("                             customers or loads");
+        System.err.println("  balances [--rebuild] [--out file]");
+        System.err.println("                             trial balance of "
+                + "every General Ledger account");
+        System.err.println("  pnl [--by month|quarter|year] [--year yyyy]");
+        System.err.println("      [--out file]           profit and loss, "
+                + "with deductible expenses, by");
+        System.err.println("                             fiscal period "
+                + "(default: by quarter)");
+        System.err.println("  aging [--as-of MM/dd/yyyy] [--out file]");
+        System.err.println("                             open receivables "
+                + "by broker and age (default: today)");
+        System.err.println("  ifta [--year yyyy] [--quarter 1-4] [--out file]");
+        System.err.println("                             miles and gallons "
+                + "by state for the IFTA return");
+        System.err.println("                             (default: the "
+                + "previous quarter)");
+        System.err.println("  fuel [--as-of MM/dd/yyyy] [--trip trip...]");
+        System.err.println("       [--out file]          mileage, DEF and "
+                + "fuel cost per mile over the");
+        System.err.println("                             last 7 and 30 days "
+                + "and by trip");
+        System.err.println("  rpm [--by broker|lane] [--min loads] [--out file]");
+        System.err.println("                             brokers or lanes "
+                + "ranked by revenue per mile");
+        System.err.println("                             (default: by "
+                + "broker)");
+        System.err.println("  invoice [order...] [--text] [--folder folder]");
+        System.err.println("                             write invoices for "
+                + "the loads, or for every");
+        System.err.println("                             completed load not "
+                + "yet invoiced, as PDF or text");
+        System.err.println("  postal import <file> [--code col] [--city col]");
+        System.err.println("         [--state col] [--lat col --lon col]");
+        System.err.println("                             build the Zip Code "
+                + "database from a CSV file of");
+        System.err.println("                             codes, cities, "
+                + "states and centroids");
+        System.err.println("                             (default: columns "
+                + "1-3, no centroids)");
+        System.err.println("  postal <code...>           city and state of "
+                + "Zip Codes or Postal Codes");
+        System.err.println("  miles <code> <code...>     estimated road miles "
+                + "of a route through");
+        System.err.println("                             Zip Codes or Postal "
+                + "Codes");
+        System.err.println("  search <word...> [--limit count]");
+        System.err.println("                             loads, stops, ledger "
+                + "entries and fuel-ups with every");
+        System.err.println("                             word; word* for "
+                + "prefixes, field:word for one field");
+        System.err.println("                             (default: the "
+                + "latest 50)");
+        System.err.println("  fleet [--out file]         loads, miles, "
+                + "revenue and fuel of each truck");
+        System.err.println("  fleet enable <truck>       keep the loads, "
+                + "stops and fuel-ups of each truck");
+        System.err.println("                             apart, starting "
+                + "with this one");
+        System.err.println("  fleet use <truck>          make a truck the "
+                + "current truck");
+        System.err.println("  archive [--before MM/dd/yyyy]");
+        System.err.println("                             move finished loads "
+                + "dispatched before the date");
+        System.err.println("                             (default: January 1 "
+                + "of this year) to the archive");
+        System.err.println();
+        System.err.print("Tables:");
+        for ( DataTables t : DataTables.values() )
+            System.err.print(" " + t);
+        System.err.println();
+        System.err.println("Views: " + CsvExporter.LOAD_BROKERS + " "
+                + CsvExporter.LOAD_STOPS);
+
+        return SysExits.EX_USAGE;
+    }
+
+    private SysExits verify() throws DataStoreException, IOException {
+        long bad = 0;
+
+        for ( DataTables t : DataTables.values() ) {
+            long[] counts = TableMaintenance.verify(t, System.err);
+            bad += counts[1];
+            System.out.println(String.format("%-12s %8d lines %8d bad", t,
+                    counts[0], counts[1]));
+        }
+
+
+        // Check that the records refer to records that actually exist.
+        HashSet<String> brokers = collect(DataTables.BROKERS, 0);
+        HashSet<String> customers = collect(DataTables.CUSTOMERS, 0);
+        HashSet<String> trips = collect(DataTables.LOADS, 1);
+        long dangling = 0;
+
+        dangling += dangling(DataTables.LOADS, 18, brokers, "broker");
+        dangling += dangling(DataTables.STOPS, 0, trips, "load");
+        dangling += dangling(DataTables.STOPS, 2, customers, "customer");
+
+        System.out.println(String.format("%-12s %8d", "dangling refs",
+                dangling));
+
+        return bad == 0 ? SysExits.EX_OK : SysExits.EX_DATAERR;
+    }
+
+    private SysExits compact() throws DataStoreException {
+        DataTables[] tables = tablesFromArgs(1);
+
+        if ( tables == null )
+            return usage("Unknown table given to compact.");
+
+        for ( DataTables t : tables ) {
+            long[] counts = TableMaintenance.compact(t);
+            System.out.println(String.format("%-12s %8d read %8d kept "
+                    + "%8d rejected", t, counts[0], counts[1], counts[2]));
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits report() throws IOException {
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+        Date from;
+        Date to;
+
+        // Default to the previous calendar month, which is what a month-end
+        //+ run scheduled early in the month wants to see.
+        Calendar cal = Calendar.getInstance();
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        cal.add(Calendar.DAY_OF_MONTH, -1);
+        Date defTo = cal.getTime();
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+        Date defFrom = cal.getTime();
+
+        try {
+            from = params.isSwitchPresent("--from")
+                    ? sdf.parse(params.getSwitchValue("--from")) : defFrom;
+            to = params.isSwitchPresent("--to")
+                    ? sdf.parse(params.getSwitchValue("--to")) : defTo;
+        } catch ( ParseException | NullPointerException ex ) {
+            return usage("Dates must be given as MM/dd/yyyy.");
+        }
+
+        // Amounts are totaled in whole cents, so the totals are exact.
+        long loads = 0, completed = 0, cancelled = 0, miles = 0, driven = 0;
+        long gross = 0;
+
+        try ( Stream<String[]> s = LoadArchive.records(DataTables.LOADS,
+                from, to) ) {
+            Iterator<String[]> it = s.iterator();
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                if ( !inPeriod(sdf, f[4], from, to) )
+                    continue;
+
+                loads++;
+                gross += Money.parse(f[5], Money.CENTS);
+                miles += Integer.parseInt(f[6]);
+
+                if ( Boolean.parseBoolean(f[20]) ) {
+                    completed++;
+                    driven += Integer.parseInt(f[3]) - Integer.parseInt(f[2]);
+                }
+                if ( Boolean.parseBoolean(f[21]) )
+                    cancelled++;
+            }
+        }
+
+        IntLongHashMap accounts = new IntLongHashMap();
+        long entries = 0;
+        long deductible = 0;
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.LEDGER) ) {
+            Iterator<String[]> it = s.iterator();
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                if ( !inPeriod(sdf, f[0], from, to) )
+                    continue;
+
+                long amount = Money.parse(f[5], Money.CENTS);
+                entries++;
+                accounts.add(Integer.parseInt(f[3]), -amount);
+                accounts.add(Integer.parseInt(f[4]), amount);
+
+                if ( Boolean.parseBoolean(f[6]) )
+                    deductible += amount;
+            }
+        }
+
+        long open = 0, billed = 0, outstanding = 0;
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.RECEIVABLES) ) {
+            Iterator<String[]> it = s.iterator();
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                long amount = Money.parse(f[4], Money.CENTS);
+
+                if ( inPeriod(sdf, f[1], from, to) )
+                    billed += amount;
+                if ( !Boolean.parseBoolean(f[5]) && !after(sdf, f[1], to) ) {
+                    open++;
+                    outstanding += amount;
+                }
+            }
+        }
+
+        long purchases = 0;
+        double diesel = 0.0, def = 0.0;
+        long dieselCost = 0, defCost = 0;
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.FUEL) ) {
+            Iterator<String[]> it = s.iterator();
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                if ( !inPeriod(sdf, f[1], from, to) )
+                    continue;
+
+                purchases++;
+                double gal = Double.parseDouble(f[4]);
+                diesel += gal;
+                dieselCost += Money.multiply(Money.parse(f[5], Money.MILLS),
+                        Money.MILLS, gal);
+
+                if ( Boolean.parseBoolean(f[6]) ) {
+                    gal = Double.parseDouble(f[7]);
+                    def += gal;
+                    defCost += Money.multiply(Money.parse(f[8], Money.MILLS),
+                            Money.MILLS, gal);
+                }
+            }
+        }
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println("Load Master Period Report: " + sdf.format(from)
+                    + " - " + sdf.format(to));
+            out.println("=".repeat(80));
+            out.println();
+            out.println("LOADS");
+            out.println(String.format("  Dispatched:        %12d", loads));
+            out.println(String.format("  Completed:         %12d", completed));
+            out.println(String.format("  Cancelled:         %12d", cancelled));
+            out.println(String.format("  Gross revenue:     %12.2f",
+                    gross / 100.0));
+            out.println(String.format("  Dispatched miles:  %12d", miles));
+            out.println(String.format("  Driven miles:      %12d", driven));
+            out.println();
+            out.println("GENERAL LEDGER");
+            out.println(String.format("  Entries posted:    %12d", entries));
+            out.println(String.format("  Deductible:        %12.2f",
+                    deductible / 100.0));
+            for ( int account : accounts.keys() )
+                out.println(String.format("  Account %-10d %12.2f",
+                        account, accounts.get(account) / 100.0));
+            out.println();
+            out.println("RECEIVABLES");
+            out.println(String.format("  Billed in period:  %12.2f",
+                    billed / 100.0));
+            out.println(String.format("  Open items:        %12d", open));
+            out.println(String.format("  Outstanding:       %12.2f",
+                    outstanding / 100.0));
+            out.println();
+            out.println("FUEL");
+            out.println(String.format("  Purchases:         %12d", purchases));
+            out.println(String.format("  Diesel gallons:    %12.3f", diesel));
+            out.println(String.format("  Diesel cost:       %12.2f",
+                    dieselCost / 100.0));
+            out.println(String.format("  DEF gallons:       %12.3f", def));
+            out.println(String.format("  DEF cost:          %12.2f",
+                    defCost / 100.0));
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits export() throws DataStoreException, IOException {
+        if ( command.length < 2 )
+            return usage("A table or view to export must be given.");
+
+        DataTables table = DataTables.fromName(command[1]);
+        String out = params.getSwitchValue("--out");
+        boolean csv = params.isSwitchPresent("--csv")
+                || (out != null && out.toLowerCase().endsWith(".csv"));
+
+        if ( table != null && !csv ) {
+            try ( PrintWriter w = openOutput() ) {
+                try ( Stream<String[]> s = TableMaintenance.records(table) ) {
+                    Iterator<String[]> it = s.iterator();
+                    while ( it.hasNext() )
+                        w.println(String.join("~", it.next()));
+                }
+            }
+
+            return SysExits.EX_OK;
+        }
+
+        CsvExporter exporter;
+        try {
+            exporter = new CsvExporter(command[1]);
+        } catch ( IllegalArgumentException ex ) {
+            return usage(ex.getMessage());
+        }
+
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+
+        try {
+            exporter.setPeriod(params.isSwitchPresent("--from")
+                    ? sdf.parse(params.getSwitchValue("--from")) : null,
+                    params.isSwitchPresent("--to")
+                    ? sdf.parse(params.getSwitchValue("--to")) : null);
+        } catch ( ParseException | NullPointerException ex ) {
+            return usage("Dates must be given as MM/dd/yyyy.");
+        }
+
+        try ( PrintWriter w = openOutput() ) {
+            long rows = exporter.export(w, null);
+
+            if ( out != null )
+                System.out.println(String.format("%-12s %8d rows", command[1],
+                        rows));
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits importLines() throws DataStoreException {
+        if ( command.length < 3 || DataTables.fromName(command[1]) == null )
+            return usage("A table and a file to import must be given.");
+
+        DataTables table = DataTables.fromName(command[1]);
+        File src = new File(command[2]);
+        boolean csv = src.getName().toLowerCase().endsWith(".csv");
+
+        if ( !src.exists() ) {
+            System.err.println("import: " + src + " does not exist.");
+            return SysExits.EX_NOINPUT;
+        }
+
+        if ( csv && table != DataTables.BROKERS
+                && table != DataTables.CUSTOMERS && table != DataTables.LOADS )
+            return usage("CSV files may only be imported into brokers, "
+                    + "customers or loads.");
+
+        ImportPipeline pipeline = new ImportPipeline(table, src, csv);
+        pipeline.run(null);
+
+        for ( String problem : pipeline.getProblems() )
+            System.err.println(problem);
+
+        System.out.println(String.format("%-12s %8d added %8d duplicates "
+                + "%8d rejected", table, pipeline.getAdded(),
+                pipeline.getDuplicates(), pipeline.getRejected()));
+
+        return pipeline.getRejected() == 0 ? SysExits.EX_OK
+                : SysExits.EX_DATAERR;
+    }
+
+    private SysExits balances() throws DataStoreException, IOException {
+        BalanceEngine engine = BalanceEngine.getInstance();
+
+        if ( params.isSwitchPresent("--rebuild") )
+            engine.rebuild();
+
+        // Account names come from the chart of accounts, when there is one.
+        HashMap<Integer, String> names = new HashMap<>();
+        File coa = new File(Starter.props.getDataFolder() + "coa.tbl");
+
+        if ( coa.exists() ) {
+            try ( BufferedReader in = new BufferedReader(new FileReader(coa)) ) {
+                String line;
+
+                while ( (line = in.readLine()) != null ) {
+                    String[] f = line.split("~");
+
+                    try {
+                        names.put(Integer.valueOf(f[0]), f[1]);
+                    } catch ( NumberFormatException
+                            | ArrayIndexOutOfBoundsException ex ) {
+                        // Not an account line.
+                    }
+                }
+            }
+        }
+
+        long total = 0;
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println(String.format("%-8s %-28s %14s %14s %14s", "Account",
+                    "Name", "In", "Out", "Balance"));
+            out.println("=".repeat(82));
+
+            for ( int account : engine.getAccounts() ) {
+                long balance = engine.getBalance(account);
+                total += balance;
+
+                out.println(String.format("%-8d %-28.28s %,14.2f %,14.2f "
+                        + "%,14.2f", account, names.getOrDefault(account, ""),
+                        engine.getDebits(account) / 100.0,
+                        engine.getCredits(account) / 100.0, balance / 100.0));
+            }
+
+            out.println("=".repeat(82));
+            out.println(String.format("%-8s %-28s %14s %14s %,14.2f", "",
+                    engine.getEntryCount() + " entries", "", "",
+                    total / 100.0));
+        }
+
+        return total == 0 ? SysExits.EX_OK : SysExits.EX_DATAERR;
+    }
+
+    private SysExits archive() throws DataStoreException {
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+        Date before;
+
+        if ( params.isSwitchPresent("--before") ) {
+            try {
+                before = sdf.parse(params.getSwitchValue("--before"));
+            } catch ( ParseException | NullPointerException ex ) {
+                return usage("Dates must be given as MM/dd/yyyy.");
+            }
+        } else {
+            Calendar cal = Calendar.getInstance();
+            cal.set(Calendar.DAY_OF_YEAR, 1);
+            cal.set(Calendar.HOUR_OF_DAY, 0);
+            cal.set(Calendar.MINUTE, 0);
+            cal.set(Calendar.SECOND, 0);
+            cal.set(Calendar.MILLISECOND, 0);
+            before = cal.getTime();
+        }
+
+        long[] counts = LoadArchive.archive(before);
+        System.out.println(String.format("%-12s %8d loads %8d stops archived",
+                "archive", counts[0], counts[1]));
+
+        return SysExits.EX_OK;
+    }
+
+    private DataTables[] tablesFromArgs(int start) {
+        if ( command.length <= start )
+            return DataTables.values();
+
+        DataTables[] tables = new DataTables[command.length - start];
+        for ( int x = start; x < command.length; x++ ) {
+            tables[x - start] = DataTables.fromName(command[x]);
+
+            if ( tables[x - start] == null )
+                return null;
+        }
+
+        return tables;
+    }
+
+    private SysExits profitAndLoss() throws DataStoreException, IOException {
+        PeriodRollups.Grain grain;
+        Integer year = null;
+
+        try {
+            grain = PeriodRollups.Grain.valueOf(params.isSwitchPresent("--by")
+                    ? params.getSwitchValue("--by").toUpperCase() : "QUARTER");
+
+            if ( params.isSwitchPresent("--year") )
+                year = Integer.valueOf(params.getSwitchValue("--year"));
+        } catch ( IllegalArgumentException | NullPointerException ex ) {
+            return usage("Periods are month, quarter or year; a fiscal year "
+                    + "is given as yyyy.");
+        }
+
+        PeriodRollups rollups = BalanceEngine.getInstance().getRollups();
+        long income = 0, expenses = 0, deductible = 0;
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println(String.format("%-10s %14s %14s %14s %14s %14s",
+                    "Period", "Income", "Expenses", "Deductible",
+                    "Nondeductible", "Net Profit"));
+            out.println("=".repeat(85));
+
+            for ( int period : rollups.getPeriods(grain) ) {
+                if ( year != null
+                        && PeriodRollups.fiscalYearOf(grain, period) != year )
+                    continue;
+
+                long in = rollups.getIncome(grain, period);
+                long ded = rollups.getExpenses(grain, period, true);
+                long all = rollups.getExpenses(grain, period, null);
+                income += in;
+                expenses += all;
+                deductible += ded;
+
+                out.println(String.format("%-10s %,14.2f %,14.2f %,14.2f "
+                        + "%,14.2f %,14.2f",
+                        PeriodRollups.getLabel(grain, period), in / 100.0,
+                        all / 100.0, ded / 100.0, (all - ded) / 100.0,
+                        (in - all) / 100.0));
+            }
+
+            out.println("=".repeat(85));
+            out.println(String.format("%-10s %,14.2f %,14.2f %,14.2f %,14.2f "
+                    + "%,14.2f", "Total", income / 100.0, expenses / 100.0,
+                    deductible / 100.0, (expenses - deductible) / 100.0,
+                    (income - expenses) / 100.0));
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits aging() throws DataStoreException, IOException {
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+        Date asOf;
+
+        try {
+            asOf = params.isSwitchPresent("--as-of")
+                    ? sdf.parse(params.getSwitchValue("--as-of")) : new Date();
+        } catch ( ParseException | NullPointerException ex ) {
+            return usage("Dates must be given as MM/dd/yyyy.");
+        }
+
+        AgingEngine aging = AgingEngine.getInstance();
+        HashMap<Long, String> names = new HashMap<>();
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.BROKERS) ) {
+            s.forEach(f -> names.put(Long.valueOf(f[0]), f[1]));
+        }
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println("Receivables Aging as of " + sdf.format(asOf));
+            out.println("=".repeat(89));
+            out.print(String.format("%-24s", "Broker"));
+            for ( String bucket : AgingEngine.BUCKETS )
+                out.print(String.format(" %12s", bucket));
+            out.println(String.format(" %12s", "Total"));
+            out.println("-".repeat(89));
+
+            for ( long broker : aging.getBrokers() )
+                printAging(out, names.getOrDefault(broker, broker
+                        == AgingEngine.UNKNOWN_BROKER ? "(Load not found)"
+                        : String.valueOf(broker)), aging.getBuckets(broker,
+                        asOf));
+
+            out.println("=".repeat(89));
+            printAging(out, aging.getOpenCount() + " open", aging.getBuckets(
+                    asOf));
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits ifta() throws DataStoreException, IOException {
+        // Default to the quarter just ended, which is the one being filed.
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.MONTH, -3);
+        int year = cal.get(Calendar.YEAR);
+        int quarter = cal.get(Calendar.MONTH) / 3 + 1;
+
+        try {
+            if ( params.isSwitchPresent("--year") )
+                year = Integer.parseInt(params.getSwitchValue("--year"));
+            if ( params.isSwitchPresent("--quarter") )
+                quarter = Integer.parseInt(params.getSwitchValue("--quarter"));
+        } catch ( NumberFormatException ex ) {
+            return usage("A year is given as yyyy and a quarter as 1 to 4.");
+        }
+
+        if ( quarter < 1 || quarter > 4 )
+            return usage("A year is given as yyyy and a quarter as 1 to 4.");
+
+        IftaQuarter ifta = IftaQuarter.get(year, quarter);
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println("IFTA Miles and Gallons: " + year + " Q" + quarter);
+            out.println("=".repeat(60));
+            out.println(String.format("%-8s %12s %12s %12s %12s", "State",
+                    "Miles", "Taxable Gal", "Paid Gal", "Net Gal"));
+            out.println("-".repeat(60));
+
+            for ( String state : ifta.getStates() ) {
+                double taxable = ifta.getTaxableGallons(state);
+                out.println(String.format("%-8s %,12d %,12.3f %,12.3f "
+                        + "%,12.3f", state, ifta.getMiles(state), taxable,
+                        ifta.getGallons(state),
+                        taxable - ifta.getGallons(state)));
+            }
+
+            out.println("=".repeat(60));
+            out.println(String.format("%-8s %,12d %12s %,12.3f", "Total",
+                    ifta.getTotalMiles(), "", ifta.getTotalGallons()));
+            out.println(String.format("Fleet MPG: %.2f",
+                    ifta.getMilesPerGallon()));
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits fuel() throws DataStoreException, IOException {
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+        Date asOf;
+
+        try {
+            asOf = params.isSwitchPresent("--as-of")
+                    ? sdf.parse(params.getSwitchValue("--as-of")) : new Date();
+        } catch ( ParseException | NullPointerException ex ) {
+            return usage("Dates must be given as MM/dd/yyyy.");
+        }
+
+        FuelEconomy economy = FuelEconomy.getInstance();
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println("Fuel Economy as of " + sdf.format(asOf));
+            out.println("=".repeat(72));
+            out.println(String.format("%-16s %5s %8s %9s %7s %6s %12s",
+                    "Window", "Fills", "Miles", "Gallons", "MPG", "DEF %",
+                    "Cost/Mile"));
+            out.println("-".repeat(72));
+
+            printFuel(out, "Last " + FuelEconomy.WEEK + " days",
+                    economy.getDays(FuelEconomy.WEEK, asOf));
+            printFuel(out, "Last " + FuelEconomy.MONTH + " days",
+                    economy.getDays(FuelEconomy.MONTH, asOf));
+
+            if ( params.isSwitchPresent("--trip") )
+                for ( String trip : params.getSwitchValues("--trip") )
+                    printFuel(out, "Trip " + trip, economy.getTrip(trip));
+
+            out.println("=".repeat(72));
+            out.println(economy.getFuelUpCount() + " fuel-ups on record");
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits revenuePerMile() throws DataStoreException, IOException {
+        String by = params.getSwitchValue("--by", "broker").toLowerCase();
+        int min;
+
+        try {
+            min = Integer.parseInt(params.getSwitchValue("--min", "1"));
+        } catch ( NumberFormatException ex ) {
+            return usage("The fewest loads must be given as a number.");
+        }
+
+        if ( !by.equals("broker") && !by.equals("lane") )
+            return usage("Revenue per mile is ranked by broker or by lane.");
+
+        LaneAnalytics lanes = LaneAnalytics.getInstance();
+        HashMap<Long, String> names = new HashMap<>();
+
+        if ( by.equals("broker") )
+            try ( Stream<String[]> s = TableMaintenance.records(
+                    DataTables.BROKERS) ) {
+                s.forEach(f -> names.put(Long.valueOf(f[0]), f[1]));
+            }
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println("Revenue per Mile by " + (by.equals("broker")
+                    ? "Broker" : "Lane"));
+            out.println("=".repeat(100));
+            out.println(String.format("%-36s %5s %9s %12s %7s %7s %7s %7s",
+                    by.equals("broker") ? "Broker" : "Lane", "Loads", "Miles",
+                    "Revenue", "RPM", "10th %", "Median", "90th %"));
+            out.println("-".repeat(100));
+
+            for ( LaneAnalytics.Stats<?> stats : by.equals("broker")
+                    ? lanes.getBrokers(min) : lanes.getLanes(min) ) {
+                Object key = stats.getKey();
+
+                out.println(String.format("%-36.36s %5d %,9d %,12.2f %7s "
+                        + "%7s %7s %7s", key instanceof Long
+                                ? names.getOrDefault(key, key.toString()) : key,
+                        stats.getLoads(), stats.getMiles(),
+                        stats.getRateInCents() / 100.0,
+                        Money.format(stats.getRatePerMileInMills(),
+                                Money.MILLS),
+                        Money.format(stats.getRatePerMilePercentile(0.1),
+                                Money.MILLS),
+                        Money.format(stats.getRatePerMilePercentile(0.5),
+                                Money.MILLS),
+                        Money.format(stats.getRatePerMilePercentile(0.9),
+                                Money.MILLS)));
+            }
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits invoice() throws DataStoreException {
+        File folder = params.isSwitchPresent("--folder")
+                ? new File(params.getSwitchValue("--folder"))
+                : InvoiceGenerator.getDefaultFolder();
+        List<String> orders = Arrays.asList(command).subList(1,
+                command.length);
+
+        List<File> written = new InvoiceGenerator(folder,
+                !params.isSwitchPresent("--text")).generate(orders);
+
+        for ( File file : written )
+            System.out.println(file.getPath());
+        System.err.println(written.size() + " invoices written.");
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits postal() throws DataStoreException, IOException {
+        if ( command.length < 2 )
+            return usage("A file to import or a code to look up must be "
+                    + "given.");
+
+        if ( !command[1].equalsIgnoreCase("import") ) {
+            PostalDatabase db = PostalDatabase.getInstance();
+
+            if ( db.size() == 0 ) {
+                System.err.println("postal: There is no Zip Code database; "
+                        + "build one with postal import.");
+                return SysExits.EX_UNAVAILABLE;
+            }
+
+            for ( int x = 1; x < command.length; x++ ) {
+                PostalDatabase.Place place = db.lookup(command[x]);
+                System.out.println(String.format("%-10s %s", command[x],
+                        place == null ? "(Not found)" : place));
+            }
+
+            return SysExits.EX_OK;
+        }
+
+        if ( command.length < 3 )
+            return usage("A file to import must be given.");
+
+        File src = new File(command[2]);
+        if ( !src.exists() ) {
+            System.err.println("postal: " + src + " does not exist.");
+            return SysExits.EX_NOINPUT;
+        }
+
+        int code, city, state, lat, lon;
+        try {
+            code = Integer.parseInt(params.getSwitchValue("--code", "1")) - 1;
+            city = Integer.parseInt(params.getSwitchValue("--city", "2")) - 1;
+            state = Integer.parseInt(params.getSwitchValue("--state", "3"))
+                    - 1;
+            lat = Integer.parseInt(params.getSwitchValue("--lat", "0")) - 1;
+            lon = Integer.parseInt(params.getSwitchValue("--lon", "0")) - 1;
+        } catch ( NumberFormatException ex ) {
+            return usage("Columns must be given as numbers, starting at 1.");
+        }
+
+        if ( code < 0 || city < 0 || state < 0 || lat < -1 || lon < -1 )
+            return usage("Columns must be given as numbers, starting at 1.");
+        if ( (lat < 0) != (lon < 0) )
+            return usage("The latitude and longitude columns must be given "
+                    + "together.");
+
+        int written;
+        try ( CsvReader in = new CsvReader(new FileReader(src)) ) {
+            written = PostalDatabase.build(new Iterator<String[]>() {
+                private String[] next = read();
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public String[] next() {
+                    String[] row = next;
+                    next = read();
+                    return row;
+                }
+
+                private String[] read() {
+                    try {
+                        return in.readRecord();
+                    } catch ( IOException ex ) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+            }, code, city, state, lat, lon, new File(
+                    Starter.props.getDataFolder() + PostalDatabase.FILE_NAME));
+        }
+
+        System.err.println(written + " codes written to "
+                + PostalDatabase.FILE_NAME + ".");
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits miles() throws DataStoreException {
+        if ( command.length < 3 )
+            return usage("At least two codes must be given.");
+
+        MileageEngine mileage = MileageEngine.getInstance();
+        int total = 0;
+
+        for ( int x = 2; x < command.length; x++ ) {
+            int leg = mileage.getMiles(command[x - 1], command[x]);
+
+            if ( leg == MileageEngine.UNKNOWN ) {
+                System.err.println("miles: The centroid of " + command[x - 1]
+                        + " or " + command[x] + " is not in the Zip Code "
+                        + "database.");
+                return SysExits.EX_UNAVAILABLE;
+            }
+
+            System.out.println(String.format("%-10s %-10s %,8d",
+                    command[x - 1], command[x], leg));
+            total += leg;
+        }
+
+        System.out.println(String.format("%-21s %,8d", "Total", total));
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits search() throws DataStoreException {
+        if ( command.length < 2 )
+            return usage("At least one word to search for must be given.");
+
+        int limit;
+
+        try {
+            limit = Integer.parseInt(params.getSwitchValue("--limit", "50"));
+        } catch ( NumberFormatException ex ) {
+            return usage("The most records to list must be given as a "
+                    + "number.");
+        }
+
+        List<SearchIndex.Hit> hits = SearchIndex.getInstance().search(
+                String.join(" ", Arrays.asList(command).subList(1,
+                        command.length)), limit);
+
+        for ( SearchIndex.Hit hit : hits )
+            System.out.println(String.format("%-7s %-8s %s",
+                    hit.getTable(),
+                    hit.isArchived() ? "archive" : "active", hit.getSummary()));
+
+        System.err.println(hits.size() + " records found.");
+
+        return SysExits.EX_OK;
+    }
+
+    private SysExits fleet() throws DataStoreException, IOException {
+        if ( command.length > 1 ) {
+            if ( command.length != 3 || !(command[1].equalsIgnoreCase("enable")
+                    || command[1].equalsIgnoreCase("use")) )
+                return usage("A truck is given as enable or use <truck>.");
+
+            if ( command[1].equalsIgnoreCase("enable") ) {
+                int moved = Fleet.enable(command[2]);
+                System.err.println("Fleet mode is on; " + moved + " files "
+                        + "moved into the partition of truck "
+                        + Fleet.getCurrentTruck() + ".");
+            } else if ( !Starter.props.isFleetMode() ) {
+                System.err.println("fleet: Fleet mode is not on.");
+                return SysExits.EX_UNAVAILABLE;
+            } else {
+                Fleet.select(command[2]);
+                System.err.println("The current truck is now "
+                        + Fleet.getCurrentTruck() + ".");
+            }
+
+            return SysExits.EX_OK;
+        }
+
+        if ( !Starter.props.isFleetMode() ) {
+            System.err.println("fleet: Fleet mode is not on.");
+            return SysExits.EX_UNAVAILABLE;
+        }
+
+        FleetSummary summary = FleetSummary.compute();
+
+        try ( PrintWriter out = openOutput() ) {
+            out.println("Fleet Summary");
+            out.println("=".repeat(96));
+            out.println(String.format("%-12s %6s %6s %10s %10s %14s %7s "
+                    + "%11s %6s", "Truck", "Loads", "Done", "Miles", "Driven",
+                    "Revenue", "RPM", "Diesel", "MPG"));
+            out.println("-".repeat(96));
+
+            for ( Map.Entry<String, FleetSummary.Totals> e
+                    : summary.getTrucks().entrySet() )
+                printFleet(out, e.getKey(), e.getValue());
+
+            out.println("-".repeat(96));
+            printFleet(out, "Fleet", summary.getFleet());
+        }
+
+        return SysExits.EX_OK;
+    }
+
+    private void printFleet(PrintWriter out, String name,
+            FleetSummary.Totals t) {
+        out.println(String.format("%-12.12s %6d %6d %,10d %,10d %,14.2f %7s "
+                + "%,11.3f %6.2f", name, t.getLoads(), t.getCompleted(),
+                t.getMiles(), t.getDriven(), t.getGrossInCents() / 100.0,
+                Money.format(t.getRatePerMileInMills(), Money.MILLS),
+                t.getDieselInMills() / 1000.0, t.getMilesPerGallon()));
+    }
+
+    private void printFuel(PrintWriter out, String name,
+            FuelEconomy.Window window) {
+        if ( window == null ) {
+            out.println(String.format("%-16.16s (Load not found)", name));
+            return;
+        }
+
+        out.println(String.format("%-16.16s %5d %,8d %,9.3f %7.2f %6.2f %12s",
+                name, window.getFuelUps(), window.getMiles(),
+                window.getDieselGallons(), window.getMilesPerGallon(),
+                window.getDefRatio(), "$" + Money.format(
+                        window.getCostPerMileInMills(), Money.MILLS)));
+    }
+
+    private void printAging(PrintWriter out, String name, long[] buckets) {
+        long total = 0;
+
+        out.print(String.format("%-24.24s", name));
+        for ( long cents : buckets ) {
+            total += cents;
+            out.print(String.format(" %,12.2f", cents / 100.0));
+        }
+        out.println(String.format(" %,12.2f", total / 100.0));
+    }
+
+    private PrintWriter openOutput() throws IOException {
+        String file = params.getSwitchValue("--out");
+
+        if ( file == null )
+            return new PrintWriter(new BufferedWriter(
+                    new OutputStreamWriter(System.out)));
+
+        return new PrintWriter(new BufferedWriter(new FileWriter(file)));
+    }
+
+    private HashSet<String> collect(DataTables table, int field)
+            throws IOException {
+        HashSet<String> values = new HashSet<>();
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                table) ) {
+            Iterator<String[]> it = s.iterator();
+            while ( it.hasNext() )
+                values.add(it.next()[field]);
+        }
+
+        return values;
+    }
+
+    private long dangling(DataTables table, int field, HashSet<String> known,
+            String what) throws IOException {
+        long count = 0;
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                table) ) {
+            Iterator<String[]> it = s.iterator();
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                if ( !known.contains(f[field]) ) {
+                    System.err.println(table + ": " + String.join("~", f)
+                            + ": no such " + what + " " + f[field]);
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean inPeriod(SimpleDateFormat sdf, String date,
+            Date from, Date to) {
+        try {
+            Date d = sdf.parse(date);
+            return !d.before(from) && !d.after(to);
+        } catch ( ParseException ex ) {
+            return false;
+        }
+    }
+
+    private static boolean after(SimpleDateFormat sdf, String date, Date to) {
+        try {
+            return sdf.parse(date).after(to);
+        } catch ( ParseException ex ) {
+            return false;
+        }
+    }
+    //</editor-fold>
+
+}
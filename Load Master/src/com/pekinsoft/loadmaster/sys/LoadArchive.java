@@ -0,0 +1,464 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   LoadArchive.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 4:12:36 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Moves finished loads and their stops out of the active tables into
+ *      compressed segment files, one per table per year, and reads them back
+ *      when a report or export reaches into an archived period.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The archive of finished loads.
+ * <p>
+ * Loads that are completed or cancelled are of no further use to the day to
+ * day running of the truck, but without an archive they stay in the loads and
+ * stops tables, and are parsed every time Load Master starts, forever. The
+ * {@link #archive(Date) archive} method moves them, with their stops, into
+ * segment files in the `archive` folder under the data folder. There is one
+ * segment per table per year, named for the table and the year the load was
+ * dispatched (e.g., `loads-2025.tbl.gz` and `stops-2025.tbl.gz`). A segment
+ * holds lines in the same layout as its table, compressed with GZIP.</p>
+ * <p>
+ * Archiving into a year that already has a segment adds a new GZIP member to
+ * the end of it; a GZIP reader reads the members one after another as a
+ * single stream, so nothing already archived is rewritten.</p>
+ * <p>
+ * The segments are never read at start up. The
+ * {@link #records(DataTables, Date, Date) records} method puts the active
+ * table together with only the segments for the years a period touches, and
+ * each segment is opened only when the stream reaches it.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class LoadArchive {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the folder, under the data folder, holding the segments. */
+    public static final String FOLDER = "archive";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final String EXTENSION = ".tbl.gz";
+    private static final LogRecord entry;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Static Initializer">
+    static {
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(LoadArchive.class.getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private LoadArchive () {
+        /* to prevent instantiation */
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the folder that holds the archive segments, which in fleet
+     * mode is that of the current truck.
+     *
+     * @return the archive folder, which may not exist yet
+     */
+    public static File getFolder() {
+        return new File(Starter.props.getPartitionFolder() + FOLDER);
+    }
+
+    /**
+     * Retrieves the segment file for a table and year.
+     *
+     * @param table the loads or stops table
+     * @param year  the year the loads were dispatched
+     * @return the segment file, which may not exist
+     */
+    public static File getSegment(DataTables table, int year) {
+        return new File(getFolder(), table + "-" + year + EXTENSION);
+    }
+
+    /**
+     * Retrieves the years for which loads have been archived, in order. Only
+     * the names of the segment files are looked at.
+     *
+     * @return the archived years
+     */
+    public static List<Integer> getYears() {
+        ArrayList<Integer> years = new ArrayList<>();
+        String prefix = DataTables.LOADS + "-";
+        String[] names = getFolder().list();
+
+        if ( names == null )
+            return years;
+
+        for ( String name : names ) {
+            if ( name.startsWith(prefix) && name.endsWith(EXTENSION) ) {
+                try {
+                    years.add(Integer.valueOf(name.substring(prefix.length(),
+                            name.length() - EXTENSION.length())));
+                } catch ( NumberFormatException ex ) {
+                    // Not one of ours.
+                }
+            }
+        }
+
+        Collections.sort(years);
+
+        return years;
+    }
+
+    /**
+     * Reads the records of one archived year. The segment is opened when the
+     * stream is first read from and closed with the stream.
+     *
+     * @param table the loads or stops table
+     * @param year  the archived year
+     * @return the records of the segment, or an empty stream if there is no
+     *         segment for that year
+     */
+    public static Stream<String[]> records(DataTables table, int year) {
+        File seg = getSegment(table, year);
+
+        if ( !seg.exists() )
+            return Stream.empty();
+
+        return Stream.of(seg).flatMap(f -> {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(new FileInputStream(f), 65536),
+                        Charset.defaultCharset()));
+
+                return in.lines().onClose(() -> {
+                    try {
+                        in.close();
+                    } catch ( IOException ex ) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch ( IOException ex ) {
+                throw new UncheckedIOException(ex);
+            }
+        })
+                .filter(line -> !line.isBlank())
+                .map(line -> TableMaintenance.split(table, line))
+                .filter(f -> TableMaintenance.validate(table, f) == null);
+    }
+
+    /**
+     * Reads the records of a table that may fall within a period: the
+     * archived years that the period touches, oldest first, followed by the
+     * active table. The caller must still check the date of each record, and
+     * must close the stream.
+     * <p>
+     * Stops are archived with the year their load was dispatched, so for the
+     * stops table the year before the period is included as well. Tables
+     * other than loads and stops are never archived, and are simply read
+     * from their active files.</p>
+     *
+     * @param table the table to read
+     * @param from  the first day of the period, or `null`
+     * @param to    the last day of the period, or `null`
+     * @return the records that may fall within the period
+     * @throws IOException in the event the active table cannot be opened
+     */
+    public static Stream<String[]> records(DataTables table, Date from,
+            Date to) throws IOException {
+        if ( table != DataTables.LOADS && table != DataTables.STOPS )
+            return TableMaintenance.records(table);
+
+        List<Integer> years = getYears(from, to);
+
+        if ( table == DataTables.STOPS && from != null ) {
+            int before = yearOf(from) - 1;
+            if ( getSegment(table, before).exists() && !years.contains(before) )
+                years.add(0, before);
+        }
+
+        return Stream.concat(years.stream().flatMap(y -> records(table, y)),
+                TableMaintenance.records(table));
+    }
+
+    /**
+     * Retrieves the archived years that a period touches.
+     *
+     * @param from the first day of the period, or `null`
+     * @param to   the last day of the period, or `null`
+     * @return the archived years within the period, in order
+     */
+    public static List<Integer> getYears(Date from, Date to) {
+        List<Integer> years = getYears();
+
+        if ( from != null )
+            years.removeIf(y -> y < yearOf(from));
+        if ( to != null )
+            years.removeIf(y -> y > yearOf(to));
+
+        return years;
+    }
+
+    /**
+     * Moves every load that is completed or cancelled, and was dispatched
+     * before the given date, into the archive along with its stops.
+     * <p>
+     * The segments are written first, then the stops table and the loads
+     * table are replaced, each in a single move, with the old tables kept as
+     * `.bak` files. Should anything fail part way, a load may end up both in
+     * the archive and in the active table, but never in neither.</p>
+     *
+     * @param before loads dispatched on or after this date stay active
+     * @return an array of two elements: the number of loads and the number of
+     *         stops archived
+     * @throws DataStoreException in the event the tables or the archive cannot
+     *         be written
+     */
+    @SuppressWarnings("try")
+    public static long[] archive(Date before) throws DataStoreException {
+        entry.setMessage("Archiving finished loads dispatched before " + before);
+        entry.setSourceMethodName("archive");
+        entry.setParameters(new Object[]{before});
+        Starter.logger.enter(entry);
+
+        long[] counts = new long[2];
+        long[] kept = new long[2];
+        File loads = DataTables.LOADS.getFile();
+        File stops = DataTables.STOPS.getFile();
+        File loadsTmp = new File(loads.getPath() + ".tmp");
+        File stopsTmp = new File(stops.getPath() + ".tmp");
+        HashMap<File, BufferedWriter> segments = new HashMap<>();
+        HashMap<String, Integer> trips = new HashMap<>();
+
+        if ( !loads.exists() )
+            return counts;
+
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+
+        // Both tables are rewritten, so both are held until they are.
+        try ( SharedTable.TableLock loadsLock = SharedTable.lock(loads, false);
+                SharedTable.TableLock stopsLock = SharedTable.lock(stops,
+                        false) ) {
+            getFolder().mkdirs();
+
+            try ( BufferedReader in = new BufferedReader(new FileReader(loads));
+                    BufferedWriter out = new BufferedWriter(
+                            new FileWriter(loadsTmp)) ) {
+                String line;
+
+                while ( (line = in.readLine()) != null ) {
+                    String[] f = TableMaintenance.split(DataTables.LOADS, line);
+                    Date dispatch = null;
+
+                    if ( !line.isBlank() && TableMaintenance.validate(
+                            DataTables.LOADS, f) == null
+                            && (Boolean.parseBoolean(f[20])
+                            || Boolean.parseBoolean(f[21])) )
+                        dispatch = sdf.parse(f[4]);
+
+                    if ( dispatch == null || !dispatch.before(before) ) {
+                        out.write(line + "\n");
+                        kept[0]++;
+                        continue;
+                    }
+
+                    int year = yearOf(dispatch);
+                    segment(segments, DataTables.LOADS, year)
+                            .write(String.join("~", f) + "\n");
+                    trips.put(f[1], year);
+                    counts[0]++;
+                }
+            }
+
+            if ( counts[0] == 0 ) {
+                loadsTmp.delete();
+                return counts;
+            }
+
+            // Archived stops go with what happened at them, and their trips'
+            //+ logs are not needed once they are in the archive.
+            StopLog.Replay replay = StopLog.replay(stops);
+
+            if ( stops.exists() ) {
+                try ( BufferedReader in = new BufferedReader(
+                        new FileReader(stops));
+                        BufferedWriter out = new BufferedWriter(
+                                new FileWriter(stopsTmp)) ) {
+                    String line;
+
+                    while ( (line = in.readLine()) != null ) {
+                        String[] f = line.split("~");
+                        Integer year = line.isBlank() ? null : trips.get(f[0]);
+
+                        if ( year == null ) {
+                            out.write(line + "\n");
+                            kept[1]++;
+                            continue;
+                        }
+
+                        segment(segments, DataTables.STOPS, year)
+                                .write(String.join("~", replay.fold(
+                                        TableMaintenance.split(
+                                                DataTables.STOPS, line)))
+                                        + "\n");
+                        counts[1]++;
+                    }
+                }
+            }
+
+            // Finish every GZIP member before anything is moved into place.
+            for ( BufferedWriter w : segments.values() )
+                w.close();
+
+            for ( File tmp : segments.keySet() ) {
+                String path = tmp.getPath();
+                SharedTable.replace(tmp, new File(path.substring(0,
+                        path.length() - 4)));
+            }
+
+            if ( stops.exists() ) {
+                Files.copy(stops.toPath(), new File(stops.getPath() + ".bak")
+                        .toPath(), StandardCopyOption.REPLACE_EXISTING);
+                SharedTable.replace(stopsTmp, stops);
+            }
+
+            Files.copy(loads.toPath(), new File(loads.getPath() + ".bak")
+                    .toPath(), StandardCopyOption.REPLACE_EXISTING);
+            SharedTable.replace(loadsTmp, loads);
+
+            for ( String trip : trips.keySet() )
+                StopLog.remove(StopLog.getFolder(stops), trip);
+
+            Starter.props.setPropertyAsLong(
+                    DataTables.LOADS.getCountProperty(), kept[0]);
+            Starter.props.setPropertyAsLong(
+                    DataTables.STOPS.getCountProperty(), kept[1]);
+        } catch ( IOException | ParseException ex ) {
+            for ( Map.Entry<File, BufferedWriter> e : segments.entrySet() ) {
+                try {
+                    e.getValue().close();
+                } catch ( IOException ignored ) {
+                    // Being thrown away regardless.
+                }
+
+                e.getKey().delete();
+            }
+
+            loadsTmp.delete();
+            stopsTmp.delete();
+
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        entry.setMessage("Archived " + counts[0] + " loads and " + counts[1]
+                + " stops.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, counts);
+
+        return counts;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    /**
+     * Opens a writer on a temporary copy of a segment that adds a new GZIP
+     * member to the end of it.
+     */
+    private static BufferedWriter segment(HashMap<File, BufferedWriter> open,
+            DataTables table, int year) throws IOException {
+        File seg = getSegment(table, year);
+        File tmp = new File(seg.getPath() + ".tmp");
+        BufferedWriter w = open.get(tmp);
+
+        if ( w == null ) {
+            if ( seg.exists() )
+                Files.copy(seg.toPath(), tmp.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            else
+                tmp.delete();
+
+            w = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    new FileOutputStream(tmp, true), 65536),
+                    Charset.defaultCharset()));
+            open.put(tmp, w);
+        }
+
+        return w;
+    }
+
+    private static int yearOf(Date date) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+
+        return cal.get(Calendar.YEAR);
+    }
+    //</editor-fold>
+
+}
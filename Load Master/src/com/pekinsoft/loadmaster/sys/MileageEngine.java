@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   MileageEngine.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 3:10:24 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Estimates the road miles between Zip Codes from their centroids,
+ *      without an outside routing service.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the road miles between two Zip Codes or Postal Codes from the
+ * centroids in the {@link PostalDatabase}. The great-circle distance between
+ * the centroids is multiplied by a road factor, since roads are never
+ * straight, and rounded to the mile. The factor is the `mileage.road.factor`
+ * property, 1.17 if it is not set, which is close to the ratio of highway to
+ * straight-line miles between U.S. cities.
+ * <p>
+ * The miles of each pair of codes asked for are kept in a cache of the most
+ * recently used lanes, so that a lane run again and again is worked out once.
+ * The cache holds as many lanes as the `mileage.cache.size` property, 10,000
+ * if it is not set, and forgets the lane used least recently when it is full.
+ * A pair is the same lane either way round.</p>
+ * <p>
+ * The properties are read when the engine is created. The engine is created
+ * again when the data folder changes or the postal database is rebuilt.
+ * Estimates may be asked for on any thread.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class MileageEngine {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The mean radius of the earth, in miles. */
+    public static final double EARTH_RADIUS = 3958.8;
+    /** The miles returned when the miles cannot be estimated. */
+    public static final int UNKNOWN = -1;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static MileageEngine instance;
+
+    private final PostalDatabase postal;
+    private final double roadFactor;
+    private final LinkedHashMap<Long, Integer> lanes;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private MileageEngine (PostalDatabase postal) {
+        this.postal = postal;
+        roadFactor = Starter.props.getPropertyAsDouble("mileage.road.factor",
+                "1.17");
+        int capacity = Math.max(1, Starter.props.getPropertyAsInt(
+                "mileage.cache.size", "10000"));
+
+        // In access order, so that the eldest entry is the lane used least
+        //+ recently.
+        lanes = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> e) {
+                return size() > capacity;
+            }
+        };
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the mileage engine for the postal database of the current data
+     * folder.
+     *
+     * @return the mileage engine
+     * @throws DataStoreException in the event the postal database cannot be
+     *         read
+     */
+    public static synchronized MileageEngine getInstance()
+            throws DataStoreException {
+        PostalDatabase postal = PostalDatabase.getInstance();
+
+        if ( instance == null || instance.postal != postal )
+            instance = new MileageEngine(postal);
+
+        return instance;
+    }
+
+    /**
+     * Works out the great-circle distance between two points by the
+     * haversine formula.
+     *
+     * @param lat1 the latitude of the first point, in degrees
+     * @param lon1 the longitude of the first point, in degrees
+     * @param lat2 the latitude of the second point, in degrees
+     * @param lon2 the longitude of the second point, in degrees
+     * @return the distance in miles
+     */
+    public static double greatCircle(double lat1, double lon1, double lat2,
+            double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.pow(Math.sin(dLon / 2), 2);
+
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Estimates the road miles from one Zip Code or Postal Code to another.
+     *
+     * @param from the code of the origin, such as "62554" or "62554-1234"
+     * @param to   the code of the destination
+     * @return the miles, or {@link #UNKNOWN} if either code is not in the
+     *         postal database or its centroid is not known
+     */
+    public int getMiles(String from, String to) {
+        int a = PostalDatabase.keyOf(from);
+        int b = PostalDatabase.keyOf(to);
+
+        if ( a < 0 || b < 0 )
+            return UNKNOWN;
+        if ( a == b )
+            return 0;
+
+        Long lane = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+
+        synchronized ( lanes ) {
+            Integer miles = lanes.get(lane);
+
+            if ( miles != null )
+                return miles;
+        }
+
+        double[] origin = postal.getPosition(from);
+        double[] destination = postal.getPosition(to);
+        int miles = origin == null || destination == null ? UNKNOWN
+                : (int) Math.round(greatCircle(origin[0], origin[1],
+                        destination[0], destination[1]) * roadFactor);
+
+        synchronized ( lanes ) {
+            lanes.put(lane, miles);
+        }
+
+        return miles;
+    }
+
+    /**
+     * Estimates the road miles of a route through a list of Zip Codes or
+     * Postal Codes, such as those of a load's stops in order.
+     *
+     * @param codes the codes, in the order they are visited
+     * @return the total miles of the legs, or {@link #UNKNOWN} if there are
+     *         fewer than two codes or the miles of any leg are not known
+     */
+    public int getMiles(List<String> codes) {
+        if ( codes.size() < 2 )
+            return UNKNOWN;
+
+        int total = 0;
+
+        for ( int x = 1; x < codes.size(); x++ ) {
+            int leg = getMiles(codes.get(x - 1), codes.get(x));
+
+            if ( leg == UNKNOWN )
+                return UNKNOWN;
+
+            total += leg;
+        }
+
+        return total;
+    }
+
+    /**
+     * Retrieves the factor the straight-line miles are multiplied by.
+     *
+     * @return the road factor
+     */
+    public double getRoadFactor() {
+        return roadFactor;
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   PostalDatabase.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 2:05:51 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Looks up the city, state and centroid of a U.S. Zip Code or Canadian
+ *      Postal Code in a sorted binary file kept in the data folder.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The city and state of each U.S. Zip Code and Canadian Postal Code, and the
+ * latitude and longitude of its centroid, read from the file `postal.db` in
+ * the data folder. When the data folder has no such file and one is bundled
+ * with the application, the bundled file is copied there the first time it
+ * is needed. A file can also be built from any CSV list of codes, cities and
+ * states, with or without their latitudes and longitudes, with
+ * {@link #build(Iterator, int, int, int, int, int, File) build}, which the
+ * `postal import` headless command does.
+ * <p>
+ * A Zip Code is looked up by its first five digits. A Canadian Postal Code is
+ * looked up by its first three characters, the Forward Sortation Area, which
+ * is as closely as a city can be told from a postal code.</p>
+ * <p>
+ * The file is memory-mapped, so it is paged in by the operating system as it
+ * is read rather than loaded, and a lookup is a binary search of its
+ * fixed-size records that reads nothing but the one city it finds. The file
+ * holds:</p>
+ * <pre>
+ *   int    magic number, "LMZP"
+ *   int    version, 2
+ *   int    number of records
+ *   int    offset of the city names
+ *   record for each code, in order of key:
+ *     int    key of the code
+ *     byte[] two-letter state or province
+ *     int    offset of the city name from the start of the city names
+ *     int    latitude of the centroid, in millionths of a degree
+ *     int    longitude of the centroid, in millionths of a degree
+ *   city names, each a one-byte length and that many bytes of UTF-8
+ * </pre>
+ * <p>
+ * A code whose centroid is not known has {@link Integer#MIN_VALUE} for its
+ * latitude and longitude. Files of version 1, whose records end at the
+ * offset of the city name, are still read, and know no centroids.</p>
+ * <p>
+ * Lookups may be made on any thread.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class PostalDatabase {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the database file in the data folder. */
+    public static final String FILE_NAME = "postal.db";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final String RESOURCE =
+            "/com/pekinsoft/loadmaster/res/" + FILE_NAME;
+    private static final int MAGIC = 0x4C4D5A50;
+    private static final int VERSION = 2;
+    private static final int HEADER = 16;
+    private static final int RECORD = 18;
+    private static final int RECORD_V1 = 10;
+    private static final int NO_POSITION = Integer.MIN_VALUE;
+    // Canadian codes are keyed above every Zip Code.
+    private static final int CANADA = 100000;
+
+    private static PostalDatabase instance;
+
+    private final String folder;
+    private ByteBuffer data;
+    private int count;
+    private int cities;
+    private int record;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private PostalDatabase (String folder) {
+        this.folder = folder;
+        count = 0;
+        record = RECORD;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the postal database of the current data folder, opening it
+     * the first time. When there is no database, an empty one is returned,
+     * whose lookups find nothing.
+     *
+     * @return the postal database
+     * @throws DataStoreException in the event the file cannot be read or is
+     *         not a postal database
+     */
+    public static synchronized PostalDatabase getInstance()
+            throws DataStoreException {
+        String folder = Starter.props.getDataFolder();
+
+        if ( instance == null || !instance.folder.equals(folder) ) {
+            PostalDatabase db = new PostalDatabase(folder);
+            db.open();
+            instance = db;
+        }
+
+        return instance;
+    }
+
+    /**
+     * Builds a postal database from rows of codes, cities and states, such as
+     * those of a CSV file, without their centroids. This is the same as
+     * calling {@link #build(Iterator, int, int, int, int, int, File) build}
+     * with -1 for the latitude and longitude columns.
+     *
+     * @param rows  the rows
+     * @param code  the column of the Zip Code or Postal Code
+     * @param city  the column of the city
+     * @param state the column of the state or province
+     * @param out   the database file to write, which is replaced
+     * @return the number of codes written
+     * @throws IOException in the event the file cannot be written
+     */
+    public static int build(Iterator<String[]> rows, int code, int city,
+            int state, File out) throws IOException {
+        return build(rows, code, city, state, -1, -1, out);
+    }
+
+    /**
+     * Builds a postal database from rows of codes, cities, states and
+     * centroids, such as those of a CSV file. Rows whose code is not a Zip
+     * Code or Postal Code, such as a heading row, or whose state is not two
+     * letters, are skipped. When a code is given more than once, its first
+     * row is kept. A code whose latitude or longitude is missing or out of
+     * range is kept without a centroid.
+     *
+     * @param rows  the rows
+     * @param code  the column of the Zip Code or Postal Code
+     * @param city  the column of the city
+     * @param state the column of the state or province
+     * @param lat   the column of the latitude in degrees, or -1 if there is
+     *              none
+     * @param lon   the column of the longitude in degrees, or -1 if there is
+     *              none
+     * @param out   the database file to write, which is replaced
+     * @return the number of codes written
+     * @throws IOException in the event the file cannot be written
+     */
+    public static int build(Iterator<String[]> rows, int code, int city,
+            int state, int lat, int lon, File out) throws IOException {
+        TreeMap<Integer, Row> codes = new TreeMap<>();
+        int columns = Math.max(code, Math.max(city, state)) + 1;
+
+        while ( rows.hasNext() ) {
+            String[] row = rows.next();
+
+            if ( row == null || row.length < columns )
+                continue;
+
+            int key = keyOf(row[code]);
+            String st = row[state].trim().toUpperCase();
+            String name = row[city].trim();
+
+            if ( key < 0 || st.length() != 2 || name.isEmpty() )
+                continue;
+
+            int latitude = degreesOf(row, lat, 90.0);
+            int longitude = degreesOf(row, lon, 180.0);
+
+            if ( latitude == NO_POSITION || longitude == NO_POSITION ) {
+                latitude = NO_POSITION;
+                longitude = NO_POSITION;
+            }
+
+            codes.putIfAbsent(key, new Row(st, name, latitude, longitude));
+        }
+
+        // Each city name is written once, however many codes it has.
+        HashMap<String, Integer> offsets = new HashMap<>();
+        ArrayList<byte[]> names = new ArrayList<>();
+        int size = 0;
+
+        for ( Row value : codes.values() ) {
+            if ( !offsets.containsKey(value.city) ) {
+                byte[] bytes = value.city.getBytes(StandardCharsets.UTF_8);
+                if ( bytes.length > 255 )
+                    bytes = Arrays.copyOf(bytes, 255);
+
+                offsets.put(value.city, size);
+                names.add(bytes);
+                size += bytes.length + 1;
+            }
+        }
+
+        File tmp = new File(out.getPath() + ".tmp");
+
+        try ( DataOutputStream dos = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp))) ) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(codes.size());
+            dos.writeInt(HEADER + codes.size() * RECORD);
+
+            for ( Map.Entry<Integer, Row> e : codes.entrySet() ) {
+                Row value = e.getValue();
+
+                dos.writeInt(e.getKey());
+                dos.writeByte(value.state.charAt(0));
+                dos.writeByte(value.state.charAt(1));
+                dos.writeInt(offsets.get(value.city));
+                dos.writeInt(value.latitude);
+                dos.writeInt(value.longitude);
+            }
+
+            for ( byte[] bytes : names ) {
+                dos.writeByte(bytes.length);
+                dos.write(bytes);
+            }
+        }
+
+        Files.move(tmp.toPath(), out.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized ( PostalDatabase.class ) {
+            instance = null;
+        }
+
+        return codes.size();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Looks up the city and state of a Zip Code or Postal Code.
+     *
+     * @param code the code, such as "62554", "62554-1234" or "K1A 0B1"
+     * @return the place, or `null` if the code is not in the database
+     */
+    public Place lookup(String code) {
+        int at = find(keyOf(code));
+
+        if ( at < 0 )
+            return null;
+
+        String state = new String(new char[]{(char) data.get(at + 4),
+                (char) data.get(at + 5)});
+
+        return new Place(code.trim(), cityAt(data.getInt(at + 6)), state,
+                microdegreesAt(at + 10), microdegreesAt(at + 14));
+    }
+
+    /**
+     * Looks up the centroid of a Zip Code or Postal Code, without reading its
+     * city.
+     *
+     * @param code the code
+     * @return the latitude and longitude in degrees, or `null` if the code is
+     *         not in the database or its centroid is not known
+     */
+    public double[] getPosition(String code) {
+        int at = find(keyOf(code));
+
+        if ( at < 0 || record < RECORD || data.getInt(at + 10) == NO_POSITION )
+            return null;
+
+        return new double[]{data.getInt(at + 10) / 1e6,
+                data.getInt(at + 14) / 1e6};
+    }
+
+    /**
+     * Retrieves the number of codes in the database.
+     *
+     * @return the number of codes, which is zero when there is no database
+     */
+    public int size() {
+        return count;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void open() throws DataStoreException {
+        File file = new File(folder + FILE_NAME);
+
+        try {
+            if ( !file.exists() ) {
+                try ( InputStream in = PostalDatabase.class
+                        .getResourceAsStream(RESOURCE) ) {
+                    if ( in == null )
+                        return;
+
+                    Files.copy(in, file.toPath());
+                }
+            }
+
+            try ( FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ) ) {
+                // The mapping stays valid after the channel is closed.
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        channel.size());
+            }
+        } catch ( IOException ex ) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        if ( data.capacity() < HEADER || data.getInt(0) != MAGIC
+                || data.getInt(4) < 1 || data.getInt(4) > VERSION )
+            throw new DataStoreException(file + " is not a postal code "
+                    + "database.");
+
+        record = data.getInt(4) == 1 ? RECORD_V1 : RECORD;
+        count = data.getInt(8);
+        cities = data.getInt(12);
+    }
+
+    /**
+     * Finds the record of a key by binary search, and returns its offset in
+     * the file, or -1.
+     */
+    private int find(int key) {
+        if ( key < 0 || count == 0 )
+            return -1;
+
+        int low = 0;
+        int high = count - 1;
+
+        while ( low <= high ) {
+            int mid = (low + high) >>> 1;
+            int at = HEADER + mid * record;
+            int found = data.getInt(at);
+
+            if ( found < key )
+                low = mid + 1;
+            else if ( found > key )
+                high = mid - 1;
+            else
+                return at;
+        }
+
+        return -1;
+    }
+
+    private double microdegreesAt(int at) {
+        if ( record < RECORD || data.getInt(at) == NO_POSITION )
+            return Double.NaN;
+
+        return data.getInt(at) / 1e6;
+    }
+
+    private String cityAt(int offset) {
+        int at = cities + offset;
+        byte[] bytes = new byte[data.get(at) & 0xFF];
+
+        for ( int x = 0; x < bytes.length; x++ )
+            bytes[x] = data.get(at + 1 + x);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    /**
+     * Turns a Zip Code into its first five digits, and a Canadian Postal Code
+     * into a number above every Zip Code made from its first three
+     * characters. The {@link MileageEngine} keys its distances the same way.
+     */
+    static int keyOf(String code) {
+        if ( code == null )
+            return -1;
+
+        String c = code.trim().toUpperCase();
+
+        if ( c.length() >= 5 && isDigits(c, 5) )
+            return Integer.parseInt(c.substring(0, 5));
+
+        if ( c.length() >= 3 && Character.isLetter(c.charAt(0))
+                && Character.isDigit(c.charAt(1))
+                && Character.isLetter(c.charAt(2)) && c.charAt(0) < 128
+                && c.charAt(2) < 128 )
+            return CANADA + ((c.charAt(0) - 'A') * 10
+                    + (c.charAt(1) - '0')) * 26 + (c.charAt(2) - 'A');
+
+        return -1;
+    }
+
+    private static int degreesOf(String[] row, int column, double limit) {
+        if ( column < 0 || column >= row.length || row[column].isBlank() )
+            return NO_POSITION;
+
+        try {
+            double degrees = Double.parseDouble(row[column].trim());
+
+            if ( Double.isNaN(degrees) || Math.abs(degrees) > limit )
+                return NO_POSITION;
+
+            return (int) Math.round(degrees * 1e6);
+        } catch ( NumberFormatException ex ) {
+            return NO_POSITION;
+        }
+    }
+
+    private static boolean isDigits(String s, int length) {
+        for ( int x = 0; x < length; x++ )
+            if ( s.charAt(x) < '0' || s.charAt(x) > '9' )
+                return false;
+
+        return true;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * The city, state and centroid of a Zip Code or Postal Code.
+     */
+    public static class Place {
+        private final String code;
+        private final String city;
+        private final String state;
+        private final double latitude;
+        private final double longitude;
+
+        private Place (String code, String city, String state,
+                double latitude, double longitude) {
+            this.code = code;
+            this.city = city;
+            this.state = state;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        /**
+         * Retrieves the latitude of the code's centroid.
+         *
+         * @return the latitude in degrees, or `NaN` if it is not known
+         */
+        public double getLatitude() {
+            return latitude;
+        }
+
+        /**
+         * Retrieves the longitude of the code's centroid.
+         *
+         * @return the longitude in degrees, or `NaN` if it is not known
+         */
+        public double getLongitude() {
+            return longitude;
+        }
+
+        /**
+         * Tells whether a city and state agree with this place. The city is
+         * not checked when it is blank, since it may not have been entered
+         * yet.
+         *
+         * @param city  the city
+         * @param state the state or province
+         * @return `true` if they agree, ignoring case
+         */
+        public boolean matches(String city, String state) {
+            if ( state == null || !this.state.equalsIgnoreCase(state.trim()) )
+                return false;
+
+            return city == null || city.isBlank()
+                    || this.city.equalsIgnoreCase(city.trim());
+        }
+
+        @Override
+        public String toString() {
+            return city + ", " + state;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Row {
+        private final String state;
+        private final String city;
+        private final int latitude;
+        private final int longitude;
+
+        private Row (String state, String city, int latitude, int longitude) {
+            this.state = state;
+            this.city = city;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,759 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   SearchIndex.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 5:31:48 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      A full-text index of the loads, stops, ledger and fuel purchases,
+ *      including the archived years, kept beside the tables.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ *  Oct 19, 2026  Sean Carrick        The ledger is indexed in the data folder
+ *                                    and names signed in the StopLog are
+ *                                    indexed as they are logged.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * A full-text index of the order and trip numbers, commodities and bills of
+ * lading of the loads, the names the stops were signed for by, the codes and
+ * descriptions of the ledger entries and the locations and notes of the fuel
+ * purchases, including those of the archived loads and stops.
+ * <p>
+ * Each text is broken into words of letters and digits, which are indexed in
+ * lower case. A query is a list of words, all of which a record must have,
+ * any of which may:</p>
+ * <ul>
+ * <li>end with `*` to match every word that starts with it, as `coil*`
+ * matches "coil" and "coils"; or</li>
+ * <li>start with the name of a field and a colon to match only in that field,
+ * as `bol:48213` does. The fields are `order`, `trip`, `commodity`, `bol`,
+ * `signed_by`, `code`, `description`, `location` and `notes`.</li>
+ * </ul>
+ * <p>
+ * The index is kept in a `search` folder beside the tables, one file for
+ * each table file and archived year, along with the size and time of the
+ * file it was made from. In fleet mode, the loads, stops and fuel purchases
+ * of a truck are indexed in its partition, and the ledger, which every truck
+ * shares, once in the data folder. A year of the archive is indexed once and
+ * read back from then on. When a table file, or for the stops one of the
+ * {@link StopLog} files beside it, has changed since its index was made, it
+ * is indexed again the next time it is searched, unless the change is older
+ * than a record that has been posted since. The controllers post each record
+ * they save, and the name a stop's bills are signed by is posted as the
+ * {@link StopLog} publishes it, so the index is current without reading the
+ * tables again.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class SearchIndex {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the folder of index files in the data folder. */
+    public static final String FOLDER = "search";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final int MAGIC = 0x4C4D5349;
+    private static final int VERSION = 1;
+    // A posting is a document number and the field it was found in, which
+    //+ takes the low bits.
+    private static final int FIELD_BITS = 4;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    private static final Field[] FIELDS = {
+        new Field(DataTables.LOADS, 0, "order"),
+        new Field(DataTables.LOADS, 1, "trip"),
+        new Field(DataTables.LOADS, 9, "commodity"),
+        new Field(DataTables.LOADS, 19, "bol"),
+        new Field(DataTables.STOPS, 0, "trip"),
+        new Field(DataTables.STOPS, 11, "signed_by"),
+        new Field(DataTables.LEDGER, 1, "code"),
+        new Field(DataTables.LEDGER, 2, "description"),
+        new Field(DataTables.FUEL, 3, "location"),
+        new Field(DataTables.FUEL, 9, "notes")
+    };
+    private static final DataTables[] TABLES = {
+        DataTables.LOADS, DataTables.STOPS, DataTables.LEDGER, DataTables.FUEL
+    };
+
+    private static SearchIndex instance;
+
+    private final String folder;
+    private ChangeBus.Subscription signatures;
+    // In the order they are searched, by the name of the file indexed.
+    private final LinkedHashMap<String, Segment> segments;
+    private final LogRecord entry;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private SearchIndex (String folder) {
+        this.folder = folder;
+        segments = new LinkedHashMap<>();
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the search index of the current data folder, or the current
+     * truck in fleet mode, reading or making the index files the first time.
+     *
+     * @return the search index
+     * @throws DataStoreException in the event a table or index file cannot be
+     *         read, or an index file cannot be written
+     */
+    public static synchronized SearchIndex getInstance()
+            throws DataStoreException {
+        String folder = Starter.props.getPartitionFolder();
+
+        if ( instance == null || !instance.folder.equals(folder) ) {
+            SearchIndex index = new SearchIndex(folder);
+            index.refresh();
+
+            if ( instance != null )
+                instance.signatures.cancel();
+
+            index.signatures = ChangeBus.subscribe(DataTables.STOPS,
+                    StopLog.Event.class, index::signed);
+            instance = index;
+        }
+
+        return instance;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Posts a record that a controller is adding or changing, in place of the
+     * record with the same key. A record of the ledger, which has no key,
+     * takes the place of nothing; the record it replaces must be
+     * {@link #remove(DataTables, String[]) removed}.
+     *
+     * @param table  the table of the record
+     * @param fields the fields of the record, as they are written
+     */
+    public synchronized void post(DataTables table, String[] fields) {
+        Segment seg = segments.get(table.getFile().getName());
+
+        if ( seg != null && isIndexed(table) ) {
+            seg.remove(keyOf(table, fields));
+            seg.add(table, fields);
+            seg.posted = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Takes a record that a controller is changing or deleting out of the
+     * index.
+     *
+     * @param table  the table of the record
+     * @param fields the fields of the record, as they were written
+     */
+    public synchronized void remove(DataTables table, String[] fields) {
+        Segment seg = segments.get(table.getFile().getName());
+
+        if ( seg != null && isIndexed(table) ) {
+            seg.remove(keyOf(table, fields));
+            seg.posted = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Finds the records that have every word of a query, the active tables
+     * first and then the archive from the latest year back, and the latest
+     * records of each first.
+     *
+     * @param query the query, such as "steel coil*" or "bol:48213"
+     * @param limit the most records to return
+     * @return the records found
+     * @throws DataStoreException in the event a table that has changed
+     *         cannot be indexed again
+     */
+    public synchronized List<Hit> search(String query, int limit)
+            throws DataStoreException {
+        refresh();
+
+        List<Term> terms = parse(query);
+        ArrayList<Hit> hits = new ArrayList<>();
+
+        if ( terms.isEmpty() )
+            return hits;
+
+        for ( Segment seg : segments.values() ) {
+            BitSet found = null;
+
+            for ( Term term : terms ) {
+                BitSet docs = seg.match(term);
+
+                if ( found == null )
+                    found = docs;
+                else
+                    found.and(docs);
+
+                if ( found.isEmpty() )
+                    break;
+            }
+
+            found.andNot(seg.deleted);
+
+            for ( int doc = found.previousSetBit(found.length() - 1);
+                    doc >= 0 && hits.size() < limit;
+                    doc = found.previousSetBit(doc - 1) )
+                hits.add(new Hit(seg.table, seg.keys.get(doc),
+                        seg.summaries.get(doc), seg.archived));
+
+            if ( hits.size() >= limit )
+                break;
+        }
+
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of records in the index.
+     *
+     * @return the number of records
+     */
+    public synchronized int size() {
+        int size = 0;
+
+        for ( Segment seg : segments.values() )
+            size += seg.keys.size() - seg.deleted.cardinality();
+
+        return size;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Posts the name the bills of a stop were signed by, which the
+     * {@link StopLog} has just written. The line of the event holds every
+     * field of the stop that is indexed; the arrivals and departures change
+     * none of them.
+     */
+    private void signed(ChangeEvent<StopLog.Event> event) {
+        if ( event.getRecord().getKind() == StopLog.Kind.SIGNED )
+            post(DataTables.STOPS, TableMaintenance.split(DataTables.STOPS,
+                    event.getLine()));
+    }
+
+    /**
+     * Reads or makes the index of each table file and archived year that has
+     * none, or whose file has changed since it was indexed.
+     */
+    private void refresh() throws DataStoreException {
+        File dir = new File(folder + FOLDER);
+        // The ledger is shared by every truck, and so is its index.
+        File shared = new File(Starter.props.getDataFolder() + FOLDER);
+
+        try {
+            for ( File d : new File[]{dir, shared} )
+                if ( !d.exists() && !d.mkdirs() )
+                    throw new IOException("Cannot create " + d);
+
+            LinkedHashMap<String, Segment> next = new LinkedHashMap<>();
+
+            for ( DataTables table : TABLES )
+                next.put(table.getFile().getName(), open(
+                        table.isPartitioned() ? dir : shared, table,
+                        table.getFile(), -1));
+
+            List<Integer> years = new ArrayList<>(LoadArchive.getYears());
+            years.sort((a, b) -> Integer.compare(b, a));
+
+            for ( int year : years )
+                for ( DataTables table : new DataTables[]{DataTables.LOADS,
+                        DataTables.STOPS} ) {
+                    File file = LoadArchive.getSegment(table, year);
+
+                    if ( file.exists() )
+                        next.put(file.getName(), open(dir, table, file, year));
+                }
+
+            segments.clear();
+            segments.putAll(next);
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            entry.setSourceMethodName("refresh");
+            entry.setParameters(new Object[]{folder});
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+    }
+
+    private Segment open(File dir, DataTables table, File file, int year)
+            throws IOException {
+        // The stops are read with their logs folded over them.
+        File logs = table == DataTables.STOPS && year < 0
+                ? StopLog.getFolder(file) : null;
+        String signature = signatureOf(file, logs);
+        Segment seg = segments.get(file.getName());
+
+        // A record posted since the file last changed is not in the file yet.
+        if ( seg != null && (seg.signature.equals(signature)
+                || seg.posted > lastModifiedOf(file, logs)) )
+            return seg;
+
+        File idx = new File(dir, file.getName() + ".idx");
+
+        if ( idx.exists() ) {
+            seg = Segment.read(idx, table, year >= 0);
+
+            if ( seg != null && seg.signature.equals(signature) )
+                return seg;
+        }
+
+        entry.setMessage("Indexing " + file.getName() + "...");
+        entry.setSourceMethodName("open");
+        entry.setParameters(new Object[]{file});
+        entry.setThrown(null);
+        Starter.logger.enter(entry);
+
+        seg = new Segment(table, signature, year >= 0);
+
+        try ( Stream<String[]> s = year >= 0 ? LoadArchive.records(table, year)
+                : TableMaintenance.records(table) ) {
+            Iterator<String[]> it = s.iterator();
+
+            while ( it.hasNext() ) {
+                String[] f = it.next();
+                seg.remove(keyOf(table, f));
+                seg.add(table, f);
+            }
+        }
+
+        seg.write(idx);
+
+        Starter.logger.exit(entry, seg.keys.size());
+
+        return seg;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static boolean isIndexed(DataTables table) {
+        return Arrays.asList(TABLES).contains(table);
+    }
+
+    private static String signatureOf(File file, File logs) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(file.length()).append(':').append(file.lastModified());
+
+        if ( logs != null ) {
+            File[] files = logs.listFiles();
+            long length = 0;
+
+            for ( int x = 0; files != null && x < files.length; x++ )
+                length += files[x].length();
+
+            sb.append(':').append(files == null ? 0 : files.length)
+                    .append(':').append(length).append(':')
+                    .append(lastModifiedOf(file, logs));
+        }
+
+        return sb.toString();
+    }
+
+    /** The time the file, or the latest of the logs beside it, changed. */
+    private static long lastModifiedOf(File file, File logs) {
+        long modified = file.lastModified();
+        File[] files = logs == null ? null : logs.listFiles();
+
+        for ( int x = 0; files != null && x < files.length; x++ )
+            modified = Math.max(modified, files[x].lastModified());
+
+        return modified;
+    }
+
+    /** The ledger has no key, so its records are known by their text. */
+    private static String keyOf(DataTables table, String[] fields) {
+        String key = TableMaintenance.keyOf(table, fields);
+
+        return key != null ? key : String.join("~", fields);
+    }
+
+    private static String summaryOf(DataTables table, String[] f) {
+        switch ( table ) {
+            case LOADS:
+                return "Order " + f[0] + ", trip " + f[1] + ", dispatched "
+                        + f[4] + ": " + f[9].trim()
+                        + (f[19].isBlank() ? "" : ", BOL " + f[19].trim());
+            case STOPS:
+                return "Trip " + f[0] + ", stop " + f[1]
+                        + (f[11].isBlank() ? "" : ", signed for by "
+                        + f[11].trim());
+            case LEDGER:
+                return f[0] + " " + f[1] + ": " + f[2] + " (" + f[5] + ")";
+            case FUEL:
+                return f[1] + " at " + f[3]
+                        + (f[9].isBlank() ? "" : ": " + f[9].trim());
+            default:
+                return String.join(" ", f);
+        }
+    }
+
+    /** Breaks a text into lower-case words of letters and digits. */
+    private static List<String> words(String text) {
+        ArrayList<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+
+        for ( int x = 0; x <= text.length(); x++ ) {
+            char c = x < text.length() ? text.charAt(x) : ' ';
+
+            if ( Character.isLetterOrDigit(c) ) {
+                word.append(Character.toLowerCase(c));
+            } else if ( word.length() > 0 ) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+
+        return words;
+    }
+
+    private static List<Term> parse(String query) {
+        ArrayList<Term> terms = new ArrayList<>();
+
+        for ( String part : query.trim().split("\\s+") ) {
+            int fields = -1;
+            int colon = part.indexOf(':');
+
+            if ( colon > 0 ) {
+                int mask = 0;
+                String name = part.substring(0, colon).toLowerCase();
+
+                for ( int x = 0; x < FIELDS.length; x++ )
+                    if ( FIELDS[x].name.equals(name) )
+                        mask |= 1 << x;
+
+                if ( mask != 0 ) {
+                    fields = mask;
+                    part = part.substring(colon + 1);
+                }
+            }
+
+            boolean prefix = part.endsWith("*");
+            List<String> words = words(part);
+
+            for ( int x = 0; x < words.size(); x++ )
+                terms.add(new Term(words.get(x), fields,
+                        prefix && x == words.size() - 1));
+        }
+
+        return terms;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * A record found by a search.
+     */
+    public static class Hit {
+        private final DataTables table;
+        private final String key;
+        private final String summary;
+        private final boolean archived;
+
+        private Hit (DataTables table, String key, String summary,
+                boolean archived) {
+            this.table = table;
+            this.key = key;
+            this.summary = summary;
+            this.archived = archived;
+        }
+
+        public DataTables getTable() {
+            return table;
+        }
+
+        /**
+         * Retrieves the key of the record, such as "O123~T456" for a load,
+         * or the whole record for a ledger entry.
+         *
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Retrieves a line that describes the record.
+         *
+         * @return the description
+         */
+        public String getSummary() {
+            return summary;
+        }
+
+        /**
+         * Tells whether the record was found in the archive.
+         *
+         * @return `true` if the record is archived
+         */
+        public boolean isArchived() {
+            return archived;
+        }
+
+        @Override
+        public String toString() {
+            return table + ": " + summary;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Field {
+        private final DataTables table;
+        private final int column;
+        private final String name;
+
+        private Field (DataTables table, int column, String name) {
+            this.table = table;
+            this.column = column;
+            this.name = name;
+        }
+    }
+
+    private static class Term {
+        private final String word;
+        private final int fields;
+        private final boolean prefix;
+
+        private Term (String word, int fields, boolean prefix) {
+            this.word = word;
+            this.fields = fields;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * The index of one table file or archived year. Documents are numbered as
+     * they are added; a document that is replaced is marked deleted rather
+     * than taken out of the postings.
+     */
+    private static class Segment {
+        private final DataTables table;
+        private final String signature;
+        private final boolean archived;
+        private final ArrayList<String> keys;
+        private final ArrayList<String> summaries;
+        private final HashMap<String, Integer> byKey;
+        private final BitSet deleted;
+        private final TreeMap<String, Postings> terms;
+        private long posted;
+
+        private Segment (DataTables table, String signature,
+                boolean archived) {
+            this.table = table;
+            this.signature = signature;
+            this.archived = archived;
+            keys = new ArrayList<>();
+            summaries = new ArrayList<>();
+            byKey = new HashMap<>();
+            deleted = new BitSet();
+            terms = new TreeMap<>();
+            posted = 0;
+        }
+
+        private void add(DataTables table, String[] fields) {
+            int doc = keys.size();
+            String key = keyOf(table, fields);
+
+            keys.add(key);
+            summaries.add(summaryOf(table, fields));
+            byKey.put(key, doc);
+
+            for ( int x = 0; x < FIELDS.length; x++ ) {
+                if ( FIELDS[x].table != table )
+                    continue;
+
+                for ( String word : new HashSet<>(words(
+                        fields[FIELDS[x].column])) )
+                    terms.computeIfAbsent(word, w -> new Postings())
+                            .add(doc << FIELD_BITS | x);
+            }
+        }
+
+        private void remove(String key) {
+            Integer doc = byKey.remove(key);
+
+            if ( doc != null )
+                deleted.set(doc);
+        }
+
+        private BitSet match(Term term) {
+            BitSet docs = new BitSet();
+            Map<String, Postings> found = term.prefix
+                    ? terms.subMap(term.word, true, term.word
+                            + Character.MAX_VALUE, true)
+                    : terms.containsKey(term.word) ? Map.of(term.word,
+                            terms.get(term.word)) : Map.of();
+
+            for ( Postings p : found.values() )
+                for ( int x = 0; x < p.size; x++ )
+                    if ( term.fields == -1
+                            || (term.fields & 1 << (p.docs[x] & FIELD_MASK))
+                            != 0 )
+                        docs.set(p.docs[x] >>> FIELD_BITS);
+
+            return docs;
+        }
+
+        private void write(File idx) throws IOException {
+            File tmp = new File(idx.getPath() + ".tmp");
+
+            try ( DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp))) ) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(signature);
+                out.writeInt(keys.size());
+
+                for ( int x = 0; x < keys.size(); x++ ) {
+                    out.writeBoolean(deleted.get(x));
+                    out.writeUTF(keys.get(x));
+                    out.writeUTF(summaries.get(x));
+                }
+
+                out.writeInt(terms.size());
+
+                for ( Map.Entry<String, Postings> e : terms.entrySet() ) {
+                    out.writeUTF(e.getKey());
+                    out.writeInt(e.getValue().size);
+
+                    for ( int x = 0; x < e.getValue().size; x++ )
+                        out.writeInt(e.getValue().docs[x]);
+                }
+            }
+
+            Files.move(tmp.toPath(), idx.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /** Reads an index file, or returns `null` if it is not one. */
+        private static Segment read(File idx, DataTables table,
+                boolean archived) throws IOException {
+            try ( DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(idx))) ) {
+                if ( in.readInt() != MAGIC || in.readInt() != VERSION )
+                    return null;
+
+                Segment seg = new Segment(table, in.readUTF(), archived);
+                int docs = in.readInt();
+
+                for ( int x = 0; x < docs; x++ ) {
+                    boolean gone = in.readBoolean();
+                    String key = in.readUTF();
+
+                    seg.keys.add(key);
+                    seg.summaries.add(in.readUTF());
+
+                    if ( gone )
+                        seg.deleted.set(x);
+                    else
+                        seg.byKey.put(key, x);
+                }
+
+                int count = in.readInt();
+
+                for ( int x = 0; x < count; x++ ) {
+                    String word = in.readUTF();
+                    Postings p = new Postings(in.readInt());
+
+                    for ( int y = 0; y < p.docs.length; y++ )
+                        p.add(in.readInt());
+
+                    seg.terms.put(word, p);
+                }
+
+                return seg;
+            }
+        }
+    }
+
+    /** A growing list of postings, in the order they were added. */
+    private static class Postings {
+        private int[] docs;
+        private int size;
+
+        private Postings () {
+            this(4);
+        }
+
+        private Postings (int capacity) {
+            docs = new int[Math.max(1, capacity)];
+            size = 0;
+        }
+
+        private void add(int posting) {
+            if ( size == docs.length )
+                docs = Arrays.copyOf(docs, size * 2);
+
+            docs[size++] = posting;
+        }
+    }
+    //</editor-fold>
+
+}
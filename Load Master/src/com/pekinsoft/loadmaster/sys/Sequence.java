@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   Sequence.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 1:42:18 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Hands out the ID numbers of new records, and the invoice numbers,
+ *      from blocks reserved in a file in the data folder.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A named run of numbers, such as the ID numbers of the brokers, that every
+ * copy of the program using the data folder draws from without two of them
+ * ever drawing the same number.
+ * <p>
+ * The first number not yet reserved by any copy of each sequence is kept in
+ * `sequences.seq` in the data folder, one `name~number` line a sequence. A
+ * copy reserves a block of numbers at once, as many as the `sequence.block`
+ * property says, 100 if it is not set, by moving that number on under the
+ * {@link SharedTable#lock(File, boolean) lock} of the file, and then hands
+ * the block out from memory, so that a bulk import touches the file once in a
+ * hundred records rather than for each. The file is written in full to a
+ * temporary file, forced to the disk and renamed over the old one, so that it
+ * is never seen half written.</p>
+ * <p>
+ * Since a block is reserved before any of its numbers is handed out, a copy
+ * that stops, for whatever reason, leaves the rest of its block unused, and no
+ * number is handed out twice. The numbers of a sequence are therefore unique
+ * but not gapless; the invoices, which should not skip numbers,
+ * {@link #reserve(int, long) reserve} exactly the numbers they need.</p>
+ * <p>
+ * A sequence for the ID numbers of a table starts from the time at which it
+ * is first used, in milliseconds, as the ID numbers were once taken from the
+ * clock, so that none of those already in the tables is handed out again.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class Sequence {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the file of the sequences, in the data folder. */
+    public static final String FILE_NAME = "sequences.seq";
+    /** The name of the sequence of the invoice numbers. */
+    public static final String INVOICE = "invoice";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final ConcurrentHashMap<String, Sequence> sequences
+            = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final LongSupplier seed;
+    private final LogRecord entry;
+    // The block held: the next number to hand out and the first past it.
+    private long next;
+    private long limit;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private Sequence (String name, LongSupplier seed) {
+        this.name = name;
+        this.seed = seed;
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves a sequence by its name.
+     *
+     * @param name the name of the sequence, which may not contain `~`
+     * @param seed gives the first number of the sequence, should the file
+     *             not have it yet
+     * @return the sequence
+     */
+    public static Sequence get(String name, LongSupplier seed) {
+        return sequences.computeIfAbsent(name, n -> new Sequence(n, seed));
+    }
+
+    /**
+     * Retrieves the sequence of the ID numbers of a table.
+     *
+     * @param table the table
+     * @return the sequence
+     */
+    public static Sequence of(DataTables table) {
+        return get(table.toString(), System::currentTimeMillis);
+    }
+
+    /**
+     * Hands out the next ID number for a new record of a table, as the
+     * controllers do when a record without one is added.
+     *
+     * @param table the table
+     * @return the ID number
+     * @throws DataStoreException in the event the file of the sequences
+     *                            cannot be read or written
+     */
+    public static long nextId(DataTables table) throws DataStoreException {
+        try {
+            return of(table).next();
+        } catch ( IOException ex ) {
+            LogRecord record = new LogRecord(Level.SEVERE, ex.getMessage()
+                    + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            record.setSourceClassName(Sequence.class.getName());
+            record.setSourceMethodName("nextId");
+            record.setParameters(new Object[]{table});
+            record.setThrown(ex);
+            Starter.logger.error(record);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+    }
+
+    public static File getFile() {
+        return new File(Starter.props.getDataFolder() + FILE_NAME);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Hands out the next number of the sequence, reserving another block when
+     * the one held is used up.
+     *
+     * @return the number
+     * @throws IOException in the event the file of the sequences cannot be
+     *                     read or written
+     */
+    public synchronized long next() throws IOException {
+        if ( next >= limit ) {
+            int block = Math.max(1, Starter.props.getPropertyAsInt(
+                    "sequence.block", "100"));
+
+            next = take(block, Long.MIN_VALUE);
+            limit = next + block;
+        }
+
+        return next++;
+    }
+
+    /**
+     * Reserves a run of numbers that follow each other, straight from the
+     * file, leaving the block held by {@link #next()} as it is.
+     *
+     * @param count how many numbers to reserve
+     * @param floor the lowest number that may be reserved; the sequence
+     *              jumps to it if it has not reached it
+     * @return the first of the numbers
+     * @throws IOException in the event the file of the sequences cannot be
+     *                     read or written
+     */
+    public synchronized long reserve(int count, long floor)
+            throws IOException {
+        return take(count, floor);
+    }
+
+    /**
+     * Moves the sequence on to a number, if it has not reached it, such as
+     * past the ID numbers brought in by an import, so that none of those is
+     * handed out again.
+     *
+     * @param floor the lowest number to be handed out from now on
+     * @throws IOException in the event the file of the sequences cannot be
+     *                     read or written
+     */
+    public synchronized void skipTo(long floor) throws IOException {
+        take(0, floor);
+
+        if ( next < floor )
+            next = floor;
+    }
+
+    /**
+     * Gives back numbers {@link #reserve(int, long) reserved} but not used,
+     * such as those of invoices that could not be written. They are only
+     * given back if no one has reserved numbers past them since.
+     *
+     * @param first the first of the numbers
+     * @param count how many numbers were reserved
+     * @return `true` if the numbers were given back
+     * @throws IOException in the event the file of the sequences cannot be
+     *                     read or written
+     */
+    @SuppressWarnings("try")
+    public synchronized boolean release(long first, int count)
+            throws IOException {
+        File file = getFile();
+
+        try ( SharedTable.TableLock lock = SharedTable.lock(file, false) ) {
+            LinkedHashMap<String, Long> all = read(file);
+
+            if ( !Long.valueOf(first + count).equals(all.get(name)) )
+                return false;
+
+            all.put(name, first);
+            write(file, all);
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    @SuppressWarnings("try")
+    private long take(int count, long floor) throws IOException {
+        File file = getFile();
+
+        try ( SharedTable.TableLock lock = SharedTable.lock(file, false) ) {
+            LinkedHashMap<String, Long> all = read(file);
+            Long stored = all.get(name);
+            long first = Math.max(floor, stored != null ? stored
+                    : seed.getAsLong());
+
+            all.put(name, first + count);
+            write(file, all);
+
+            entry.setMessage("Reserved " + count + " numbers of the " + name
+                    + " sequence from " + first + ".");
+            entry.setSourceMethodName("take");
+            entry.setParameters(new Object[]{name, first, count});
+            Starter.logger.debug(entry);
+
+            return first;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static LinkedHashMap<String, Long> read(File file)
+            throws IOException {
+        LinkedHashMap<String, Long> all = new LinkedHashMap<>();
+
+        if ( !file.exists() )
+            return all;
+
+        for ( String line : Files.readAllLines(file.toPath(),
+                Charset.defaultCharset()) ) {
+            String[] f = line.split("~");
+
+            if ( f.length == 2 )
+                all.put(f[0], Long.valueOf(f[1].trim()));
+        }
+
+        return all;
+    }
+
+    private static void write(File file, Map<String, Long> all)
+            throws IOException {
+        StringBuilder text = new StringBuilder();
+
+        for ( Map.Entry<String, Long> e : all.entrySet() )
+            text.append(e.getKey()).append('~').append(e.getValue())
+                    .append(System.lineSeparator());
+
+        File tmp = new File(file.getPath() + ".tmp");
+        ByteBuffer buffer = Charset.defaultCharset().encode(text.toString());
+
+        try ( FileChannel channel = FileChannel.open(tmp.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING) ) {
+            while ( buffer.hasRemaining() )
+                channel.write(buffer);
+
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch ( AtomicMoveNotSupportedException ex ) {
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,521 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   SharedTable.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 8:02:19 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Reads and writes a table that other copies of the program may be
+ *      writing at the same time, without losing either's changes.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A table in a data folder that more than one copy of the program may use at
+ * once, such as a folder on a network drive shared by dispatch and a driver.
+ * <p>
+ * While a table is read, a shared lock is held on its lock file, the table
+ * file with `.lock` added to its name; while it is written, an exclusive
+ * lock. Readers may read together, but never while a writer writes. The locks
+ * are taken through a {@link FileChannel}, so they hold across processes as
+ * far as the file system honors them; within the program, the threads using
+ * a table take turns.</p>
+ * <p>
+ * The lines of the table as they were read are kept. When the table is
+ * written, the lines now on disk are read again under the exclusive lock, and
+ * if another copy of the program has written the table since, the changes of
+ * both are merged by the key of each record: records this copy added, changed
+ * or deleted are written as it has them, and the rest as the other copy left
+ * them. Where both changed the same record, this copy's change wins. A table
+ * without a key, such as the ledger, is merged by whole lines: the lines this
+ * copy added are added and the lines it took out are taken out. The merged
+ * table is written to a temporary file that then takes the table's place, so
+ * a reader never sees half of a table.</p>
+ * <p>
+ * A merge is announced to the {@link TableWatcher}, so that whatever was read
+ * from the table is read again with the other copy's changes.</p>
+ * <p>
+ * Changes to several tables that must be saved together, or not at all, are
+ * written through a {@link UnitOfWork}, which merges each of its tables in
+ * the same way.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class SharedTable {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The extension added to the name of a table to name its lock file. */
+    public static final String LOCK_EXTENSION = ".lock";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final ConcurrentHashMap<String, ReentrantLock> locks
+            = new ConcurrentHashMap<>();
+    // The size and time of each table as this program last wrote it, by path.
+    private static final ConcurrentHashMap<String, String> written
+            = new ConcurrentHashMap<>();
+
+    private final DataTables table;
+    private final File file;
+    private final LogRecord entry;
+    private List<String> baseline;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a shared table over a table file.
+     *
+     * @param table the table
+     * @param file  the file of the table, as the controller opens it
+     */
+    public SharedTable (DataTables table, File file) {
+        this.table = table;
+        this.file = file;
+        baseline = new ArrayList<>();
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Takes the lock on a table file, for code that writes a table other than
+     * through a `SharedTable`, such as compacting or archiving it.
+     *
+     * @param file   the table file
+     * @param shared `true` to read the table, `false` to write it
+     * @return the lock, which must be closed to release it
+     * @throws IOException in the event the lock file cannot be opened
+     */
+    public static TableLock lock(File file, boolean shared)
+            throws IOException {
+        // The JVM refuses two locks on one file, even shared ones, so the
+        //+ program's own threads take turns.
+        ReentrantLock local = locks.computeIfAbsent(file.getAbsolutePath(),
+                p -> new ReentrantLock());
+
+        local.lock();
+
+        try {
+            File lockFile = new File(file.getPath() + LOCK_EXTENSION);
+
+            if ( lockFile.getParentFile() != null )
+                lockFile.getParentFile().mkdirs();
+
+            FileChannel channel = FileChannel.open(lockFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+
+            try {
+                return new TableLock(local, channel,
+                        channel.lock(0, Long.MAX_VALUE, shared));
+            } catch ( IOException | RuntimeException ex ) {
+                channel.close();
+                throw ex;
+            }
+        } catch ( IOException | RuntimeException ex ) {
+            local.unlock();
+            throw ex;
+        }
+    }
+
+    /**
+     * Tells whether a table file is just as this program last wrote it, so
+     * that a change to it seen by the {@link TableWatcher} was this program's
+     * own.
+     *
+     * @param file the table file
+     * @return `true` if this program wrote the file as it stands
+     */
+    public static boolean isOwnWrite(File file) {
+        return signatureOf(file).equals(written.get(file.getAbsolutePath()));
+    }
+
+    /**
+     * Moves a file written in full over a table, or any other file that must
+     * never be seen half written. The file is forced to the disk before it
+     * is renamed, so that a power failure cannot leave the table renamed over
+     * with a file not yet written, and the rename is atomic where the file
+     * system allows it.
+     *
+     * @param tmp  the file written, which is moved away
+     * @param file the file it replaces
+     * @throws IOException in the event the file cannot be forced or moved
+     */
+    public static void replace(File tmp, File file) throws IOException {
+        try ( FileChannel channel = FileChannel.open(tmp.toPath(),
+                StandardOpenOption.WRITE) ) {
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch ( AtomicMoveNotSupportedException ex ) {
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Reads the table under a shared lock, and keeps its lines as they were
+     * read.
+     *
+     * @return a reader of the lines read, which holds no file open
+     * @throws IOException in the event the table cannot be read
+     */
+    @SuppressWarnings("try")
+    public BufferedReader open() throws IOException {
+        try ( TableLock lock = lock(file, true) ) {
+            baseline = readLines();
+        }
+
+        StringBuilder text = new StringBuilder();
+
+        for ( String line : baseline )
+            text.append(line).append('\n');
+
+        return new BufferedReader(new StringReader(text.toString()));
+    }
+
+    /**
+     * Opens a writer of the whole table. What is written is kept in memory
+     * until the writer is closed, and then {@link #write(List) written} to the
+     * table.
+     *
+     * @return the writer
+     */
+    public BufferedWriter writer() {
+        return new BufferedWriter(new StringWriter() {
+            private boolean closed = false;
+
+            @Override
+            public void close() throws IOException {
+                if ( closed )
+                    return;
+
+                closed = true;
+                SharedTable.this.write(Arrays.asList(toString().split("\n")));
+            }
+        });
+    }
+
+    /**
+     * Writes the whole table under an exclusive lock, merged with whatever
+     * another copy of the program has written since the table was read.
+     *
+     * @param lines the lines of the table, as this copy has them
+     * @return the number of records of the other copy's that were merged in,
+     *         or zero if the table had not been written by another copy
+     * @throws IOException in the event the table cannot be read or written
+     */
+    @SuppressWarnings("try")
+    public int write(List<String> lines) throws IOException {
+        Merge merge;
+
+        try ( TableLock lock = lock(file, false) ) {
+            merge = merge(lines);
+            replace(merge.lines);
+            wrote(merge.lines);
+        }
+
+        if ( merge.foreign > 0 )
+            TableWatcher.fire(table);
+
+        return merge.foreign;
+    }
+
+    public DataTables getTable() {
+        return table;
+    }
+
+    public File getFile() {
+        return file;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package Instance Methods">
+    /**
+     * Merges the lines of the table, as this copy has them, with what another
+     * copy of the program has written since the table was read. The caller
+     * must hold the exclusive lock on the table.
+     *
+     * @param lines the lines of the table, as this copy has them
+     * @return the lines to write, and how many of them are the other copy's
+     * @throws IOException in the event the table cannot be read
+     */
+    Merge merge(List<String> lines) throws IOException {
+        ArrayList<String> ours = new ArrayList<>();
+
+        for ( String line : lines )
+            if ( !line.isBlank() )
+                ours.add(line);
+
+        List<String> theirs = readLines();
+
+        if ( theirs.equals(baseline) )
+            return new Merge(ours, 0);
+
+        List<String> result = table.getKeyFields().length > 0
+                ? mergeByKey(ours, theirs) : mergeByLine(ours, theirs);
+        Merge merge = new Merge(result, countForeign(result, ours));
+
+        entry.setMessage(file.getName() + " was written by another user "
+                + "since it was read; " + merge.foreign + " of their records "
+                + "were kept.");
+        entry.setSourceMethodName("merge");
+        entry.setParameters(new Object[]{file});
+        entry.setThrown(null);
+        Starter.logger.info(entry);
+
+        return merge;
+    }
+
+    /**
+     * Takes the lines just put in place of the table as the lines it was
+     * read with, and the file as this program's own write. The caller must
+     * still hold the exclusive lock on the table.
+     *
+     * @param lines the lines written
+     */
+    void wrote(List<String> lines) {
+        baseline = lines;
+        written.put(file.getAbsolutePath(), signatureOf(file));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private List<String> readLines() throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+
+        if ( !file.exists() )
+            return lines;
+
+        for ( String line : Files.readAllLines(file.toPath(),
+                Charset.defaultCharset()) )
+            if ( !line.isBlank() )
+                lines.add(line);
+
+        return lines;
+    }
+
+    private void replace(List<String> lines) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        StringBuilder text = new StringBuilder();
+
+        for ( String line : lines )
+            text.append(line).append(System.lineSeparator());
+
+        ByteBuffer buffer = Charset.defaultCharset().encode(text.toString());
+
+        try ( FileChannel channel = FileChannel.open(tmp.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING) ) {
+            while ( buffer.hasRemaining() )
+                channel.write(buffer);
+        }
+
+        replace(tmp, file);
+    }
+
+    private String keyOf(String line) {
+        String key = TableMaintenance.keyOf(table, TableMaintenance.split(
+                table, line));
+
+        return key != null ? key : line;
+    }
+
+    private List<String> mergeByKey(List<String> ours, List<String> theirs) {
+        Map<String, String> base = byKey(baseline);
+        Map<String, String> mine = byKey(ours);
+        LinkedHashMap<String, String> result = new LinkedHashMap<>();
+
+        // Their records in their order, unless this copy changed or deleted
+        //+ them.
+        for ( Map.Entry<String, String> e : byKey(theirs).entrySet() ) {
+            String key = e.getKey();
+            boolean changed = !Objects.equals(mine.get(key),
+                    base.get(key));
+
+            if ( !changed )
+                result.put(key, e.getValue());
+            else if ( mine.containsKey(key) )
+                result.put(key, mine.get(key));
+        }
+
+        // Then the records this copy added, and those it changed that the
+        //+ other copy deleted.
+        for ( Map.Entry<String, String> e : mine.entrySet() )
+            if ( !result.containsKey(e.getKey())
+                    && !e.getValue().equals(base.get(e.getKey())) )
+                result.put(e.getKey(), e.getValue());
+
+        return new ArrayList<>(result.values());
+    }
+
+    private List<String> mergeByLine(List<String> ours, List<String> theirs) {
+        HashMap<String, Integer> delta = new HashMap<>();
+
+        for ( String line : ours )
+            delta.merge(line, 1, Integer::sum);
+        for ( String line : baseline )
+            delta.merge(line, -1, Integer::sum);
+
+        ArrayList<String> result = new ArrayList<>();
+
+        for ( String line : theirs ) {
+            Integer d = delta.get(line);
+
+            if ( d != null && d < 0 )
+                delta.put(line, d + 1);     // Taken out by this copy.
+            else
+                result.add(line);
+        }
+
+        for ( String line : ours ) {
+            Integer d = delta.get(line);
+
+            if ( d != null && d > 0 ) {
+                delta.put(line, d - 1);     // Added by this copy.
+                result.add(line);
+            }
+        }
+
+        return result;
+    }
+
+    private Map<String, String> byKey(List<String> lines) {
+        LinkedHashMap<String, String> map = new LinkedHashMap<>();
+
+        for ( String line : lines )
+            map.put(keyOf(line), line);
+
+        return map;
+    }
+
+    private static int countForeign(List<String> result, List<String> ours) {
+        HashMap<String, Integer> mine = new HashMap<>();
+        int foreign = 0;
+
+        for ( String line : ours )
+            mine.merge(line, 1, Integer::sum);
+
+        for ( String line : result ) {
+            Integer n = mine.get(line);
+
+            if ( n == null || n == 0 )
+                foreign++;
+            else
+                mine.put(line, n - 1);
+        }
+
+        return foreign;
+    }
+
+    private static String signatureOf(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Package Static Classes">
+    /** The lines to write to a table, once merged. */
+    static class Merge {
+        final List<String> lines;
+        final int foreign;
+
+        private Merge (List<String> lines, int foreign) {
+            this.lines = lines;
+            this.foreign = foreign;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * A lock held on a table, both within the program and on its lock file.
+     */
+    public static class TableLock implements AutoCloseable {
+        private final ReentrantLock local;
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        private TableLock (ReentrantLock local, FileChannel channel,
+                FileLock lock) {
+            this.local = local;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                lock.release();
+                channel.close();
+            } finally {
+                local.unlock();
+            }
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,590 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   StopLog.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 10:37:52 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Records the arrivals, departures and signatures of the stops of each
+ *      trip as they happen, and works out the state of the stops from them.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.err.ValidationException;
+import com.pekinsoft.loadmaster.utils.FileUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The log of what has happened at the stops of each trip. Arriving at a stop,
+ * departing from it and having the bills signed are each one short line added
+ * to the end of the trip's log and forced to the disk, rather than the whole
+ * stops table being written again, so tapping Arrive or Depart in the cab
+ * costs next to nothing and is not lost if the power goes.
+ * <p>
+ * The logs are kept in the `stoplog` folder beside the stops table, which is
+ * the partition of the truck in fleet mode, one `<trip>.log` for each trip.
+ * The trip number is written in the file name by
+ * {@link FileUtils#toFileName(String) toFileName}, so that no two trip
+ * numbers share a log, even where the file system does not tell capitals
+ * from small letters. A line is the kind of event, the stop number and then
+ * a date and time or the name the bills were signed by:</p>
+ * <pre>
+ * ARRIVE~2~10/19/2026~08:15~
+ * DEPART~2~10/19/2026~09:40~
+ * SIGNED~2~~~J SMITH
+ * </pre>
+ * <p>
+ * The stops table holds the stops as they were booked, and the state of a
+ * stop is its record with the events of its trip {@link Replay#fold(String[])
+ * folded} over it in order, the last of each kind winning. The records read
+ * through {@link TableMaintenance#records(DataTables) records} and the
+ * {@link com.pekinsoft.loadmaster.controller.StopCtl StopCtl} are folded
+ * already, and the folded records are what is written back whenever the
+ * stops table is saved or compacted, which makes the table a checkpoint of
+ * the logs. A log is taken away when its trip is archived.</p>
+ * <p>
+ * Each event is published on the {@link ChangeBus} as an update of its stop
+ * once it is on the disk. The record of the event is the {@link Event}, and
+ * its line holds the trip, the stop and the fields the event fills in, with
+ * the rest left blank, as the stop itself is not read.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class StopLog {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The name of the folder of logs beside the stops table. */
+    public static final String FOLDER = "stoplog";
+    /** The extension of the log files. */
+    public static final String EXTENSION = ".log";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    // The fields of a stop record that the events fill in.
+    private static final int ARR_DATE = 7;
+    private static final int ARR_TIME = 8;
+    private static final int DEP_DATE = 9;
+    private static final int DEP_TIME = 10;
+    private static final int SIGNED_BY = 11;
+
+    private static final LogRecord entry = new LogRecord(Level.FINEST, "");
+
+    static {
+        entry.setSourceClassName(StopLog.class.getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private StopLog () {
+        // Only static methods.
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Retrieves the folder of logs of the current truck.
+     *
+     * @return the folder, which may not exist yet
+     */
+    public static File getFolder() {
+        return getFolder(DataTables.STOPS.getFile());
+    }
+
+    /**
+     * Retrieves the folder of logs that goes with a stops table, such as that
+     * of one truck in fleet mode.
+     *
+     * @param stops the stops table
+     * @return the folder, which may not exist yet
+     */
+    public static File getFolder(File stops) {
+        return new File(stops.getAbsoluteFile().getParentFile(), FOLDER);
+    }
+
+    /**
+     * Retrieves the log of a trip of the current truck.
+     *
+     * @param trip the trip number
+     * @return the log file, which may not exist yet
+     */
+    public static File getFile(String trip) {
+        return fileOf(getFolder(), trip);
+    }
+
+    /**
+     * Records the arrival at a stop.
+     *
+     * @param trip the trip number
+     * @param stop the stop number
+     * @param when the time of arrival
+     * @throws DataStoreException in the event the log cannot be written
+     */
+    public static void arrive(String trip, int stop, Date when)
+            throws DataStoreException {
+        append(trip, new Event(Kind.ARRIVE, stop, when, null));
+    }
+
+    /**
+     * Records the departure from a stop.
+     *
+     * @param trip the trip number
+     * @param stop the stop number
+     * @param when the time of departure
+     * @throws DataStoreException in the event the log cannot be written
+     */
+    public static void depart(String trip, int stop, Date when)
+            throws DataStoreException {
+        append(trip, new Event(Kind.DEPART, stop, when, null));
+    }
+
+    /**
+     * Records the name the bills of a stop were signed by.
+     *
+     * @param trip the trip number
+     * @param stop the stop number
+     * @param name the name of the person who signed
+     * @throws DataStoreException in the event the log cannot be written
+     */
+    public static void signedBy(String trip, int stop, String name)
+            throws DataStoreException {
+        append(trip, new Event(Kind.SIGNED, stop, null, name));
+    }
+
+    /**
+     * Reads the events of a trip of the current truck, in the order they
+     * happened.
+     *
+     * @param trip the trip number
+     * @return the events, which are none if the trip has no log
+     * @throws IOException in the event the log cannot be read
+     */
+    public static List<Event> read(String trip) throws IOException {
+        return read(getFile(trip));
+    }
+
+    /**
+     * Works out the stop that an arrival on a trip is at: the one after the
+     * last stop that anything happened at, or the first stop if nothing has
+     * happened yet.
+     *
+     * @param trip the trip number
+     * @return the stop number
+     * @throws IOException in the event the log or the stops table cannot be
+     *                     read
+     * @throws ValidationException if the truck has not yet departed from the
+     *                             last stop it arrived at, or the trip has no
+     *                             more stops
+     */
+    public static int getArrivalStop(String trip) throws IOException,
+            ValidationException {
+        int last = 0;
+        Kind lastKind = null;
+
+        for ( Event e : read(trip) ) {
+            if ( e.getStop() > last )
+                lastKind = null;
+
+            if ( e.getStop() >= last ) {
+                last = e.getStop();
+
+                // A signature says nothing of whether the truck has left.
+                if ( e.getKind() != Kind.SIGNED )
+                    lastKind = e.getKind();
+            }
+        }
+
+        if ( lastKind == Kind.ARRIVE )
+            throw new ValidationException("Trip " + trip + " is still at stop "
+                    + last + ". Depart from it before arriving at the next.");
+
+        int stops = getStopCount(trip);
+
+        if ( stops == 0 )
+            throw new ValidationException("Trip " + trip + " has no stops.");
+        else if ( last >= stops )
+            throw new ValidationException("Trip " + trip + " has no stops "
+                    + "after stop " + last + ".");
+
+        return last + 1;
+    }
+
+    /**
+     * Works out the stop that a departure on a trip is from: the last stop
+     * arrived at, unless it has been left already, in which case the driver
+     * did not tap Arrive at the next one and it is the stop after it.
+     *
+     * @param trip the trip number
+     * @return the stop number
+     * @throws IOException in the event the log cannot be read
+     */
+    public static int getDepartureStop(String trip) throws IOException {
+        int arrived = 0;
+        int departed = 0;
+
+        for ( Event e : read(trip) ) {
+            if ( e.getKind() == Kind.ARRIVE )
+                arrived = Math.max(arrived, e.getStop());
+            else if ( e.getKind() == Kind.DEPART )
+                departed = Math.max(departed, e.getStop());
+        }
+
+        return arrived > departed ? arrived : departed + 1;
+    }
+
+    /**
+     * Counts the stops of a trip of the current truck, as the highest stop
+     * number it has in the stops table.
+     *
+     * @param trip the trip number
+     * @return the number of stops, which is 0 if the trip has none
+     * @throws IOException in the event the stops table cannot be read
+     */
+    public static int getStopCount(String trip) throws IOException {
+        File file = DataTables.STOPS.getFile();
+        int stops = 0;
+
+        if ( !file.exists() )
+            return stops;
+
+        for ( String line : Files.readAllLines(file.toPath(),
+                Charset.defaultCharset()) ) {
+            String[] f = line.split("~", 3);
+
+            if ( f.length < 3 || !f[0].trim().equals(trip.trim()) )
+                continue;
+
+            try {
+                stops = Math.max(stops, Integer.parseInt(f[1].trim()));
+            } catch ( NumberFormatException ex ) {
+                // Not a stop record; TableMaintenance reports it.
+            }
+        }
+
+        return stops;
+    }
+
+    /**
+     * Takes away the log of a trip, once its stops have been written where
+     * they will be kept, such as into the archive.
+     *
+     * @param folder the folder of logs
+     * @param trip   the trip number
+     * @return `true` if there was a log to take away
+     */
+    public static boolean remove(File folder, String trip) {
+        return fileOf(folder, trip).delete();
+    }
+
+    /**
+     * Begins folding the logs of the current truck over stop records.
+     *
+     * @return the replay
+     */
+    public static Replay replay() {
+        return new Replay(getFolder());
+    }
+
+    /**
+     * Begins folding the logs that go with a stops table over its records.
+     *
+     * @param stops the stops table
+     * @return the replay
+     */
+    public static Replay replay(File stops) {
+        return new Replay(getFolder(stops));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static File fileOf(File folder, String trip) {
+        return new File(folder, FileUtils.toFileName(trip) + EXTENSION);
+    }
+
+    @SuppressWarnings("try")
+    private static void append(String trip, Event event)
+            throws DataStoreException {
+        entry.setMessage("Logging " + event + " on trip " + trip);
+        entry.setSourceMethodName("append");
+        entry.setParameters(new Object[]{trip, event});
+        entry.setThrown(null);
+        Starter.logger.enter(entry);
+
+        File file = getFile(trip);
+        byte[] line = (event.toLine() + "\n").getBytes(
+                Charset.defaultCharset());
+
+        // DSYNC puts the line on the disk before the write returns, without
+        //+ waiting on the file's times as SYNC would.
+        try ( SharedTable.TableLock lock = SharedTable.lock(file, false);
+                FileChannel out = FileChannel.open(file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                        StandardOpenOption.DSYNC) ) {
+            ByteBuffer buf = ByteBuffer.wrap(line);
+
+            while ( buf.hasRemaining() )
+                out.write(buf);
+        } catch ( IOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        String[] fields = new String[DataTables.STOPS.getFieldCount()];
+        Arrays.fill(fields, "");
+        fields[0] = trip;
+        fields[1] = String.valueOf(event.getStop());
+        event.fill(fields);
+
+        ChangeBus.publish(new ChangeEvent<>(StopLog.class, DataTables.STOPS,
+                ChangeEvent.Type.UPDATE, event, String.join("~", fields)));
+
+        Starter.logger.exit(entry, null);
+    }
+
+    private static List<Event> read(File file) throws IOException {
+        ArrayList<Event> events = new ArrayList<>();
+
+        if ( !file.exists() )
+            return events;
+
+        for ( String line : Files.readAllLines(file.toPath(),
+                Charset.defaultCharset()) ) {
+            Event e = Event.parse(line);
+
+            // A line cut short by a power failure is the last one, and is
+            //+ no event at all.
+            if ( e != null )
+                events.add(e);
+        }
+
+        return events;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Enums">
+    /** The kinds of events. */
+    public enum Kind {
+        ARRIVE, DEPART, SIGNED
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * One thing that happened at a stop.
+     */
+    public static class Event {
+        private final Kind kind;
+        private final int stop;
+        private final String date;
+        private final String time;
+        private final String name;
+
+        private Event (Kind kind, int stop, Date when, String name) {
+            this.kind = kind;
+            this.stop = stop;
+            date = when == null ? "" : new SimpleDateFormat("MM/dd/yyyy")
+                    .format(when);
+            time = when == null ? "" : new SimpleDateFormat("HH:mm")
+                    .format(when);
+            // The name goes into a table field, so it may not end the field.
+            this.name = name == null ? "" : name.replaceAll("[~\\r\\n]", " ")
+                    .trim();
+        }
+
+        private Event (Kind kind, int stop, String date, String time,
+                String name) {
+            this.kind = kind;
+            this.stop = stop;
+            this.date = date;
+            this.time = time;
+            this.name = name;
+        }
+
+        private static Event parse(String line) {
+            String[] f = line.split("~", -1);
+
+            if ( f.length != 5 )
+                return null;
+
+            try {
+                return new Event(Kind.valueOf(f[0]), Integer.parseInt(f[1]),
+                        f[2], f[3], f[4]);
+            } catch ( IllegalArgumentException ex ) {
+                return null;
+            }
+        }
+
+        private String toLine() {
+            return kind + "~" + stop + "~" + date + "~" + time + "~" + name;
+        }
+
+        /** Fills in the fields of a stop record that this event sets. */
+        private void fill(String[] fields) {
+            switch ( kind ) {
+                case ARRIVE:
+                    fields[ARR_DATE] = date;
+                    fields[ARR_TIME] = time;
+                    break;
+                case DEPART:
+                    fields[DEP_DATE] = date;
+                    fields[DEP_TIME] = time;
+                    break;
+                default:
+                    fields[SIGNED_BY] = name;
+            }
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getStop() {
+            return stop;
+        }
+
+        /**
+         * Retrieves the date of an arrival or departure.
+         *
+         * @return the date, as MM/dd/yyyy, or an empty string for a signature
+         */
+        public String getDate() {
+            return date;
+        }
+
+        /**
+         * Retrieves the time of an arrival or departure.
+         *
+         * @return the time, as HH:mm, or an empty string for a signature
+         */
+        public String getTime() {
+            return time;
+        }
+
+        /**
+         * Retrieves the name the bills were signed by.
+         *
+         * @return the name, or an empty string for an arrival or departure
+         */
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " at stop " + stop;
+        }
+    }
+
+    /**
+     * Folds the logs over stop records. Each trip's log is read the first
+     * time one of its stops is folded, so a replay should be used for one
+     * pass over the stops and then let go.
+     */
+    public static class Replay {
+        private final File folder;
+        // The arrival, departure and signature fields of each stop, by trip.
+        private final HashMap<String, TreeMap<Integer, String[]>> trips;
+
+        private Replay (File folder) {
+            this.folder = folder;
+            trips = new HashMap<>();
+        }
+
+        /**
+         * Folds the events of a stop over its record.
+         *
+         * @param fields the fields of the stop record, as they are split by
+         *               {@link TableMaintenance#split(DataTables, String)
+         *               split}
+         * @return the fields with the arrival, departure and signature filled
+         *         in from the log, or the fields themselves if nothing has
+         *         been logged for the stop
+         * @throws IOException in the event the log of the trip cannot be read
+         */
+        public String[] fold(String[] fields) throws IOException {
+            TreeMap<Integer, String[]> stops = trips.get(fields[0]);
+
+            if ( stops == null ) {
+                stops = new TreeMap<>();
+
+                for ( Event e : StopLog.read(fileOf(folder, fields[0])) ) {
+                    e.fill(stops.computeIfAbsent(e.getStop(),
+                            k -> new String[SIGNED_BY + 1]));
+                }
+
+                trips.put(fields[0], stops);
+            }
+
+            String[] s;
+
+            try {
+                s = stops.get(Integer.valueOf(fields[1].trim()));
+            } catch ( NumberFormatException ex ) {
+                return fields;
+            }
+
+            if ( s == null )
+                return fields;
+
+            String[] folded = Arrays.copyOf(fields, Math.max(fields.length,
+                    SIGNED_BY + 1));
+
+            for ( int x = ARR_DATE; x <= SIGNED_BY; x++ )
+                if ( s[x] != null )
+                    folded[x] = s[x].isEmpty() ? " " : s[x];
+
+            return folded;
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   TableMaintenance.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 9:31:07 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Provides line-level verification and compaction of the flat-file data
+ *      tables. These operations stream the raw table files and never build
+ *      the model objects, so they can be run against large tables without a
+ *      display and without loading the tables into memory.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * Maintenance operations on the raw data tables.
+ * <p>
+ * A line is considered valid when it has the number of fields that its table
+ * calls for and every field can be parsed as the type given in the table's
+ * layout (see {@link DataTables}). Load records written by older versions of
+ * `LoadCtl` carry an extra, empty field before the completed flag; those lines
+ * are accepted and are rewritten in the current layout when the table is
+ * compacted.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class TableMaintenance {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final LogRecord entry;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Static Initializer">
+    static {
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(TableMaintenance.class.getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private TableMaintenance () {
+        /* to prevent instantiation */
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Splits a raw table line into its fields, bringing legacy load records
+     * into the current layout. Empty fields are kept, trailing ones too, as
+     * the controllers write an optional field that was left blank as
+     * nothing at all.
+     *
+     * @param table the table the line belongs to
+     * @param line  the raw line
+     * @return the fields of the record
+     */
+    public static String[] split(DataTables table, String line) {
+        String[] fields = line.split("~", -1);
+
+        if ( table == DataTables.LOADS
+                && fields.length == table.getFieldCount() + 1
+                && fields[20].isBlank() ) {
+            String[] fixed = new String[table.getFieldCount()];
+            System.arraycopy(fields, 0, fixed, 0, 20);
+            System.arraycopy(fields, 21, fixed, 20, 2);
+            fields = fixed;
+        }
+
+        return fields;
+    }
+
+    /**
+     * Validates the fields of a record against the layout of its table. Text
+     * fields may be empty, such as the suite of a broker or the notes of a
+     * fuel purchase, unless they are part of the key of the record.
+     *
+     * @param table  the table the record belongs to
+     * @param fields the fields of the record, as returned by
+     *               {@link #split(DataTables, String) split}
+     * @return `null` if the record is valid; otherwise, a description of the
+     *         first problem found
+     */
+    public static String validate(DataTables table, String[] fields) {
+        if ( fields.length != table.getFieldCount() )
+            return "expected " + table.getFieldCount() + " fields, found "
+                    + fields.length;
+
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+        sdf.setLenient(false);
+        SimpleDateFormat tf = new SimpleDateFormat("HH:mm");
+        tf.setLenient(false);
+
+        for ( int x = 0; x < fields.length; x++ ) {
+            String f = fields[x];
+
+            try {
+                switch ( table.getFieldType(x) ) {
+                    case 'I':
+                        Integer.parseInt(f);
+                        break;
+                    case 'L':
+                        Long.parseLong(f);
+                        break;
+                    case 'D':
+                        Double.parseDouble(f);
+                        break;
+                    case 'B':
+                        if ( !f.equalsIgnoreCase("true")
+                                && !f.equalsIgnoreCase("false") )
+                            return "field " + x + " is not true/false: " + f;
+                        break;
+                    case 'T':
+                        sdf.parse(f);
+                        break;
+                    case 't':
+                        if ( f.length() > 1 )
+                            sdf.parse(f);
+                        break;
+                    case 'h':
+                        if ( f.length() > 1 )
+                            tf.parse(f);
+                        break;
+                    default:
+                        if ( f.isBlank() && isKeyField(table, x) )
+                            return "field " + x + " is empty";
+                }
+            } catch ( NumberFormatException | ParseException ex ) {
+                return "field " + x + " is invalid: " + f;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Builds the unique key of a record from its key fields.
+     *
+     * @param table  the table the record belongs to
+     * @param fields the fields of the record
+     * @return the key of the record, or `null` if the table is not keyed
+     */
+    public static String keyOf(DataTables table, String[] fields) {
+        int[] keys = table.getKeyFields();
+
+        if ( keys.length == 0 )
+            return null;
+
+        StringBuilder sb = new StringBuilder(fields[keys[0]]);
+        for ( int x = 1; x < keys.length; x++ )
+            sb.append('~').append(fields[keys[x]]);
+
+        return sb.toString();
+    }
+
+    /**
+     * Reads the valid records of a table. Damaged lines are skipped; they are
+     * the business of {@link #verify(DataTables, PrintStream) verify} and
+     * {@link #compact(DataTables) compact}. The records are read as they are
+     * consumed, so the caller must close the stream.
+     *
+     * @param table the table to read
+     * @return the records of the table, or an empty stream if the table does
+     *         not exist yet
+     * @throws IOException in the event the table cannot be opened
+     */
+    public static Stream<String[]> records(DataTables table)
+            throws IOException {
+        return records(table, table.getFile());
+    }
+
+    /**
+     * Reads the valid records of a copy of a table, such as the table of one
+     * truck in fleet mode, as {@link #records(DataTables) records} does.
+     *
+     * @param table the table the file is a copy of
+     * @param file  the file to read
+     * @return the records of the file, or an empty stream if the file does
+     *         not exist
+     * @throws IOException in the event the file cannot be opened
+     */
+    public static Stream<String[]> records(DataTables table, File file)
+            throws IOException {
+        if ( !file.exists() )
+            return Stream.empty();
+
+        Stream<String[]> records = Files.lines(file.toPath(),
+                Charset.defaultCharset())
+                .filter(line -> !line.isBlank())
+                .map(line -> split(table, line))
+                .filter(f -> validate(table, f) == null);
+
+        if ( table != DataTables.STOPS )
+            return records;
+
+        // The stops are read as they stand, with what has been logged at
+        //+ them since the table was last written.
+        StopLog.Replay replay = StopLog.replay(file);
+
+        return records.map(f -> {
+            try {
+                return replay.fold(f);
+            } catch ( IOException ex ) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Reads through a table and checks every line of it.
+     *
+     * @param table the table to verify
+     * @param out   where to report each bad line, or `null` to only count them
+     * @return an array of two elements: the number of lines read and the
+     *         number of bad lines found
+     * @throws DataStoreException in the event the table cannot be read
+     */
+    public static long[] verify(DataTables table, PrintStream out)
+            throws DataStoreException {
+        long[] counts = new long[2];
+        File file = table.getFile();
+
+        if ( !file.exists() )
+            return counts;
+
+        try ( BufferedReader in = new BufferedReader(new FileReader(file)) ) {
+            String line;
+
+            while ( (line = in.readLine()) != null ) {
+                counts[0]++;
+
+                if ( line.isBlank() ) {
+                    counts[1]++;
+                    if ( out != null )
+                        out.println(table + ":" + counts[0] + ": blank line");
+                    continue;
+                }
+
+                String problem = validate(table, split(table, line));
+
+                if ( problem != null ) {
+                    counts[1]++;
+                    if ( out != null )
+                        out.println(table + ":" + counts[0] + ": " + problem);
+                }
+            }
+        } catch ( IOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            entry.setSourceMethodName("verify");
+            entry.setParameters(new Object[]{table});
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Compacts a table. Blank lines are dropped, legacy records are rewritten
+     * in the current layout and, for keyed tables, only the last copy of each
+     * record is kept. Lines that cannot be parsed are not thrown away: they are
+     * moved to a `.rej` file next to the table so they can be repaired by hand.
+     * The previous table is kept as a `.bak` file and the compacted table
+     * replaces it in a single move.
+     *
+     * @param table the table to compact
+     * @return an array of three elements: the number of lines read, the number
+     *         of lines written and the number of lines rejected
+     * @throws DataStoreException in the event the table cannot be rewritten
+     */
+    @SuppressWarnings("try")
+    public static long[] compact(DataTables table) throws DataStoreException {
+        long[] counts = new long[3];
+        File file = table.getFile();
+
+        if ( !file.exists() )
+            return counts;
+
+        File tmp = new File(file.getPath() + ".tmp");
+        File rej = new File(file.getPath() + ".rej");
+        File bak = new File(file.getPath() + ".bak");
+
+        // Hold the table against other copies of the program until the
+        // compacted table is in place.
+        try ( SharedTable.TableLock lock = SharedTable.lock(file, false) ) {
+            // First pass: find the line holding the last copy of each record.
+            HashMap<String, Long> last = new HashMap<>();
+
+            if ( table.getKeyFields().length > 0 ) {
+                try ( BufferedReader in = new BufferedReader(
+                        new FileReader(file)) ) {
+                    String line;
+                    long lineNo = 0;
+
+                    while ( (line = in.readLine()) != null ) {
+                        lineNo++;
+                        String[] fields = split(table, line);
+
+                        if ( !line.isBlank()
+                                && validate(table, fields) == null )
+                            last.put(keyOf(table, fields), lineNo);
+                    }
+                }
+            }
+
+            // Second pass: write out the surviving records, the stops with
+            //+ their logs folded in.
+            StopLog.Replay replay = table == DataTables.STOPS
+                    ? StopLog.replay(file) : null;
+
+            try ( BufferedReader in = new BufferedReader(new FileReader(file));
+                    BufferedWriter w = new BufferedWriter(new FileWriter(tmp));
+                    BufferedWriter r = new BufferedWriter(
+                            new FileWriter(rej, true)) ) {
+                String line;
+
+                while ( (line = in.readLine()) != null ) {
+                    counts[0]++;
+
+                    if ( line.isBlank() )
+                        continue;
+
+                    String[] fields = split(table, line);
+
+                    if ( validate(table, fields) != null ) {
+                        r.write(line + "\n");
+                        counts[2]++;
+                    } else if ( last.isEmpty()
+                            || last.get(keyOf(table, fields)) == counts[0] ) {
+                        if ( replay != null )
+                            fields = replay.fold(fields);
+
+                        w.write(String.join("~", fields) + "\n");
+                        counts[1]++;
+                    }
+                }
+            }
+
+            if ( rej.length() == 0 )
+                rej.delete();
+
+            Starter.props.setPropertyAsLong(table.getCountProperty(), counts[1]);
+
+            Files.copy(file.toPath(), bak.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            SharedTable.replace(tmp, file);
+        } catch ( IOException ex ) {
+            tmp.delete();
+
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            entry.setSourceMethodName("compact");
+            entry.setParameters(new Object[]{table});
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        return counts;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static boolean isKeyField(DataTables table, int field) {
+        for ( int key : table.getKeyFields() )
+            if ( key == field )
+                return true;
+
+        return false;
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   TableWatcher.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 8:44:31 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Tells whoever has read a table when another copy of the program has
+ *      changed it.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Watches the tables of the data folder for changes made by another copy of
+ * the program sharing the folder, and tells the listeners which tables
+ * changed, so that only what was read from those tables is read again.
+ * <p>
+ * The data folder, and the partition of the current truck in fleet mode, are
+ * watched through a {@link WatchService}. Since a watch service hears nothing
+ * of the changes made to a network drive by another computer on many systems,
+ * the size and time of each table are also looked at every few seconds, as
+ * set by the `data.watch.interval` property, 5 if it is not set. A table this
+ * program {@link SharedTable wrote} itself is not reported.</p>
+ * <p>
+ * Listeners are called on the watcher's thread, or on the thread that
+ * {@link #fire(DataTables) fired} the change, and must not block. Listeners
+ * may be added whether or not the watcher is running; only the main window
+ * starts it, as the headless commands are over before another copy could
+ * matter.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class TableWatcher implements Runnable {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final CopyOnWriteArrayList<Registration> listeners
+            = new CopyOnWriteArrayList<>();
+    private static final LogRecord entry = new LogRecord(Level.FINEST, "");
+    private static Thread thread;
+
+    // How long to wait for the last of the events of one write.
+    private static final long QUIET = 250;
+
+    private final EnumMap<DataTables, String> seen;
+    private final HashSet<Path> watched;
+    private final long interval;
+
+    static {
+        entry.setSourceClassName(TableWatcher.class.getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private TableWatcher () {
+        seen = new EnumMap<>(DataTables.class);
+        watched = new HashSet<>();
+        interval = Math.max(1, Starter.props.getPropertyAsInt(
+                "data.watch.interval", "5"));
+
+        for ( DataTables table : DataTables.values() )
+            seen.put(table, signatureOf(table.getFile()));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Starts watching the data folder, unless it is already being watched.
+     */
+    public static synchronized void start() {
+        if ( thread != null && thread.isAlive() )
+            return;
+
+        thread = new Thread(new TableWatcher(), "TableWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the data folder.
+     */
+    public static synchronized void stop() {
+        if ( thread != null )
+            thread.interrupt();
+
+        thread = null;
+    }
+
+    /**
+     * Adds a listener to be told of changes to some of the tables.
+     *
+     * @param listener the listener
+     * @param tables   the tables the listener cares about, or none for all
+     */
+    public static void addListener(TableListener listener,
+            DataTables... tables) {
+        listeners.add(new Registration(listener, tables.length == 0
+                ? EnumSet.allOf(DataTables.class)
+                : EnumSet.copyOf(Arrays.asList(tables))));
+    }
+
+    public static void removeListener(TableListener listener) {
+        listeners.removeIf(r -> r.listener == listener);
+    }
+
+    /**
+     * Tells the listeners that a table has changed.
+     *
+     * @param table the table
+     */
+    public static void fire(DataTables table) {
+        for ( Registration r : listeners ) {
+            if ( !r.tables.contains(table) )
+                continue;
+
+            try {
+                r.listener.tableChanged(table);
+            } catch ( RuntimeException ex ) {
+                entry.setMessage("A listener failed on a change to " + table
+                        + ": " + ex.getMessage());
+                entry.setSourceMethodName("fire");
+                entry.setParameters(new Object[]{table});
+                entry.setThrown(ex);
+                Starter.logger.error(entry);
+            }
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    @Override
+    public void run() {
+        try ( WatchService service = FileSystems.getDefault()
+                .newWatchService() ) {
+            while ( !Thread.currentThread().isInterrupted() ) {
+                watch(service, Starter.props.getDataFolder());
+                watch(service, Starter.props.getPartitionFolder());
+
+                WatchKey key = service.poll(interval, TimeUnit.SECONDS);
+
+                // One write is a burst of events; wait for the end of it.
+                while ( key != null ) {
+                    key.pollEvents();
+                    key.reset();
+                    key = service.poll(QUIET, TimeUnit.MILLISECONDS);
+                }
+
+                scan();
+            }
+        } catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+        } catch ( IOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "The data folder is no longer watched.");
+            entry.setSourceMethodName("run");
+            entry.setParameters(null);
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void watch(WatchService service, String folder)
+            throws IOException {
+        Path path = Paths.get(folder);
+
+        if ( watched.contains(path) || !path.toFile().isDirectory() )
+            return;
+
+        path.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watched.add(path);
+    }
+
+    /** Reports the tables that have changed since they were last seen. */
+    private void scan() {
+        for ( DataTables table : DataTables.values() ) {
+            File file = table.getFile();
+            String signature = signatureOf(file);
+
+            if ( signature.equals(seen.get(table)) )
+                continue;
+
+            seen.put(table, signature);
+
+            if ( !SharedTable.isOwnWrite(file) )
+                fire(table);
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static String signatureOf(File file) {
+        return file.getPath() + ":" + file.length() + ":"
+                + file.lastModified();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Interfaces">
+    /**
+     * Told when a table has been changed by another copy of the program.
+     */
+    @FunctionalInterface
+    public interface TableListener {
+        /**
+         * Called when a table has changed.
+         *
+         * @param table the table
+         */
+        void tableChanged(DataTables table);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Registration {
+        private final TableListener listener;
+        private final EnumSet<DataTables> tables;
+
+        private Registration (TableListener listener,
+                EnumSet<DataTables> tables) {
+            this.listener = listener;
+            this.tables = tables;
+        }
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   UnitOfWork.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 11:05:47 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Saves the changes of several controllers to their tables together, so
+ *      that either all of them are saved or none of them is.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.sys;
+
+import com.pekinsoft.loadmaster.Starter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The changes of several controllers, such as the load, stops and receivable
+ * of a booking, saved to their tables as one. Each controller
+ * {@link #add(SharedTable, List, List) adds} the lines of its table and the
+ * changes it has queued, and {@link #commit()} then writes them all in a
+ * single pass:
+ * <ol>
+ * <li>the exclusive locks of all of the tables are taken, always in the order
+ * of their paths, so that two units of work cannot wait on each other;</li>
+ * <li>each table is merged with whatever another copy of the program has
+ * written to it, as a {@link SharedTable} merges it, and written in full to a
+ * file beside it, with `.commit` added to its name;</li>
+ * <li>a journal naming those files is written to the data folder;</li>
+ * <li>each file takes the place of its table, and the journal is deleted.</li>
+ * </ol>
+ * <p>
+ * Nothing written before the journal touches a table, so a failure up to then
+ * leaves every table as it was. Once the journal is there, the unit of work
+ * stands: should the program stop before all of the tables have been
+ * replaced, {@link #recover()} replaces the rest when it is next started. The
+ * journal is written under another name and then renamed, so a journal is
+ * either all there or not there at all.</p>
+ * <p>
+ * The changes are published on the {@link ChangeBus}, and the tasks added by
+ * {@link #afterCommit(Runnable)} run, only once all of the tables have been
+ * replaced, and not at all if the commit fails.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class UnitOfWork {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The extension added to the name of a table for its new lines. */
+    public static final String EXTENSION = ".commit";
+    /** The extension of a journal in the data folder. */
+    public static final String JOURNAL_EXTENSION = ".journal";
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    // By the absolute path of the table, which is the order of the locks.
+    private final TreeMap<String, Part> parts;
+    private final ArrayList<Runnable> after;
+    private final LogRecord entry;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    public UnitOfWork () {
+        parts = new TreeMap<>();
+        after = new ArrayList<>();
+
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Finishes the units of work that were stopped after their journals were
+     * written, by any copy of the program using the data folder. This is to
+     * be called before any table is read.
+     *
+     * @throws IOException in the event a journal cannot be read, or a table
+     *                     cannot be replaced
+     */
+    public static void recover() throws IOException {
+        File[] journals = dataFolder().toFile().listFiles((dir, name)
+                -> name.endsWith(JOURNAL_EXTENSION));
+
+        if ( journals == null )
+            return;
+
+        for ( File journal : journals ) {
+            TreeSet<String> tables = new TreeSet<>();
+            List<String[]> moves = read(journal);
+
+            for ( String[] move : moves )
+                tables.add(resolve(move[1]).toString());
+
+            // A copy of the program still committing holds these locks
+            //+ until it has deleted its journal.
+            ArrayDeque<SharedTable.TableLock> held = new ArrayDeque<>();
+
+            try {
+                for ( String table : tables )
+                    held.push(SharedTable.lock(new File(table), false));
+
+                if ( journal.exists() ) {
+                    apply(journal, read(journal));
+
+                    LogRecord record = new LogRecord(Level.INFO, "Finished "
+                            + "the commit of " + journal.getName() + ", "
+                            + "which was stopped after its journal was "
+                            + "written.");
+                    record.setSourceClassName(UnitOfWork.class.getName());
+                    record.setSourceMethodName("recover");
+                    record.setParameters(new Object[]{journal});
+                    Starter.logger.info(record);
+                }
+            } finally {
+                release(held);
+            }
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds the lines of a table to be written, and the changes to be
+     * published once they have been. Adding a table again replaces its lines
+     * and adds to its changes.
+     *
+     * @param table   the table, as the controller read it
+     * @param lines   the lines of the whole table, as the controller has them
+     * @param changes the changes the controller has queued, which are cleared
+     *                once they have been published
+     */
+    public void add(SharedTable table, List<String> lines,
+            List<? extends ChangeEvent<?>> changes) {
+        Part part = parts.computeIfAbsent(table.getFile().getAbsolutePath(),
+                p -> new Part(table));
+
+        part.lines = new ArrayList<>(lines);
+        part.changes.add(changes);
+    }
+
+    /**
+     * Adds a task to run once the commit has succeeded, such as posting the
+     * saved records to the indexes.
+     *
+     * @param task the task
+     */
+    public void afterCommit(Runnable task) {
+        after.add(task);
+    }
+
+    public boolean isEmpty() {
+        return parts.isEmpty();
+    }
+
+    /**
+     * Writes all of the tables added, and then publishes their changes. If
+     * the commit fails before its journal is written, no table has been
+     * changed; if it fails after, the commit is finished by {@link #recover()}
+     * when the program is next started.
+     *
+     * @throws IOException in the event a table cannot be read or written
+     */
+    public void commit() throws IOException {
+        entry.setMessage("Committing " + parts.size() + " tables...");
+        entry.setSourceMethodName("commit");
+        entry.setParameters(parts.keySet().toArray());
+        entry.setThrown(null);
+        Starter.logger.enter(entry);
+
+        ArrayDeque<SharedTable.TableLock> held = new ArrayDeque<>();
+        ArrayList<String[]> moves = new ArrayList<>();
+        File journal = null;
+
+        try {
+            for ( String path : parts.keySet() )
+                held.push(SharedTable.lock(new File(path), false));
+
+            for ( Part part : parts.values() ) {
+                File file = part.table.getFile();
+                File pending = new File(file.getPath() + EXTENSION);
+
+                part.merge = part.table.merge(part.lines);
+                write(pending, part.merge.lines);
+                moves.add(new String[]{relative(pending), relative(file)});
+            }
+
+            journal = journal(moves);
+
+            // The commit stands from here on.
+            apply(journal, moves);
+
+            for ( Part part : parts.values() )
+                part.table.wrote(part.merge.lines);
+        } catch ( IOException | RuntimeException ex ) {
+            if ( journal == null ) {
+                for ( String[] move : moves )
+                    resolve(move[0]).toFile().delete();
+
+                entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                        + "Nothing was committed.");
+            } else {
+                entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                        + "The commit will be finished from "
+                        + journal.getName() + " when next started.");
+            }
+
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw ex;
+        } finally {
+            release(held);
+        }
+
+        for ( Part part : parts.values() ) {
+            if ( part.merge.foreign > 0 )
+                TableWatcher.fire(part.table.getTable());
+
+            for ( List<? extends ChangeEvent<?>> changes : part.changes ) {
+                ChangeBus.publish(changes);
+                changes.clear();
+            }
+        }
+
+        for ( Runnable task : after )
+            task.run();
+
+        int tables = parts.size();
+        parts.clear();
+        after.clear();
+
+        entry.setMessage("Commit complete.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, tables);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static Path dataFolder() {
+        return new File(Starter.props.getDataFolder()).getAbsoluteFile()
+                .toPath();
+    }
+
+    // The journal names files relative to the data folder, which may be a
+    //+ network drive mounted at another path by another computer.
+    private static String relative(File file) {
+        return dataFolder().relativize(file.getAbsoluteFile().toPath())
+                .toString();
+    }
+
+    private static Path resolve(String relative) {
+        return dataFolder().resolve(relative);
+    }
+
+    private static File journal(List<String[]> moves) throws IOException {
+        File folder = dataFolder().toFile();
+        ArrayList<String> lines = new ArrayList<>();
+
+        for ( String[] move : moves )
+            lines.add(move[0] + "~" + move[1]);
+
+        folder.mkdirs();
+        File tmp = File.createTempFile("commit", JOURNAL_EXTENSION + ".tmp",
+                folder);
+        File journal = new File(folder, tmp.getName().substring(0,
+                tmp.getName().length() - 4));
+
+        write(tmp, lines);
+        move(tmp.toPath(), journal.toPath());
+
+        return journal;
+    }
+
+    private static List<String[]> read(File journal) throws IOException {
+        ArrayList<String[]> moves = new ArrayList<>();
+
+        if ( !journal.exists() )
+            return moves;
+
+        for ( String line : Files.readAllLines(journal.toPath(),
+                Charset.defaultCharset()) )
+            if ( line.contains("~") )
+                moves.add(line.split("~", 2));
+
+        return moves;
+    }
+
+    /** Puts each file of a journal in place of its table. */
+    private static void apply(File journal, List<String[]> moves)
+            throws IOException {
+        for ( String[] move : moves ) {
+            Path pending = resolve(move[0]);
+
+            // Already moved, if a commit is being finished.
+            if ( pending.toFile().exists() )
+                move(pending, resolve(move[1]));
+        }
+
+        Files.deleteIfExists(journal.toPath());
+    }
+
+    private static void write(File file, List<String> lines)
+            throws IOException {
+        StringBuilder text = new StringBuilder();
+
+        for ( String line : lines )
+            text.append(line).append(System.lineSeparator());
+
+        ByteBuffer buffer = Charset.defaultCharset().encode(text.toString());
+
+        try ( FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING) ) {
+            while ( buffer.hasRemaining() )
+                channel.write(buffer);
+
+            channel.force(true);
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch ( AtomicMoveNotSupportedException ex ) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void release(ArrayDeque<SharedTable.TableLock> held)
+            throws IOException {
+        while ( !held.isEmpty() )
+            held.pop().close();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Part {
+        private final SharedTable table;
+        private final ArrayList<List<? extends ChangeEvent<?>>> changes;
+        private List<String> lines;
+        private SharedTable.Merge merge;
+
+        private Part (SharedTable table) {
+            this.table = table;
+            changes = new ArrayList<>();
+            lines = new ArrayList<>();
+        }
+    }
+    //</editor-fold>
+
+}
@@ -29,11 +29,13 @@
  *  WHEN          BY                  REASON
  *  ------------  ------------------- ------------------------------------------
  *  Mar 8, 2020  Sean Carrick        Initial creation.
+ *  Oct 19, 2026  Sean Carrick        Added toFileName and fromFileName.
  * *****************************************************************************
  */
 
 package com.pekinsoft.loadmaster.utils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -44,6 +46,7 @@ import java.io.OutputStream;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -151,6 +154,65 @@ public class FileUtils {
         return false;
     }
     
+    /**
+     * Turns a name, such as a truck or trip number, into one that may be used
+     * for a file and that no other name turns into. Capital letters, digits,
+     * `-` and `_` are kept; every other byte of the name is written as `%` and
+     * its two hex digits, small letters included, so that two names still
+     * differ on a file system that does not tell capitals from small letters.
+     * A name that is empty, once trimmed, is written as a lone `%`, which is
+     * never written for a character.
+     * 
+     * @param name the name
+     * @return the file name
+     */
+    public static String toFileName(String name) {
+        StringBuilder file = new StringBuilder();
+        
+        for ( byte b : name.trim().getBytes(StandardCharsets.UTF_8) ) {
+            if ( (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                    || b == '-' || b == '_' )
+                file.append((char) b);
+            else
+                file.append(String.format("%%%02X", b & 0xff));
+        }
+        
+        return file.length() == 0 ? "%" : file.toString();
+    }
+    
+    /**
+     * Turns a file name made by {@link #toFileName(String) toFileName} back
+     * into the name it was made from. A `%` that is not followed by two hex
+     * digits is kept as it is.
+     * 
+     * @param file the file name
+     * @return the name
+     */
+    public static String fromFileName(String file) {
+        if ( file.equals("%") )
+            return "";
+        
+        ByteArrayOutputStream name = new ByteArrayOutputStream();
+        int x = 0;
+        
+        while ( x < file.length() ) {
+            if ( file.charAt(x) == '%' && x + 2 < file.length()
+                    && Character.digit(file.charAt(x + 1), 16) >= 0
+                    && Character.digit(file.charAt(x + 2), 16) >= 0 ) {
+                name.write(Integer.parseInt(file.substring(x + 1, x + 3), 16));
+                x += 3;
+            } else {
+                int end = file.offsetByCodePoints(x, 1);
+                byte[] b = file.substring(x, end).getBytes(
+                        StandardCharsets.UTF_8);
+                name.write(b, 0, b.length);
+                x = end;
+            }
+        }
+        
+        return new String(name.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
     private static boolean copyStream(final InputStream is, final File f) {
         try {
             return FileUtils.copyStream(is, new FileOutputStream(f));
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   IntLongHashMap.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 5:02:14 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      A hash map from `int` keys to `long` values that stores both in
+ *      primitive arrays, so that no boxing takes place on lookups or updates.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.utils;
+
+import java.util.Arrays;
+
+/**
+ * A map of `int` keys to `long` values, using open addressing with linear
+ * probing over parallel primitive arrays. Entries cannot be removed; a key
+ * that was never put reads as zero (0), which suits running totals.
+ * <p>
+ * This class is not synchronized.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class IntLongHashMap {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    public IntLongHashMap () {
+        this(64);
+    }
+
+    /**
+     * Creates a map with room for the given number of keys before it needs to
+     * grow.
+     *
+     * @param expected the expected number of keys
+     */
+    public IntLongHashMap (int expected) {
+        int capacity = 16;
+        while ( capacity < expected * 2 )
+            capacity <<= 1;
+
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Retrieves the value for a key.
+     *
+     * @param key the key
+     * @return the value, or zero (0) if the key is not in the map
+     */
+    public long get(int key) {
+        int slot = find(key);
+
+        return used[slot] ? values[slot] : 0L;
+    }
+
+    public boolean containsKey(int key) {
+        return used[find(key)];
+    }
+
+    /**
+     * Sets the value for a key.
+     *
+     * @param key   the key
+     * @param value the new value
+     */
+    public void put(int key, long value) {
+        int slot = claim(key);
+        values[slot] = value;
+    }
+
+    /**
+     * Adds to the value for a key, starting from zero (0) if the key is not
+     * yet in the map.
+     *
+     * @param key   the key
+     * @param delta the amount to add, which may be negative
+     * @return the new value
+     */
+    public long add(int key, long delta) {
+        int slot = claim(key);
+        values[slot] += delta;
+
+        return values[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the keys of the map in ascending order.
+     *
+     * @return the keys
+     */
+    public int[] keys() {
+        int[] sorted = new int[size];
+
+        for ( int x = 0, y = 0; x < keys.length; x++ ) {
+            if ( used[x] )
+                sorted[y++] = keys[x];
+        }
+
+        Arrays.sort(sorted);
+
+        return sorted;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(values, 0L);
+        size = 0;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+
+        while ( used[slot] && keys[slot] != key )
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }
+
+    private int claim(int key) {
+        int slot = find(key);
+
+        if ( !used[slot] ) {
+            if ( (size + 1) * 2 > keys.length ) {
+                grow();
+                slot = find(key);
+            }
+
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = 0L;
+            size++;
+        }
+
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new int[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+
+        for ( int x = 0; x < oldKeys.length; x++ ) {
+            if ( oldUsed[x] ) {
+                int slot = find(oldKeys[x]);
+                used[slot] = true;
+                keys[slot] = oldKeys[x];
+                values[slot] = oldValues[x];
+            }
+        }
+    }
+
+    /** Spreads the bits of account numbers, which tend to run in sequence. */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   IntervalTree.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 4:02:37 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      A balanced search tree of closed intervals that finds the intervals
+ *      overlapping a given one.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A set of closed intervals of `long`, such as times in minutes, each with a
+ * value, that can be searched for the intervals overlapping a given one.
+ * <p>
+ * The intervals are kept in a treap: a binary search tree by start, balanced
+ * by giving each interval a random priority and keeping every interval's
+ * priority above those of its children, so the depth of the tree is
+ * logarithmic in its size whatever order the intervals are added in. Each
+ * interval also keeps the latest end in its subtree, so that a search can pass
+ * over a subtree that ends before the interval searched for. Adding, removing
+ * and {@link #overlaps(long, long) overlaps} take time logarithmic in the size
+ * of the tree; {@link #overlapping(long, long) overlapping} takes as much
+ * again for each interval found.</p>
+ * <p>
+ * Two intervals overlap when each starts no later than the other ends, so
+ * intervals that touch at an end overlap. The same interval may be added more
+ * than once; each is removed by the {@link Interval} returned for it.</p>
+ * <p>
+ * This class is not synchronized.</p>
+ *
+ * @param <V> the type of value of each interval
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class IntervalTree<V> {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final Random random;
+    private Interval<V> root;
+    private int size;
+    private long sequence;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    public IntervalTree () {
+        random = new Random();
+        size = 0;
+        sequence = 0;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds an interval to the tree.
+     *
+     * @param start the start of the interval
+     * @param end   the end of the interval, which may equal the start
+     * @param value the value of the interval
+     * @return the interval added, by which it can be removed
+     * @throws IllegalArgumentException if the interval ends before it starts
+     */
+    public Interval<V> add(long start, long end, V value) {
+        if ( end < start )
+            throw new IllegalArgumentException("The interval ends before it "
+                    + "starts.");
+
+        Interval<V> interval = new Interval<>(start, end, value, sequence++,
+                random.nextInt());
+        root = insert(root, interval);
+        size++;
+
+        return interval;
+    }
+
+    /**
+     * Removes an interval from the tree.
+     *
+     * @param interval the interval, as returned by {@link #add(long, long,
+     *                 Object) add}
+     * @return `true` if it was in the tree
+     */
+    public boolean remove(Interval<V> interval) {
+        int before = size;
+        root = delete(root, interval);
+
+        return size < before;
+    }
+
+    /**
+     * Tells whether any interval in the tree overlaps the given one.
+     *
+     * @param start the start of the interval
+     * @param end   the end of the interval
+     * @return `true` if any interval overlaps it
+     */
+    public boolean overlaps(long start, long end) {
+        Interval<V> at = root;
+
+        while ( at != null ) {
+            if ( at.start <= end && at.end >= start )
+                return true;
+
+            // If something on the left ends late enough but does not overlap,
+            //+ it starts too late, and so does everything on the right.
+            at = at.left != null && at.left.max >= start ? at.left : at.right;
+        }
+
+        return false;
+    }
+
+    /**
+     * Finds the intervals in the tree that overlap the given one.
+     *
+     * @param start the start of the interval
+     * @param end   the end of the interval
+     * @return the overlapping intervals, in order of start
+     */
+    public List<Interval<V>> overlapping(long start, long end) {
+        ArrayList<Interval<V>> found = new ArrayList<>();
+        collect(root, start, end, found);
+
+        return found;
+    }
+
+    /**
+     * Finds the interval that starts latest before a time.
+     *
+     * @param start the time
+     * @return the interval, or `null` if none starts before the time
+     */
+    public Interval<V> lower(long start) {
+        Interval<V> at = root;
+        Interval<V> best = null;
+
+        while ( at != null ) {
+            if ( at.start < start ) {
+                best = at;
+                at = at.right;
+            } else {
+                at = at.left;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Finds the interval that starts earliest after a time.
+     *
+     * @param start the time
+     * @return the interval, or `null` if none starts after the time
+     */
+    public Interval<V> higher(long start) {
+        Interval<V> at = root;
+        Interval<V> best = null;
+
+        while ( at != null ) {
+            if ( at.start > start ) {
+                best = at;
+                at = at.left;
+            } else {
+                at = at.right;
+            }
+        }
+
+        return best;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private Interval<V> insert(Interval<V> at, Interval<V> interval) {
+        if ( at == null )
+            return interval;
+
+        if ( compare(interval, at) < 0 ) {
+            at.left = insert(at.left, interval);
+
+            if ( at.left.priority > at.priority )
+                at = rotateRight(at);
+        } else {
+            at.right = insert(at.right, interval);
+
+            if ( at.right.priority > at.priority )
+                at = rotateLeft(at);
+        }
+
+        update(at);
+
+        return at;
+    }
+
+    private Interval<V> delete(Interval<V> at, Interval<V> interval) {
+        if ( at == null )
+            return null;
+
+        if ( at == interval ) {
+            size--;
+            return merge(at.left, at.right);
+        }
+
+        int c = compare(interval, at);
+
+        if ( c == 0 )
+            return at;
+        else if ( c < 0 )
+            at.left = delete(at.left, interval);
+        else
+            at.right = delete(at.right, interval);
+
+        update(at);
+
+        return at;
+    }
+
+    /** Joins two subtrees, all of whose intervals in `a` come first. */
+    private Interval<V> merge(Interval<V> a, Interval<V> b) {
+        if ( a == null )
+            return b;
+        if ( b == null )
+            return a;
+
+        if ( a.priority > b.priority ) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private void collect(Interval<V> at, long start, long end,
+            List<Interval<V>> found) {
+        if ( at == null || at.max < start )
+            return;
+
+        collect(at.left, start, end, found);
+
+        // Everything on the right starts later still.
+        if ( at.start > end )
+            return;
+
+        if ( at.end >= start )
+            found.add(at);
+
+        collect(at.right, start, end, found);
+    }
+
+    private Interval<V> rotateRight(Interval<V> at) {
+        Interval<V> top = at.left;
+        at.left = top.right;
+        top.right = at;
+        update(at);
+        update(top);
+
+        return top;
+    }
+
+    private Interval<V> rotateLeft(Interval<V> at) {
+        Interval<V> top = at.right;
+        at.right = top.left;
+        top.left = at;
+        update(at);
+        update(top);
+
+        return top;
+    }
+
+    private static <V> void update(Interval<V> at) {
+        long max = at.end;
+
+        if ( at.left != null && at.left.max > max )
+            max = at.left.max;
+        if ( at.right != null && at.right.max > max )
+            max = at.right.max;
+
+        at.max = max;
+    }
+
+    /** Orders intervals by start, and those that start together as added. */
+    private static <V> int compare(Interval<V> a, Interval<V> b) {
+        int c = Long.compare(a.start, b.start);
+
+        return c != 0 ? c : Long.compare(a.order, b.order);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Classes">
+    /**
+     * An interval in the tree.
+     *
+     * @param <V> the type of value of the interval
+     */
+    public static final class Interval<V> {
+        private final long start;
+        private final long end;
+        private final V value;
+        private final long order;
+        private final int priority;
+
+        private Interval<V> left;
+        private Interval<V> right;
+        private long max;
+
+        private Interval (long start, long end, V value, long order,
+                int priority) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.order = order;
+            this.priority = priority;
+            max = end;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+    //</editor-fold>
+
+}
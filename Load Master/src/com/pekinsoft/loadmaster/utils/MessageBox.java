@@ -34,6 +34,7 @@
 
 package com.pekinsoft.loadmaster.utils;
 
+import java.awt.GraphicsEnvironment;
 import javax.swing.JOptionPane;
 
 /**
@@ -77,6 +78,11 @@ public class MessageBox {
      * 
      */
     public static void showInfo(String message, String title) {
+        if ( GraphicsEnvironment.isHeadless() ) {
+            System.err.println(title + ": " + message);
+            return;
+        }
+        
         JOptionPane.showMessageDialog(null, 
                                       message, 
                                       title, 
@@ -98,6 +104,11 @@ public class MessageBox {
      * 
      */
     public static void showWarning(String message, String title) {
+        if ( GraphicsEnvironment.isHeadless() ) {
+            System.err.println("WARNING: " + title + ": " + message);
+            return;
+        }
+        
         JOptionPane.showMessageDialog(null, 
                                       message, 
                                       title, 
@@ -120,6 +131,12 @@ public class MessageBox {
         String msg = "The following exception was thrown by the program:\n\n";
         msg += ex.getMessage() + "\n\nException: ";
         msg += ex.getClass().getSimpleName();
+        
+        if ( GraphicsEnvironment.isHeadless() ) {
+            System.err.println("ERROR: " + title + ": " + ex.getMessage()
+                    + " (" + ex.getClass().getSimpleName() + ")");
+            return;
+        }
 
         JOptionPane.showMessageDialog(null, 
                                       msg, 
@@ -146,10 +163,21 @@ public class MessageBox {
      *                      <li>MessageBox.CANCEL_OPTION, if cancel button is
      *                          included</li>
      *                   </ul>
+     *                  When running without a display, nobody can be asked,
+     *                  so the question is answered "No" (or "Cancel" if the
+     *                  cancel button is included).
      */
     public static int askQuestion(String question, String title, boolean cancel) {
         int choice = 0;
         
+        // There is nobody to answer when running without a display, so take
+        //+ the safe way out.
+        if ( GraphicsEnvironment.isHeadless() ) {
+            System.err.println(title + ": " + question + " -> "
+                    + (cancel ? "Cancel" : "No"));
+            return cancel ? CANCEL_OPTION : NO_OPTION;
+        }
+        
         if ( cancel )
             choice = JOptionPane.showConfirmDialog(null, 
                                               question, 
@@ -179,6 +207,11 @@ public class MessageBox {
      * @return          The input requested of the user.
      */
     public static String getInput(String prompt, String title) {
+        if ( GraphicsEnvironment.isHeadless() ) {
+            System.err.println(title + ": " + prompt + " -> (no input)");
+            return null;
+        }
+        
         return JOptionPane.showInputDialog(null, prompt, title, 
                                            JOptionPane.PLAIN_MESSAGE);
     }
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   Money.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 7:04:18 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Fixed-point arithmetic for amounts of money held as whole cents, or as
+ *      whole mills for fuel prices.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts of money in Load Master are held in a `long` as a whole number of
+ * cents or, for fuel prices, which are posted to a tenth of a cent, of mills.
+ * Sums of such amounts are exact, where sums of `double` amounts drift, and
+ * they can be kept in primitive arrays and maps without boxing.
+ * <p>
+ * This class converts between those amounts and their text in the data
+ * tables. {@link #parse(CharSequence, int) parse} reads a decimal number
+ * directly into the fixed-point value without going through a `double`, and
+ * {@link #format(long, int) format} writes one back out without going through
+ * a `Formatter`.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public final class Money {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The scale of an amount held in cents. */
+    public static final int CENTS = 2;
+    /** The scale of an amount held in mills, such as a fuel price. */
+    public static final int MILLS = 3;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final long[] POWERS = {1L, 10L, 100L, 1000L, 10000L};
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    private Money () {
+        // No instances; amounts are plain longs.
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Static Methods">
+    /**
+     * Parses a decimal amount into a fixed-point value. A leading sign, a
+     * dollar sign and thousands separators are accepted. Digits beyond the
+     * scale are rounded half up, away from zero.
+     *
+     * @param text  the amount, such as "1,234.5" or "-$3.999"
+     * @param scale the number of decimal places to keep: {@link #CENTS} or
+     *              {@link #MILLS}
+     * @return the amount in units of the scale
+     * @throws NumberFormatException if the text is not a decimal number
+     */
+    public static long parse(CharSequence text, int scale) {
+        int length = text.length();
+        int x = 0;
+
+        while ( x < length && Character.isWhitespace(text.charAt(x)) )
+            x++;
+        while ( length > x && Character.isWhitespace(text.charAt(length - 1)) )
+            length--;
+
+        boolean negative = false;
+        if ( x < length && (text.charAt(x) == '-' || text.charAt(x) == '+') )
+            negative = text.charAt(x++) == '-';
+        if ( x < length && text.charAt(x) == '$' )
+            x++;
+
+        long units = 0;
+        int decimals = -1;
+        boolean digits = false;
+        boolean roundUp = false;
+
+        for ( ; x < length; x++ ) {
+            char c = text.charAt(x);
+
+            if ( c >= '0' && c <= '9' ) {
+                digits = true;
+
+                if ( decimals < scale ) {
+                    units = Math.addExact(Math.multiplyExact(units, 10L),
+                            c - '0');
+                    if ( decimals >= 0 )
+                        decimals++;
+                } else if ( decimals == scale ) {
+                    // The first digit past the scale decides the rounding.
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else if ( c == '.' && decimals < 0 ) {
+                decimals = 0;
+            } else if ( c == ',' && decimals < 0 ) {
+                // A thousands separator.
+            } else if ( c == 'E' || c == 'e' ) {
+                // Only very large or very small doubles were written this way.
+                return slowParse(text.toString().replace(",", "")
+                        .replace("$", ""), scale);
+            } else {
+                throw new NumberFormatException("not an amount: \"" + text
+                        + "\"");
+            }
+        }
+
+        if ( !digits )
+            throw new NumberFormatException("not an amount: \"" + text + "\"");
+
+        int kept = Math.max(0, Math.min(decimals, scale));
+        units = Math.multiplyExact(units, POWERS[scale - kept]);
+        if ( roundUp )
+            units++;
+
+        return negative ? -units : units;
+    }
+
+    /**
+     * Formats a fixed-point value as a plain decimal number, such as it is
+     * stored in the data tables: "1234.50" or "-3.999".
+     *
+     * @param units the amount in units of the scale
+     * @param scale the number of decimal places held: {@link #CENTS} or
+     *              {@link #MILLS}
+     * @return the amount as text
+     */
+    public static String format(long units, int scale) {
+        StringBuilder sb = new StringBuilder(24);
+        long abs = Math.abs(units);
+        long whole = abs / POWERS[scale];
+        long fraction = abs % POWERS[scale];
+
+        if ( units < 0 )
+            sb.append('-');
+        sb.append(whole).append('.');
+
+        for ( long p = POWERS[scale] / 10; p > 0; p /= 10 )
+            sb.append((char) ('0' + fraction / p % 10));
+
+        return sb.toString();
+    }
+
+    /**
+     * Converts a `double` amount, such as one typed into a dialog, to a
+     * fixed-point value, rounding to the nearest unit.
+     *
+     * @param amount the amount
+     * @param scale  the number of decimal places to keep
+     * @return the amount in units of the scale
+     */
+    public static long of(double amount, int scale) {
+        return Math.round(amount * POWERS[scale]);
+    }
+
+    /**
+     * Converts a fixed-point value to a `double`, for display and for the
+     * callers that still work in `double`s.
+     *
+     * @param units the amount in units of the scale
+     * @param scale the number of decimal places held
+     * @return the amount
+     */
+    public static double toDouble(long units, int scale) {
+        return (double) units / POWERS[scale];
+    }
+
+    /**
+     * Multiplies a price by a quantity, such as a price per gallon in mills
+     * by a number of gallons, giving the total in cents rounded to the
+     * nearest cent.
+     *
+     * @param price      the price in units of its scale
+     * @param priceScale the scale of the price
+     * @param quantity   the quantity
+     * @return the total in cents
+     */
+    public static long multiply(long price, int priceScale, double quantity) {
+        return BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(quantity))
+                .movePointLeft(priceScale - CENTS)
+                .setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static long slowParse(String text, int scale) {
+        return new BigDecimal(text.trim()).setScale(scale, RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+    }
+    //</editor-fold>
+
+}
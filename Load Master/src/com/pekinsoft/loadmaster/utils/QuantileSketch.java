@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   QuantileSketch.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 9:48:03 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      An approximate distribution of whole-number values, from which the
+ *      median and other percentiles can be read without keeping the values.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.utils;
+
+/**
+ * Counts non-negative `long` values, such as amounts in cents, in buckets
+ * whose width grows with the value: values below 256 each have their own
+ * bucket, and above that each doubling is split into 128 buckets. A
+ * percentile read from the sketch is therefore within about half a percent
+ * of the true value, however many values were added, and the sketch only
+ * holds one count for each bucket that has been used.
+ * <p>
+ * Values can be taken back out, so a sketch can follow a set of records as
+ * they are corrected. Negative values are counted as zero.</p>
+ * <p>
+ * This class is not synchronized.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class QuantileSketch {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final int SUB_BITS = 7;
+    private static final int SUB = 1 << SUB_BITS;
+
+    private final IntLongHashMap counts;
+    private long count;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    public QuantileSketch () {
+        counts = new IntLongHashMap(64);
+        count = 0;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value the value
+     */
+    public void add(long value) {
+        counts.add(bucketOf(value), 1);
+        count++;
+    }
+
+    /**
+     * Takes a value that was added back out of the sketch.
+     *
+     * @param value the value as it was added
+     */
+    public void remove(long value) {
+        counts.add(bucketOf(value), -1);
+        count--;
+    }
+
+    /**
+     * Retrieves the number of values in the sketch.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the value below which the given fraction of the values fall,
+     * such as 0.5 for the median or 0.9 for the ninetieth percentile.
+     *
+     * @param fraction the fraction, from 0.0 to 1.0
+     * @return the approximate value, or zero if the sketch is empty
+     */
+    public long getPercentile(double fraction) {
+        if ( count <= 0 )
+            return 0L;
+
+        long rank = Math.max(1L, (long) Math.ceil(fraction * count));
+        long seen = 0;
+
+        for ( int bucket : counts.keys() ) {
+            seen += counts.get(bucket);
+
+            if ( seen >= rank )
+                return middleOf(bucket);
+        }
+
+        return 0L;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Methods">
+    private static int bucketOf(long value) {
+        if ( value < 2 * SUB )
+            return (int) Math.max(0L, value);
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+
+        return shift * SUB + (int) (value >>> shift);
+    }
+
+    private static long middleOf(int bucket) {
+        if ( bucket < 2 * SUB )
+            return bucket;
+
+        int shift = bucket / SUB - 1;
+        long low = (long) (bucket - shift * SUB) << shift;
+
+        return low + ((1L << shift) >>> 1);
+    }
+    //</editor-fold>
+
+}
@@ -19,7 +19,6 @@ package com.pekinsoft.loadmaster.verifiers;
 import com.pekinsoft.loadmaster.view.Customers;
 import java.awt.Color;
 import java.awt.SystemColor;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.InputVerifier;
 import javax.swing.JComponent;
@@ -32,6 +31,15 @@ import javax.swing.JTextField;
  * @since 0.1.0
  */
 public class PostalCodeVerifier extends InputVerifier {
+    /**
+     * U.S. Zip Codes, with or without the Plus-4, and Canadian Postal Codes.
+     * The pattern is compiled once and, being immutable, is safe to share
+     * between threads.
+     */
+    private static final Pattern POSTAL_CODE = Pattern.compile(
+            "^(\\d{5}(-\\d{4})?|[A-CEGHJ-NPRSTVXY]\\d[A-CEGHJ-NPRSTV-Z]"
+            + " ?\\d[A-CEGHJ-NPRSTV-Z]\\d)$");
+    
     private final Color errFore = Color.YELLOW;
     private final Color errBack = Color.RED;
     private final Color fore = SystemColor.textText;
@@ -75,18 +83,8 @@ public class PostalCodeVerifier extends InputVerifier {
 
         if ( zipCode != null && !zipCode.isEmpty() && !zipCode.isBlank() 
                 && !zipCode.equalsIgnoreCase("unavailable") ) {
-            // Create our regex strings.
-            String regEx = "^(\\d{5}(-\\d{4})?|[A-CEGHJ-NPRSTVXY]\\d[A-CEGHJ-NPRSTV-Z]";
-            regEx += " ?\\d[A-CEGHJ-NPRSTV-Z]\\d)$";
-
-            // Next, we need a Pattern object to place this regex in.
-            Pattern pattern = Pattern.compile(regEx);
-
-            // We will also need a matcher object to see if the string is valid.
-            Matcher matcher = pattern.matcher(zipCode);
-
             // Check the validity of the supplied Zip/Postal Code.
-            isValid = matcher.matches();
+            isValid = isValidPostalCode(zipCode);
 
             if ( isValid ) {
                 ((JTextField) input).setBackground(back);
@@ -107,4 +105,17 @@ public class PostalCodeVerifier extends InputVerifier {
         return isValid;
     }
     
+    /**
+     * Checks the given text against the Zip/Postal Code pattern without
+     * touching any component, so that it may be used off of the Event Dispatch
+     * Thread, such as when validating imported records.
+     * 
+     * @param zipCode the Zip Code or Postal Code to check
+     * @return `true` if the code is a valid U.S. Zip Code or Canadian Postal
+     *         Code; `false` otherwise
+     */
+    public static boolean isValidPostalCode(String zipCode) {
+        return zipCode != null && POSTAL_CODE.matcher(zipCode).matches();
+    }
+    
 }
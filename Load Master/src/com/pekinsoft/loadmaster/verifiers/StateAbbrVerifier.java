@@ -19,6 +19,8 @@ package com.pekinsoft.loadmaster.verifiers;
 import com.pekinsoft.loadmaster.utils.Utils;
 import java.awt.Color;
 import java.awt.SystemColor;
+import java.util.Collections;
+import java.util.Set;
 import javax.swing.InputVerifier;
 import javax.swing.JComponent;
 import javax.swing.JTextField;
@@ -30,6 +32,13 @@ import javax.swing.JTextField;
  * @since 0.1.0
  */
 public class StateAbbrVerifier extends InputVerifier {
+    /**
+     * The state and province abbreviations, built once and never modified, so
+     * that they may be shared between threads.
+     */
+    private static final Set<String> STATES = Collections.unmodifiableSet(
+            Utils.createStateAbbreviations());
+    
     private final Color errFore = Color.YELLOW;
     private final Color errBack = Color.RED;
     private final Color fore = SystemColor.textText;
@@ -46,7 +55,7 @@ public class StateAbbrVerifier extends InputVerifier {
         }
         
         if ( abbr != null && !abbr.isBlank() && !abbr.isEmpty() ) {
-            if ( !Utils.createStateAbbreviations().contains(abbr) ) {
+            if ( !isValidState(abbr) ) {
                 ((JTextField) input).setBackground(errBack);
                 ((JTextField) input).setForeground(errFore);
             } else {
@@ -54,9 +63,22 @@ public class StateAbbrVerifier extends InputVerifier {
                 ((JTextField) input).setForeground(fore);
             }
 
-            return Utils.createStateAbbreviations().contains(abbr);
+            return isValidState(abbr);
         } else
             return true;
     }
     
+    /**
+     * Checks the given text against the known state and province 
+     * abbreviations without touching any component, so that it may be used 
+     * off of the Event Dispatch Thread, such as when validating imported 
+     * records.
+     * 
+     * @param abbr the two-letter abbreviation to check
+     * @return `true` if the abbreviation is known; `false` otherwise
+     */
+    public static boolean isValidState(String abbr) {
+        return abbr != null && STATES.contains(abbr);
+    }
+    
 }
@@ -18,10 +18,10 @@ import java.awt.event.KeyEvent;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import javax.swing.JFormattedTextField;
-import javax.swing.table.DefaultTableModel;
 
 /**
  *
@@ -34,6 +34,8 @@ public class Booker extends javax.swing.JInternalFrame {
     private LogRecord entry;
     private LoadCtl loads;
     private LoadModel load;
+    private HashMap<Long, CustomerModel> customers;
+    private LazyTableModel<StopModel> stopsModel;
     
     /**
      * Creates new form Booker
@@ -58,6 +60,8 @@ public class Booker extends javax.swing.JInternalFrame {
         entry.setMessage("Creating our LoadModel object.");
         Starter.logger.config(entry);
         load = new LoadModel();
+        customers = new HashMap<>();
+        showStops();
         
         entry.setMessage("Attempting to create our LoadCtl object.");
         Starter.logger.config(entry);
@@ -82,6 +86,33 @@ public class Booker extends javax.swing.JInternalFrame {
         Starter.logger.exit(entry, new Object[]{});
     }
     
+    /**
+     * Shows the stops of the load in the stops table. The table reads each
+     * cell from the load's stops when it is painted, so adding a stop only
+     * needs the new row announced to the table.
+     */
+    private void showStops() {
+        SimpleDateFormat fmt = new SimpleDateFormat("MM/dd/yyyy");
+        
+        stopsModel = new LazyTableModel<StopModel>(load.getStops())
+                .addColumn("#", Integer.class, StopModel::getStopNumber)
+                .addColumn("Company", String.class, 
+                        s -> customers.get(s.getCustomer()).getCompany())
+                .addColumn("Address", String.class, 
+                        s -> customers.get(s.getCustomer()).getAddress())
+                .addColumn("Early Date", String.class, 
+                        s -> fmt.format(s.getEarlyDate()))
+                .addColumn("Early Time", String.class, StopModel::getEarlyTime)
+                .addColumn("Late Date", String.class, 
+                        s -> fmt.format(s.getLateDate()))
+                .addColumn("Late Time", String.class, StopModel::getLateTime);
+        stopsTable.setModel(stopsModel);
+        
+        stopsTable.getColumnModel().getColumn(0).setMinWidth(15);
+        stopsTable.getColumnModel().getColumn(0).setPreferredWidth(35);
+        stopsTable.getColumnModel().getColumn(0).setMaxWidth(50);
+    }
+    
     private boolean arePickupTimesValid() {
         // Before we compare the early and late times, we need to make sure that
         //+ they are valid times. In order for them to be valid, they must pass
@@ -1399,23 +1430,11 @@ public class Booker extends javax.swing.JInternalFrame {
         
         if ( dlg != null ) {
              
-            SimpleDateFormat fmt = new SimpleDateFormat("MM/dd/yyyy");
-            String eDate = fmt.format(dlg.getEarlyDate());
-            String lDate = fmt.format(dlg.getLateDate());
-            DefaultTableModel model = (DefaultTableModel)stopsTable.getModel();
             CustomerModel c = dlg.getSelectedCustomer();
-            Object[] row = {++stopNumber,       // Stop Number
-                            c.getCompany(),     // Company name
-                            c.getAddress(),     // Complete address
-                            eDate,              // Early date
-                            dlg.getEarlyTime(), // Early time
-                            lDate,              // Late date
-                            dlg.getLateTime()}; // Late time
-            model.addRow(row);
-            
-            stopsTable.setModel(model);
+            customers.put(c.getId(), c);
             
             StopModel stop = new StopModel();
+            stop.setStopNumber(++stopNumber);
             stop.setEarlyDate(dlg.getEarlyDate());
             stop.setLateDate(dlg.getLateDate());
             stop.setCustomer(c.getId());
@@ -1441,6 +1460,8 @@ public class Booker extends javax.swing.JInternalFrame {
             
             load.addStop(stop);
             
+            int row = load.getStopCount() - 1;
+            stopsModel.fireTableRowsInserted(row, row);
         }
 
         if ( !isLoading ) 
@@ -36,6 +36,8 @@
  *                                    ensure that required fields are completed
  *                                    and that the date entered is valid.
  *  Oct 09, 2020  Sean Carrick        Removed the main() method from the class.
+ *  Oct 19, 2026  Sean Carrick        The broker list is now filtered as the
+ *                                    value is typed, by a ComboBoxFilter.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
@@ -61,7 +63,7 @@ public class BrokerSelector extends javax.swing.JDialog {
     private LogRecord lr = new LogRecord(Level.ALL, "Logging initialized for "
             + "BrokerSelector.");
     
-    private boolean filtering;
+    private ComboBoxFilter<BrokerModel> filter;
     
     /**
      * Creates new form BrokerSelector
@@ -75,8 +77,6 @@ public class BrokerSelector extends javax.swing.JDialog {
         lr.setSourceMethodName("BrokerSelector");
         Starter.logger.enter(lr);
         
-        filtering = false;
-        
         lr.setMessage("Attempting to access the brokers database...");
         Starter.logger.debug(lr);
         try {
@@ -101,75 +101,28 @@ public class BrokerSelector extends javax.swing.JDialog {
     }
     
     private void loadBrokerList() {
-        brokerList.removeAllItems();
-        brokerList.addItem("Select Broker/Agent...");
+        // The list is narrowed as the value is typed, by whichever part of
+        //+ the broker the selected option names.
+        filter = new ComboBoxFilter<>(brokerList, criteriaField, 
+                BrokerSelector::labelOf, "Select Broker/Agent...");
+        allFilterOption.addActionListener(e -> filter.setKey(
+                BrokerSelector::labelOf));
+        cityFilterOption.addActionListener(e -> filter.setKey(
+                BrokerModel::getCity));
+        stateFilterOption.addActionListener(e -> filter.setKey(
+                BrokerModel::getState));
         
-        ArrayList<BrokerModel> filtered = new ArrayList<>();
+        ArrayList<BrokerModel> all = new ArrayList<>();
         
-        if ( allFilterOption.isSelected() ) {
-            try {
-                records.first();
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-
-                MessageBox.showError(ex, "Database Access");
-            }
-
-            for ( int x = 0; x < records.getRecordCount(); x++ ) {
-                BrokerModel b = records.get();
-
-                brokerList.addItem(b.getContact() + " (" + b.getId() + ")");
-
-                try {
-                    if (records.hasNext() ) 
-                        records.next();
-                } catch ( DataStoreException ex ) {
-                    lr.setMessage("Something went wrong moving to the next record.");
-                    lr.setThrown(ex);
-                    Starter.logger.error(lr);
-
-    //                MessageBox.showError(ex, "Database Access");
-                }
-            }
-        } else if ( cityFilterOption.isSelected() ) {
-            try {
-                filtered = records.getCompaniesByCity(criteriaField.getText(), 
-                        LoadMaster.fileProgress);
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-            }
-            
-            if ( filtered != null && filtered.size() > 0 ) {
-                for ( int x = 0; x < filtered.size(); x++ ) {
-                    brokerList.addItem(filtered.get(x).getContact() + " (" 
-                            + filtered.get(x).getId() + ")");
-                }
-            } else
-                MessageBox.showInfo("No matching records found!", "No Records");
-        } else if ( stateFilterOption.isSelected() ) {
-            try {
-                filtered = records.getCompaniesByState(criteriaField.getText(), 
-                        LoadMaster.fileProgress);
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-            }
-            
-            if ( filtered != null && filtered.size() > 0 ) {
-                for ( int x = 0; x < filtered.size(); x++ ) {
-                    brokerList.addItem(filtered.get(x).getContact() + " (" 
-                            + filtered.get(x).getId() + ")");
-                }
-            } else
-                MessageBox.showInfo("No matching records found!", "No Records");
-        }
+        if ( records != null ) 
+            for ( int x = 0; x < records.getRecordCount(); x++ )
+                all.add(records.get(x));
         
-        filtering = false;
+        filter.setRecords(all);
+    }
+    
+    private static String labelOf(BrokerModel b) {
+        return b.getContact() + " (" + b.getId() + ")";
     }
     
     public BrokerModel getSelectedBroker() {
@@ -325,52 +278,20 @@ public class BrokerSelector extends javax.swing.JDialog {
     }// </editor-fold>//GEN-END:initComponents
 
     private void selectBrokerActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_selectBrokerActionPerformed
-        // In order to get the selected broker, we need to loop through the
-        //+ records to find which record has the selected ID number.
-        if ( !brokerList.getSelectedItem().toString().equalsIgnoreCase(
-                "select broker/agent...") ) {
-            String selectedBroker = brokerList.getSelectedItem().toString();
-            long brokerID = Long.valueOf(selectedBroker.substring(
-                    selectedBroker.indexOf("(") + 1,    // Start after (
-                    selectedBroker.indexOf(")")));  // End before )
+        broker = filter.getSelected();
         
-            try {
-                records.first();
-
-                for ( int x = 0; x < records.getRecordCount(); x++ ) {
-                    BrokerModel b = records.get();
-
-                    if ( brokerID == b.getId() ) {
-                        broker = b;
-                        break;
-                    } else {
-                        if ( records.hasNext() ) 
-                            records.next();
-                    }
-                }
-        
-                setVisible(false); 
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-
-    //            MessageBox.showError(ex, "Database Access");
-
-                dispose();
-            }
-        }       
+        if ( broker != null ) 
+            setVisible(false);
     }//GEN-LAST:event_selectBrokerActionPerformed
 
     private void brokerListItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_brokerListItemStateChanged
-        if ( !filtering )
+        if ( filter != null && !filter.isSwapping() )
             selectBroker.setEnabled(!brokerList.getSelectedItem().toString()
                     .equals("Select Broker/Agent..."));
     }//GEN-LAST:event_brokerListItemStateChanged
 
     private void filterButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_filterButtonActionPerformed
-        filtering = true;
-        loadBrokerList();
+        filter.filterNow();
     }//GEN-LAST:event_filterButtonActionPerformed
 
     private void criteriaFieldKeyTyped(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_criteriaFieldKeyTyped
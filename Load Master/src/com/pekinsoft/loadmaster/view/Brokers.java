@@ -32,14 +32,20 @@
  *  Sep 01, 2020  Sean Carrick        Added data validation to the dialog to
  *                                    ensure that all required fields are filled
  *                                    in and that all provided data is valid.
+ *  Oct 19, 2026  Sean Carrick        The record count follows brokers added in
+ *                                    other windows, such as the load wizard.
+ *  Oct 19, 2026  Sean Carrick        The ID number of a new broker is shown
+ *                                    once it has been added.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
 
 import com.pekinsoft.loadmaster.Starter;
 import com.pekinsoft.loadmaster.controller.BrokerCtl;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.BrokerModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import com.pekinsoft.loadmaster.verifiers.PostalCodeVerifier;
 import com.pekinsoft.loadmaster.verifiers.StateAbbrVerifier;
@@ -66,6 +72,7 @@ public class Brokers extends javax.swing.JInternalFrame {
     private BrokerCtl records;
     private BrokerModel broker;
     private final LogRecord lr;
+    private final ChangeBus.Subscription changes;
     
     /**
      * Creates new form Brokers
@@ -97,7 +104,12 @@ public class Brokers extends javax.swing.JInternalFrame {
         stateField.setInputVerifier(new StateAbbrVerifier());
         zipField.setInputVerifier(new PostalCodeVerifier());
         
-        setTitle(getTitle() + " (" + records.getRecordCount() + " Records)");
+        showCount();
+        
+        // A broker added in the wizard is already in our controller by the
+        //+ time we hear of it, and is found by the duplicate check in doSave.
+        changes = ChangeBus.subscribeOnEdt(DataTables.BROKERS,
+                BrokerModel.class, e -> showCount());
         
         doClear();
     }
@@ -110,14 +122,12 @@ public class Brokers extends javax.swing.JInternalFrame {
         nameField.requestFocus();
 
         broker = new BrokerModel();
-        idField.setText(String.valueOf(broker.getId()));
 
         // Perform data save here.
         broker.setCity(cityField.getText());
         broker.setEmail(emailField.getText());
         broker.setCompany(companyField.getText());
         broker.setContact(nameField.getText());
-        broker.setId(Long.valueOf(idField.getText()));
         broker.setPhone(phoneField.getText());
         broker.setFax(faxField.getText());
         broker.setState(stateField.getText());
@@ -125,6 +135,8 @@ public class Brokers extends javax.swing.JInternalFrame {
         broker.setSuite(suiteField.getText());
         broker.setZip(zipField.getText());
         
+        boolean adding = true;
+        
         if ( records.getRecordCount() > 0 ) {
             BrokerModel tester = null;
 
@@ -148,26 +160,28 @@ public class Brokers extends javax.swing.JInternalFrame {
             if ( tester != null ) {
                 if ( tester.getCompany().equalsIgnoreCase(broker.getCompany())
                         && tester.getCity().equalsIgnoreCase(broker.getCity())
-                        && tester.getState().equalsIgnoreCase(broker.getState()) ) 
+                        && tester.getState().equalsIgnoreCase(broker.getState()) ) {
                     MessageBox.showInfo("Broker: " + broker.getCompany() + " in " 
                             + broker.getCity() + ", " + broker.getState() 
                             + " already exists.", "Broker Exists");
-                else 
-                    records.addNew(broker);
-
-            } else
-                records.addNew(broker);
-        } else
-            records.addNew(broker);
+                    adding = false;
+                }
+            }
+        }
 
         lr.setMessage("Attempting to save the data to file.");
         Starter.logger.debug(lr);
         try {
+            if ( adding ) {
+                records.addNew(broker);
+                idField.setText(String.valueOf(broker.getId()));
+            }
+            
             records.close();
             lr.setMessage("Save to file was successful!");
             Starter.logger.info(lr);
 
-            setTitle("Customer Entry (" + records.getRecordCount() + " Records)");
+            showCount();
         } catch (DataStoreException ex) {
             lr.setMessage("Something went wrong accessing the brokers database.");
             lr.setThrown(ex);
@@ -211,9 +225,20 @@ public class Brokers extends javax.swing.JInternalFrame {
         dispose();
     }
     
+    @Override
+    public void dispose() {
+        changes.cancel();
+        super.dispose();
+    }
+    
+    private void showCount() {
+        setTitle("Broker/Agent Entry (" + records.getRecordCount()
+                + " Records)");
+    }
+    
     private void doClear() {
         broker = new BrokerModel();
-        idField.setText(String.valueOf(broker.getId()));
+        idField.setText("");
         companyField.setText("");
         streetField.setText("");
         suiteField.setText("");
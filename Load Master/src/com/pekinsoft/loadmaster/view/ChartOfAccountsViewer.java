@@ -29,12 +29,24 @@
  *  WHEN          BY                  REASON
  *  ------------  ------------------- ------------------------------------------
  *  Oct 11, 2020  Sean Carrick        Initial creation.
+ *  Oct 19, 2026  Sean Carrick        Shows the chart through a LazyTableModel
+ *                                    instead of copying it into the table.
+ *  Oct 19, 2026  Sean Carrick        The balances of the accounts an entry is
+ *                                    posted to are shown again as it is saved.
+ *  Oct 19, 2026  Sean Carrick        Balances are written by Money.format.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.acct.BalanceEngine;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.ChartModel;
+import com.pekinsoft.loadmaster.model.EntryModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.ChangeEvent;
+import com.pekinsoft.loadmaster.utils.Money;
 import com.pekinsoft.loadmaster.utils.ScreenUtils;
 import java.awt.Image;
 import java.awt.Toolkit;
@@ -47,7 +59,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.logging.LogRecord;
 import java.util.logging.Level;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 
 /**
  *
@@ -57,6 +69,7 @@ public class ChartOfAccountsViewer extends javax.swing.JDialog {
     private final File COA;
     private LogRecord entry;
     private ArrayList<ChartModel> chart;
+    private final ChangeBus.Subscription ledger;
     /**
      * Creates new form ChartOfAccountsViewer
      */
@@ -87,6 +100,29 @@ public class ChartOfAccountsViewer extends javax.swing.JDialog {
             getChartOfAccountsFromFile();
         
         populateTable();
+        
+        // An entry saved while the chart is open moves the balances of two
+        //+ accounts; only their rows are painted again.
+        ledger = ChangeBus.subscribeOnEdt(DataTables.LEDGER, EntryModel.class,
+                this::entrySaved);
+    }
+    
+    @Override
+    public void dispose() {
+        ledger.cancel();
+        super.dispose();
+    }
+    
+    private void entrySaved(ChangeEvent<EntryModel> event) {
+        AbstractTableModel model = (AbstractTableModel) coaTable.getModel();
+        
+        for ( int x = 0; x < chart.size(); x++ ) {
+            long number = chart.get(x).getNumber();
+            
+            if ( number == event.getRecord().getFromAccount()
+                    || number == event.getRecord().getToAccount() )
+                model.fireTableRowsUpdated(x, x);
+        }
     }
     
     private void generateChartOfAccounts() {
@@ -194,17 +230,29 @@ public class ChartOfAccountsViewer extends javax.swing.JDialog {
     }
     
     private void populateTable() {
-        DefaultTableModel model = (DefaultTableModel)coaTable.getModel();
-        
-        for ( int x = 0; x < chart.size(); x++ ) {
-            Object[] row = {chart.get(x).getNumber(),
-                            chart.get(x).getName(),
-                            chart.get(x).getDescription()
-            };
-            model.addRow(row);
+        // The balances are kept up to date as entries are posted, so this is
+        //+ one lookup per account rather than a pass over the ledger.
+        BalanceEngine balances = null;
+        try {
+            balances = BalanceEngine.getInstance();
+        } catch ( DataStoreException ex ) {
+            entry.setSourceMethodName("populateTable");
+            entry.setMessage(ex.getMessage());
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
         }
         
-        coaTable.setModel(model);
+        // The table reads each cell from the chart as it is painted, so the
+        //+ accounts are not copied into rows of the table model.
+        BalanceEngine engine = balances;
+        coaTable.setModel(new LazyTableModel<ChartModel>(chart)
+                .addColumn("Account Number", Long.class, ChartModel::getNumber)
+                .addColumn("Account Name", String.class, ChartModel::getName)
+                .addColumn("Description", String.class,
+                        ChartModel::getDescription)
+                .addColumn("Balance", String.class, a -> engine == null ? ""
+                        : Money.format(engine.getBalance(
+                                (int) a.getNumber()), Money.CENTS)));
     }
 
     /**
@@ -233,14 +281,14 @@ public class ChartOfAccountsViewer extends javax.swing.JDialog {
 
             },
             new String [] {
-                "Account Number", "Account Name", "Description"
+                "Account Number", "Account Name", "Description", "Balance"
             }
         ) {
             Class[] types = new Class [] {
-                java.lang.Long.class, java.lang.String.class, java.lang.String.class
+                java.lang.Long.class, java.lang.String.class, java.lang.String.class, java.lang.String.class
             };
             boolean[] canEdit = new boolean [] {
-                false, false, false
+                false, false, false, false
             };
 
             public Class getColumnClass(int columnIndex) {
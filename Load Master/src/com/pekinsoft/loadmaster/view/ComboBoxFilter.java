@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   ComboBoxFilter.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 1:22:40 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Narrows the records listed in a combo box as the user types in a
+ *      filter field.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.view;
+
+import com.pekinsoft.loadmaster.Starter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Lists the records that match a filter field in a combo box, and keeps the
+ * list up to date as the user types.
+ * <p>
+ * The list is filtered {@link #DELAY} milliseconds after the user stops
+ * typing, so a burst of keystrokes is filtered once. A record matches when
+ * its key, such as its company or city, contains the text of the field,
+ * ignoring case. When the new text contains the text that was last filtered
+ * on, only the records that matched last time are checked again, so each
+ * keystroke narrows a shorter list.</p>
+ * <p>
+ * The matching is done by a {@link SwingWorker}, and the combo box is given
+ * the new list as one model when the worker is done, rather than having its
+ * items removed and added one at a time. A filter that is overtaken by a
+ * newer one is cancelled and its result is thrown away.</p>
+ * <p>
+ * The combo box always starts with the fixed items given to the
+ * constructor, such as "Select customer...", followed by the matching
+ * records. This class must be used on the event dispatch thread.</p>
+ *
+ * @param <T> the type of record listed
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class ComboBoxFilter<T> {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The milliseconds to wait after a keystroke before filtering. */
+    public static final int DELAY = 200;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final JComboBox<String> list;
+    private final JTextComponent field;
+    private final Function<? super T, String> label;
+    private final String[] fixed;
+    private final Timer timer;
+    private final LogRecord entry;
+
+    // Replaced, never changed, so that a running worker can keep reading the
+    //+ list it was given.
+    private List<T> records;
+    private Function<? super T, String> key;
+
+    // The lower-cased key of each record, or null until a worker has made
+    //+ them for the current key.
+    private String[] keys;
+    // The indexes of the records listed after the fixed items, and the text
+    //+ that they matched.
+    private int[] matched;
+    private String matchedText;
+
+    private SwingWorker<Result, Void> worker;
+    private int generation;
+    private boolean swapping;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a filter for a combo box. The records are listed by their
+     * labels, and are matched on their labels until {@link #setKey(Function)
+     * setKey} is called.
+     *
+     * @param list  the combo box that lists the records
+     * @param field the field the filter text is typed in
+     * @param label the function that gives the text listed for a record
+     * @param fixed the items listed before the records
+     */
+    public ComboBoxFilter (JComboBox<String> list, JTextComponent field,
+            Function<? super T, String> label, String... fixed) {
+        this.list = list;
+        this.field = field;
+        this.label = label;
+        this.fixed = fixed;
+
+        entry = new LogRecord(Level.ALL, "Filtering a list.");
+        entry.setSourceClassName(ComboBoxFilter.class.getName());
+
+        records = new ArrayList<>();
+        key = label;
+        generation = 0;
+
+        swapping = true;
+        list.setModel(new DefaultComboBoxModel<>(fixed));
+        swapping = false;
+
+        timer = new Timer(DELAY, e -> filterNow());
+        timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+        });
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Sets the records to choose from, and lists those that match the
+     * filter field.
+     *
+     * @param records the records
+     */
+    public void setRecords(List<? extends T> records) {
+        this.records = new ArrayList<>(records);
+        keys = null;
+        matched = null;
+
+        filterNow();
+    }
+
+    /**
+     * Sets the part of a record that the filter text is matched against, and
+     * filters the list again.
+     *
+     * @param key the function that gives the text to match for a record
+     */
+    public void setKey(Function<? super T, String> key) {
+        this.key = key;
+        keys = null;
+        matched = null;
+
+        filterNow();
+    }
+
+    /**
+     * Adds a record, such as one the user has just created, to the end of
+     * the list and selects it.
+     *
+     * @param record the record
+     */
+    public void add(T record) {
+        ArrayList<T> next = new ArrayList<>(records);
+        next.add(record);
+        records = next;
+        keys = null;
+
+        int[] shown = matched == null ? new int[0] : matched;
+        matched = Arrays.copyOf(shown, shown.length + 1);
+        matched[shown.length] = next.size() - 1;
+
+        // A filter that started before the record was added does not know
+        //+ about it.
+        cancel();
+
+        ((DefaultComboBoxModel<String>) list.getModel()).addElement(
+                label.apply(record));
+        list.setSelectedIndex(list.getItemCount() - 1);
+    }
+
+    /**
+     * Filters the list at once, without waiting for the user to stop typing.
+     */
+    public void filterNow() {
+        timer.stop();
+        cancel();
+
+        String text = field.getText().trim().toLowerCase();
+        List<T> all = records;
+        Function<? super T, String> by = key;
+        String[] known = keys;
+        int[] from = matched != null && matchedText != null
+                && text.contains(matchedText) ? matched : null;
+        int run = generation;
+
+        worker = new SwingWorker<Result, Void>() {
+            @Override
+            protected Result doInBackground() {
+                String[] k = known;
+
+                if ( k == null ) {
+                    k = new String[all.size()];
+
+                    for ( int x = 0; x < k.length; x++ ) {
+                        String value = by.apply(all.get(x));
+                        k[x] = value == null ? "" : value.toLowerCase();
+                    }
+                }
+
+                int size = from == null ? all.size() : from.length;
+                int[] hits = new int[size];
+                int count = 0;
+
+                for ( int x = 0; x < size; x++ ) {
+                    if ( isCancelled() )
+                        return null;
+
+                    int index = from == null ? x : from[x];
+
+                    if ( k[index].contains(text) )
+                        hits[count++] = index;
+                }
+
+                Vector<String> items = new Vector<>(fixed.length + count);
+                items.addAll(Arrays.asList(fixed));
+
+                for ( int x = 0; x < count; x++ )
+                    items.add(label.apply(all.get(hits[x])));
+
+                return new Result(k, Arrays.copyOf(hits, count), items);
+            }
+
+            @Override
+            protected void done() {
+                if ( isCancelled() || run != generation )
+                    return;
+
+                Result result;
+
+                try {
+                    result = get();
+                } catch ( InterruptedException | ExecutionException ex ) {
+                    entry.setSourceMethodName("filterNow");
+                    entry.setMessage(ex.getMessage());
+                    entry.setThrown(ex);
+                    Starter.logger.error(entry);
+                    return;
+                }
+
+                keys = result.keys;
+                matched = result.matched;
+                matchedText = text;
+
+                swapping = true;
+                list.setModel(new DefaultComboBoxModel<>(result.items));
+                swapping = false;
+            }
+        };
+
+        worker.execute();
+    }
+
+    /**
+     * Retrieves the record selected in the combo box.
+     *
+     * @return the record, or `null` if one of the fixed items, or nothing,
+     *         is selected
+     */
+    public T getSelected() {
+        int index = list.getSelectedIndex() - fixed.length;
+
+        if ( index < 0 || matched == null || index >= matched.length )
+            return null;
+
+        return records.get(matched[index]);
+    }
+
+    /**
+     * Tells whether the combo box is being given a newly filtered list, so
+     * that its listeners can ignore the selection changes this causes.
+     *
+     * @return `true` while the list is being replaced
+     */
+    public boolean isSwapping() {
+        return swapping;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void cancel() {
+        generation++;
+
+        if ( worker != null ) {
+            worker.cancel(false);
+            worker = null;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Static Classes">
+    private static class Result {
+        private final String[] keys;
+        private final int[] matched;
+        private final Vector<String> items;
+
+        private Result (String[] keys, int[] matched, Vector<String> items) {
+            this.keys = keys;
+            this.matched = matched;
+            this.items = items;
+        }
+    }
+    //</editor-fold>
+
+}
@@ -43,6 +43,10 @@
  *  Oct 09, 2020  Sean Carrick        Removed useless main() method and added
  *                                    text selection as the FocusGained event
  *                                    for both JFormattedTextFields.
+ *  Oct 19, 2026  Sean Carrick        The customer list is now filtered as the
+ *                                    criteria are typed, by a ComboBoxFilter.
+ *  Oct 19, 2026  Sean Carrick        A customer that cannot be added is
+ *                                    reported rather than left to escape.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
@@ -73,7 +77,7 @@ public class CustomerSelector extends javax.swing.JDialog {
     private LogRecord lr = new LogRecord(Level.ALL, 
             "Logging started in CustomerSelector.");
     
-    private boolean filtering;
+    private ComboBoxFilter<CustomerModel> filter;
     
     /**
      * Creates new form CustomerSelector
@@ -88,8 +92,6 @@ public class CustomerSelector extends javax.swing.JDialog {
         lr.setParameters(new Object[] {parent, modal});
         Starter.logger.enter(lr);
         
-        filtering = false;
-        
         initComponents();
         
         lr.setMessage("Attempting to access the customers database...");
@@ -119,135 +121,39 @@ public class CustomerSelector extends javax.swing.JDialog {
     }
     
     private void loadList() {
-        customerList.removeAllItems();
-        customerList.addItem("Select customer...");
-        customerList.addItem("Add a new customer...");
+        // The list is narrowed as the criteria are typed, by whichever part
+        //+ of the customer the selected option names.
+        filter = new ComboBoxFilter<>(customerList, criteriaField, 
+                CustomerSelector::labelOf, "Select customer...", 
+                "Add a new customer...");
+        allFilterOption.addActionListener(e -> filter.setKey(
+                CustomerSelector::labelOf));
+        companyFilterOption.addActionListener(e -> filter.setKey(
+                CustomerModel::getCompany));
+        cityFilterOption.addActionListener(e -> filter.setKey(
+                CustomerModel::getCity));
+        stateFilterOption.addActionListener(e -> filter.setKey(
+                CustomerModel::getState));
         
-        ArrayList<CustomerModel> filtered = new ArrayList<>();
+        ArrayList<CustomerModel> all = new ArrayList<>();
         
-        if ( allFilterOption.isSelected() ) {
-            if ( records.getRecordCount() > 0 ) {
-                try {
-                    records.first();
-                } catch ( DataStoreException ex ) {
-                    lr.setMessage("Something went wrong moving to the next record.");
-                    lr.setThrown(ex);
-                    Starter.logger.error(lr);
-
-                    MessageBox.showError(ex, "Database Access");
-                }
-
-
-                for ( int x = 0; x < records.getRecordCount(); x++ ) {
-                    CustomerModel c = records.get();
-
-                    customerList.addItem(c.getCompany() + ": " + c.getCity() + ", " 
-                            + c.getState() + " [" + c.getId() + "]");
-
-                    try {
-                        if (records.hasNext() ) 
-                            records.next();
-                    } catch ( DataStoreException ex ) {
-                        lr.setMessage("Something went wrong moving to the next record.");
-                        lr.setThrown(ex);
-                        Starter.logger.error(lr);
-
-        //                MessageBox.showError(ex, "Database Access");
-                    }
-                }
-            }
-        } else if ( cityFilterOption.isSelected() ) {
-            try {
-                filtered = records.getCompaniesByCity(criteriaField.getText(), 
-                        LoadMaster.fileProgress);
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-            }
-            
-            if ( filtered != null && filtered.size() > 0 ) {
-                for ( int x = 0; x < filtered.size(); x++ ) {
-                    customerList.addItem(filtered.get(x).getCompany() 
-                            + " (" + filtered.get(x).getId() + ")");
-                }
-            } else
-                MessageBox.showInfo("No matching records found!", "No Records");
-        } else if ( stateFilterOption.isSelected() ) {
-            try {
-                filtered = records.getCompaniesByState(criteriaField.getText(), 
-                        LoadMaster.fileProgress);
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-            }
-            
-            if ( filtered != null && filtered.size() > 0 ) {
-                for ( int x = 0; x < filtered.size(); x++ ) {
-                    customerList.addItem(filtered.get(x).getCompany() 
-                            + " (" + filtered.get(x).getId() + ")");
-                }
-            } else
-                MessageBox.showInfo("No matching records found!", "No Records");
-        } else if ( companyFilterOption.isSelected() ) {
-            try {
-                filtered = records.getCustomersByCompany(criteriaField.getText(), 
-                        LoadMaster.fileProgress);
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-            }
-            
-            if ( filtered != null && filtered.size() > 0 ) {
-                for ( int x = 0; x < filtered.size(); x++ ) {
-                    customerList.addItem(filtered.get(x).getCompany() 
-                            + " (" + filtered.get(x).getId() + ")");
-                }
-            } else
-                MessageBox.showInfo("No matching records found!", "No Records");
-        }
+        if ( records != null ) 
+            for ( int x = 0; x < records.getRecordCount(); x++ )
+                all.add(records.get(x));
         
-        filtering = false;
+        filter.setRecords(all);
+    }
+    
+    private static String labelOf(CustomerModel c) {
+        return c.getCompany() + ": " + c.getCity() + ", " + c.getState() 
+                + " [" + c.getId() + "]";
     }
     
     private void doSave() {
-        // In order to get the selected broker, we need to loop through the
-        //+ records to find which record has the selected ID number.
-        if ( !customerList.getSelectedItem().toString().equalsIgnoreCase(
-                "select customer...") ) {
-            String selectedBroker = customerList.getSelectedItem().toString();
-            long brokerID = Long.valueOf(selectedBroker.substring(
-                    selectedBroker.indexOf("(") + 1,    // Start after (
-                    selectedBroker.indexOf(")")));  // End before )
+        customer = filter.getSelected();
         
-            try {
-                records.first();
-
-                for ( int x = 0; x < records.getRecordCount(); x++ ) {
-                    CustomerModel c = records.get();
-
-                    if ( brokerID == c.getId() ) {
-                        customer = c;
-                        break;
-                    } else {
-                        if ( records.hasNext() ) 
-                            records.next();
-                    }
-                }
-        
-                setVisible(false); 
-            } catch ( DataStoreException ex ) {
-                lr.setMessage("Something went wrong moving to the next record.");
-                lr.setThrown(ex);
-                Starter.logger.error(lr);
-
-    //            MessageBox.showError(ex, "Database Access");
-
-                dispose();
-            }
-        }       
+        if ( customer != null ) 
+            setVisible(false);
     }
     
     private boolean isDataValid() {
@@ -275,13 +181,17 @@ public class CustomerSelector extends javax.swing.JDialog {
             if ( dlg.isCancelled() == false ) {
                 customer = dlg.getCustomer();
                 
-                records.addNew(customer);
-                
-                customerList.addItem(customer.getCompany() + ": " 
-                        + customer.getCity() + ", " + customer.getState() 
-                        + " [" + customer.getId() + "]");
+                try {
+                    records.addNew(customer);
+                } catch ( DataStoreException ex ) {
+                    lr.setMessage("Something went wrong adding the customer.");
+                    lr.setThrown(ex);
+                    Starter.logger.error(lr);
+
+                    MessageBox.showError(ex, "Database Access");
+                }
                 
-                customerList.setSelectedIndex(customerList.getItemCount() - 1);
+                filter.add(customer);
             }
         }
         
@@ -681,7 +591,7 @@ public class CustomerSelector extends javax.swing.JDialog {
 
     private void customerListItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_customerListItemStateChanged
         // Validate the data on the dialog
-        if ( !filtering ) 
+        if ( filter != null && !filter.isSwapping() ) 
             selectButton.setEnabled(isDataValid());
     }//GEN-LAST:event_customerListItemStateChanged
 
@@ -690,8 +600,7 @@ public class CustomerSelector extends javax.swing.JDialog {
     }//GEN-LAST:event_selectText
 
     private void filterButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_filterButtonActionPerformed
-        filtering = true;
-        loadList();
+        filter.filterNow();
     }//GEN-LAST:event_filterButtonActionPerformed
 
     private void criteriaFieldKeyPressed(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_criteriaFieldKeyPressed
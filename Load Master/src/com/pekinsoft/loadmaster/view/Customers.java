@@ -32,14 +32,20 @@
  *  Sep 01, 2020  Sean Carrick        Added data validation to the dialog to
  *                                    ensure that all required fields are filled
  *                                    in and that all data entered is valid.
+ *  Oct 19, 2026  Sean Carrick        The record count follows customers added
+ *                                    in other windows.
+ *  Oct 19, 2026  Sean Carrick        The ID number of a new customer is shown
+ *                                    once it has been added.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
 
 import com.pekinsoft.loadmaster.Starter;
 import com.pekinsoft.loadmaster.controller.CustomerCtl;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.CustomerModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import com.pekinsoft.loadmaster.verifiers.PostalCodeVerifier;
 import com.pekinsoft.loadmaster.verifiers.StateAbbrVerifier;
@@ -69,6 +75,7 @@ public class Customers extends javax.swing.JInternalFrame {
     private CustomerCtl records;
     private CustomerModel customer;
     private final LogRecord lr;
+    private final ChangeBus.Subscription changes;
     
     /**
      * Creates new form Customers
@@ -100,7 +107,12 @@ public class Customers extends javax.swing.JInternalFrame {
         stateField.setInputVerifier(new StateAbbrVerifier());
         zipField.setInputVerifier(new PostalCodeVerifier());
         
-        setTitle(getTitle() + " (" + records.getRecordCount() + " Records)");
+        showCount();
+        
+        // The controller has taken in a customer saved in another window by
+        //+ the time we hear of it, so only the count needs showing.
+        changes = ChangeBus.subscribeOnEdt(DataTables.CUSTOMERS,
+                CustomerModel.class, e -> showCount());
         
         // Set the accessible description for the required fields to "required"
         //+ for data validation purposes.
@@ -123,30 +135,28 @@ public class Customers extends javax.swing.JInternalFrame {
         companyField.requestFocus();
 
         customer = new CustomerModel();
-        idField.setText(String.valueOf(customer.getId()));
 
         // Perform data save here.
         customer.setCity(cityField.getText());
         customer.setComments(notesField.getText());
         customer.setCompany(companyField.getText());
         customer.setContact(contactField.getText());
-        customer.setId(Long.valueOf(idField.getText()));
         customer.setPhone(phoneField.getText());
         customer.setState(stateField.getText());
         customer.setStreet(streetField.getText());
         customer.setSuite(suiteField.getText());
         customer.setZip(zipField.getText());
 
-        records.addNew(customer);
-
         lr.setMessage("Attempting to save the data to file.");
         Starter.logger.debug(lr);
         try {
+            records.addNew(customer);
+            idField.setText(String.valueOf(customer.getId()));
             records.storeData();
             lr.setMessage("Save to file was successful!");
             Starter.logger.info(lr);
             
-            setTitle("Customer Entry (" + records.getRecordCount() + " Records)");
+            showCount();
         } catch (DataStoreException ex) {
             lr.setMessage("Something went wrong accessing the customers database.");
             lr.setThrown(ex);
@@ -190,9 +200,19 @@ public class Customers extends javax.swing.JInternalFrame {
         dispose();
     }
     
+    @Override
+    public void dispose() {
+        changes.cancel();
+        super.dispose();
+    }
+    
+    private void showCount() {
+        setTitle("Customer Entry (" + records.getRecordCount() + " Records)");
+    }
+    
     private void doClear() {
         customer = new CustomerModel();
-        idField.setText(String.valueOf(customer.getId()));
+        idField.setText("");
         companyField.setText("");
         streetField.setText("");
         suiteField.setText("");
@@ -26,6 +26,9 @@
  *   WHEN          BY                  REASON
  *   ------------  ------------------- ------------------------------------------
  *   Oct 20, 2020    Sean Carrick Initial Creation.
+ *   Oct 19, 2026    Sean Carrick The purchase ID is given when the
+ *                                purchase is saved, not when the dialog
+ *                                is opened.
  *  ******************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
@@ -101,7 +104,6 @@ public class FuelPurchaseDialog extends javax.swing.JDialog {
             Starter.logger.error(entry);
         }
         purchase.setNotes(notesField.getText());
-        purchase.setId(Long.parseLong(idField.getText()));
         
         // Now, store the DEF information, if DEF was purchased.
         if ( defCheckBox.isSelected() ) {
@@ -132,7 +134,6 @@ public class FuelPurchaseDialog extends javax.swing.JDialog {
         model.setPricePerGallonDef(defPriceField.getText());
         model.setGallonsOfDiesel(dieselGallonsField.getText());
         model.setPricePerGallonOfDiesel(dieselPriceField.getText());
-        model.setId(idField.getText());
         model.setLocation(locationField.getText());
         model.setNotes(notesField.getText());
         model.setOdometer(odometerField.getText());
@@ -151,8 +152,7 @@ public class FuelPurchaseDialog extends javax.swing.JDialog {
         //+ the batch posting method, so we need to add this transaction to
         //+ the batch of transactions.
         EntryModel transaction = new EntryModel();
-        transaction.setAmount(purchase.getGallonsOfDiesel() 
-                * purchase.getPricePerGallonDiesel());
+        transaction.setAmountInCents(purchase.getDieselCostInCents());
         transaction.setBalanced(false);
         transaction.setCode("Diesel");
         transaction.setDate(purchase.getDate());
@@ -190,8 +190,7 @@ public class FuelPurchaseDialog extends javax.swing.JDialog {
         if ( purchase.isDefPurchased() ) {
             // We need to create a new transaction for this purchase.
             transaction = new EntryModel();
-            transaction.setAmount(purchase.getGallonsOfDef() 
-                    * purchase.getPricePerGallonDef());
+            transaction.setAmountInCents(purchase.getDefCostInCents());
             transaction.setBalanced(false);
             transaction.setCode("DEF");
             transaction.setDate(purchase.getDate());
@@ -287,7 +286,6 @@ public class FuelPurchaseDialog extends javax.swing.JDialog {
 
         idLabel.setText("Purchase ID:");
 
-        idField.setText(String.valueOf(System.currentTimeMillis()));
         idField.setEditable(false);
         idField.addFocusListener(new java.awt.event.FocusAdapter() {
             public void focusGained(java.awt.event.FocusEvent evt) {
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   LazyTableModel.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 12:41:15 AM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      A table model that shows the model objects of a list or a controller
+ *      without copying them into rows of its own.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A read-only table model over the model objects held by a list or a
+ * controller. Nothing is copied: the row count and each row are asked of the
+ * source when the table needs them, and each cell is taken from the model
+ * object by the function given for its column when the cell is painted.
+ * <p>
+ * A list is shown by passing it to the constructor. A controller is shown by
+ * passing its record count and record accessor, such as
+ * <pre>
+ * BrokerCtl brokers = new BrokerCtl();
+ * LazyTableModel&lt;BrokerModel&gt; model = new LazyTableModel&lt;&gt;(
+ *         brokers::getRecordCount, brokers::get)
+ *         .addColumn("Company", String.class, BrokerModel::getCompany)
+ *         .addColumn("Phone", String.class, BrokerModel::getPhone);
+ * </pre>
+ * Because the model does not see the source change, whoever changes it
+ * tells the table by calling {@link #fireTableRowsInserted(int, int)
+ * fireTableRowsInserted}, {@link #fireTableRowsUpdated(int, int)
+ * fireTableRowsUpdated} or {@link #fireTableRowsDeleted(int, int)
+ * fireTableRowsDeleted} for the rows that changed, so that only those rows
+ * are painted again.</p>
+ *
+ * @param <T> the type of model object in each row
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class LazyTableModel<T> extends AbstractTableModel {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private final IntSupplier count;
+    private final IntFunction<? extends T> rows;
+
+    private final List<String> names;
+    private final List<Class<?>> types;
+    private final List<Function<? super T, ?>> values;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a model that shows the objects in a list. The list is not
+     * copied, so the model shows it as it is when the table is painted.
+     *
+     * @param list the list of model objects
+     */
+    public LazyTableModel (List<? extends T> list) {
+        this(list::size, list::get);
+    }
+
+    /**
+     * Creates a model that shows the records of a controller, or of any other
+     * source that can give its size and a record by its index.
+     *
+     * @param count the function that gives the number of rows
+     * @param rows  the function that gives the model object of a row
+     */
+    public LazyTableModel (IntSupplier count, IntFunction<? extends T> rows) {
+        this.count = count;
+        this.rows = rows;
+
+        names = new ArrayList<>();
+        types = new ArrayList<>();
+        values = new ArrayList<>();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Adds a column to the model. Columns are shown in the order they are
+     * added.
+     *
+     * @param name  the column heading
+     * @param type  the class of the values in the column
+     * @param value the function that takes the value of the column from a
+     *              model object
+     * @return this model, so that columns may be added in one statement
+     */
+    public LazyTableModel<T> addColumn(String name, Class<?> type,
+            Function<? super T, ?> value) {
+        names.add(name);
+        types.add(type);
+        values.add(value);
+
+        return this;
+    }
+
+    /**
+     * Retrieves the model object shown in a row.
+     *
+     * @param row the row
+     * @return the model object
+     */
+    public T getRow(int row) {
+        return rows.apply(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return count.getAsInt();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return names.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return names.get(column);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return types.get(column);
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T model = rows.apply(row);
+
+        return model == null ? null : values.get(column).apply(model);
+    }
+    //</editor-fold>
+
+}
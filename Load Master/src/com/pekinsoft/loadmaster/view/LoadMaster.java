@@ -36,20 +36,41 @@
  *                                    Page report. Changed the titlebar text to 
  *                                    read the Project Name from the properties 
  *                                    file.
+ *  Oct 19, 2026  Sean Carrick        An arrival that the stop log refuses is
+ *                                    not counted as a stop.
+ *  Oct 19, 2026  Sean Carrick        Amounts in the reports are written by
+ *                                    Money.format.
+ *  Oct 19, 2026  Sean Carrick        Archiving loads and writing invoices
+ *                                    run off of the Event Dispatch Thread.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.acct.AgingEngine;
+import com.pekinsoft.loadmaster.acct.FleetSummary;
+import com.pekinsoft.loadmaster.acct.BalanceEngine;
+import com.pekinsoft.loadmaster.acct.FuelEconomy;
+import com.pekinsoft.loadmaster.acct.IftaQuarter;
+import com.pekinsoft.loadmaster.acct.LaneAnalytics;
+import com.pekinsoft.loadmaster.acct.PeriodRollups;
+import com.pekinsoft.loadmaster.controller.BrokerCtl;
 import com.pekinsoft.loadmaster.controller.EntryCtl;
 import com.pekinsoft.loadmaster.controller.LoadCtl;
-import com.pekinsoft.loadmaster.controller.StopCtl;
+import com.pekinsoft.loadmaster.enums.DataTables;
 import com.pekinsoft.loadmaster.enums.SysExits;
 import com.pekinsoft.loadmaster.err.DataStoreException;
-import com.pekinsoft.loadmaster.err.InvalidTimeException;
+import com.pekinsoft.loadmaster.err.ValidationException;
+import com.pekinsoft.loadmaster.io.CsvExporter;
+import com.pekinsoft.loadmaster.io.ImportPipeline;
+import com.pekinsoft.loadmaster.io.InvoiceGenerator;
 import com.pekinsoft.loadmaster.model.LoadModel;
-import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.sys.LoadArchive;
+import com.pekinsoft.loadmaster.sys.SearchIndex;
+import com.pekinsoft.loadmaster.sys.StopLog;
+import com.pekinsoft.loadmaster.sys.TableWatcher;
 import com.pekinsoft.loadmaster.utils.MessageBox;
+import com.pekinsoft.loadmaster.utils.Money;
 import com.pekinsoft.loadmaster.view.wiz.LoadBookerWizardPanelProvider;
 import com.pekinsoft.loadmaster.view.wiz.book.BrokerPage;
 import com.pekinsoft.loadmaster.view.wiz.book.LoadPage;
@@ -60,17 +81,31 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.JDialog;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import org.jdesktop.swingx.JXSearchField;
 import org.netbeans.api.wizard.WizardDisplayer;
 import org.netbeans.spi.wizard.Wizard;
 
@@ -126,6 +161,30 @@ public class LoadMaster extends javax.swing.JFrame {
         } else {
             batch = null;
         }
+        
+        overView.setEditable(false);
+        showFuelEconomy();
+        
+        // The search box sits above the task panes and searches on Enter.
+        JXSearchField search = new JXSearchField("Search loads, stops, "
+                + "ledger...");
+        search.setSearchMode(JXSearchField.SearchMode.REGULAR);
+        search.setToolTipText("Every word must match; end a word with * to "
+                + "match its beginnings, or start it with field: as in "
+                + "bol:48213");
+        search.addActionListener(e -> doSearch(search.getText()));
+        tasksContainer.add(search, 0);
+        
+        // Another copy of the program may share the data folder, so say so
+        //+ when it changes a table, and refresh what is shown from it.
+        TableWatcher.addListener(table -> SwingUtilities.invokeLater(() -> {
+            tipsLabel.setText("The " + table + " table was changed by another "
+                    + "user; it will be read again when next used.");
+            
+            if ( table == DataTables.FUEL || table == DataTables.LOADS )
+                showFuelEconomy();
+        }));
+        TableWatcher.start();
     }
     
     public void setWindowTitle(String title) {
@@ -366,6 +425,20 @@ public class LoadMaster extends javax.swing.JFrame {
         }
         });
 
+        loadTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "Archive Finished Loads...");
+            putValue(Action.SHORT_DESCRIPTION, "Moves completed and cancelled "
+                    + "loads from past years to the archive.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/Folder.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doArchiveLoads();
+        }
+        });
+
         loadTasks.add(new JSeparator());
 
         loadTasks.add(new AbstractAction() {
@@ -453,6 +526,34 @@ public class LoadMaster extends javax.swing.JFrame {
         }
         });
 
+        systemTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "Import Data...");
+            putValue(Action.SHORT_DESCRIPTION, "Imports brokers, customers or "
+                    + "loads from a CSV file.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/openDB.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doImportData();
+        }
+        });
+
+        systemTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "Export Data...");
+            putValue(Action.SHORT_DESCRIPTION, "Exports a table or a report "
+                    + "view to a CSV file.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/save-database.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doExportData();
+        }
+        });
+
         systemTasks.add(new JSeparator());
 
         systemTasks.add(new AbstractAction() {
@@ -483,6 +584,85 @@ public class LoadMaster extends javax.swing.JFrame {
             doShowChartOfAccounts();
         }
         });
+        accountingTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "Profit and Loss...");
+            putValue(Action.SHORT_DESCRIPTION, "Displays income, expenses and "
+                    + "deductible expenses by fiscal period.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/Dollar.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doShowProfitAndLoss();
+        }
+        });
+        accountingTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "Receivables Aging...");
+            putValue(Action.SHORT_DESCRIPTION, "Displays the open receivables "
+                    + "by broker and by age.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/money3D.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doShowReceivablesAging();
+        }
+        });
+        accountingTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "IFTA Miles and Gallons...");
+            putValue(Action.SHORT_DESCRIPTION, "Displays the miles and gallons "
+                    + "by state for a quarter's IFTA return.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/globe.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doShowIfta();
+        }
+        });
+        accountingTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "Revenue per Mile...");
+            putValue(Action.SHORT_DESCRIPTION, "Ranks the brokers or lanes by "
+                    + "the revenue per mile of their loads.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/sort-asc.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doShowRevenuePerMile();
+        }
+        });
+        if ( Starter.props.isFleetMode() )
+            accountingTasks.add(new AbstractAction() {
+            {
+                putValue(Action.NAME, "Fleet Summary...");
+                putValue(Action.SHORT_DESCRIPTION, "Totals the loads, miles, "
+                        + "revenue and fuel of each truck of the fleet.");
+                putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                        .getResource("/com/pekinsoft/loadmaster/res/Flatbedding.png")));
+            }
+
+            public void actionPerformed(ActionEvent e) {
+                doShowFleetSummary();
+            }
+            });
+        accountingTasks.add(new AbstractAction() {
+        {
+            putValue(Action.NAME, "Generate Invoices...");
+            putValue(Action.SHORT_DESCRIPTION, "Writes the invoices for every "
+                    + "completed load that has not been invoiced.");
+            putValue(Action.SMALL_ICON, new javax.swing.ImageIcon(getClass()
+                    .getResource("/com/pekinsoft/loadmaster/res/Script.png")));
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            doGenerateInvoice("");
+        }
+        });
     }
     
     private void createMiscTasks() {
@@ -505,6 +685,57 @@ public class LoadMaster extends javax.swing.JFrame {
         FuelPurchaseDialog dlg = new FuelPurchaseDialog(this, true);
         dlg.pack();
         dlg.setVisible(true);
+        
+        // The dialog has posted the fuel-up, if it was saved.
+        showFuelEconomy();
+    }
+    
+    /**
+     * Shows the rolling fuel mileage, DEF usage and fuel cost per mile in the
+     * overview, for the last week, the last month and the current trip.
+     */
+    private void showFuelEconomy() {
+        FuelEconomy economy;
+        
+        try {
+            economy = FuelEconomy.getInstance();
+        } catch ( DataStoreException ex ) {
+            record.setSourceMethodName("showFuelEconomy");
+            record.setMessage(ex.getMessage());
+            record.setThrown(ex);
+            Starter.logger.error(record);
+            return;
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %8s %8s %7s %7s %10s%n", "Fuel Economy",
+                "Miles", "Gallons", "MPG", "DEF %", "Cost/Mile"));
+        appendFuelEconomy(sb, "Last " + FuelEconomy.WEEK + " days", 
+                economy.getDays(FuelEconomy.WEEK, new Date()));
+        appendFuelEconomy(sb, "Last " + FuelEconomy.MONTH + " days", 
+                economy.getDays(FuelEconomy.MONTH, new Date()));
+        
+        String trip = Starter.props.getProperty("load.current", 
+                "No Active Load");
+        if ( !trip.equalsIgnoreCase("No Active Load") )
+            appendFuelEconomy(sb, "Trip " + trip, economy.getTrip(trip));
+        
+        overView.setText(sb.toString());
+        overView.setCaretPosition(0);
+    }
+    
+    private void appendFuelEconomy(StringBuilder sb, String label, 
+            FuelEconomy.Window window) {
+        if ( window == null || window.getMiles() == 0 ) {
+            sb.append(String.format("%-16.16s %8s%n", label, "-"));
+            return;
+        }
+        
+        sb.append(String.format("%-16.16s %,8d %,8.1f %7.2f %7.2f %10s%n",
+                label, window.getMiles(), window.getDieselGallons(),
+                window.getMilesPerGallon(), window.getDefRatio(),
+                "$" + Money.format(window.getCostPerMileInMills(), 
+                        Money.MILLS)));
     }
     
     private void doClose() {
@@ -569,6 +800,31 @@ public class LoadMaster extends javax.swing.JFrame {
     }
     
     private void doArrival() {
+        // The arrival is one line added to the trip's stop log; the stops
+        //+ table is neither searched nor written.
+        String trip = Starter.props.getProperty("load.current",
+                "No Active Load");
+        
+        if ( !trip.equalsIgnoreCase("No Active Load") ) {
+            try {
+                StopLog.arrive(trip, StopLog.getArrivalStop(trip), new Date());
+            } catch ( ValidationException ex ) {
+                // Still at the last stop, or past the last one: there is no
+                //+ arrival to log, nor any progress to show.
+                MessageBox.showWarning(ex.getMessage(), "Arrival");
+                return;
+            } catch ( DataStoreException | IOException ex ) {
+                record.setSourceMethodName("doArrival");
+                record.setMessage("An error occurred while logging the "
+                        + "arrival.");
+                record.setThrown(ex);
+                Starter.logger.error(record);
+                
+                MessageBox.showError(ex, "Data Access Error");
+                return;
+            }
+        }
+        
         // Update the stop number in the settings file.
         Starter.props.setPropertyAsInt("load.stop", 
                 Starter.props.getPropertyAsInt("load.stop", "0") + 1);
@@ -576,74 +832,6 @@ public class LoadMaster extends javax.swing.JFrame {
 //        // Update the progress bar for the load.
 //        loadProgress.setValue(Starter.props.getPropertyAsInt("load.stop", "0"));
         
-        
-        // Retrieve the current stop from the table.
-        StopModel current = null;
-        StopCtl stops = null;
-        
-        try {
-            stops = new StopCtl();
-        } catch ( DataStoreException ex ) {
-            record.setSourceMethodName("doArrival");
-            record.setMessage("An error occurred while creating a StopCtl "
-                    + "object.");
-            record.setThrown(ex);
-            Starter.logger.error(record);
-            
-            MessageBox.showError(ex, "Data Access Error");
-        } finally {
-            if ( stops != null ) {
-                if ( stops.getRecordCount() > 0 ) {
-                    current = stops.get();
-                    
-                    if ( !current.getTripNumber().equalsIgnoreCase(
-                            Starter.props.getProperty("load.current"))) {
-                        while ( stops.hasNext() ) {
-                            try {
-                                current = stops.next();
-                            } catch ( DataStoreException ex ) {
-                                record.setMessage("An error occurred while "
-                                        + "trying to move to the next stop.");
-                                Starter.logger.error(record);
-                                
-                                MessageBox.showError(ex, "Record Navigation "
-                                        + "Error");
-                            }
-                            
-                            if ( current.getTripNumber().equalsIgnoreCase(
-                                    Starter.props.getProperty("load.current")))
-                                break;
-                        }
-                    }
-                    
-                    SimpleDateFormat sdf = new SimpleDateFormat("HH:mm");
-                    current.setArrDate(new Date());
-                    try {
-                        current.setArrTime(sdf.format(new Date()));
-                    } catch ( InvalidTimeException | ParseException ex ) {
-                        record.setMessage("Time not properly parsed or invalid.");
-                        record.setThrown(ex);
-                        Starter.logger.error(record);
-                        
-                        MessageBox.showError(ex, "Parsing Error");
-                    }
-                    
-                    stops.update(current);
-                    
-                    try {
-                        stops.close();
-                    } catch ( DataStoreException ex ) {
-                        record.setMessage("An error occurred while attempting "
-                                + "to access the stops table file.");
-                        record.setThrown(ex);
-                        Starter.logger.error(record);
-                        
-                        MessageBox.showError(ex, "Data Access Error");
-                    }
-                }
-            }
-        }
-        
         updateLoadProgress();
     }
     
@@ -660,88 +848,41 @@ public class LoadMaster extends javax.swing.JFrame {
         
         int result = JOptionPane.showConfirmDialog(this, "Is this a delivery?");
         boolean pickingUp = true;
+        String signedBy = null;
         
-        if ( result == JOptionPane.NO_OPTION ) {
+        if ( result == JOptionPane.YES_OPTION ) {
+            // The delivery dialog has nothing on it yet, so the one thing it
+            //+ would ask is asked here.
             pickingUp = false;
-            dlg = new DepartPickupDialog(this, true);
-            dlg.pack();
-            dlg.setVisible(true);
+            signedBy = JOptionPane.showInputDialog(this, "Who signed for the "
+                    + "delivery?", "Departing Delivery",
+                    JOptionPane.QUESTION_MESSAGE);
         } else {
             dlg = new DepartPickupDialog(this, true);
             dlg.pack();
             dlg.setVisible(true);
         }        
         
-        // Retrieve the current stop from the table.
-        StopModel current = null;
-        StopCtl stops = null;
+        // The departure, and who signed for a delivery, are lines added to
+        //+ the trip's stop log.
+        String trip = Starter.props.getProperty("load.current",
+                "No Active Load");
         
-        try {
-            stops = new StopCtl();
-        } catch ( DataStoreException ex ) {
-            record.setSourceMethodName("doDeparture");
-            record.setMessage("An error occurred while creating a StopCtl "
-                    + "object.");
-            record.setThrown(ex);
-            Starter.logger.error(record);
-            
-            MessageBox.showError(ex, "Data Access Error");
-        } finally {
-            if ( stops != null ) {
-                if ( stops.getRecordCount() > 0 ) {
-                    current = stops.get();
-                    
-                    if ( !current.getTripNumber().equalsIgnoreCase(
-                            Starter.props.getProperty("load.current"))) {
-                        while ( stops.hasNext() ) {
-                            try {
-                                current = stops.next();
-                            } catch ( DataStoreException ex ) {
-                                record.setMessage("An error occurred while "
-                                        + "trying to move to the next stop.");
-                                Starter.logger.error(record);
-                                
-                                MessageBox.showError(ex, "Record Navigation "
-                                        + "Error");
-                            }
-                            
-                            if ( current.getTripNumber().equalsIgnoreCase(
-                                    Starter.props.getProperty("load.current")))
-                                break;
-                        }
-                    }
-                    
-                    SimpleDateFormat sdf = new SimpleDateFormat("HH:mm");
-                    Date dep = new Date();
-                    current.setDepDate(dep);
-                    try {
-                        current.setDepTime(sdf.format(dep));
-                    } catch ( InvalidTimeException | ParseException ex ) {
-                        record.setMessage("Time not properly parsed or invalid.");
-                        record.setThrown(ex);
-                        Starter.logger.error(record);
-                        
-                        MessageBox.showError(ex, "Parsing Error");
-                    }
-                    
-                    if ( !pickingUp ) {
-                        current.setSignedBy(
-                                ((DepartDeliveryDialog)dlg).getSignedBy());
-                    }
-                    
-                    stops.update(current);
-                    
-                    try {
-                        stops.close();
-                    } catch ( DataStoreException ex ) {
-                        record.setMessage("An error occurred while attempting "
-                                + "to access the stops table file.");
-                        record.setThrown(ex);
-                        Starter.logger.error(record);
-                        
-                        MessageBox.showError(ex, "Data Access Error");
-                    }
-                }
+        if ( !trip.equalsIgnoreCase("No Active Load") ) {
+            try {
+                int stop = StopLog.getDepartureStop(trip);
+                StopLog.depart(trip, stop, new Date());
+                
+                if ( signedBy != null && !signedBy.isBlank() )
+                    StopLog.signedBy(trip, stop, signedBy);
+            } catch ( DataStoreException | IOException ex ) {
+                record.setSourceMethodName("doDeparture");
+                record.setMessage("An error occurred while logging the "
+                        + "departure.");
+                record.setThrown(ex);
+                Starter.logger.error(record);
+                
+                MessageBox.showError(ex, "Data Access Error");
             }
         }
         
@@ -818,12 +959,518 @@ public class LoadMaster extends javax.swing.JFrame {
         updateLoadProgress();
     }
     
+    private void doImportData() {
+        DataTables[] tables = {DataTables.BROKERS, DataTables.CUSTOMERS,
+            DataTables.LOADS};
+        DataTables table = (DataTables) JOptionPane.showInputDialog(this,
+                "Import records into which table?", "Import Data",
+                JOptionPane.QUESTION_MESSAGE, null, tables, tables[0]);
+
+        if ( table == null )
+            return;
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter(
+                "Comma-Separated Values (*.csv)", "csv"));
+
+        if ( chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION )
+            return;
+
+        File src = chooser.getSelectedFile();
+        ImportPipeline pipeline = new ImportPipeline(table, src);
+
+        fileProgress.setIndeterminate(true);
+        fileProgress.setStringPainted(true);
+        fileProgress.setVisible(true);
+        tipsLabel.setText("Importing " + src.getName() + " into " + table
+                + "...");
+
+        // The import runs off of the Event Dispatch Thread so that the window
+        //+ keeps painting while a large file is read.
+        new SwingWorker<Void, Long>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                pipeline.run(read -> publish(read));
+                return null;
+            }
+
+            @Override
+            protected void process(List<Long> chunks) {
+                fileProgress.setString(chunks.get(chunks.size() - 1)
+                        + " rows");
+            }
+
+            @Override
+            protected void done() {
+                fileProgress.setIndeterminate(false);
+                fileProgress.setStringPainted(false);
+                fileProgress.setVisible(false);
+                tipsLabel.setText("");
+
+                try {
+                    get();
+                } catch ( InterruptedException | ExecutionException ex ) {
+                    MessageBox.showError(ex, "Import Failed");
+                    return;
+                }
+
+                StringBuilder msg = new StringBuilder();
+                msg.append(pipeline.getAdded()).append(" records added, ")
+                        .append(pipeline.getDuplicates())
+                        .append(" duplicates skipped, ")
+                        .append(pipeline.getRejected()).append(" rejected.");
+
+                List<String> problems = pipeline.getProblems();
+                for ( int x = 0; x < problems.size() && x < 10; x++ )
+                    msg.append("\n").append(problems.get(x));
+                if ( problems.size() > 10 )
+                    msg.append("\n...");
+
+                if ( pipeline.getRejected() == 0 )
+                    MessageBox.showInfo(msg.toString(), "Import Complete");
+                else
+                    MessageBox.showWarning(msg.toString(), "Import Complete");
+            }
+        }.execute();
+    }
+    
+    private void doExportData() {
+        String[] names = CsvExporter.getExportNames();
+        String name = (String) JOptionPane.showInputDialog(this,
+                "Export which table or view?", "Export Data",
+                JOptionPane.QUESTION_MESSAGE, null, names, names[0]);
+
+        if ( name == null )
+            return;
+
+        CsvExporter exporter = new CsvExporter(name);
+        String year = MessageBox.getInput("Export which year? (Leave blank "
+                + "to export all records.)", "Export Data");
+
+        if ( year == null )
+            return;
+
+        if ( !year.isBlank() ) {
+            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
+            sdf.setLenient(false);
+
+            try {
+                exporter.setPeriod(sdf.parse("01/01/" + year.trim()),
+                        sdf.parse("12/31/" + year.trim()));
+            } catch ( ParseException ex ) {
+                MessageBox.showWarning(year + " is not a valid year.",
+                        "Export Data");
+                return;
+            }
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter(
+                "Comma-Separated Values (*.csv)", "csv"));
+        chooser.setSelectedFile(new File(name + (year.isBlank() ? ""
+                : "-" + year.trim()) + ".csv"));
+
+        if ( chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION )
+            return;
+
+        File dest = chooser.getSelectedFile();
+        if ( !dest.getName().toLowerCase().endsWith(".csv") )
+            dest = new File(dest.getPath() + ".csv");
+
+        File target = dest;
+        fileProgress.setIndeterminate(true);
+        fileProgress.setStringPainted(true);
+        fileProgress.setVisible(true);
+        tipsLabel.setText("Exporting " + name + " to " + target.getName()
+                + "...");
+
+        new SwingWorker<Long, Long>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                try ( FileWriter out = new FileWriter(target) ) {
+                    return exporter.export(out, rows -> publish(rows));
+                }
+            }
+
+            @Override
+            protected void process(List<Long> chunks) {
+                fileProgress.setString(chunks.get(chunks.size() - 1)
+                        + " rows");
+            }
+
+            @Override
+            protected void done() {
+                fileProgress.setIndeterminate(false);
+                fileProgress.setStringPainted(false);
+                fileProgress.setVisible(false);
+                tipsLabel.setText("");
+
+                try {
+                    MessageBox.showInfo(get() + " rows written to "
+                            + target.getName() + ".", "Export Complete");
+                } catch ( InterruptedException | ExecutionException ex ) {
+                    MessageBox.showError(ex, "Export Failed");
+                }
+            }
+        }.execute();
+    }
+    
+    private void doArchiveLoads() {
+        Calendar cal = Calendar.getInstance();
+        cal.set(Calendar.DAY_OF_YEAR, 1);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+
+        String msg = "Move all completed and cancelled loads dispatched before "
+                + cal.get(Calendar.YEAR) + " to the archive?\n\nArchived "
+                + "loads are still included in reports and exports for their "
+                + "periods.";
+        if ( MessageBox.askQuestion(msg, "Archive Finished Loads", false)
+                != MessageBox.YES_OPTION )
+            return;
+
+        Date before = cal.getTime();
+        fileProgress.setIndeterminate(true);
+        fileProgress.setStringPainted(false);
+        fileProgress.setVisible(true);
+        tipsLabel.setText("Archiving loads dispatched before "
+                + cal.get(Calendar.YEAR) + "...");
+
+        // The archive rewrites the loads and stops tables, so it runs off of
+        //+ the Event Dispatch Thread the same as an import.
+        new SwingWorker<long[], Void>() {
+            @Override
+            protected long[] doInBackground() throws Exception {
+                return LoadArchive.archive(before);
+            }
+
+            @Override
+            protected void done() {
+                fileProgress.setIndeterminate(false);
+                fileProgress.setVisible(false);
+                tipsLabel.setText("");
+
+                try {
+                    long[] counts = get();
+                    MessageBox.showInfo(counts[0] + " loads and " + counts[1]
+                            + " stops archived.", "Archive Finished Loads");
+                } catch ( InterruptedException | ExecutionException ex ) {
+                    MessageBox.showError(ex, "Archive Failed");
+                }
+            }
+        }.execute();
+    }
+    
     private void doShowChartOfAccounts() {
         ChartOfAccountsViewer dlg = new ChartOfAccountsViewer(this, true);
         dlg.pack();
         dlg.setVisible(true);
     }
     
+    private void doShowProfitAndLoss() {
+        String[] grains = {"Month", "Quarter", "Year"};
+        String by = (String) JOptionPane.showInputDialog(this,
+                "Show profit and loss by which fiscal period?",
+                "Profit and Loss", JOptionPane.QUESTION_MESSAGE, null, grains,
+                grains[1]);
+
+        if ( by == null )
+            return;
+
+        PeriodRollups rollups;
+        try {
+            rollups = BalanceEngine.getInstance().getRollups();
+        } catch ( DataStoreException ex ) {
+            MessageBox.showError(ex, "Profit and Loss");
+            return;
+        }
+
+        // The rollups already hold every period's totals, so there is no
+        //+ need to read the ledger here.
+        PeriodRollups.Grain grain = PeriodRollups.Grain.valueOf(
+                by.toUpperCase());
+        int[] periods = rollups.getPeriods(grain);
+        Object[][] rows = new Object[periods.length][];
+
+        for ( int x = 0; x < periods.length; x++ ) {
+            long in = rollups.getIncome(grain, periods[x]);
+            long ded = rollups.getExpenses(grain, periods[x], true);
+            long all = rollups.getExpenses(grain, periods[x], null);
+
+            rows[x] = new Object[]{PeriodRollups.getLabel(grain, periods[x]),
+                Money.format(in, Money.CENTS),
+                Money.format(all, Money.CENTS),
+                Money.format(ded, Money.CENTS),
+                Money.format(all - ded, Money.CENTS),
+                Money.format(in - all, Money.CENTS)};
+        }
+
+        JTable table = new JTable(rows, new String[]{"Period", "Income",
+            "Expenses", "Deductible", "Nondeductible", "Net Profit"});
+        table.setEnabled(false);
+        JScrollPane scroller = new JScrollPane(table);
+        scroller.setPreferredSize(new java.awt.Dimension(640, 320));
+
+        JOptionPane.showMessageDialog(this, scroller, "Profit and Loss by "
+                + by, JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    private void doShowReceivablesAging() {
+        AgingEngine aging;
+        HashMap<Long, String> names = new HashMap<>();
+        
+        try {
+            aging = AgingEngine.getInstance();
+            BrokerCtl brokers = new BrokerCtl();
+            
+            for ( int x = 0; x < brokers.getRecordCount(); x++ )
+                names.put(brokers.get(x).getId(), brokers.get(x).getCompany());
+        } catch ( DataStoreException ex ) {
+            MessageBox.showError(ex, "Receivables Aging");
+            return;
+        }
+        
+        Date today = new Date();
+        long[] brokerIds = aging.getBrokers();
+        Object[][] rows = new Object[brokerIds.length + 1][];
+        
+        for ( int x = 0; x <= brokerIds.length; x++ ) {
+            long[] buckets = x < brokerIds.length 
+                    ? aging.getBuckets(brokerIds[x], today) 
+                    : aging.getBuckets(today);
+            Object[] row = new Object[buckets.length + 2];
+            long total = 0;
+            
+            if ( x == brokerIds.length )
+                row[0] = "Total";
+            else if ( brokerIds[x] == AgingEngine.UNKNOWN_BROKER )
+                row[0] = "(Load not found)";
+            else
+                row[0] = names.getOrDefault(brokerIds[x], 
+                        String.valueOf(brokerIds[x]));
+            
+            for ( int y = 0; y < buckets.length; y++ ) {
+                total += buckets[y];
+                row[y + 1] = Money.format(buckets[y], Money.CENTS);
+            }
+            row[buckets.length + 1] = Money.format(total, Money.CENTS);
+            rows[x] = row;
+        }
+        
+        String[] columns = new String[AgingEngine.BUCKETS.length + 2];
+        columns[0] = "Broker";
+        System.arraycopy(AgingEngine.BUCKETS, 0, columns, 1, 
+                AgingEngine.BUCKETS.length);
+        columns[columns.length - 1] = "Total";
+        
+        JTable table = new JTable(rows, columns);
+        table.setEnabled(false);
+        JScrollPane scroller = new JScrollPane(table);
+        scroller.setPreferredSize(new java.awt.Dimension(640, 320));
+
+        JOptionPane.showMessageDialog(this, scroller, "Receivables Aging",
+                JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    private void doShowIfta() {
+        // Offer the quarter just ended, which is the one being filed.
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.MONTH, -3);
+        String last = cal.get(Calendar.YEAR) + " Q" 
+                + (cal.get(Calendar.MONTH) / 3 + 1);
+        String which = (String) JOptionPane.showInputDialog(this, 
+                "Which quarter (e.g., " + last + ")?", "IFTA Miles and Gallons",
+                JOptionPane.QUESTION_MESSAGE, null, null, last);
+        
+        if ( which == null )
+            return;
+        
+        IftaQuarter ifta;
+        try {
+            String[] parts = which.trim().toUpperCase().split("\\s*Q\\s*");
+            ifta = IftaQuarter.get(Integer.parseInt(parts[0]), 
+                    Integer.parseInt(parts[1]));
+        } catch ( NumberFormatException | ArrayIndexOutOfBoundsException ex ) {
+            MessageBox.showWarning(which + " is not a quarter.", 
+                    "IFTA Miles and Gallons");
+            return;
+        } catch ( IllegalArgumentException ex ) {
+            MessageBox.showWarning(ex.getMessage(), "IFTA Miles and Gallons");
+            return;
+        } catch ( DataStoreException ex ) {
+            MessageBox.showError(ex, "IFTA Miles and Gallons");
+            return;
+        }
+        
+        String[] states = ifta.getStates();
+        Object[][] rows = new Object[states.length][];
+        
+        for ( int x = 0; x < states.length; x++ ) {
+            double taxable = ifta.getTaxableGallons(states[x]);
+            rows[x] = new Object[]{states[x], 
+                String.format("%,d", ifta.getMiles(states[x])),
+                String.format("%,.3f", taxable),
+                String.format("%,.3f", ifta.getGallons(states[x])),
+                String.format("%,.3f", taxable - ifta.getGallons(states[x]))};
+        }
+        
+        JTable table = new JTable(rows, new String[]{"State", "Miles", 
+            "Taxable Gallons", "Paid Gallons", "Net Gallons"});
+        table.setEnabled(false);
+        JScrollPane scroller = new JScrollPane(table);
+        scroller.setPreferredSize(new java.awt.Dimension(560, 320));
+        
+        JOptionPane.showMessageDialog(this, scroller, "IFTA " + ifta.getYear() 
+                + " Q" + ifta.getQuarter() + String.format(" - %,d miles, "
+                + "%,.3f gallons, %.2f MPG", ifta.getTotalMiles(), 
+                ifta.getTotalGallons(), ifta.getMilesPerGallon()), 
+                JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    private void doShowRevenuePerMile() {
+        String[] groups = {"Broker", "Lane"};
+        String by = (String) JOptionPane.showInputDialog(this,
+                "Rank the revenue per mile by which?", "Revenue per Mile", 
+                JOptionPane.QUESTION_MESSAGE, null, groups, groups[0]);
+        
+        if ( by == null )
+            return;
+        
+        LaneAnalytics lanes;
+        HashMap<Long, String> names = new HashMap<>();
+        
+        try {
+            lanes = LaneAnalytics.getInstance();
+            BrokerCtl brokers = new BrokerCtl();
+            
+            for ( int x = 0; x < brokers.getRecordCount(); x++ )
+                names.put(brokers.get(x).getId(), brokers.get(x).getCompany());
+        } catch ( DataStoreException ex ) {
+            MessageBox.showError(ex, "Revenue per Mile");
+            return;
+        }
+        
+        // The groups keep their own sketches, so this does not read a load.
+        List<? extends LaneAnalytics.Stats<?>> leaders = by.equals("Broker")
+                ? lanes.getBrokers(1) : lanes.getLanes(1);
+        Object[][] rows = new Object[leaders.size()][];
+        
+        for ( int x = 0; x < rows.length; x++ ) {
+            LaneAnalytics.Stats<?> stats = leaders.get(x);
+            Object key = stats.getKey();
+            
+            rows[x] = new Object[]{key instanceof Long 
+                    ? names.getOrDefault(key, key.toString()) : key,
+                stats.getLoads(),
+                String.format("%,d", stats.getMiles()),
+                Money.format(stats.getRateInCents(), Money.CENTS),
+                Money.format(stats.getRatePerMileInMills(), Money.MILLS),
+                Money.format(stats.getRatePerMilePercentile(0.1), Money.MILLS),
+                Money.format(stats.getRatePerMilePercentile(0.5), Money.MILLS),
+                Money.format(stats.getRatePerMilePercentile(0.9), 
+                        Money.MILLS)};
+        }
+        
+        JTable table = new JTable(rows, new String[]{by, "Loads", "Miles", 
+            "Revenue", "RPM", "10th %", "Median", "90th %"});
+        table.setEnabled(false);
+        JScrollPane scroller = new JScrollPane(table);
+        scroller.setPreferredSize(new java.awt.Dimension(720, 320));
+        
+        JOptionPane.showMessageDialog(this, scroller, "Revenue per Mile by " 
+                + by, JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    private void doShowFleetSummary() {
+        FleetSummary summary;
+        
+        try {
+            summary = FleetSummary.compute();
+        } catch ( DataStoreException ex ) {
+            record.setSourceMethodName("doShowFleetSummary");
+            record.setMessage(ex.getMessage());
+            record.setThrown(ex);
+            Starter.logger.error(record);
+            
+            MessageBox.showError(ex, "Fleet Summary");
+            return;
+        }
+        
+        Object[][] rows = new Object[summary.getTrucks().size() + 1][];
+        int x = 0;
+        
+        for ( String truck : summary.getTrucks().keySet() )
+            rows[x++] = fleetRow(truck, summary.getTrucks().get(truck));
+        rows[x] = fleetRow("Fleet", summary.getFleet());
+        
+        JTable table = new JTable(rows, new String[]{"Truck", "Loads", "Done", 
+            "Miles", "Driven", "Revenue", "RPM", "Diesel", "MPG"});
+        table.setEnabled(false);
+        JScrollPane scroller = new JScrollPane(table);
+        scroller.setPreferredSize(new java.awt.Dimension(720, 240));
+        
+        JOptionPane.showMessageDialog(this, scroller, "Fleet Summary", 
+                JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    private Object[] fleetRow(String name, FleetSummary.Totals t) {
+        return new Object[]{name, t.getLoads(), t.getCompleted(),
+            String.format("%,d", t.getMiles()), 
+            String.format("%,d", t.getDriven()),
+            Money.format(t.getGrossInCents(), Money.CENTS),
+            Money.format(t.getRatePerMileInMills(), Money.MILLS),
+            Money.format(t.getDieselInMills(), Money.MILLS),
+            String.format("%.2f", t.getMilesPerGallon())};
+    }
+    
+    private void doSearch(String query) {
+        if ( query == null || query.isBlank() )
+            return;
+        
+        List<SearchIndex.Hit> hits;
+        
+        try {
+            hits = SearchIndex.getInstance().search(query, 
+                    Starter.props.getPropertyAsInt("search.limit", "200"));
+        } catch ( DataStoreException ex ) {
+            record.setSourceMethodName("doSearch");
+            record.setMessage(ex.getMessage());
+            record.setThrown(ex);
+            Starter.logger.error(record);
+            
+            MessageBox.showError(ex, "Search");
+            return;
+        }
+        
+        if ( hits.isEmpty() ) {
+            MessageBox.showInfo("Nothing was found for \"" + query.trim() 
+                    + "\".", "Search");
+            return;
+        }
+        
+        Object[][] rows = new Object[hits.size()][];
+        
+        for ( int x = 0; x < rows.length; x++ )
+            rows[x] = new Object[]{hits.get(x).getTable(), 
+                hits.get(x).isArchived() ? "Archive" : "Active",
+                hits.get(x).getSummary()};
+        
+        JTable table = new JTable(rows, new String[]{"Table", "Kept In", 
+            "Record"});
+        table.setEnabled(false);
+        table.getColumnModel().getColumn(0).setPreferredWidth(60);
+        table.getColumnModel().getColumn(1).setPreferredWidth(60);
+        table.getColumnModel().getColumn(2).setPreferredWidth(600);
+        JScrollPane scroller = new JScrollPane(table);
+        scroller.setPreferredSize(new java.awt.Dimension(720, 320));
+        
+        JOptionPane.showMessageDialog(this, scroller, hits.size() 
+                + " Found for \"" + query.trim() + "\"", 
+                JOptionPane.PLAIN_MESSAGE);
+    }
+    
     private void updateLoadProgress() {
         if ( loadProgress.getValue() == loadProgress.getMaximum() ) {
             String msg = "Trip " + Starter.props.getProperty("load.current", 
@@ -847,11 +1494,75 @@ public class LoadMaster extends javax.swing.JFrame {
     }
     
     private void doShowLoadsQueue() {
+        LoadsQueue queue;
+        
+        try {
+            queue = new LoadsQueue(this);
+        } catch ( DataStoreException ex ) {
+            record.setSourceMethodName("doShowLoadsQueue");
+            record.setMessage(ex.getMessage());
+            record.setThrown(ex);
+            Starter.logger.error(record);
+            
+            MessageBox.showError(ex, "Loads Queue");
+            return;
+        }
         
+        queue.setVisible(true);
     }
     
+    /**
+     * Writes the invoice for a load, or for every completed load that has not
+     * been invoiced when no order number is given.
+     * 
+     * @param orderNumber the order number of the load, or an empty string
+     */
     private void doGenerateInvoice(String orderNumber) {
+        File folder = InvoiceGenerator.getDefaultFolder();
+        InvoiceGenerator invoices = new InvoiceGenerator(folder, 
+                !Starter.props.getProperty("invoice.format", "pdf")
+                        .equalsIgnoreCase("text"));
+        
+        List<String> orders = orderNumber == null || orderNumber.isBlank() 
+                ? List.of() : List.of(orderNumber);
+        fileProgress.setIndeterminate(true);
+        fileProgress.setStringPainted(false);
+        fileProgress.setVisible(true);
+        tipsLabel.setText("Writing invoices to " + folder.getAbsolutePath()
+                + "...");
         
+        // A batch run renders every uninvoiced load, so the invoices are 
+        //+ written off of the Event Dispatch Thread.
+        new SwingWorker<List<File>, Void>() {
+            @Override
+            protected List<File> doInBackground() throws Exception {
+                return invoices.generate(orders);
+            }
+
+            @Override
+            protected void done() {
+                fileProgress.setIndeterminate(false);
+                fileProgress.setVisible(false);
+                tipsLabel.setText("");
+
+                List<File> written;
+                try {
+                    written = get();
+                } catch ( InterruptedException | ExecutionException ex ) {
+                    MessageBox.showError(ex, "Generate Invoices");
+                    return;
+                }
+
+                if ( written.isEmpty() )
+                    MessageBox.showInfo("There are no completed loads to "
+                            + "invoice.", "Generate Invoices");
+                else
+                    MessageBox.showInfo(written.size() + (written.size() == 1 
+                            ? " invoice was" : " invoices were") 
+                            + " written to\n" + folder.getAbsolutePath(), 
+                            "Generate Invoices");
+            }
+        }.execute();
     }
     
     private void formWindowClosing(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowClosing
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   LoadsQueue.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 11:58:06 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      Shows the loads in the loads table, which can be sorted and filtered
+ *      by status, dispatch date, broker and revenue per mile.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.view;
+
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.model.LoadModel;
+import com.pekinsoft.loadmaster.sys.ChangeBus;
+import com.pekinsoft.loadmaster.sys.TableWatcher;
+import com.pekinsoft.loadmaster.utils.MessageBox;
+import com.pekinsoft.loadmaster.utils.Money;
+import com.pekinsoft.loadmaster.utils.ScreenUtils;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Image;
+import java.awt.Toolkit;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+import org.jdesktop.swingx.JXDatePicker;
+
+/**
+ * The Loads Queue window. The loads are shown through a
+ * {@link LoadsQueueModel}, which reads a load from the table only when its
+ * row is painted. Clicking the Status, Dispatched, Broker or RPM column
+ * heading sorts the loads by that column, and clicking it again reverses the
+ * order.
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class LoadsQueue extends javax.swing.JDialog {
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final String ANY = "Any";
+
+    private final LoadsQueueModel model;
+    private final ChangeBus.Subscription changes;
+    private final TableWatcher.TableListener watcher;
+    private final List<Long> brokerIds;
+
+    private final JComboBox<String> statusList;
+    private final JXDatePicker fromPicker;
+    private final JXDatePicker toPicker;
+    private final JComboBox<String> brokerList;
+    private final JTextField rpmField;
+    private final JTable table;
+    private final JLabel countLabel;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates the Loads Queue window.
+     *
+     * @param parent the main window
+     * @throws DataStoreException in the event the loads table cannot be read
+     */
+    public LoadsQueue (java.awt.Frame parent) throws DataStoreException {
+        super(parent, "Loads Queue", false);
+
+        model = new LoadsQueueModel();
+        brokerIds = new ArrayList<>();
+
+        String[] statuses = new String[LoadsQueueModel.STATUSES.length + 1];
+        statuses[0] = ANY;
+        System.arraycopy(LoadsQueueModel.STATUSES, 0, statuses, 1,
+                LoadsQueueModel.STATUSES.length);
+        statusList = new JComboBox<>(statuses);
+        fromPicker = new JXDatePicker();
+        toPicker = new JXDatePicker();
+        brokerList = new JComboBox<>();
+        rpmField = new JTextField(5);
+        table = new JTable(model);
+        countLabel = new JLabel();
+
+        initComponents();
+        fillBrokers();
+        showCount();
+
+        // The model finds each load by where its line starts in the table,
+        //+ and saving any load can move the lines after it, so the index is
+        //+ read again rather than one row patched.
+        changes = ChangeBus.subscribeOnEdt(DataTables.LOADS, LoadModel.class,
+                e -> doRefresh());
+        // The same goes for a save by another copy of the program.
+        watcher = table -> SwingUtilities.invokeLater(this::doRefresh);
+        TableWatcher.addListener(watcher, DataTables.LOADS);
+
+        Image icon = Toolkit.getDefaultToolkit().getImage(getClass()
+                .getResource("/com/pekinsoft/loadmaster/res/freight.png"));
+        setIconImage(icon);
+
+        pack();
+        setLocation(ScreenUtils.centerDialog(this));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private void initComponents() {
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                changes.cancel();
+                TableWatcher.removeListener(watcher);
+                model.close();
+            }
+        });
+
+        JButton applyButton = new JButton("Apply");
+        applyButton.addActionListener(e -> doFilter());
+        JButton clearButton = new JButton("Clear");
+        clearButton.addActionListener(e -> doClearFilter());
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.setBorder(BorderFactory.createTitledBorder("Show Loads"));
+        filters.add(new JLabel("Status:"));
+        filters.add(statusList);
+        filters.add(new JLabel("Dispatched from:"));
+        filters.add(fromPicker);
+        filters.add(new JLabel("to:"));
+        filters.add(toPicker);
+        filters.add(new JLabel("Broker:"));
+        filters.add(brokerList);
+        filters.add(new JLabel("RPM at least:"));
+        filters.add(rpmField);
+        filters.add(applyButton);
+        filters.add(clearButton);
+
+        // Every row is the same height, so the table can work out which rows
+        //+ are in view without asking the model for them.
+        table.setFillsViewportHeight(true);
+        table.setAutoCreateRowSorter(false);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                doSort(table.columnAtPoint(e.getPoint()));
+            }
+        });
+        JScrollPane scroller = new JScrollPane(table);
+        scroller.setPreferredSize(new java.awt.Dimension(860, 420));
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> doRefresh());
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(refreshButton);
+        buttons.add(closeButton);
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 0));
+        bottom.add(countLabel, BorderLayout.WEST);
+        bottom.add(buttons, BorderLayout.EAST);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(filters, BorderLayout.NORTH);
+        getContentPane().add(scroller, BorderLayout.CENTER);
+        getContentPane().add(bottom, BorderLayout.SOUTH);
+        getRootPane().setDefaultButton(applyButton);
+    }
+
+    private void fillBrokers() {
+        brokerIds.clear();
+        brokerList.removeAllItems();
+        brokerList.addItem(ANY);
+
+        model.getBrokers().entrySet().stream().sorted(Map.Entry
+                .comparingByValue(String.CASE_INSENSITIVE_ORDER))
+                .forEachOrdered(e -> {
+                    brokerIds.add(e.getKey());
+                    brokerList.addItem(e.getValue());
+                });
+    }
+
+    private void doFilter() {
+        Integer minRpm = null;
+
+        if ( !rpmField.getText().isBlank() ) {
+            try {
+                minRpm = (int) Money.parse(rpmField.getText(), Money.MILLS);
+            } catch ( NumberFormatException ex ) {
+                MessageBox.showWarning(rpmField.getText() + " is not a rate "
+                        + "per mile.", "Loads Queue");
+                return;
+            }
+        }
+
+        int status = statusList.getSelectedIndex();
+        int broker = brokerList.getSelectedIndex();
+
+        model.filter(status <= 0 ? null : status - 1,
+                dayOf(fromPicker.getDate()), dayOf(toPicker.getDate()),
+                broker <= 0 ? null : brokerIds.get(broker - 1), minRpm);
+        showCount();
+    }
+
+    private void doClearFilter() {
+        statusList.setSelectedIndex(0);
+        fromPicker.setDate(null);
+        toPicker.setDate(null);
+        brokerList.setSelectedIndex(0);
+        rpmField.setText("");
+
+        model.filter(null, null, null, null, null);
+        showCount();
+    }
+
+    private void doSort(int column) {
+        if ( column < 0 || !model.isSortable(column) )
+            return;
+
+        model.sort(column, model.getSortColumn() != column
+                || !model.isAscending());
+    }
+
+    private void doRefresh() {
+        try {
+            model.refresh();
+        } catch ( DataStoreException ex ) {
+            MessageBox.showError(ex, "Loads Queue");
+            return;
+        }
+
+        fillBrokers();
+        doFilter();
+    }
+
+    private void showCount() {
+        countLabel.setText(String.format("%,d of %,d loads",
+                model.getRowCount(), model.getLoadCount()));
+    }
+
+    private static Integer dayOf(Date date) {
+        if ( date == null )
+            return null;
+
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+
+        return cal.get(Calendar.YEAR) * 10000
+                + (cal.get(Calendar.MONTH) + 1) * 100
+                + cal.get(Calendar.DAY_OF_MONTH);
+    }
+    //</editor-fold>
+
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   LoadsQueueModel.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 11:32:40 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose:
+ *      A table model over the loads table that reads each load from the
+ *      file only when its row is shown.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+
+package com.pekinsoft.loadmaster.view;
+
+import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.err.DataStoreException;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import com.pekinsoft.loadmaster.utils.Money;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * The loads in the loads table, as rows of a `JTable`.
+ * <p>
+ * When the model is loaded, the table is read through once to find where
+ * each load starts in the file and to keep the few figures that the queue is
+ * sorted and filtered by: its status, dispatch date, broker and revenue per
+ * mile. These are held in primitive arrays, a few dozen bytes to a load. The
+ * rest of a load is read from the file only when its row is painted, and
+ * only the last few hundred loads read are kept, so scrolling through a
+ * hundred thousand loads holds no more of them in memory than scrolling
+ * through a hundred.</p>
+ * <p>
+ * The loads table is not held open: it is opened to read the loads of the
+ * rows being painted, a batch at a time, and closed again, so that a save can
+ * replace it at any time. Since the index then no longer matches the table,
+ * the loads are not read from it again until the model is
+ * {@link #refresh() refreshed}.</p>
+ *
+ * @author Sean Carrick &lt;sean at pekinsoft dot com&gt;
+ *
+ * @version 0.1.0
+ * @since 0.1.0
+ */
+public class LoadsQueueModel extends AbstractTableModel {
+    //<editor-fold defaultstate="collapsed" desc="Public Static Constants">
+    /** The status of a load that has been booked but not started. */
+    public static final int BOOKED = 0;
+    /** The status of a load that has been started. */
+    public static final int IN_PROGRESS = 1;
+    /** The status of a load that has been completed. */
+    public static final int COMPLETED = 2;
+    /** The status of a load that has been cancelled. */
+    public static final int CANCELLED = 3;
+    /** The names of the statuses, in order of their values. */
+    public static final String[] STATUSES = {"Booked", "In Progress",
+        "Completed", "Cancelled"};
+
+    // The columns of the queue.
+    public static final int ORDER_COLUMN = 0;
+    public static final int TRIP_COLUMN = 1;
+    public static final int STATUS_COLUMN = 2;
+    public static final int DISPATCH_COLUMN = 3;
+    public static final int BROKER_COLUMN = 4;
+    public static final int MILES_COLUMN = 5;
+    public static final int RATE_COLUMN = 6;
+    public static final int RPM_COLUMN = 7;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Member Fields">
+    private static final String[] COLUMNS = {"Order #", "Trip #", "Status",
+        "Dispatched", "Broker", "Miles", "Rate", "RPM"};
+    private static final int CACHE_SIZE = 512;
+    // How many rows are read each time the table is opened.
+    private static final int BATCH_SIZE = 64;
+
+    private final LogRecord entry;
+    private final HashMap<Long, String> brokerNames;
+    private final HashMap<Long, Integer> brokerRanks;
+    private final Map<Integer, String[]> cache;
+
+    // The size and time of the table when it was indexed.
+    private long indexedLength;
+    private long indexedModified;
+    private int count;
+    private long[] offsets;
+    private byte[] status;
+    private int[] dispatch;
+    private long[] broker;
+    private int[] rpm;
+
+    // The loads shown, in the order shown, as indexes into the arrays above.
+    private int[] view;
+    private int rows;
+
+    private int sortColumn;
+    private boolean ascending;
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
+    /**
+     * Creates a model of the loads table and reads its index.
+     *
+     * @throws DataStoreException in the event the loads or brokers tables
+     *         cannot be read
+     */
+    public LoadsQueueModel () throws DataStoreException {
+        entry = new LogRecord(Level.FINEST, "");
+        entry.setSourceClassName(this.getClass().getName());
+
+        brokerNames = new HashMap<>();
+        brokerRanks = new HashMap<>();
+        cache = new LinkedHashMap<>(CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer,
+                    String[]> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        sortColumn = -1;
+        ascending = true;
+
+        refresh();
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Public Instance Methods">
+    /**
+     * Reads the index of the loads table again, such as after loads have been
+     * booked or completed, and shows every load.
+     *
+     * @throws DataStoreException in the event the loads or brokers tables
+     *         cannot be read
+     */
+    public final void refresh() throws DataStoreException {
+        entry.setMessage("Indexing the loads table...");
+        entry.setSourceMethodName("refresh");
+        entry.setParameters(null);
+        Starter.logger.enter(entry);
+
+        try {
+            close();
+            readBrokers();
+            readIndex();
+        } catch ( IOException | UncheckedIOException ex ) {
+            entry.setMessage(ex.getMessage() + "\n\n" + "-".repeat(80)
+                    + "Throwing DataStoreException to calling method...");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        view = new int[count];
+        for ( int x = 0; x < count; x++ )
+            view[x] = x;
+        rows = count;
+
+        if ( sortColumn >= 0 )
+            sort(sortColumn, ascending);
+        else
+            fireTableDataChanged();
+
+        entry.setMessage("Loads table indexed.");
+        entry.setThrown(null);
+        Starter.logger.exit(entry, count);
+    }
+
+    /**
+     * Lets go of the loads read from the table, such as when the window is
+     * closed.
+     */
+    public void close() {
+        cache.clear();
+    }
+
+    /**
+     * Shows only the loads that match a filter. Each condition may be left
+     * out by passing `null`.
+     *
+     * @param status the status a load must have, such as {@link #BOOKED}
+     * @param from   the first dispatch date, as yyyyMMdd
+     * @param to     the last dispatch date, as yyyyMMdd
+     * @param broker the ID number of the broker who booked the load
+     * @param minRpm the least revenue per mile, in mills
+     */
+    public void filter(Integer status, Integer from, Integer to, Long broker,
+            Integer minRpm) {
+        int[] shown = new int[count];
+        int n = 0;
+
+        for ( int x = 0; x < count; x++ ) {
+            if ( status != null && this.status[x] != status )
+                continue;
+            if ( from != null && dispatch[x] < from )
+                continue;
+            if ( to != null && dispatch[x] > to )
+                continue;
+            if ( broker != null && this.broker[x] != broker )
+                continue;
+            if ( minRpm != null && rpm[x] < minRpm )
+                continue;
+
+            shown[n++] = x;
+        }
+
+        view = shown;
+        rows = n;
+
+        if ( sortColumn >= 0 )
+            sort(sortColumn, ascending);
+        else
+            fireTableDataChanged();
+    }
+
+    /**
+     * Sorts the loads shown by a column. The status, dispatch date, broker
+     * and RPM columns can be sorted; sorting by any other column puts the
+     * loads back in the order of the table.
+     *
+     * @param column    the column to sort by
+     * @param ascending `true` to sort from lowest to highest
+     */
+    public void sort(int column, boolean ascending) {
+        this.sortColumn = isSortable(column) ? column : -1;
+        this.ascending = ascending;
+
+        // Each load's sort value and index are packed into one long, so the
+        //+ loads are sorted as primitives with no comparator.
+        long[] keys = new long[rows];
+        for ( int x = 0; x < rows; x++ ) {
+            long value = sortColumn < 0 ? view[x] : sortValue(view[x]);
+
+            if ( !ascending && sortColumn >= 0 )
+                value = Integer.MAX_VALUE - value;
+
+            keys[x] = value << 32 | view[x];
+        }
+
+        Arrays.sort(keys);
+
+        for ( int x = 0; x < rows; x++ )
+            view[x] = (int) keys[x];
+
+        fireTableDataChanged();
+    }
+
+    /**
+     * Determines whether the loads can be sorted by a column.
+     *
+     * @param column the column
+     * @return `true` for the status, dispatch date, broker and RPM columns
+     */
+    public boolean isSortable(int column) {
+        return column == STATUS_COLUMN || column == DISPATCH_COLUMN
+                || column == BROKER_COLUMN || column == RPM_COLUMN;
+    }
+
+    /**
+     * Retrieves the column the loads are sorted by.
+     *
+     * @return the column, or -1 if they are in the order of the table
+     */
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    /**
+     * Determines whether the loads are sorted from lowest to highest.
+     *
+     * @return `true` if ascending
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Retrieves the total number of loads in the table, whether shown or
+     * not.
+     *
+     * @return the number of loads
+     */
+    public int getLoadCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the brokers that booked loads, by ID number and name.
+     *
+     * @return the brokers' names by ID number
+     */
+    public Map<Long, String> getBrokers() {
+        return brokerNames;
+    }
+
+    /**
+     * Retrieves the fields of the load shown in a row, as they are stored in
+     * the loads table.
+     *
+     * @param row the row
+     * @return the fields of the load
+     */
+    public String[] getLoad(int row) {
+        return fetch(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int x = view[row];
+
+        // The indexed columns are answered without reading the load.
+        switch ( column ) {
+            case STATUS_COLUMN:
+                return STATUSES[status[x]];
+            case BROKER_COLUMN:
+                return brokerNames.getOrDefault(broker[x],
+                        String.valueOf(broker[x]));
+            case RPM_COLUMN:
+                return rpm[x] == 0 ? "" : Money.format(rpm[x], Money.MILLS);
+        }
+
+        String[] f = fetch(row);
+
+        switch ( column ) {
+            case ORDER_COLUMN:
+                return f[0];
+            case TRIP_COLUMN:
+                return f[1];
+            case DISPATCH_COLUMN:
+                return f[4];
+            case MILES_COLUMN:
+                return f[6];
+            case RATE_COLUMN:
+                return String.format("%,.2f", Money.toDouble(Money.parse(f[5],
+                        Money.CENTS), Money.CENTS));
+            default:
+                return "";
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    private long sortValue(int x) {
+        switch ( sortColumn ) {
+            case STATUS_COLUMN:
+                return status[x];
+            case DISPATCH_COLUMN:
+                return dispatch[x];
+            case BROKER_COLUMN:
+                return brokerRanks.getOrDefault(broker[x], 0);
+            default:
+                return rpm[x];
+        }
+    }
+
+    /**
+     * Retrieves the load shown in a row. If it has not been read, it is read
+     * along with the loads of the rows that follow it, in one opening of the
+     * table.
+     */
+    private String[] fetch(int row) {
+        String[] f = cache.get(view[row]);
+
+        if ( f != null )
+            return f;
+
+        TreeMap<Long, Integer> batch = new TreeMap<>();
+        for ( int r = row; r < rows && batch.size() < BATCH_SIZE; r++ )
+            if ( !cache.containsKey(view[r]) )
+                batch.put(offsets[view[r]], view[r]);
+
+        try {
+            readLoads(batch);
+        } catch ( IOException ex ) {
+            entry.setMessage(ex.getMessage());
+            entry.setThrown(ex);
+            entry.setSourceMethodName("fetch");
+            Starter.logger.error(entry);
+
+            for ( int x : batch.values() ) {
+                String[] blank = new String[DataTables.LOADS.getFieldCount()];
+                Arrays.fill(blank, "");
+                cache.put(x, blank);
+            }
+        }
+
+        return cache.get(view[row]);
+    }
+
+    /** Reads the loads that start at the offsets given, in file order. */
+    private void readLoads(TreeMap<Long, Integer> batch) throws IOException {
+        File file = DataTables.LOADS.getFile();
+
+        if ( file.length() != indexedLength
+                || file.lastModified() != indexedModified )
+            throw new IOException("The loads table has changed since it was "
+                    + "indexed.");
+
+        try ( RandomAccessFile raf = new RandomAccessFile(file, "r") ) {
+            for ( Map.Entry<Long, Integer> e : batch.entrySet() )
+                cache.put(e.getValue(), readLoad(raf, e.getKey()));
+        }
+    }
+
+    private static String[] readLoad(RandomAccessFile raf, long pos)
+            throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+        byte[] chunk = new byte[256];
+        raf.seek(pos);
+
+        int n;
+        read:
+        while ( (n = raf.read(chunk)) > 0 ) {
+            for ( int x = 0; x < n; x++ ) {
+                if ( chunk[x] == '\n' ) {
+                    buf.write(chunk, 0, x);
+                    break read;
+                }
+            }
+
+            buf.write(chunk, 0, n);
+        }
+
+        String line = buf.toString(Charset.defaultCharset().name())
+                .replace("\r", "");
+
+        return TableMaintenance.split(DataTables.LOADS, line);
+    }
+
+    private void readBrokers() throws IOException {
+        brokerNames.clear();
+        brokerRanks.clear();
+
+        try ( Stream<String[]> s = TableMaintenance.records(
+                DataTables.BROKERS) ) {
+            s.forEach(f -> brokerNames.put(Long.valueOf(f[0]), f[1]));
+        }
+
+        // Brokers sort by name, so each is given its place in that order.
+        brokerNames.entrySet().stream().sorted(Map.Entry.comparingByValue(
+                String.CASE_INSENSITIVE_ORDER)).forEachOrdered(e
+                -> brokerRanks.put(e.getKey(), brokerRanks.size() + 1));
+    }
+
+    /** Finds where each valid load starts and keeps its indexed figures. */
+    private void readIndex() throws IOException {
+        File file = DataTables.LOADS.getFile();
+        count = 0;
+        offsets = new long[1024];
+        status = new byte[1024];
+        dispatch = new int[1024];
+        broker = new long[1024];
+        rpm = new int[1024];
+        indexedLength = file.length();
+        indexedModified = file.lastModified();
+
+        if ( !file.exists() )
+            return;
+
+        try ( BufferedInputStream in = new BufferedInputStream(
+                new FileInputStream(file), 65536) ) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+            long pos = 0;
+            long start = 0;
+            int c;
+
+            while ( (c = in.read()) != -1 || buf.size() > 0 ) {
+                if ( c != -1 )
+                    pos++;
+
+                if ( c != '\n' && c != -1 ) {
+                    buf.write(c);
+                    continue;
+                }
+
+                String line = buf.toString(Charset.defaultCharset().name())
+                        .replace("\r", "");
+                buf.reset();
+                String[] f = TableMaintenance.split(DataTables.LOADS, line);
+
+                if ( !line.isBlank() && TableMaintenance.validate(
+                        DataTables.LOADS, f) == null )
+                    add(start, f);
+
+                start = pos;
+
+                if ( c == -1 )
+                    break;
+            }
+        }
+    }
+
+    private void add(long offset, String[] f) {
+        if ( count == offsets.length ) {
+            int capacity = count * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            status = Arrays.copyOf(status, capacity);
+            dispatch = Arrays.copyOf(dispatch, capacity);
+            broker = Arrays.copyOf(broker, capacity);
+            rpm = Arrays.copyOf(rpm, capacity);
+        }
+
+        int start = Integer.parseInt(f[2]);
+        int end = Integer.parseInt(f[3]);
+        boolean completed = Boolean.parseBoolean(f[20]);
+        int miles = completed && end > start ? end - start
+                : Integer.parseInt(f[6]);
+        String[] date = f[4].split("/");
+
+        offsets[count] = offset;
+        status[count] = (byte) (Boolean.parseBoolean(f[21]) ? CANCELLED
+                : completed ? COMPLETED : start > 0 ? IN_PROGRESS : BOOKED);
+        dispatch[count] = Integer.parseInt(date[2]) * 10000
+                + Integer.parseInt(date[0]) * 100 + Integer.parseInt(date[1]);
+        broker[count] = Long.parseLong(f[18]);
+        rpm[count] = miles <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE,
+                Math.round(Money.parse(f[5], Money.CENTS) * 10.0 / miles));
+        count++;
+    }
+    //</editor-fold>
+
+}
@@ -30,6 +30,10 @@
  *  ------------  ------------------- ------------------------------------------
  *  Sep 14, 2020  Sean Carrick        Initial creation.
  *  Oct 09, 2020  Sean Carrick        Removed the main() method from this class.
+ *  Oct 19, 2026  Sean Carrick        Fills in and checks the city and state
+ *                                    from the Zip Code.
+ *  Oct 19, 2026  Sean Carrick        The ID number of a new broker is shown
+ *                                    once it has been added.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
@@ -38,6 +42,7 @@ import com.pekinsoft.loadmaster.Starter;
 import com.pekinsoft.loadmaster.controller.BrokerCtl;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.BrokerModel;
+import com.pekinsoft.loadmaster.sys.PostalDatabase;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import java.awt.Color;
 import java.awt.SystemColor;
@@ -116,14 +121,12 @@ public class NewBrokerDlg extends javax.swing.JDialog {
         companyField.requestFocus();
 
         broker = new BrokerModel();
-        idField.setText(String.valueOf(broker.getId()));
 
         // Perform data save here.
         broker.setCity(cityField.getText());
         broker.setEmail(emailField.getText());
         broker.setCompany(companyField.getText());
         broker.setContact(nameField.getText());
-        broker.setId(Long.valueOf(idField.getText()));
         broker.setPhone(phoneField.getText());
         broker.setFax(faxField.getText());
         broker.setState(stateField.getText());
@@ -131,11 +134,11 @@ public class NewBrokerDlg extends javax.swing.JDialog {
         broker.setSuite(suiteField.getText());
         broker.setZip(zipField.getText());
 
-        records.addNew(broker);
-
         lr.setMessage("Attempting to save the data to file.");
         Starter.logger.debug(lr);
         try {
+            records.addNew(broker);
+            idField.setText(String.valueOf(broker.getId()));
             records.close();
             lr.setMessage("Save to file was successful!");
             Starter.logger.info(lr);
@@ -191,7 +194,7 @@ public class NewBrokerDlg extends javax.swing.JDialog {
     
     private void doClear() {
         broker = new BrokerModel();
-        idField.setText(String.valueOf(broker.getId()));
+        idField.setText("");
         companyField.setText("");
         streetField.setText("");
         suiteField.setText("");
@@ -228,6 +231,41 @@ public class NewBrokerDlg extends javax.swing.JDialog {
                     && !emailField.getText().isEmpty() );
     }
 
+    /**
+     * Fills in the city and state from the Zip Code when they have not been
+     * entered, or points out in the help panel when they do not agree with
+     * it.
+     */
+    private void checkPostalCode() {
+        PostalDatabase.Place place;
+        
+        try {
+            place = PostalDatabase.getInstance().lookup(zipField.getText());
+        } catch ( DataStoreException ex ) {
+            lr.setSourceMethodName("checkPostalCode");
+            lr.setMessage(ex.getMessage());
+            lr.setThrown(ex);
+            Starter.logger.error(lr);
+            return;
+        }
+        
+        if ( place == null )
+            return;
+        
+        if ( cityField.getText().isBlank() )
+            cityField.setText(place.getCity());
+        if ( stateField.getText().isBlank() )
+            stateField.setText(place.getState());
+        
+        if ( !place.matches(cityField.getText(), stateField.getText()) ) {
+            helpPanel.setBackground(tip);
+            helpLabel.setForeground(tipText);
+            helpLabel.setText("<html>" + place.getCode() + " is the Zip Code "
+                    + "of <strong>" + place + "</strong>. Please check the "
+                    + "city and state.");
+        }
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -891,6 +929,8 @@ public class NewBrokerDlg extends javax.swing.JDialog {
         ((JTextField)evt.getSource()).select(0, 0);
 
         saveButton.setEnabled(isOneContactMethodPresent() && isOneNamePresent());
+
+        checkPostalCode();
     }//GEN-LAST:event_zipFieldvalidateData
 
     private void zipFieldcheckEnterEscape(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_zipFieldcheckEnterEscape
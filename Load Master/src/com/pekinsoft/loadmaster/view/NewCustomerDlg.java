@@ -30,6 +30,10 @@
  *  ------------  ------------------- ------------------------------------------
  *  Sep 14, 2020  Sean Carrick        Initial creation.
  *  Oct 09, 2020  Sean Carrick        Removed the main() method from this class.
+ *  Oct 19, 2026  Sean Carrick        Fills in and checks the city and state
+ *                                    from the Zip Code.
+ *  Oct 19, 2026  Sean Carrick        The ID number of a new customer is shown
+ *                                    once it has been added.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
@@ -39,6 +43,7 @@ import com.pekinsoft.loadmaster.controller.BrokerCtl;
 import com.pekinsoft.loadmaster.controller.CustomerCtl;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.CustomerModel;
+import com.pekinsoft.loadmaster.sys.PostalDatabase;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import java.awt.Color;
 import java.awt.SystemColor;
@@ -117,25 +122,23 @@ public class NewCustomerDlg extends javax.swing.JDialog {
         companyField.requestFocus();
 
         customer = new CustomerModel();
-        idField.setText(String.valueOf(customer.getId()));
 
         // Perform data save here.
         customer.setCity(cityField.getText());
         customer.setComments(notesField.getText());
         customer.setCompany(companyField.getText());
         customer.setContact(contactField.getText());
-        customer.setId(Long.valueOf(idField.getText()));
         customer.setPhone(phoneField.getText());
         customer.setState(stateField.getText());
         customer.setStreet(streetField.getText());
         customer.setSuite(suiteField.getText());
         customer.setZip(zipField.getText());
 
-        records.addNew(customer);
-
         lr.setMessage("Attempting to save the data to file.");
         Starter.logger.debug(lr);
         try {
+            records.addNew(customer);
+            idField.setText(String.valueOf(customer.getId()));
             records.storeData();
             lr.setMessage("Save to file was successful!");
             Starter.logger.info(lr);
@@ -186,7 +189,7 @@ public class NewCustomerDlg extends javax.swing.JDialog {
     
     private void doClear() {
         customer = new CustomerModel();
-        idField.setText(String.valueOf(customer.getId()));
+        idField.setText("");
         companyField.setText("");
         streetField.setText("");
         suiteField.setText("");
@@ -198,6 +201,41 @@ public class NewCustomerDlg extends javax.swing.JDialog {
         notesField.setText("");
     }
 
+    /**
+     * Fills in the city and state from the Zip Code when they have not been
+     * entered, or points out in the help panel when they do not agree with
+     * it.
+     */
+    private void checkPostalCode() {
+        PostalDatabase.Place place;
+        
+        try {
+            place = PostalDatabase.getInstance().lookup(zipField.getText());
+        } catch ( DataStoreException ex ) {
+            lr.setSourceMethodName("checkPostalCode");
+            lr.setMessage(ex.getMessage());
+            lr.setThrown(ex);
+            Starter.logger.error(lr);
+            return;
+        }
+        
+        if ( place == null )
+            return;
+        
+        if ( cityField.getText().isBlank() )
+            cityField.setText(place.getCity());
+        if ( stateField.getText().isBlank() )
+            stateField.setText(place.getState());
+        
+        if ( !place.matches(cityField.getText(), stateField.getText()) ) {
+            helpPanel.setBackground(tip);
+            helpLabel.setForeground(tipText);
+            helpLabel.setText("<html>" + place.getCode() + " is the Zip Code "
+                    + "of <strong>" + place + "</strong>. Please check the "
+                    + "city and state.");
+        }
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -1696,6 +1734,8 @@ public class NewCustomerDlg extends javax.swing.JDialog {
             else
             saveButton.setEnabled(true);
         }
+
+        checkPostalCode();
     }//GEN-LAST:event_zipFieldvalidateData
 
     private void zipFieldcheckEnterEscape(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_zipFieldcheckEnterEscape
@@ -31,6 +31,8 @@
  *  Sep 14, 2020  Sean Carrick        Initial creation.
  *  Oct 09, 2020  Sean Carrick        Added this header comment and removed the 
  *                                    main() method from this class.
+ *  Oct 19, 2026  Sean Carrick        The invoice maximum no longer has the data
+ *                                    folder appended to it when it is shown.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view;
@@ -98,9 +100,7 @@ public class SettingsDialog extends javax.swing.JDialog {
         invoicePrefixList.setSelectedItem(Starter.props.getProperty("invoice.prefix", "Select Prefix..."));
         invoicePrefixField.setText(Starter.props.getProperty("invoice.prefix.value", ""));
         invoiceMinField.setText(Starter.props.getProperty("invoice.min", ""));
-        invoiceMaxField.setText(Starter.props.getProperty("invoice.max", "")
-                + System.getProperty("file.separator") + "data"
-                + System.getProperty("file.separator"));
+        invoiceMaxField.setText(Starter.props.getProperty("invoice.max", ""));
         dataField.setText(Starter.props.getProperty("data.directory", AppProperties.APP_DIR + "data"
                 + System.getProperty("file.separator")));
         logField.setText(AppProperties.APP_DIR
@@ -38,6 +38,9 @@
  *                                    which will work in all countries not only
  *                                    in USA, if Load Master plans to target
  *                                    markets around the world.
+ *  Oct 19, 2026  Sean Carrick        The stops, receivable and load of a
+ *                                    booking are saved in one UnitOfWork, and
+ *                                    their tables are read only on finish.
  * *****************************************************************************
  */
 package com.pekinsoft.loadmaster.view.wiz;
@@ -50,6 +53,7 @@ import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.LoadModel;
 import com.pekinsoft.loadmaster.model.ReceivablesModel;
 import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.sys.UnitOfWork;
 import com.pekinsoft.loadmaster.utils.MessageBox;
 import com.pekinsoft.loadmaster.view.StartTripDialog;
 import com.pekinsoft.loadmaster.view.wiz.book.BrokerPage;
@@ -58,6 +62,7 @@ import com.pekinsoft.loadmaster.view.wiz.book.StopsPage;
 import com.pekinsoft.loadmaster.view.wiz.book.SummaryPage;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.Date;
@@ -85,9 +90,7 @@ public class LoadBookerWizardPanelProvider extends WizardPanelProvider
     private Map settings;
     private WizardController controller;
 
-    private LoadCtl loads;
     private LoadModel load;
-    private StopCtl stops;
     private StopModel stop;
     private LogRecord entry;
     //</editor-fold>
@@ -125,26 +128,6 @@ public class LoadBookerWizardPanelProvider extends WizardPanelProvider
         entry.setMessage("super() called. Configuring other objects...");
         Starter.logger.enter(entry);
 
-        try {
-            loads = new LoadCtl();
-        } catch (DataStoreException ex) {
-            entry.setMessage("An error occurred accessing the loads database.");
-            entry.setThrown(ex);
-            Starter.logger.error(entry);
-
-            MessageBox.showError(ex, "Loads Database Error");
-        }
-
-        try {
-            stops = new StopCtl();
-        } catch (DataStoreException ex) {
-            entry.setMessage("An error occurred accessing the stops database.");
-            entry.setThrown(ex);
-            Starter.logger.error(entry);
-
-            MessageBox.showError(ex, "Stops Database Error");
-        }
-
         load = new LoadModel();
         stop = new StopModel();
     }
@@ -159,26 +142,6 @@ public class LoadBookerWizardPanelProvider extends WizardPanelProvider
         entry.setMessage("super() called. Configuring other objects...");
         Starter.logger.enter(entry);
 
-        try {
-            loads = new LoadCtl();
-        } catch (DataStoreException ex) {
-            entry.setMessage("An error occurred accessing the loads database.");
-            entry.setThrown(ex);
-            Starter.logger.error(entry);
-
-            MessageBox.showError(ex, "Loads Database Error");
-        }
-
-        try {
-            stops = new StopCtl();
-        } catch (DataStoreException ex) {
-            entry.setMessage("An error occurred accessing the stops database.");
-            entry.setThrown(ex);
-            Starter.logger.error(entry);
-
-            MessageBox.showError(ex, "Stops Database Error");
-        }
-
         load = new LoadModel();
         stop = new StopModel();
     }
@@ -298,6 +261,25 @@ public class LoadBookerWizardPanelProvider extends WizardPanelProvider
         broker = broker.substring(0, broker.length() - 1);
         load.setBroker(Long.valueOf(broker));
         
+        // The tables are read only now, so that the booking is merged with
+        //+ as little as possible written since.
+        LoadCtl loads;
+        StopCtl stops;
+        ReceivablesCtl receivables = null;
+
+        try {
+            loads = new LoadCtl();
+            stops = new StopCtl();
+        } catch ( DataStoreException ex ) {
+            entry.setMessage("An error occurred accessing the loads and stops "
+                    + "databases.");
+            entry.setThrown(ex);
+            Starter.logger.error(entry);
+
+            MessageBox.showError(ex, "Loads Database Error");
+            return null;
+        }
+        
         int stopCount = Starter.props.getPropertyAsInt("stop.count", "0");
         int x = 0;
         do {
@@ -306,19 +288,11 @@ public class LoadBookerWizardPanelProvider extends WizardPanelProvider
             stops.addNew(stop);
             load.addStop(stop);
         } while ( x < stopCount );
-        
-        try {
-            stops.close();
-        } catch ( DataStoreException ex ) {
-            entry.setMessage("An error occurred accessing the stops database.");
-            entry.setThrown(ex);
-            Starter.logger.error(entry);
-
-            MessageBox.showError(ex, "Stops Database Error");
-        }
 
         // The last thing to do is to check to see if the driver is on an active
         //+ trip.
+        boolean starting = false;
+        
         if ( Starter.props.getProperty("load.current", "No Active Load")
                 .equalsIgnoreCase("No Active Load") ) {
             // If not, see if the driver wants to start this trip.
@@ -334,27 +308,18 @@ public class LoadBookerWizardPanelProvider extends WizardPanelProvider
 
                 if ( !dlg.isCancelled() ) {
                     load.setStartOdo(dlg.getOdometer());
-
-                    Starter.props.setProperty("load.current", load.getTrip());
-                    Starter.props.setPropertyAsInt("stop.count", 
-                            load.getStopCount() * 2);
-                    Starter.props.setPropertyAsInt("load.stop", 0);
-                    Starter.props.flush();
-                    
-                    ReceivablesCtl ctl;
                     
                     try {
-                        ctl = new ReceivablesCtl();
-//                        ReceivablesModel ar = ;
-                        ctl.addNew(new ReceivablesModel(
+                        receivables = new ReceivablesCtl();
+                        receivables.addNew(new ReceivablesModel(
                                 load.getDispatch(),
                                 load.getTrip(),
                                 load.getOrder(),
                                 load.getRate()));
-                        ctl.close();
+                        starting = true;
                     } catch ( DataStoreException ex ) {
-                        entry.setMessage("An error occurred accessing the stops "
-                                + "database.");
+                        entry.setMessage("An error occurred accessing the "
+                                + "receivables journal.");
                         entry.setThrown(ex);
                         Starter.logger.error(entry);
 
@@ -366,14 +331,33 @@ public class LoadBookerWizardPanelProvider extends WizardPanelProvider
 
         loads.addNew(load);
         
+        // The stops, the receivable and the load are saved together, or not
+        //+ at all.
+        UnitOfWork work = new UnitOfWork();
+        stops.stage(work);
+        
+        if ( receivables != null )
+            receivables.stage(work);
+        
+        loads.stage(work);
+        
         try {
-            loads.close();
-        } catch ( DataStoreException ex ) {
-            entry.setMessage("An error occurred accessing the loads database.");
+            work.commit();
+        } catch ( IOException ex ) {
+            entry.setMessage("The load could not be booked.");
             entry.setThrown(ex);
             Starter.logger.error(entry);
 
-            MessageBox.showError(ex, "Stops Database Error");
+            MessageBox.showError(ex, "Loads Database Error");
+            return null;
+        }
+        
+        if ( starting ) {
+            Starter.props.setProperty("load.current", load.getTrip());
+            Starter.props.setPropertyAsInt("stop.count", 
+                    load.getStopCount() * 2);
+            Starter.props.setPropertyAsInt("load.stop", 0);
+            Starter.props.flush();
         }
         
         // Now, we need to see if the user is currently on
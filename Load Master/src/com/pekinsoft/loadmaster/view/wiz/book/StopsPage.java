@@ -38,22 +38,40 @@
  *  Oct 10, 2020  Sean Carrick        Finally worked out getting the stops into
  *                                    the summary table. This means that they
  *                                    are now available for saving to file.
+ *  Oct 19, 2026  Sean Carrick        Keeps the stops as StopModel objects shown
+ *                                    through a LazyTableModel, instead of
+ *                                    parsing them back out of the table.
+ *  Oct 19, 2026  Sean Carrick        Checks each stop's city and state against
+ *                                    its Zip Code.
+ *  Oct 19, 2026  Sean Carrick        Puts the miles estimated from the stops'
+ *                                    Zip Codes into the wizard data.
+ *  Oct 19, 2026  Sean Carrick        Checks each stop's appointment against
+ *                                    the open stops of the other loads, and
+ *                                    the load's stops against one another.
  * *****************************************************************************
  */
 
 package com.pekinsoft.loadmaster.view.wiz.book;
 
 import com.pekinsoft.loadmaster.Starter;
+import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.err.InvalidTimeException;
 import com.pekinsoft.loadmaster.model.CustomerModel;
 import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.sys.AppointmentIndex;
+import com.pekinsoft.loadmaster.sys.MileageEngine;
+import com.pekinsoft.loadmaster.sys.PostalDatabase;
+import com.pekinsoft.loadmaster.utils.MessageBox;
 import com.pekinsoft.loadmaster.view.CustomerSelector;
+import com.pekinsoft.loadmaster.view.LazyTableModel;
 import java.awt.Component;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
-import javax.swing.table.DefaultTableModel;
 import org.netbeans.spi.wizard.WizardController;
 import org.netbeans.spi.wizard.WizardPage;
 
@@ -80,6 +98,9 @@ public class StopsPage extends WizardPage {
     private int stopNumber;
     private StopModel stop;
     private CustomerModel c;
+    private final ArrayList<StopModel> stops;
+    private final HashMap<Long, CustomerModel> customers;
+    private LazyTableModel<StopModel> stopsModel;
     
     private CustomerSelector dlg;
     
@@ -100,7 +121,11 @@ public class StopsPage extends WizardPage {
 
     //<editor-fold defaultstate="collapsed" desc="Constructor(s)">
     public StopsPage () {
+        stops = new ArrayList<>();
+        customers = new HashMap<>();
+        
         initComponents();
+        showStops();
         setForwardNavigationMode(WizardController.MODE_CAN_FINISH);
     }
     //</editor-fold>
@@ -199,6 +224,72 @@ public class StopsPage extends WizardPage {
         );
     }// </editor-fold>                        
 
+    /**
+     * Shows the stops entered on this page in the stops table, which reads
+     * each cell from the stops as it is painted.
+     */
+    private void showStops() {
+        SimpleDateFormat fmt = new SimpleDateFormat("MM/dd/yyyy");
+        
+        stopsModel = new LazyTableModel<StopModel>(stops)
+                .addColumn("Stop #", Integer.class, StopModel::getStopNumber)
+                .addColumn("Customer ID", Long.class, StopModel::getCustomer)
+                .addColumn("Company Name", String.class, 
+                        s -> customers.get(s.getCustomer()).getCompany())
+                .addColumn("Location", String.class, s -> {
+                    CustomerModel cust = customers.get(s.getCustomer());
+                    return cust.getCity() + ", " + cust.getState();
+                })
+                .addColumn("Early Date", String.class, 
+                        s -> fmt.format(s.getEarlyDate()))
+                .addColumn("Early Time", String.class, StopModel::getEarlyTime)
+                .addColumn("Late Date", String.class, 
+                        s -> fmt.format(s.getLateDate()))
+                .addColumn("Late Time", String.class, StopModel::getLateTime);
+        stopsTable.setModel(stopsModel);
+        
+        stopsTable.getColumnModel().getColumn(5).setResizable(false);
+        stopsTable.getColumnModel().getColumn(5).setPreferredWidth(10);
+        stopsTable.getColumnModel().getColumn(6).setResizable(false);
+        stopsTable.getColumnModel().getColumn(6).setPreferredWidth(25);
+        stopsTable.getColumnModel().getColumn(7).setResizable(false);
+        stopsTable.getColumnModel().getColumn(7).setPreferredWidth(25);
+    }
+    
+    /**
+     * Fills in a customer's missing city or state from its Zip Code, or
+     * warns when they do not agree with it, so that a stop is not booked to
+     * the wrong place.
+     */
+    private void checkPostalCode(CustomerModel cust) {
+        PostalDatabase.Place place;
+        
+        try {
+            place = PostalDatabase.getInstance().lookup(cust.getZip());
+        } catch ( DataStoreException ex ) {
+            entry.setMessage(ex.getMessage());
+            entry.setThrown(ex);
+            entry.setSourceMethodName("checkPostalCode");
+            entry.setParameters(null);
+            Starter.logger.error(entry);
+            return;
+        }
+        
+        if ( place == null )
+            return;
+        
+        if ( cust.getCity() == null || cust.getCity().isBlank() )
+            cust.setCity(place.getCity());
+        if ( cust.getState() == null || cust.getState().isBlank() )
+            cust.setState(place.getState());
+        
+        if ( !place.matches(cust.getCity(), cust.getState()) )
+            MessageBox.showWarning(cust.getCompany() + " is listed in " 
+                    + cust.getCity() + ", " + cust.getState() + ", but Zip "
+                    + "Code " + place.getCode() + " is in " + place + ".", 
+                    "Check Stop Location");
+    }
+    
     private void addButtonActionPerformed(java.awt.event.ActionEvent evt) {                                          
         dlg = new CustomerSelector(null, true);
         dlg.pack();
@@ -206,25 +297,12 @@ public class StopsPage extends WizardPage {
         
         if ( dlg != null ) {
              
-            SimpleDateFormat fmt = new SimpleDateFormat("MM/dd/yyyy");
-            String eDate = fmt.format(dlg.getEarlyDate());
-            String lDate = fmt.format(dlg.getLateDate());
-            DefaultTableModel model = (DefaultTableModel)stopsTable.getModel();
             c = dlg.getSelectedCustomer();
-            Object[] row = {++stopNumber,       // Stop Number
-                            c.getId(),          // Customer ID
-                            c.getCompany(),     // Company name
-                            c.getCity() + ", " + c.getState(),
-                            eDate,              // Early date
-                            dlg.getEarlyTime(), // Early time
-                            lDate,              // Late date
-                            dlg.getLateTime()}; // Late time
-            model.addRow(row);
-            
-            stopsTable.setModel(model);
-            putWizardData(stopsTable, row);
+            checkPostalCode(c);
+            customers.put(c.getId(), c);
             
             stop = new StopModel();
+            stop.setStopNumber(++stopNumber);
             stop.setEarlyDate(dlg.getEarlyDate());
             stop.setLateDate(dlg.getLateDate());
             stop.setCustomer(c.getId());
@@ -248,51 +326,99 @@ public class StopsPage extends WizardPage {
                 Starter.logger.error(entry);
             }
             
+            stops.add(stop);
+            stopsModel.fireTableRowsInserted(stops.size() - 1, 
+                    stops.size() - 1);
+            
+            warnOfConflicts(stop);
             validateContents(stopsTable, null);
         }
     }                                         
     //</editor-fold>
 
+    /**
+     * Checks the stops against the open stops of the other loads, and against
+     * one another.
+     */
+    private List<AppointmentIndex.Conflict> checkAppointments() {
+        try {
+            return AppointmentIndex.getInstance().check(
+                    getWizardData("trip").toString(), stops, customers);
+        } catch ( DataStoreException ex ) {
+            entry.setMessage(ex.getMessage());
+            entry.setThrown(ex);
+            entry.setSourceMethodName("checkAppointments");
+            entry.setParameters(null);
+            Starter.logger.error(entry);
+            
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Warns the user when a stop just added clashes with the stops of the
+     * other open loads. The load's own stops that cannot all be made are
+     * reported by {@link #validateContents(Component, Object) 
+     * validateContents} instead.
+     */
+    private void warnOfConflicts(StopModel added) {
+        StringBuilder msg = new StringBuilder();
+        
+        for ( AppointmentIndex.Conflict conflict : checkAppointments() )
+            if ( conflict.getStop() == added.getStopNumber() 
+                    && !conflict.isInfeasible() )
+                msg.append(conflict.getMessage()).append("\n");
+        
+        if ( msg.length() > 0 )
+            MessageBox.showWarning(msg.toString().trim(), 
+                    "Appointment Conflict");
+    }
+    
     @Override
     protected String validateContents(Component comp, Object o) {
-        if ( stopsTable.getRowCount() < 2 )
+        if ( stops.size() < 2 )
             return "A minimum of 2 stops are required.";
         
+        for ( AppointmentIndex.Conflict conflict : checkAppointments() )
+            if ( conflict.isInfeasible() )
+                return conflict.getMessage();
+        
         // If we get here, then a minimum of two stops have been entered, so we
-        //+ can store the customer IDs to the wizard data.
-        for (int x = 0; x < stopsTable.getRowCount(); x++ ) {
-            long stopNum = Long.valueOf(stopsTable.getValueAt(x, 0).toString());
-            
-            StopModel row = new StopModel();
-            row.setCustomer(Long.valueOf(stopsTable.getValueAt(x, 1).toString()));
+        //+ can store the stops to the wizard data. The trip number is set
+        //+ again in case it was changed on an earlier page.
+        for ( StopModel row : stops ) {
             row.setTripNumber(getWizardData("trip").toString());
-            row.setStopNumber(Integer.valueOf(stopsTable.getValueAt(x, 0)
-                    .toString()));
-            
-            SimpleDateFormat dates = new SimpleDateFormat("MM/dd/yyyy");
-            
-            try {
-                row.setEarlyDate(dates.parse(stopsTable.getValueAt(x, 4)
-                        .toString()));
-                row.setEarlyTime(stopsTable.getValueAt(x, 5).toString());
-                row.setLateDate(dates.parse(stopsTable.getValueAt(x, 6)
-                        .toString()));
-                row.setLateTime(stopsTable.getValueAt(x, 7).toString());
-            } catch ( ParseException | InvalidTimeException ex ) {
-                entry.setMessage(ex.getMessage());
-                entry.setThrown(ex);
-                entry.setSourceMethodName("connect");
-                entry.setParameters(null);
-                Starter.logger.error(entry);
-            }
             
-            putWizardData("stop" + stopNum, row);
+            putWizardData("stop" + row.getStopNumber(), row);
         }
         
+        // The miles estimated from the stops' Zip Codes are shown beside the
+        //+ dispatched miles on the summary page.
+        putWizardData("estimated.miles", estimateMiles());
+        
         // We also need to store our stops count to the settings file for later
         //+ use.
-        Starter.props.setPropertyAsInt("stop.count", stopsTable.getRowCount());
+        Starter.props.setPropertyAsInt("stop.count", stops.size());
         
         return null;
     }
+    
+    private int estimateMiles() {
+        ArrayList<String> zips = new ArrayList<>();
+        
+        for ( StopModel row : stops )
+            zips.add(customers.get(row.getCustomer()).getZip());
+        
+        try {
+            return MileageEngine.getInstance().getMiles(zips);
+        } catch ( DataStoreException ex ) {
+            entry.setMessage(ex.getMessage());
+            entry.setThrown(ex);
+            entry.setSourceMethodName("estimateMiles");
+            entry.setParameters(null);
+            Starter.logger.error(entry);
+            
+            return MileageEngine.UNKNOWN;
+        }
+    }
 }
@@ -37,6 +37,9 @@
  *  Oct 12, 2020 Jiří Kovalský        Fixed incomplete <br> elements, typo in
  *                                    identifier of selected broker and removed
  *                                    redundant <table> element.
+ *  Oct 19, 2026  Sean Carrick        Shows the miles estimated from the stops
+ *                                    beside the dispatched miles, and flags
+ *                                    dispatched miles that are far from them.
  * *****************************************************************************
  */
 
@@ -47,6 +50,7 @@ import com.pekinsoft.loadmaster.controller.CustomerCtl;
 import com.pekinsoft.loadmaster.err.DataStoreException;
 import com.pekinsoft.loadmaster.model.CustomerModel;
 import com.pekinsoft.loadmaster.model.StopModel;
+import com.pekinsoft.loadmaster.sys.MileageEngine;
 import java.text.SimpleDateFormat;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -110,7 +114,9 @@ public class SummaryPage extends WizardPage {
         summary.append(map.get("truck.pay").toString());
         summary.append("</td></tr><tr><td>Loaded Miles</td><td>");
         summary.append(map.get("miles").toString());
-        summary.append("</td></tr><tr><td>Commodity</td><td>");
+        summary.append("</td></tr>");
+        appendEstimatedMiles(summary, map);
+        summary.append("<tr><td>Commodity</td><td>");
         summary.append(map.get("commodity").toString());
         summary.append("</td></tr></tbody>");
         summary.append("<p>Other Load Information:<br><br>");
@@ -236,6 +242,37 @@ public class SummaryPage extends WizardPage {
         summaryEditor.select(0, 0);
     }
     //</editor-fold>
+    
+    //<editor-fold defaultstate="collapsed" desc="Private Instance Methods">
+    /**
+     * Adds the miles estimated from the stops' Zip Codes to the load table,
+     * with a warning when the dispatched miles differ from them by more than
+     * the `mileage.tolerance` property, as a percentage, which is 10 if it is
+     * not set.
+     */
+    private void appendEstimatedMiles(StringBuilder summary, Map<?, ?> map) {
+        Object value = map.get("estimated.miles");
+        int estimated = value == null ? MileageEngine.UNKNOWN 
+                : Integer.parseInt(value.toString());
+        
+        if ( estimated <= 0 )
+            return;
+        
+        int miles = Integer.parseInt(map.get("miles").toString());
+        int tolerance = Starter.props.getPropertyAsInt("mileage.tolerance", 
+                "10");
+        
+        summary.append("<tr><td>Estimated Miles</td><td>");
+        summary.append(estimated);
+        
+        if ( Math.abs(miles - estimated) * 100L > (long) estimated * tolerance ) 
+            summary.append(" <strong style=\"color: red\">Check the loaded ")
+                    .append("miles: they are more than ").append(tolerance)
+                    .append("% off the estimate.</strong>");
+        
+        summary.append("</td></tr>");
+    }
+    //</editor-fold>
 
     /**
      * This method is called from within the constructor to initialize the form.
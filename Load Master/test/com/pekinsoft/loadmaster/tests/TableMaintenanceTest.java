@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2020 PekinSOFT Systems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * *****************************************************************************
+ * *****************************************************************************
+ *  Project    :   Load_Master
+ *  Class      :   TableMaintenanceTest.java
+ *  Author     :   Sean Carrick
+ *  Created    :   Oct 19, 2026 @ 03:12:40 PM
+ *  Modified   :   Oct 19, 2026
+ *
+ *  Purpose: Checks that the records the program writes itself are read back
+ *           and validated as whole records.
+ *
+ *  Revision History:
+ *
+ *  WHEN          BY                  REASON
+ *  ------------  ------------------- ------------------------------------------
+ *  Oct 19, 2026  Sean Carrick        Initial creation.
+ * *****************************************************************************
+ */
+package com.pekinsoft.loadmaster.tests;
+
+import com.pekinsoft.loadmaster.controller.BrokerCtl;
+import com.pekinsoft.loadmaster.controller.LoadCtl;
+import com.pekinsoft.loadmaster.enums.DataTables;
+import com.pekinsoft.loadmaster.model.BrokerModel;
+import com.pekinsoft.loadmaster.model.LoadModel;
+import com.pekinsoft.loadmaster.sys.TableMaintenance;
+import java.util.Date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * Checks `TableMaintenance.split` and `validate` against lines as the
+ * controllers write them, with optional fields left blank.
+ *
+ * @author Sean Carrick
+ */
+public class TableMaintenanceTest {
+
+    @Test
+    public void testSplitKeepsTrailingEmptyFields() {
+        String[] fields = TableMaintenance.split(DataTables.BROKERS,
+                "1~ACME~1 Main~~Chicago~IL~60601~Bob~555-1212~~");
+
+        assertEquals(11, fields.length);
+        assertEquals("", fields[3]);
+        assertEquals("", fields[10]);
+    }
+
+    @Test
+    public void testBrokerWithBlankSuiteFaxAndEmail() {
+        BrokerModel broker = new BrokerModel();
+        broker.setId(1L);
+        broker.setCompany("ACME");
+        broker.setStreet("1 Main");
+        broker.setCity("Chicago");
+        broker.setState("IL");
+        broker.setZip("60601");
+        broker.setContact("Bob");
+        broker.setPhone("555-1212");
+
+        assertValid(DataTables.BROKERS, BrokerCtl.buildRecordLine(broker));
+    }
+
+    @Test
+    public void testLoadWithBlankCommodityAndBol() {
+        LoadModel load = new LoadModel();
+        load.setOrder("O1");
+        load.setTrip("T1");
+        load.setDispatch(new Date());
+        load.setCommodity("");
+        load.setBol("");
+        load.setBroker(1L);
+
+        assertValid(DataTables.LOADS, LoadCtl.buildRecordLine(load));
+    }
+
+    @Test
+    public void testFuelWithBlankNotes() {
+        assertValid(DataTables.FUEL, "1792432856690~10/19/2026~120500~"
+                + "Pilot #123~100.000~3.899~false~0.000~0.000~");
+    }
+
+    @Test
+    public void testLedgerWithBlankCodeAndDescription() {
+        assertValid(DataTables.LEDGER,
+                "10/19/2026~~~10040~10000~250.00~true~true");
+    }
+
+    @Test
+    public void testBlankKeyFieldIsRejected() {
+        assertNotNull(TableMaintenance.validate(DataTables.LOADS,
+                TableMaintenance.split(DataTables.LOADS, "O1~~0~0~10/19/2026~"
+                        + "1000.00~0~0~0~Steel~false~false~false~false~false~"
+                        + "false~false~false~1~~false~false")));
+    }
+
+    @Test
+    public void testShortLineIsRejected() {
+        assertNotNull(TableMaintenance.validate(DataTables.BROKERS,
+                TableMaintenance.split(DataTables.BROKERS, "1~ACME~1 Main")));
+    }
+
+    private static void assertValid(DataTables table, String line) {
+        assertNull(line, TableMaintenance.validate(table,
+                TableMaintenance.split(table, line)));
+    }
+
+}